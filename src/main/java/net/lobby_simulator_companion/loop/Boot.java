@@ -4,6 +4,8 @@ import net.lobby_simulator_companion.loop.config.AppProperties;
 import net.lobby_simulator_companion.loop.domain.Connection;
 import net.lobby_simulator_companion.loop.service.ConnectionManager;
 import net.lobby_simulator_companion.loop.service.GameEvent;
+import net.lobby_simulator_companion.loop.service.LoopDataService;
+import net.lobby_simulator_companion.loop.service.LoopDataService.DataServiceEvent;
 import net.lobby_simulator_companion.loop.service.SnifferListener;
 import net.lobby_simulator_companion.loop.ui.MainWindow;
 import net.lobby_simulator_companion.loop.util.FileUtil;
@@ -19,10 +21,12 @@ import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.net.InetAddress;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
 
 /**
  * @author PsiLupan
@@ -32,7 +36,7 @@ import java.nio.file.Path;
 public class Boot {
 
     private static Logger log;
-    private static MainWindow ui;
+    private static volatile MainWindow ui;
 
     private static ConnectionManager connectionManager;
 
@@ -55,11 +59,27 @@ public class Boot {
         log = LoggerFactory.getLogger(Boot.class);
     }
 
+    /**
+     * Independent startup tasks run concurrently (see {@link StartupGraph}).
+     */
     private static void init() throws Exception {
         log.info("Initializing...");
-        Factory.appProperties();
-        initUi();
 
+        new StartupGraph()
+                .add("properties", () -> {
+                    Factory.appProperties();
+                    Factory.settings();
+                })
+                .add("sanity", Boot::doSanityCheck, "properties")
+                .add("ui", Boot::initUi, "properties")
+                .add("tray", Boot::setupTray, "sanity")
+                .add("pcap", Boot::loadPcap, "properties")
+                .add("data", Boot::startServices, "properties")
+                .add("network", Boot::initNetwork, "ui", "sanity", "pcap")
+                .execute();
+    }
+
+    private static void initNetwork() throws Exception {
         log.info("Setting up network interface...");
         if (Factory.settings().getBoolean("network.interface.autoload", false)) {
             initServicesAndEnableUi();
@@ -74,7 +94,6 @@ public class Boot {
         }
     }
 
-
     private static void initServicesAndEnableUi() throws IOException, NotOpenException, PcapNativeException {
         if (!Factory.settings().getBoolean("network.interface.enabled", true)) {
             log.info("Lobby region detection is disabled.");
@@ -85,7 +104,6 @@ public class Boot {
                 initConnectionManager(localAddr);
             }
         }
-        startServices();
         SwingUtilities.invokeLater(() -> {
             Factory.mainWindow().start();
             log.info(Factory.appProperties().get("app.name.short") + " is ready.");
@@ -94,12 +112,21 @@ public class Boot {
 
     private static void initUi() throws Exception {
         log.info("Starting UI...");
-        SwingUtilities.invokeLater(() -> {
+        SwingUtilities.invokeAndWait(() -> {
             ui = Factory.mainWindow();
             ui.addPropertyChangeListener(MainWindow.PROPERTY_EXIT_REQUEST, evt -> exitApplication(0));
+            log.info("UI shown {} ms after launch.", getMillisSinceLaunch());
         });
-        doSanityCheck();
-        setupTray();
+    }
+
+    /**
+     * Loading the native library takes a while, so it is done along with the rest of the startup
+     * (the result is kept for when the network interface is set up).
+     */
+    private static void loadPcap() {
+        if (Factory.settings().getBoolean("network.interface.enabled", true)) {
+            Sanity.checkPCap();
+        }
     }
 
     private static void initConnectionManager(InetAddress localAddr) {
@@ -119,6 +146,7 @@ public class Boot {
 
                     @Override
                     public void notifyPingUpdate(int ping) {
+                        Factory.gameStateManager().fireEvent(GameEvent.PING_UPDATED, ping);
                     }
 
                     @Override
@@ -147,12 +175,26 @@ public class Boot {
         }
     }
 
-    private static void startServices() throws IOException {
-        Factory.loopDataService().start();
-        SwingUtilities.invokeLater(() -> Factory.statsPanel().refreshStatsOnScreen());
+    /**
+     * Data is loaded in the background; the stats panel shows a placeholder until the stored stats are available.
+     */
+    private static void startServices() throws Exception {
+        LoopDataService dataService = Factory.loopDataService();
+        dataService.registerListener(DataServiceEvent.SNAPSHOT_LOADED, evt -> SwingUtilities.invokeLater(() ->
+                log.info("Stats shown {} ms after launch.", getMillisSinceLaunch())));
+
+        try {
+            dataService.start().get();
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to load data: " + e.getCause().getMessage(), e.getCause());
+        }
 //        Factory.dbdLogMonitor().start();
     }
 
+    private static long getMillisSinceLaunch() {
+        return System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+    }
+
     // TODO: separate tray icon
     private static void setupTray() throws AWTException, IOException {
         final AppProperties appProperties = Factory.appProperties();
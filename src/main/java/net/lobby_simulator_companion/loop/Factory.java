@@ -5,8 +5,16 @@ import lombok.extern.slf4j.Slf4j;
 import net.lobby_simulator_companion.loop.config.AppProperties;
 import net.lobby_simulator_companion.loop.config.LoopGsonFactory;
 import net.lobby_simulator_companion.loop.config.Settings;
+import net.lobby_simulator_companion.loop.repository.CachingServerDao;
+import net.lobby_simulator_companion.loop.repository.FileLoopDataStore;
+import net.lobby_simulator_companion.loop.repository.IpRangeServerDao;
+import net.lobby_simulator_companion.loop.repository.IpRangeTable;
 import net.lobby_simulator_companion.loop.repository.IpWhoIsClient;
+import net.lobby_simulator_companion.loop.repository.JdbcLoopDataStore;
+import net.lobby_simulator_companion.loop.repository.LoopDataStore;
 import net.lobby_simulator_companion.loop.repository.LoopRepository;
+import net.lobby_simulator_companion.loop.repository.MappedPlayerStore;
+import net.lobby_simulator_companion.loop.repository.MatchHistoryStore;
 import net.lobby_simulator_companion.loop.repository.ServerDao;
 import net.lobby_simulator_companion.loop.repository.SteamProfileDao;
 import net.lobby_simulator_companion.loop.service.*;
@@ -19,12 +27,16 @@ import net.lobby_simulator_companion.loop.service.plugin.PluginManager;
 import net.lobby_simulator_companion.loop.ui.*;
 import net.lobby_simulator_companion.loop.ui.common.UiEventOrchestrator;
 import net.lobby_simulator_companion.loop.ui.startup.PluginLoadUi;
+import net.lobby_simulator_companion.loop.util.FileUtil;
 import net.lobby_simulator_companion.loop.util.event.EventSupport;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.InetAddress;
-import java.util.HashMap;
+import java.nio.file.Paths;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 import static net.lobby_simulator_companion.loop.util.LangUtil.unchecked;
@@ -40,7 +52,15 @@ import static net.lobby_simulator_companion.loop.util.LangUtil.unchecked;
 public final class Factory {
 
     private static final String PROPERTY__WRITE_ENCRYPTED = "storage.write.encrypted";
-    private static final Map<Class, Object> instances = new HashMap<>();
+    private static final String STORAGE_BACKEND__JDBC = "jdbc";
+    private static final Map<Class<?>, Object> instances = new ConcurrentHashMap<>();
+
+    /**
+     * Components are created under a lock of their own, so that independent components can be created concurrently
+     * (while a component is created, the ones it depends on are created too, so a single lock would serialize
+     * everything).
+     */
+    private static final Map<Class<?>, Object> creationLocks = new ConcurrentHashMap<>();
 
     private Factory() {
         throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
@@ -51,12 +71,17 @@ public final class Factory {
         T instance = clazz.cast(instances.get(clazz));
 
         if (instance == null) {
-            try {
-                instance = objFactory.get();
-                instances.put(clazz, instance);
-            } catch (Exception e) {
-                log.error("Failed to instantiate class.", e);
-                throw new RuntimeException("Failed to instantiate class.");
+            synchronized (creationLocks.computeIfAbsent(clazz, c -> new Object())) {
+                instance = clazz.cast(instances.get(clazz));
+                if (instance == null) {
+                    try {
+                        instance = objFactory.get();
+                        instances.put(clazz, instance);
+                    } catch (Exception e) {
+                        log.error("Failed to instantiate class.", e);
+                        throw new RuntimeException("Failed to instantiate class.");
+                    }
+                }
             }
         }
 
@@ -82,9 +107,59 @@ public final class Factory {
                 () -> new LoopRepository(appProperties(), gson()));
     }
 
+    public static MappedPlayerStore playerStore() {
+        return getInstance(MappedPlayerStore.class, unchecked(() -> {
+            AppProperties properties = appProperties();
+            File baseFile = Paths.get(properties.get("app.home")).resolve(properties.get("storage.players.file"))
+                    .toFile();
+
+            // the store is modified in place, so it is backed up (copied) once per session, before opening it
+            int backupGenerations = properties.getInt("storage.backup.generations");
+            FileUtil.copyToBackup(MappedPlayerStore.getIndexFile(baseFile), backupGenerations);
+            FileUtil.copyToBackup(MappedPlayerStore.getDataFile(baseFile), backupGenerations);
+
+            return new MappedPlayerStore(baseFile);
+        }));
+    }
+
+    public static MatchHistoryStore matchHistoryStore() {
+        return getInstance(MatchHistoryStore.class, unchecked(() -> {
+            AppProperties properties = appProperties();
+            return new MatchHistoryStore(
+                    Paths.get(properties.get("app.home")).resolve(properties.get("storage.history.dir")).toFile());
+        }));
+    }
+
+    public static LoopDataStore loopDataStore() {
+        return getInstance(LoopDataStore.class, unchecked(() ->
+                STORAGE_BACKEND__JDBC.equalsIgnoreCase(appProperties().get("storage.backend")) ?
+                        jdbcLoopDataStore() : fileLoopDataStore()));
+    }
+
+    private static FileLoopDataStore fileLoopDataStore() {
+        return getInstance(FileLoopDataStore.class,
+                () -> new FileLoopDataStore(loopRepository(), playerStore(), matchHistoryStore()));
+    }
+
+    /**
+     * The first time the database is used, the data files (if any) are imported into it.
+     */
+    private static JdbcLoopDataStore jdbcLoopDataStore() throws IOException {
+        AppProperties properties = appProperties();
+        String dbPath = Paths.get(properties.get("app.home")).resolve(properties.get("storage.jdbc.file")).toString();
+        JdbcLoopDataStore store = new JdbcLoopDataStore(
+                String.format(properties.get("storage.jdbc.url_template"), dbPath));
+
+        if (!store.hasSnapshot() && loopRepository().exists()) {
+            log.info("Importing data files into the database...");
+            LoopDataStore.copy(fileLoopDataStore(), store);
+        }
+
+        return store;
+    }
+
     public static LoopDataService loopDataService() {
-        return getInstance(LoopDataService.class, unchecked(
-                () -> new LoopDataService(loopRepository())));
+        return getInstance(LoopDataService.class, () -> new LoopDataService(Factory::loopDataStore));
     }
 
     public static PluginLoadUi pluginLoadUi() {
@@ -105,8 +180,26 @@ public final class Factory {
 
     public static ServerDao serverDao() {
         return getInstance(ServerDao.class, () -> {
-            String serviceUrlPrefix = appProperties().get("dao.server.ipwhois.url_prefix");
-            return new IpWhoIsClient(serviceUrlPrefix);
+            AppProperties properties = appProperties();
+            ServerDao remoteServerDao = new CachingServerDao(
+                    new IpWhoIsClient(properties.get("dao.server.ipwhois.url_prefix")),
+                    Paths.get(properties.get("app.home")).resolve(properties.get("dao.server.cache.file")).toFile(),
+                    LoopGsonFactory.gson(false),
+                    properties.getInt("dao.server.cache.capacity"),
+                    TimeUnit.HOURS.toMillis(properties.getInt("dao.server.cache.ttl_hours")));
+
+            // servers are located offline when the user provides a range database; the online service is the fallback
+            File ipRangesFile = Paths.get(properties.get("app.home")).resolve(properties.get("dao.server.ranges.file"))
+                    .toFile();
+            if (ipRangesFile.exists()) {
+                try {
+                    return new IpRangeServerDao(IpRangeTable.open(ipRangesFile), remoteServerDao);
+                } catch (IOException e) {
+                    log.error("Failed to open the IP range database. Servers will be located online.", e);
+                }
+            }
+
+            return remoteServerDao;
         });
     }
 
@@ -198,7 +291,7 @@ public final class Factory {
     public static StatsPanel statsPanel() {
         return getInstance(StatsPanel.class, () ->
                 new StatsPanel(settings(), loopDataService(), gameStateManager(), uiEventOrchestrator(),
-                        periodAggregateStatsPanel(), rollingAggregateStatsPanel()));
+                        periodAggregateStatsPanel(), rollingAggregateStatsPanel(), queueStatsPanel()));
     }
 
     public static PeriodAggregateStatsPanel periodAggregateStatsPanel() {
@@ -211,17 +304,21 @@ public final class Factory {
                 new RollingAggregateStatsPanel(settings(), loopDataService(), gameStateManager()));
     }
 
+    public static QueueStatsPanel queueStatsPanel() {
+        return getInstance(QueueStatsPanel.class, () ->
+                new QueueStatsPanel(settings(), loopDataService(), gameStateManager()));
+    }
+
 
     public static PluginManager pluginManager() {
-        return getInstance(PluginManager.class, unchecked(
-                () -> new PluginManager(appProperties())));
+        return getInstance(PluginManager.class, () -> new PluginManager(appProperties()));
     }
 
     public static Gson gson() {
         return getInstance(Gson.class, () -> LoopGsonFactory.gson(appProperties().getBoolean(PROPERTY__WRITE_ENCRYPTED)));
     }
 
-    public static void setInstance(Class type, Object instance) {
+    public static <T> void setInstance(Class<T> type, T instance) {
         instances.put(type, instance);
     }
 
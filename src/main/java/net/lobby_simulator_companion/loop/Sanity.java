@@ -11,6 +11,7 @@ import java.awt.*;
 public class Sanity {
 
     private static boolean headless = false;
+    private static Boolean pcapAvailable;
 
     public static boolean check() {
         boolean[] checks = {
@@ -68,17 +69,21 @@ public class Sanity {
     }
 
     /**
-     * Check the WinPcap lib installation.
+     * Check the WinPcap lib installation (loading the native library only the first time).
      */
-    public static boolean checkPCap() {
+    public static synchronized boolean checkPCap() {
+        if (pcapAvailable != null) {
+            return pcapAvailable;
+        }
         try {
             log.info("Pcap info: {}", Pcaps.libVersion());
+            pcapAvailable = true;
         } catch (Error e) {
             log.warn("Failed to initialize PCap library. Server location identification is disabled. "
                     + "Install NPCap or WinPCap to for this feature to be enabled.", e);
-            return false;
+            pcapAvailable = false;
         }
-        return true;
+        return pcapAvailable;
     }
 
     private static void message(String out) {
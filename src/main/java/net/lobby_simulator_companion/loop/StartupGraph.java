@@ -0,0 +1,137 @@
+package net.lobby_simulator_companion.loop;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the startup tasks, each one as soon as the tasks it depends on are done, so that independent tasks run
+ * concurrently.
+ * <p>
+ * Dependencies must be added before the tasks depending on them, so the graph cannot have cycles.
+ * When a task fails, the tasks depending on it are skipped; the rest still run.
+ *
+ * @author NickyRamone
+ */
+@Slf4j
+public class StartupGraph {
+
+    @FunctionalInterface
+    public interface Task {
+        void run() throws Exception;
+    }
+
+    private final ExecutorService executor;
+    private final CompletableFuture<Void> start = new CompletableFuture<>();
+    private final Map<String, CompletableFuture<Void>> tasks = new LinkedHashMap<>();
+    private final Map<String, Long> durations = new ConcurrentHashMap<>();
+
+
+    public StartupGraph() {
+        this(Math.max(2, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public StartupGraph(int threads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "startup-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+
+    public StartupGraph add(String name, Task task, String... dependencies) {
+        if (tasks.containsKey(name)) {
+            throw new IllegalArgumentException("Duplicate startup task: " + name);
+        }
+        CompletableFuture<?>[] dependencyFutures = Arrays.stream(dependencies)
+                .map(dependency -> Optional.ofNullable(tasks.get(dependency))
+                        .orElseThrow(() -> new IllegalArgumentException("Unknown startup task: " + dependency)))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture<Void> ready = dependencyFutures.length == 0 ?
+                start : CompletableFuture.allOf(dependencyFutures);
+
+        tasks.put(name, ready.thenRunAsync(() -> run(name, task), executor));
+
+        return this;
+    }
+
+    /**
+     * Runs every task and waits for all of them to finish.
+     *
+     * @throws Exception The failure of the first task (in the order they were added) that failed.
+     */
+    public void execute() throws Exception {
+        Instant startTime = Instant.now();
+        start.complete(null);
+
+        try {
+            CompletableFuture.allOf(tasks.values().toArray(new CompletableFuture<?>[0]))
+                    .exceptionally(e -> null)
+                    .join();
+        } finally {
+            executor.shutdown();
+        }
+
+        long elapsed = Duration.between(startTime, Instant.now()).toMillis();
+        log.info("Startup finished in {} ms (tasks: {}).", elapsed, tasks.entrySet().stream()
+                .map(e -> e.getKey() + "=" + Optional.ofNullable(durations.get(e.getKey()))
+                        .map(d -> d + "ms" + (e.getValue().isCompletedExceptionally() ? " (failed)" : ""))
+                        .orElse("skipped"))
+                .collect(Collectors.joining(", ")));
+
+        for (CompletableFuture<Void> task : tasks.values()) {
+            if (task.isCompletedExceptionally()) {
+                try {
+                    task.join();
+                } catch (CompletionException e) {
+                    throw unwrap(e);
+                }
+            }
+        }
+    }
+
+    public Optional<Long> getDuration(String taskName) {
+        return Optional.ofNullable(durations.get(taskName));
+    }
+
+
+    private void run(String name, Task task) {
+        Instant startTime = Instant.now();
+        log.debug("Starting startup task: {}", name);
+        try {
+            task.run();
+        } catch (Exception e) {
+            log.error("Startup task failed: {}", name, e);
+            throw new CompletionException(e);
+        } finally {
+            durations.put(name, Duration.between(startTime, Instant.now()).toMillis());
+        }
+    }
+
+    private static Exception unwrap(CompletionException e) {
+        Throwable cause = e;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+
+        return (Exception) cause;
+    }
+
+}
@@ -1,9 +1,13 @@
 package net.lobby_simulator_companion.loop.config;
 
+import com.google.gson.ExclusionStrategy;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import lombok.experimental.UtilityClass;
+import net.lobby_simulator_companion.loop.domain.KillerMatchIndex;
 import net.lobby_simulator_companion.loop.domain.MatchLog;
+import net.lobby_simulator_companion.loop.domain.stats.DurationHistogram;
+import net.lobby_simulator_companion.loop.domain.stats.HeavyHitters;
 import net.lobby_simulator_companion.loop.domain.stats.Stats;
 import net.lobby_simulator_companion.loop.util.gson.LocalDateTimeTypeAdapter;
 import net.lobby_simulator_companion.loop.util.gson.LowercaseEnumTypeAdapterFactory;
@@ -18,10 +22,15 @@ public class LoopGsonFactory {
 
 
     public Gson gson(boolean prettyJson) {
+        return gson(prettyJson, new ExclusionStrategy[0]);
+    }
+
+    public Gson gson(boolean prettyJson, ExclusionStrategy... exclusionStrategies) {
         GsonBuilder gsonBuilder = new GsonBuilder();
         if (prettyJson) {
             gsonBuilder.setPrettyPrinting();
         }
+        gsonBuilder.setExclusionStrategies(exclusionStrategies);
         gsonBuilder.enableComplexMapKeySerialization();
         configureTypeAdapters(gsonBuilder);
 
@@ -33,6 +42,12 @@ public class LoopGsonFactory {
         gsonBuilder.registerTypeAdapter(Stats.class, new Stats.Serializer());
         gsonBuilder.registerTypeAdapter(Stats.class, new Stats.Deserializer());
         gsonBuilder.registerTypeAdapter(MatchLog.class, new MatchLog.Deserializer());
+        gsonBuilder.registerTypeAdapter(DurationHistogram.class, new DurationHistogram.Serializer());
+        gsonBuilder.registerTypeAdapter(DurationHistogram.class, new DurationHistogram.Deserializer());
+        gsonBuilder.registerTypeAdapter(KillerMatchIndex.class, new KillerMatchIndex.Serializer());
+        gsonBuilder.registerTypeAdapter(KillerMatchIndex.class, new KillerMatchIndex.Deserializer());
+        gsonBuilder.registerTypeAdapter(HeavyHitters.class, new HeavyHitters.Serializer());
+        gsonBuilder.registerTypeAdapter(HeavyHitters.class, new HeavyHitters.Deserializer());
         gsonBuilder.registerTypeAdapterFactory(new LowercaseEnumTypeAdapterFactory());
     }
 
@@ -2,6 +2,7 @@ package net.lobby_simulator_companion.loop.domain;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import net.lobby_simulator_companion.loop.domain.stats.MatchNetworkStats;
 
 import java.net.InetAddress;
 
@@ -19,13 +20,17 @@ public class Connection {
     private final long created;
     private long lastSeen;
     private Integer latency;
+    /**
+     * Network quality since the connection was established (updated while it lasts).
+     */
+    private volatile MatchNetworkStats networkStats;
 
     public Connection(InetAddress localAddr, int localPort, InetAddress remoteAddr, int remotePort) {
         this(localAddr, localPort, remoteAddr, remotePort, System.currentTimeMillis());
     }
 
     private Connection(InetAddress localAddr, int localPort, InetAddress remoteAddr, int remotePort, long createdOn) {
-        this(localAddr, localPort, remoteAddr, remotePort, createdOn, createdOn, null);
+        this(localAddr, localPort, remoteAddr, remotePort, createdOn, createdOn, null, null);
     }
 
 }
@@ -0,0 +1,199 @@
+package net.lobby_simulator_companion.loop.domain;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonDeserializationContext;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Inverted index from killer player (Steam id) to the ids of the matches played against them.
+ * <p>
+ * Match ids are assigned in ascending order, so each posting list is stored as the gaps between consecutive ids,
+ * encoded as variable-length integers. Most gaps fit in one or two bytes.
+ *
+ * @author NickyRamone
+ */
+public class KillerMatchIndex {
+
+    private final Map<Long, PostingList> postingsBySteamId = new HashMap<>();
+
+
+    public void add(String steamId64, int matchId) {
+        parseSteamId(steamId64).ifPresent(steamId ->
+                postingsBySteamId.computeIfAbsent(steamId, k -> new PostingList()).add(matchId));
+    }
+
+    public void remove(String steamId64, int matchId) {
+        parseSteamId(steamId64).ifPresent(steamId -> {
+            PostingList postings = postingsBySteamId.get(steamId);
+            if (postings != null && postings.remove(matchId) && postings.size() == 0) {
+                postingsBySteamId.remove(steamId);
+            }
+        });
+    }
+
+    /**
+     * @return Ids of the matches played against the given player, in ascending order.
+     */
+    public int[] getMatchIds(String steamId64) {
+        return parseSteamId(steamId64)
+                .map(postingsBySteamId::get)
+                .map(PostingList::toArray)
+                .orElse(new int[0]);
+    }
+
+    public boolean isEmpty() {
+        return postingsBySteamId.isEmpty();
+    }
+
+    private static Optional<Long> parseSteamId(String steamId64) {
+        return Optional.ofNullable(steamId64)
+                .filter(NumberUtils::isDigits)
+                .map(Long::parseLong);
+    }
+
+
+    static final class PostingList {
+        private byte[] bytes = new byte[4];
+        private int byteCount;
+        private int size;
+        private int lastId;
+
+
+        void add(int matchId) {
+            if (size > 0 && matchId <= lastId) {
+                // out of order (should not happen, as ids are ascending): re-encode
+                int[] ids = toArray();
+                if (Arrays.binarySearch(ids, matchId) < 0) {
+                    int[] newIds = Arrays.copyOf(ids, ids.length + 1);
+                    newIds[ids.length] = matchId;
+                    Arrays.sort(newIds);
+                    encode(newIds);
+                }
+                return;
+            }
+
+            writeVarInt(matchId - lastId);
+            lastId = matchId;
+            size++;
+        }
+
+        boolean remove(int matchId) {
+            int[] ids = toArray();
+            int idx = Arrays.binarySearch(ids, matchId);
+            if (idx < 0) {
+                return false;
+            }
+
+            int[] newIds = new int[ids.length - 1];
+            System.arraycopy(ids, 0, newIds, 0, idx);
+            System.arraycopy(ids, idx + 1, newIds, idx, newIds.length - idx);
+            encode(newIds);
+
+            return true;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            int[] ids = new int[size];
+            int pos = 0;
+            int id = 0;
+
+            for (int i = 0; i < size; i++) {
+                int gap = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = bytes[pos++];
+                    gap |= (b & 0x7f) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0);
+
+                id += gap;
+                ids[i] = id;
+            }
+
+            return ids;
+        }
+
+        private void encode(int[] ids) {
+            bytes = new byte[Math.max(4, ids.length * 2)];
+            byteCount = 0;
+            size = 0;
+            lastId = 0;
+            for (int id : ids) {
+                add(id);
+            }
+        }
+
+        private void writeVarInt(int value) {
+            if (bytes.length - byteCount < 5) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2 + 5);
+            }
+            while ((value & ~0x7f) != 0) {
+                bytes[byteCount++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            bytes[byteCount++] = (byte) value;
+        }
+    }
+
+
+    /**
+     * Stores every posting list as an array of gaps between consecutive match ids.
+     */
+    public static final class Serializer implements JsonSerializer<KillerMatchIndex> {
+        @Override
+        public JsonElement serialize(KillerMatchIndex src, Type typeOfSrc, JsonSerializationContext context) {
+            JsonObject jsonObj = new JsonObject();
+
+            src.postingsBySteamId.forEach((steamId, postings) -> {
+                JsonArray gaps = new JsonArray();
+                int previous = 0;
+                for (int id : postings.toArray()) {
+                    gaps.add(new JsonPrimitive(id - previous));
+                    previous = id;
+                }
+                jsonObj.add(String.valueOf(steamId), gaps);
+            });
+
+            return jsonObj;
+        }
+    }
+
+
+    public static final class Deserializer implements JsonDeserializer<KillerMatchIndex> {
+        @Override
+        public KillerMatchIndex deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context)
+                throws JsonParseException {
+
+            KillerMatchIndex result = new KillerMatchIndex();
+
+            json.getAsJsonObject().entrySet().forEach(e -> {
+                int id = 0;
+                for (JsonElement gap : e.getValue().getAsJsonArray()) {
+                    id += gap.getAsInt();
+                    result.add(e.getKey(), id);
+                }
+            });
+
+            return result;
+        }
+    }
+
+}
@@ -1,6 +1,8 @@
 package net.lobby_simulator_companion.loop.domain;
 
 import lombok.Getter;
+import net.lobby_simulator_companion.loop.domain.stats.HeavyHitters;
+import net.lobby_simulator_companion.loop.domain.stats.QueueStats;
 import net.lobby_simulator_companion.loop.domain.stats.Stats;
 
 import java.util.ArrayList;
@@ -15,10 +17,19 @@ import java.util.List;
 @Getter
 public class LoopData {
 
+    /**
+     * Number of killer players monitored by each ranking.
+     */
+    private static final int KILLER_RANKING_CAPACITY = 100;
+
     private final int version = 3;
     private final List<Player> players = new ArrayList<>();
     private final Stats stats = new Stats();
     private final MatchLog matchLog = new MatchLog();
+    private final QueueStats queueStats = new QueueStats();
+    private final KillerMatchIndex killerMatchIndex = new KillerMatchIndex();
+    private final HeavyHitters mostEncounteredKillers = new HeavyHitters(KILLER_RANKING_CAPACITY);
+    private final HeavyHitters nemesisKillers = new HeavyHitters(KILLER_RANKING_CAPACITY);
 
 
     public void addPlayers(Collection<Player> players) {
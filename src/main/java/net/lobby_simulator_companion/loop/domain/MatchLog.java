@@ -12,9 +12,14 @@ import net.lobby_simulator_companion.loop.domain.stats.Match;
 import org.apache.commons.collections4.queue.CircularFifoQueue;
 
 import java.lang.reflect.Type;
+import java.util.AbstractList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import static java.lang.Math.max;
 
@@ -43,6 +48,7 @@ public class MatchLog {
 
     private final CircularFifoQueue<Match> matches;
     private final transient Map<RollingGroup, AggregateStats> statsByGroup = new HashMap<>();
+    private transient int lastMatchId;
 
 
     public MatchLog() {
@@ -59,6 +65,11 @@ public class MatchLog {
 
 
     public void add(Match match) {
+        if (match.getId() <= lastMatchId) {
+            match.setId(++lastMatchId);
+        } else {
+            lastMatchId = match.getId();
+        }
 
         for (RollingGroup group : RollingGroup.values()) {
             recalculateGroupStatsForNewMatch(group, match);
@@ -106,10 +117,153 @@ public class MatchLog {
     }
 
 
+    /**
+     * Updates the rolling aggregates after a match of this log was edited in place.
+     *
+     * @param previous A copy of the match before it was edited.
+     * @param current  The edited match, as stored in this log.
+     */
+    public void update(Match previous, Match current) {
+        int idx = indexOf(current.getId());
+        if (idx < 0) {
+            return;
+        }
+
+        for (RollingGroup group : RollingGroup.values()) {
+            int windowStart = getWindowStart(group, matches.size());
+            if (idx >= windowStart) {
+                statsByGroup.get(group).replaceMatchStats(previous, window(windowStart), idx - windowStart, true);
+            }
+        }
+    }
+
+    /**
+     * Removes a match from this log, retracting it from the rolling aggregates that include it.
+     * When the log holds more matches than a group's size, the next older match enters that group.
+     */
+    public boolean remove(Match match) {
+        int idx = indexOf(match.getId());
+        if (idx < 0) {
+            return false;
+        }
+
+        int sizeBefore = matches.size();
+        Iterator<Match> it = matches.iterator();
+        for (int i = 0; i <= idx; i++) {
+            it.next();
+        }
+        it.remove();
+
+        for (RollingGroup group : RollingGroup.values()) {
+            int windowStartBefore = getWindowStart(group, sizeBefore);
+            if (idx < windowStartBefore) {
+                continue;
+            }
+
+            AggregateStats stats = statsByGroup.get(group);
+            int windowStart = getWindowStart(group, matches.size());
+
+            if (windowStart < windowStartBefore) {
+                // the window slid back one match, so there are two changes: recalculate streaks from scratch
+                stats.removeMatchCounters(match);
+                stats.addMatchCounters(matches.get(windowStart));
+                stats.recalculateStreaks(window(windowStart));
+            } else {
+                stats.removeMatchStats(match, window(windowStart), idx - windowStart, true);
+            }
+        }
+
+        return true;
+    }
+
+    public Optional<Match> getMatch(int matchId) {
+        int idx = indexOf(matchId);
+
+        return idx >= 0 ? Optional.of(matches.get(idx)) : Optional.empty();
+    }
+
+    /**
+     * @param offset Position relative to the given match: negative for older matches and positive for newer ones.
+     * @return The match at that position, if the given match is in the log and the position is within it.
+     */
+    public Optional<Match> getMatch(int matchId, int offset) {
+        int idx = indexOf(matchId);
+        if (idx < 0) {
+            return Optional.empty();
+        }
+        idx += offset;
+
+        return idx >= 0 && idx < matches.size() ? Optional.of(matches.get(idx)) : Optional.empty();
+    }
+
+    public Optional<Match> getLastMatch() {
+        return matches.isEmpty() ? Optional.empty() : Optional.of(matches.get(matches.size() - 1));
+    }
+
+    /**
+     * Matches in chronological order.
+     */
+    public List<Match> getMatches() {
+        return window(0);
+    }
+
+    /**
+     * Ids are assigned in ascending order as matches are added, so we can do a binary search.
+     */
+    private int indexOf(int matchId) {
+        int low = 0;
+        int high = matches.size() - 1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midId = matches.get(mid).getId();
+
+            if (midId < matchId) {
+                low = mid + 1;
+            } else if (midId > matchId) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+
+        return -1;
+    }
+
+    private int getWindowStart(RollingGroup group, int logSize) {
+        return max(0, logSize - group.aggregateSize);
+    }
+
+    /**
+     * Read-only view of the matches from the given index up to the most recent one.
+     */
+    private List<Match> window(int fromIdx) {
+        return Collections.unmodifiableList(new AbstractList<Match>() {
+            @Override
+            public Match get(int index) {
+                return matches.get(fromIdx + index);
+            }
+
+            @Override
+            public int size() {
+                return matches.size() - fromIdx;
+            }
+        });
+    }
+
+
     public AggregateStats getStats(RollingGroup group) {
         return statsByGroup.get(group);
     }
 
+    /**
+     * Makes sure that matches added from now on get higher ids than the given one (ids of matches which are no longer
+     * in the log can still be referenced by the match history).
+     */
+    public void reserveIdsUpTo(int matchId) {
+        lastMatchId = max(lastMatchId, matchId);
+    }
+
     public int matchCount() {
         return matches.size();
     }
@@ -101,18 +101,34 @@ public class Player implements Serializable, Cloneable {
         matchesPlayed++;
     }
 
+    public void decrementMatchesPlayed() {
+        matchesPlayed--;
+    }
+
     public void incrementEscapes() {
         escapes++;
     }
 
+    public void decrementEscapes() {
+        escapes--;
+    }
+
     public void incrementDeaths() {
         deaths++;
     }
 
+    public void decrementDeaths() {
+        deaths--;
+    }
+
     public void incrementSecondsPlayed(int secondsPlayed) {
         this.secondsPlayed += secondsPlayed;
     }
 
+    public void decrementSecondsPlayed(int secondsPlayed) {
+        this.secondsPlayed -= secondsPlayed;
+    }
+
     public Optional<String> getMostRecentName() {
         if (!isEmpty(names)) {
             return Optional.of(names.get(names.size() - 1));
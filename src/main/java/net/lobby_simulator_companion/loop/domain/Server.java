@@ -7,7 +7,7 @@ import lombok.Value;
 /**
  * @author NickyRamone
  */
-@Builder
+@Builder(toBuilder = true)
 @Data
 public class Server {
 
@@ -3,7 +3,9 @@ package net.lobby_simulator_companion.loop.domain.stats;
 import lombok.*;
 import net.lobby_simulator_companion.loop.domain.Killer;
 import net.lobby_simulator_companion.loop.domain.RealmMap;
+import org.apache.commons.lang3.StringUtils;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.TreeMap;
@@ -21,10 +23,10 @@ import static java.lang.Math.max;
 @ToString
 public class AggregateStats {
 
-    private transient int lobbiesFound;
-    private transient int secondsQueued;
-    private transient int secondsWaited;
-    private transient int secondsPlayed;
+    private int lobbiesFound;
+    private int secondsQueued;
+    private int secondsWaited;
+    private int secondsPlayed;
     private int matchesPlayed;
     private int escapes;
     private int escapesInARow;
@@ -39,50 +41,182 @@ public class AggregateStats {
     private int kill4s;
     private final Map<Killer, KillerStats> killersStats = new TreeMap<>();
     private final Map<RealmMap, MapStats> mapStats = new TreeMap<>();
+    /**
+     * Network quality by server region, for the matches with network stats.
+     */
+    private final Map<String, RegionNetworkStats> regionNetworkStats = new TreeMap<>();
+    private final DurationHistogram matchDurations = new DurationHistogram();
+    private final DurationHistogram queueTimes = new DurationHistogram();
+    private final DurationHistogram waitTimes = new DurationHistogram();
 
 
     public void addMatchStats(Match matchStats) {
+        addCounters(matchStats);
+        updateStreaks(matchStats);
+    }
+
+    /**
+     * Retracts the contribution of a match that has been removed.
+     *
+     * @param matchStats The removed match.
+     * @param matches    The matches still covered by this aggregate, in chronological order.
+     * @param position   Index in 'matches' where the removed match used to be.
+     * @param complete   Whether 'matches' holds every match covered by this aggregate. When it doesn't, a broken
+     *                   streak record cannot be recalculated and is kept as is.
+     */
+    public void removeMatchStats(Match matchStats, List<Match> matches, int position, boolean complete) {
+        retractCounters(matchStats);
+        updateStreaks(matchStats, matches, position, true, complete);
+    }
+
+    /**
+     * Replaces the contribution of a match that has been edited.
+     *
+     * @param previous The match as it was before being edited.
+     * @param matches  The matches covered by this aggregate (including the edited one), in chronological order.
+     * @param position Index of the edited match in 'matches'.
+     * @param complete Whether 'matches' holds every match covered by this aggregate.
+     */
+    public void replaceMatchStats(Match previous, List<Match> matches, int position, boolean complete) {
+        Match current = matches.get(position);
+        retractCounters(previous);
+        addCounters(current);
+        updateStreaks(previous, matches, position, false, complete);
+    }
+
+    /**
+     * Adds a match that has entered the group of matches covered by this aggregate without being the most recent one
+     * (for example, an older match that enters a rolling window after another match was removed).
+     * Streaks are not updated.
+     */
+    public void addMatchCounters(Match matchStats) {
+        addCounters(matchStats);
+    }
+
+    /**
+     * Counterpart of {@link #addMatchCounters(Match)}.
+     */
+    public void removeMatchCounters(Match matchStats) {
+        retractCounters(matchStats);
+    }
+
+    /**
+     * Recalculates every streak from scratch.
+     */
+    public void recalculateStreaks(List<Match> matches) {
+        escapesInARow = 0;
+        maxEscapesInARow = 0;
+        deathsInARow = 0;
+        maxDeathsInARow = 0;
+
+        for (Match match : matches) {
+            updateStreaks(match);
+        }
+    }
+
+    private void addCounters(Match matchStats) {
         lobbiesFound += Optional.ofNullable(matchStats.getLobbiesFound()).orElse(0);
         secondsQueued += Optional.ofNullable(matchStats.getSecondsQueued()).orElse(0);
         secondsWaited += Optional.ofNullable(matchStats.getSecondsWaited()).orElse(0);
         secondsPlayed += Optional.ofNullable(matchStats.getSecondsPlayed()).orElse(0);
         matchesPlayed++;
+        Optional.ofNullable(matchStats.getSecondsPlayed()).ifPresent(matchDurations::record);
+        Optional.ofNullable(matchStats.getSecondsQueued()).ifPresent(queueTimes::record);
+        Optional.ofNullable(matchStats.getSecondsWaited()).ifPresent(waitTimes::record);
 
         if (matchStats.escaped()) {
             escapes++;
+        } else if (matchStats.died()) {
+            deaths++;
+        }
+
+        if (matchStats.getKillCount() != null) {
+            updateKillCount(matchStats.getKillCount(), 1);
+        }
+
+        aggregateKillerStats(matchStats);
+        aggregateMapStats(matchStats);
+        aggregateNetworkStats(matchStats);
+    }
+
+    private void retractCounters(Match matchStats) {
+        lobbiesFound -= Optional.ofNullable(matchStats.getLobbiesFound()).orElse(0);
+        secondsQueued -= Optional.ofNullable(matchStats.getSecondsQueued()).orElse(0);
+        secondsWaited -= Optional.ofNullable(matchStats.getSecondsWaited()).orElse(0);
+        secondsPlayed -= Optional.ofNullable(matchStats.getSecondsPlayed()).orElse(0);
+        matchesPlayed--;
+        Optional.ofNullable(matchStats.getSecondsPlayed()).ifPresent(matchDurations::remove);
+        Optional.ofNullable(matchStats.getSecondsQueued()).ifPresent(queueTimes::remove);
+        Optional.ofNullable(matchStats.getSecondsWaited()).ifPresent(waitTimes::remove);
+
+        if (matchStats.escaped()) {
+            escapes--;
+        } else if (matchStats.died()) {
+            deaths--;
+        }
+
+        if (matchStats.getKillCount() != null) {
+            updateKillCount(matchStats.getKillCount(), -1);
+        }
+
+        retractKillerStats(matchStats);
+        retractMapStats(matchStats);
+        retractNetworkStats(matchStats);
+    }
+
+    private void updateStreaks(Match matchStats) {
+        if (matchStats.escaped()) {
             deathsInARow = 0;
             escapesInARow++;
             maxEscapesInARow = max(escapesInARow, maxEscapesInARow);
         } else if (matchStats.died()) {
-            deaths++;
             escapesInARow = 0;
             deathsInARow++;
             maxDeathsInARow = max(deathsInARow, maxDeathsInARow);
         }
+    }
 
-        if (matchStats.getKillCount() != null) {
-            updateKillCount(matchStats.getKillCount());
+    /**
+     * Only the runs adjacent to the changed position are evaluated. A full scan is needed only when the run holding
+     * a streak record got shorter.
+     */
+    private void updateStreaks(Match previous, List<Match> matches, int position, boolean removed, boolean complete) {
+        StreakSegments segments = new StreakSegments(matches, position, removed);
+        StreakSegments.Segment before = segments.evaluate(StreakSegments.outcome(previous));
+        StreakSegments.Segment after = segments.evaluate(removed ?
+                StreakSegments.Outcome.NONE : StreakSegments.outcome(matches.get(position)));
+
+        if (segments.reachesEnd()) {
+            escapesInARow = after.lastOutcome == StreakSegments.Outcome.ESCAPE ? after.lastRunLength : 0;
+            deathsInARow = after.lastOutcome == StreakSegments.Outcome.DEATH ? after.lastRunLength : 0;
         }
 
-        aggregateKillerStats(matchStats);
-        aggregateMapStats(matchStats);
+        boolean recordBroken = (before.maxEscapes == maxEscapesInARow && after.maxEscapes < maxEscapesInARow)
+                || (before.maxDeaths == maxDeathsInARow && after.maxDeaths < maxDeathsInARow);
+
+        if (recordBroken && complete) {
+            recalculateStreaks(matches);
+        } else {
+            maxEscapesInARow = max(maxEscapesInARow, after.maxEscapes);
+            maxDeathsInARow = max(maxDeathsInARow, after.maxDeaths);
+        }
     }
 
-    private void updateKillCount(int killCount) {
+    private void updateKillCount(int killCount, int delta) {
         if (killCount == 0) {
-            kill0s++;
+            kill0s += delta;
         }
         else if (killCount == 1) {
-            kill1s++;
+            kill1s += delta;
         }
         else if (killCount == 2) {
-            kill2s++;
+            kill2s += delta;
         }
         else if (killCount == 3) {
-            kill3s++;
+            kill3s += delta;
         }
         else if (killCount == 4) {
-            kill4s++;
+            kill4s += delta;
         }
     }
 
@@ -94,6 +228,7 @@ public class AggregateStats {
         KillerStats killerStats = getKillerStats(killer);
         killerStats.incrementMatches();
         killerStats.incrementMatchTime(Optional.ofNullable(matchStats.getSecondsPlayed()).orElse(0));
+        Optional.ofNullable(matchStats.getSecondsPlayed()).ifPresent(killerStats::recordMatchDuration);
 
         if (matchStats.escaped()) {
             killerStats.incrementEscapes();
@@ -107,6 +242,7 @@ public class AggregateStats {
         MapStats mapStats = getMapStats(realmMap);
         mapStats.incrementMatches();
         mapStats.incrementMatchTime(Optional.ofNullable(matchStats.getSecondsPlayed()).orElse(0));
+        Optional.ofNullable(matchStats.getSecondsPlayed()).ifPresent(mapStats::recordMatchDuration);
 
         if (matchStats.escaped()) {
             mapStats.incrementEscapes();
@@ -115,6 +251,75 @@ public class AggregateStats {
         }
     }
 
+    private void retractKillerStats(Match matchStats) {
+        Killer killer = Optional.ofNullable(matchStats.getKiller()).orElse(Killer.UNIDENTIFIED);
+        KillerStats killerStats = killersStats.get(killer);
+
+        if (killerStats == null) {
+            return;
+        }
+
+        killerStats.decrementMatches();
+        killerStats.decrementMatchTime(Optional.ofNullable(matchStats.getSecondsPlayed()).orElse(0));
+        Optional.ofNullable(matchStats.getSecondsPlayed()).ifPresent(killerStats::removeMatchDuration);
+
+        if (matchStats.escaped()) {
+            killerStats.decrementEscapes();
+        } else if (matchStats.died()) {
+            killerStats.decrementDeaths();
+        }
+
+        if (killerStats.getMatches() <= 0) {
+            killersStats.remove(killer);
+        }
+    }
+
+    private void retractMapStats(Match matchStats) {
+        RealmMap realmMap = Optional.ofNullable(matchStats.getRealmMap()).orElse(RealmMap.UNIDENTIFIED);
+        MapStats realmMapStats = mapStats.get(realmMap);
+
+        if (realmMapStats == null) {
+            return;
+        }
+
+        realmMapStats.decrementMatches();
+        realmMapStats.decrementMatchTime(Optional.ofNullable(matchStats.getSecondsPlayed()).orElse(0));
+        Optional.ofNullable(matchStats.getSecondsPlayed()).ifPresent(realmMapStats::removeMatchDuration);
+
+        if (matchStats.escaped()) {
+            realmMapStats.decrementEscapes();
+        } else if (matchStats.died()) {
+            realmMapStats.decrementDeaths();
+        }
+
+        if (realmMapStats.getMatches() <= 0) {
+            mapStats.remove(realmMap);
+        }
+    }
+
+    private void aggregateNetworkStats(Match matchStats) {
+        if (matchStats.getNetworkStats() != null && StringUtils.isNotBlank(matchStats.getServerRegion())) {
+            regionNetworkStats.computeIfAbsent(matchStats.getServerRegion(), r -> new RegionNetworkStats())
+                    .add(matchStats.getNetworkStats());
+        }
+    }
+
+    private void retractNetworkStats(Match matchStats) {
+        if (matchStats.getNetworkStats() == null || StringUtils.isBlank(matchStats.getServerRegion())) {
+            return;
+        }
+        RegionNetworkStats stats = regionNetworkStats.get(matchStats.getServerRegion());
+
+        if (stats == null) {
+            return;
+        }
+
+        stats.remove(matchStats.getNetworkStats());
+        if (stats.getMatches() <= 0) {
+            regionNetworkStats.remove(matchStats.getServerRegion());
+        }
+    }
+
     public int getAverageSecondsInQueue() {
         return lobbiesFound == 0 ? 0 : secondsQueued / lobbiesFound;
     }
@@ -181,6 +386,10 @@ public class AggregateStats {
         kill4s = 0;
         killersStats.clear();
         mapStats.clear();
+        regionNetworkStats.clear();
+        matchDurations.clear();
+        queueTimes.clear();
+        waitTimes.clear();
     }
 
 }
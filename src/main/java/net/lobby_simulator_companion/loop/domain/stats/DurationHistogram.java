@@ -0,0 +1,211 @@
+package net.lobby_simulator_companion.loop.domain.stats;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonDeserializationContext;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
+
+import java.lang.reflect.Type;
+import java.util.Arrays;
+
+/**
+ * Distribution of durations (in seconds) using log-linear buckets, in the spirit of HdrHistogram.
+ * <p>
+ * Values below {@link #SUB_BUCKET_COUNT} are counted exactly. Above that, every power of two is split into
+ * {@link #SUB_BUCKET_COUNT} buckets of equal width, so any reported percentile is off by less than 2%.
+ * Durations up to a day fit in about 400 buckets (less than 2 KB), and the bucket array is only grown as far as the
+ * largest value recorded.
+ * <p>
+ * We chose buckets over a t-digest because two histograms are merged by just adding their counts, and because a
+ * recorded value can be removed exactly, which we need when a match is edited or deleted.
+ *
+ * @author NickyRamone
+ */
+public class DurationHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int[] NO_COUNTS = new int[0];
+
+    private int[] counts = NO_COUNTS;
+    private int totalCount;
+
+
+    public void record(int seconds) {
+        int idx = bucketIndex(seconds);
+        ensureCapacity(idx + 1);
+        counts[idx]++;
+        totalCount++;
+    }
+
+    public void remove(int seconds) {
+        int idx = bucketIndex(seconds);
+        if (idx < counts.length && counts[idx] > 0) {
+            counts[idx]--;
+            totalCount--;
+        }
+    }
+
+    public void merge(DurationHistogram other) {
+        ensureCapacity(other.counts.length);
+        for (int i = 0; i < other.counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+    }
+
+    public void clear() {
+        counts = NO_COUNTS;
+        totalCount = 0;
+    }
+
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    public boolean isEmpty() {
+        return totalCount == 0;
+    }
+
+    /**
+     * @param percentile Value between 0 and 100.
+     * @return The (approximate) value below or at which the given percentage of the recorded values fall,
+     * or null if nothing has been recorded.
+     */
+    public Integer getValueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return null;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+        long cumulative = 0;
+
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            if (cumulative >= rank) {
+                return bucketMidpoint(i);
+            }
+        }
+
+        return bucketMidpoint(counts.length - 1);
+    }
+
+
+    static int bucketIndex(int value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return Math.max(value, 0);
+        }
+        int exponent = 31 - Integer.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (value >>> shift) - SUB_BUCKET_COUNT;
+
+        return SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static int bucketLowerBound(int idx) {
+        if (idx < SUB_BUCKET_COUNT) {
+            return idx;
+        }
+        int shift = (idx - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+        int subBucket = (idx - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+
+        return (SUB_BUCKET_COUNT + subBucket) << shift;
+    }
+
+    private static int bucketMidpoint(int idx) {
+        int lower = bucketLowerBound(idx);
+        int upper = bucketLowerBound(idx + 1) - 1;
+
+        return lower + (upper - lower) / 2;
+    }
+
+    private void ensureCapacity(int size) {
+        if (counts.length < size) {
+            counts = Arrays.copyOf(counts, size);
+        }
+    }
+
+    /**
+     * Number of buckets up to the last non-empty one (removals can leave empty buckets at the end).
+     */
+    private int usedLength() {
+        int len = counts.length;
+        while (len > 0 && counts[len - 1] == 0) {
+            len--;
+        }
+        return len;
+    }
+
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof DurationHistogram)) {
+            return false;
+        }
+        DurationHistogram other = (DurationHistogram) o;
+        int len = usedLength();
+
+        return totalCount == other.totalCount && len == other.usedLength()
+                && Arrays.equals(Arrays.copyOf(counts, len), Arrays.copyOf(other.counts, len));
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(Arrays.copyOf(counts, usedLength()));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("DurationHistogram(count=%d, p50=%s, p90=%s, p99=%s)", totalCount,
+                getValueAtPercentile(50), getValueAtPercentile(90), getValueAtPercentile(99));
+    }
+
+
+    /**
+     * Stores only the non-empty buckets, as a flat array of (bucket index, count) pairs.
+     */
+    public static final class Serializer implements JsonSerializer<DurationHistogram> {
+        @Override
+        public JsonElement serialize(DurationHistogram src, Type typeOfSrc, JsonSerializationContext context) {
+            JsonArray jsonArray = new JsonArray();
+
+            for (int i = 0; i < src.counts.length; i++) {
+                if (src.counts[i] > 0) {
+                    jsonArray.add(new JsonPrimitive(i));
+                    jsonArray.add(new JsonPrimitive(src.counts[i]));
+                }
+            }
+
+            return jsonArray;
+        }
+    }
+
+
+    public static final class Deserializer implements JsonDeserializer<DurationHistogram> {
+        @Override
+        public DurationHistogram deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context)
+                throws JsonParseException {
+
+            DurationHistogram result = new DurationHistogram();
+            JsonArray jsonArray = json.getAsJsonArray();
+
+            for (int i = 0; i + 1 < jsonArray.size(); i += 2) {
+                int idx = jsonArray.get(i).getAsInt();
+                int count = jsonArray.get(i + 1).getAsInt();
+                result.ensureCapacity(idx + 1);
+                result.counts[idx] += count;
+                result.totalCount += count;
+            }
+
+            return result;
+        }
+    }
+
+}
@@ -0,0 +1,201 @@
+package net.lobby_simulator_companion.loop.domain.stats;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonDeserializationContext;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.lang.reflect.Type;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Approximate counts of the most frequent keys of a stream, using a fixed amount of memory
+ * (the "Space-Saving" algorithm, by Metwally et al.).
+ * <p>
+ * At most {@link #capacity} keys are monitored. When a new key arrives and there is no room left, it takes the place
+ * of the key with the lowest count and inherits that count as its possible overestimation (error).
+ * Any key occurring more than (total / capacity) times is guaranteed to be monitored.
+ *
+ * @author NickyRamone
+ */
+public class HeavyHitters {
+
+    @Getter
+    @ToString
+    @AllArgsConstructor
+    public static final class Entry {
+        private final String key;
+
+        /**
+         * Upper bound of the actual count.
+         */
+        private long count;
+
+        /**
+         * Maximum overestimation of the count.
+         */
+        private long error;
+
+        /**
+         * Lower bound of the actual count.
+         */
+        public long getGuaranteedCount() {
+            return count - error;
+        }
+    }
+
+    private static final Comparator<Entry> ENTRY_COMPARATOR = Comparator
+            .comparingLong(Entry::getCount)
+            .thenComparing(Entry::getKey);
+
+    @Getter
+    private final int capacity;
+    @Getter
+    private long total;
+    private final Map<String, Entry> entriesByKey = new HashMap<>();
+    private final TreeSet<Entry> entriesByCount = new TreeSet<>(ENTRY_COMPARATOR);
+
+
+    public HeavyHitters(int capacity) {
+        this.capacity = capacity;
+    }
+
+
+    public void offer(String key) {
+        offer(key, 1);
+    }
+
+    public void offer(String key, long increment) {
+        if (key == null || increment <= 0) {
+            return;
+        }
+        total += increment;
+        Entry entry = entriesByKey.get(key);
+
+        if (entry != null) {
+            entriesByCount.remove(entry);
+            entry.count += increment;
+        } else if (entriesByKey.size() < capacity) {
+            entry = new Entry(key, increment, 0);
+            entriesByKey.put(key, entry);
+        } else {
+            Entry min = entriesByCount.pollFirst();
+            entriesByKey.remove(min.key);
+            entry = new Entry(key, min.count + increment, min.count);
+            entriesByKey.put(key, entry);
+        }
+
+        entriesByCount.add(entry);
+    }
+
+    /**
+     * Takes back an occurrence that was previously offered (for example, for a match that was deleted).
+     */
+    public void retract(String key) {
+        if (key == null || total == 0) {
+            return;
+        }
+        total--;
+        Entry entry = entriesByKey.get(key);
+        if (entry == null) {
+            return;
+        }
+
+        entriesByCount.remove(entry);
+        entry.count--;
+        entry.error = Math.min(entry.error, entry.count);
+
+        if (entry.count > 0) {
+            entriesByCount.add(entry);
+        } else {
+            entriesByKey.remove(key);
+        }
+    }
+
+    /**
+     * @return The (at most) k keys with the highest estimated count, in descending order.
+     */
+    public List<Entry> getTop(int k) {
+        return entriesByCount.descendingSet().stream()
+                .limit(k)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Whether the entry's place in the top-k list is certain: its actual count is at least as high as the estimated
+     * count of the first entry that didn't make it.
+     */
+    public boolean isGuaranteed(Entry entry, int k) {
+        long threshold = entriesByCount.descendingSet().stream()
+                .skip(k)
+                .findFirst()
+                .map(Entry::getCount)
+                .orElse(0L);
+
+        return entry.getGuaranteedCount() >= threshold;
+    }
+
+    public boolean isEmpty() {
+        return entriesByKey.isEmpty();
+    }
+
+
+    /**
+     * Stores the monitored entries as a flat array of (key, count, error) triples.
+     */
+    public static final class Serializer implements JsonSerializer<HeavyHitters> {
+        @Override
+        public JsonElement serialize(HeavyHitters src, Type typeOfSrc, JsonSerializationContext context) {
+            JsonObject jsonObj = new JsonObject();
+            JsonArray entries = new JsonArray();
+
+            for (Entry entry : src.entriesByCount.descendingSet()) {
+                entries.add(new JsonPrimitive(entry.key));
+                entries.add(new JsonPrimitive(entry.count));
+                entries.add(new JsonPrimitive(entry.error));
+            }
+
+            jsonObj.addProperty("capacity", src.capacity);
+            jsonObj.addProperty("total", src.total);
+            jsonObj.add("entries", entries);
+
+            return jsonObj;
+        }
+    }
+
+
+    public static final class Deserializer implements JsonDeserializer<HeavyHitters> {
+        @Override
+        public HeavyHitters deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context)
+                throws JsonParseException {
+
+            JsonObject jsonObj = json.getAsJsonObject();
+            HeavyHitters result = new HeavyHitters(jsonObj.get("capacity").getAsInt());
+            result.total = jsonObj.get("total").getAsLong();
+            JsonArray entries = jsonObj.getAsJsonArray("entries");
+
+            for (int i = 0; i + 2 < entries.size() && result.entriesByKey.size() < result.capacity; i += 3) {
+                Entry entry = new Entry(entries.get(i).getAsString(),
+                        entries.get(i + 1).getAsLong(), entries.get(i + 2).getAsLong());
+                result.entriesByKey.put(entry.key, entry);
+                result.entriesByCount.add(entry);
+            }
+
+            return result;
+        }
+    }
+
+}
@@ -22,6 +22,7 @@ public class KillerStats {
     private int escapes;
     private int deaths;
     private int matchTime;
+    private final DurationHistogram matchDurations = new DurationHistogram();
 
 
     void incrementMatches() {
@@ -56,9 +57,20 @@ public class KillerStats {
         matchTime -= seconds;
     }
 
+    void recordMatchDuration(int seconds) {
+        matchDurations.record(seconds);
+    }
+
+    void removeMatchDuration(int seconds) {
+        matchDurations.remove(seconds);
+    }
+
     @Override
     public KillerStats clone() {
-        return toBuilder().build();
+        KillerStats copy = toBuilder().build();
+        copy.matchDurations.merge(matchDurations);
+
+        return copy;
     }
 
 }
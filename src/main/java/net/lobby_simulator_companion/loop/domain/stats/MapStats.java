@@ -22,6 +22,7 @@ public class MapStats {
     private int escapes;
     private int deaths;
     private int matchTime;
+    private final DurationHistogram matchDurations = new DurationHistogram();
 
 
     void incrementMatches() {
@@ -56,9 +57,20 @@ public class MapStats {
         matchTime -= seconds;
     }
 
+    void recordMatchDuration(int seconds) {
+        matchDurations.record(seconds);
+    }
+
+    void removeMatchDuration(int seconds) {
+        matchDurations.remove(seconds);
+    }
+
     @Override
     protected MapStats clone() {
-        return toBuilder().build();
+        MapStats copy = toBuilder().build();
+        copy.matchDurations.merge(matchDurations);
+
+        return copy;
     }
 
 }
@@ -1,5 +1,6 @@
 package net.lobby_simulator_companion.loop.domain.stats;
 
+import com.google.gson.annotations.SerializedName;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -13,24 +14,44 @@ import java.util.Optional;
 /**
  * @author NickyRamone
  */
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Data
 public class Match {
 
-    private transient Integer lobbiesFound;
-    private transient Integer secondsQueued;
-    private transient Integer secondsWaited;
-    private transient Integer secondsPlayed;
-    private transient LocalDateTime matchStartTime;
+    /**
+     * Sequential identifier assigned by the match log.
+     */
+    private int id;
+
+    /*
+     * Short names keep the stored match log compact (it holds up to a thousand matches).
+     * Unknown values are null and therefore not stored at all.
+     */
+    @SerializedName("lobbies")
+    private Integer lobbiesFound;
+    @SerializedName("queued")
+    private Integer secondsQueued;
+    @SerializedName("waited")
+    private Integer secondsWaited;
+    @SerializedName("played")
+    private Integer secondsPlayed;
+    @SerializedName("start")
+    private LocalDateTime matchStartTime;
     private transient boolean cancelled;
     private Boolean escaped;
     private Integer killCount;
-    private transient Killer killer;
-    private transient RealmMap realmMap;
-    private transient String killerPlayerSteamId64;
+    private Killer killer;
+    @SerializedName("map")
+    private RealmMap realmMap;
+    @SerializedName("region")
+    private String serverRegion;
+    @SerializedName("killerId")
+    private String killerPlayerSteamId64;
     private transient String killerPlayerDbdId;
+    @SerializedName("net")
+    private MatchNetworkStats networkStats;
 
     public boolean escaped() {
         return Optional.ofNullable(escaped).orElse(false);
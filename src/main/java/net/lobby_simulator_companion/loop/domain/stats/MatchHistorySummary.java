@@ -0,0 +1,146 @@
+package net.lobby_simulator_companion.loop.domain.stats;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+/**
+ * Counters summarizing a set of matches of the match history (for example, a month of matches).
+ * Summaries can be merged, so a time range can be summarized without reading the matches it covers.
+ *
+ * @author NickyRamone
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+public class MatchHistorySummary {
+
+    private int matchCount;
+    private int minMatchId = Integer.MAX_VALUE;
+    private int maxMatchId = Integer.MIN_VALUE;
+
+    /**
+     * Earliest and latest match start time (epoch seconds), only counting matches whose start time is known.
+     */
+    private long minStartTime = Long.MAX_VALUE;
+    private long maxStartTime = Long.MIN_VALUE;
+    private int undatedMatchCount;
+
+    private int escapes;
+    private int deaths;
+    private int lobbiesFound;
+    private long secondsQueued;
+    private long secondsWaited;
+    private long secondsPlayed;
+
+
+    public MatchHistorySummary() {
+    }
+
+    public MatchHistorySummary(int matchCount, int minMatchId, int maxMatchId,
+                               long minStartTime, long maxStartTime, int undatedMatchCount,
+                               int escapes, int deaths, int lobbiesFound,
+                               long secondsQueued, long secondsWaited, long secondsPlayed) {
+        this.matchCount = matchCount;
+        this.minMatchId = minMatchId;
+        this.maxMatchId = maxMatchId;
+        this.minStartTime = minStartTime;
+        this.maxStartTime = maxStartTime;
+        this.undatedMatchCount = undatedMatchCount;
+        this.escapes = escapes;
+        this.deaths = deaths;
+        this.lobbiesFound = lobbiesFound;
+        this.secondsQueued = secondsQueued;
+        this.secondsWaited = secondsWaited;
+        this.secondsPlayed = secondsPlayed;
+    }
+
+
+    public void add(Match match) {
+        add(match.getId(),
+                match.getMatchStartTime() != null ? toEpochSecond(match.getMatchStartTime()) : null,
+                match.escaped(), match.died(),
+                Optional.ofNullable(match.getLobbiesFound()).orElse(0),
+                Optional.ofNullable(match.getSecondsQueued()).orElse(0),
+                Optional.ofNullable(match.getSecondsWaited()).orElse(0),
+                Optional.ofNullable(match.getSecondsPlayed()).orElse(0));
+    }
+
+    /**
+     * Adds a match straight from the columns of a table, without creating the match.
+     */
+    public void add(PackedMatchTable table, int row) {
+        add(table.getId(row),
+                table.hasStartTime(row) ? table.getStartTime(row) : null,
+                table.escaped(row), table.died(row),
+                table.getLobbiesFound(row),
+                table.getSecondsQueued(row),
+                table.getSecondsWaited(row),
+                table.getSecondsPlayed(row));
+    }
+
+    private void add(int matchId, Long startTime, boolean escaped, boolean died,
+                     int lobbiesFound, int secondsQueued, int secondsWaited, int secondsPlayed) {
+        matchCount++;
+        minMatchId = Math.min(minMatchId, matchId);
+        maxMatchId = Math.max(maxMatchId, matchId);
+
+        if (startTime != null) {
+            minStartTime = Math.min(minStartTime, startTime);
+            maxStartTime = Math.max(maxStartTime, startTime);
+        } else {
+            undatedMatchCount++;
+        }
+        if (escaped) {
+            escapes++;
+        } else if (died) {
+            deaths++;
+        }
+        this.lobbiesFound += lobbiesFound;
+        this.secondsQueued += secondsQueued;
+        this.secondsWaited += secondsWaited;
+        this.secondsPlayed += secondsPlayed;
+    }
+
+    public void merge(MatchHistorySummary other) {
+        matchCount += other.matchCount;
+        minMatchId = Math.min(minMatchId, other.minMatchId);
+        maxMatchId = Math.max(maxMatchId, other.maxMatchId);
+        minStartTime = Math.min(minStartTime, other.minStartTime);
+        maxStartTime = Math.max(maxStartTime, other.maxStartTime);
+        undatedMatchCount += other.undatedMatchCount;
+        escapes += other.escapes;
+        deaths += other.deaths;
+        lobbiesFound += other.lobbiesFound;
+        secondsQueued += other.secondsQueued;
+        secondsWaited += other.secondsWaited;
+        secondsPlayed += other.secondsPlayed;
+    }
+
+    /**
+     * Whether any of the summarized matches started within the given range (both ends inclusive).
+     */
+    public boolean overlaps(LocalDateTime from, LocalDateTime to) {
+        return matchCount > 0 && minStartTime <= toEpochSecond(to) && maxStartTime >= toEpochSecond(from);
+    }
+
+    /**
+     * Whether all the summarized matches started within the given range (both ends inclusive).
+     */
+    public boolean isWithin(LocalDateTime from, LocalDateTime to) {
+        return undatedMatchCount == 0 && minStartTime >= toEpochSecond(from) && maxStartTime <= toEpochSecond(to);
+    }
+
+    public boolean containsMatchId(int matchId) {
+        return matchId >= minMatchId && matchId <= maxMatchId;
+    }
+
+    public static long toEpochSecond(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+}
@@ -0,0 +1,120 @@
+package net.lobby_simulator_companion.loop.domain.stats;
+
+import com.google.gson.annotations.SerializedName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Arrays;
+
+/**
+ * Summary of the network quality during a match (measured passively while connected to the match server): latency,
+ * and the traffic of the server flow.
+ * <p>
+ * Stored as a plain list of values ({@link #toValues()}) by the binary formats; new values are only ever appended to
+ * that list, so older data is read with the missing values as zero.
+ *
+ * @author NickyRamone
+ */
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class MatchNetworkStats {
+
+    /**
+     * Upper limit (inclusive, in milliseconds) of each bucket of the gap histogram; the last bucket holds the longer
+     * gaps.
+     */
+    public static final int[] GAP_HISTOGRAM_LIMITS = {10, 20, 40, 80, 160, 320, 640};
+
+    private static final int LATENCY_VALUES = 5;
+    private static final int TRAFFIC_VALUES = 7;
+    private static final int VALUES = LATENCY_VALUES + TRAFFIC_VALUES + GAP_HISTOGRAM_LIMITS.length + 1;
+
+    /**
+     * Latency percentiles and maximum, in milliseconds.
+     */
+    @SerializedName("ping")
+    private int latencyMedian;
+    @SerializedName("ping95")
+    private int latencyP95;
+    @SerializedName("pingMax")
+    private int latencyMax;
+
+    /**
+     * Mean variation between consecutive latency samples, in milliseconds.
+     */
+    private int jitter;
+
+    /**
+     * Number of latency samples the values above come from.
+     */
+    @SerializedName("samples")
+    private int latencySamples;
+
+    /**
+     * Packets and bytes (IP length) received from and sent to the server.
+     */
+    @SerializedName("pktIn")
+    private int packetsIn;
+    @SerializedName("pktOut")
+    private int packetsOut;
+    private int bytesIn;
+    private int bytesOut;
+
+    /**
+     * Packets from the server that seem to be lost, judging by the gaps between the ones received (the server sends
+     * them at a steady rate).
+     */
+    @SerializedName("lost")
+    private int estimatedLoss;
+
+    /**
+     * Gaps where several packets in a row seem to be lost.
+     */
+    private int lossBursts;
+
+    /**
+     * Longest time without packets from the server, in milliseconds.
+     */
+    @SerializedName("silence")
+    private int longestSilence;
+
+    /**
+     * Number of gaps between packets from the server, by duration (see {@link #GAP_HISTOGRAM_LIMITS}).
+     */
+    @SerializedName("gaps")
+    private int[] gapHistogram;
+
+
+    /**
+     * @return Estimated percentage of the packets from the server that were lost.
+     */
+    public float getLossRate() {
+        long expected = (long) packetsIn + estimatedLoss;
+
+        return expected == 0 ? 0 : (float) estimatedLoss / expected * 100;
+    }
+
+    public int[] toValues() {
+        int[] values = new int[VALUES];
+        int[] v = {latencyMedian, latencyP95, latencyMax, jitter, latencySamples,
+                packetsIn, packetsOut, bytesIn, bytesOut, estimatedLoss, lossBursts, longestSilence};
+        System.arraycopy(v, 0, values, 0, v.length);
+        if (gapHistogram != null) {
+            System.arraycopy(gapHistogram, 0, values, v.length, Math.min(gapHistogram.length, values.length - v.length));
+        }
+
+        return values;
+    }
+
+    public static MatchNetworkStats fromValues(int[] values) {
+        int[] v = Arrays.copyOf(values, VALUES);
+
+        return new MatchNetworkStats(v[0], v[1], v[2], v[3], v[4], v[5], v[6], v[7], v[8], v[9], v[10], v[11],
+                Arrays.copyOfRange(v, LATENCY_VALUES + TRAFFIC_VALUES, VALUES));
+    }
+
+}
@@ -0,0 +1,382 @@
+package net.lobby_simulator_companion.loop.domain.stats;
+
+import net.lobby_simulator_companion.loop.domain.Killer;
+import net.lobby_simulator_companion.loop.domain.RealmMap;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Matches stored column by column in primitive arrays, instead of one {@link Match} object per match
+ * (with its boxed fields, dates and strings), which takes a fraction of the heap.
+ * <p>
+ * Scans (by time, id or outcome) run directly over the columns. {@link Match} objects are only created when a row is
+ * requested, and they are copies: changes to them must be written back with {@link #set(int, Match)}.
+ * <p>
+ * It holds the match history, which grows without bounds. {@link AggregateStats} (and its streak bookkeeping) is
+ * still fed with {@link Match} objects, since it only aggregates the matches of the match log, which are bounded and
+ * kept as objects; history summaries are computed over the columns (see {@link MatchHistorySummary}).
+ * Instances are not thread-safe.
+ *
+ * @author NickyRamone
+ */
+public class PackedMatchTable {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int NULL_INT = Integer.MIN_VALUE;
+    private static final long NULL_LONG = Long.MIN_VALUE;
+
+    private static final byte OUTCOME__UNKNOWN = 0;
+    private static final byte OUTCOME__ESCAPED = 1;
+    private static final byte OUTCOME__DIED = 2;
+
+    private static final Killer[] KILLERS = Killer.values();
+    private static final RealmMap[] REALM_MAPS = RealmMap.values();
+
+    private int size;
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private int[] lobbiesFound = new int[INITIAL_CAPACITY];
+    private int[] secondsQueued = new int[INITIAL_CAPACITY];
+    private int[] secondsWaited = new int[INITIAL_CAPACITY];
+    private int[] secondsPlayed = new int[INITIAL_CAPACITY];
+    private int[] killCounts = new int[INITIAL_CAPACITY];
+    private long[] startTimes = new long[INITIAL_CAPACITY];
+    private byte[] outcomes = new byte[INITIAL_CAPACITY];
+
+    /**
+     * Enum ordinal + 1 (0 for null).
+     */
+    private byte[] killers = new byte[INITIAL_CAPACITY];
+    private byte[] realmMaps = new byte[INITIAL_CAPACITY];
+
+    /**
+     * Steam ids are numeric, so they are stored as such; any other value is kept in the string table and stored
+     * as the negated reference (0 for null).
+     */
+    private long[] killerPlayerIds = new long[INITIAL_CAPACITY];
+
+    /**
+     * Reference to the string table (0 for null).
+     */
+    private int[] serverRegions = new int[INITIAL_CAPACITY];
+
+    /**
+     * {@link MatchNetworkStats#toValues()} (null if unknown).
+     */
+    private int[][] networkStats = new int[INITIAL_CAPACITY][];
+
+    private final List<String> strings = new ArrayList<>();
+    private final Map<String, Integer> stringRefs = new HashMap<>();
+
+
+    public PackedMatchTable() {
+    }
+
+    public PackedMatchTable(Collection<Match> matches) {
+        matches.forEach(this::add);
+    }
+
+
+    public int size() {
+        return size;
+    }
+
+    public void add(Match match) {
+        if (size == ids.length) {
+            grow();
+        }
+        set(size++, match);
+    }
+
+    public void set(int row, Match match) {
+        ids[row] = match.getId();
+        lobbiesFound[row] = toInt(match.getLobbiesFound());
+        secondsQueued[row] = toInt(match.getSecondsQueued());
+        secondsWaited[row] = toInt(match.getSecondsWaited());
+        secondsPlayed[row] = toInt(match.getSecondsPlayed());
+        killCounts[row] = toInt(match.getKillCount());
+        startTimes[row] = match.getMatchStartTime() != null ?
+                match.getMatchStartTime().toEpochSecond(ZoneOffset.UTC) : NULL_LONG;
+        outcomes[row] = match.getEscaped() == null ? OUTCOME__UNKNOWN :
+                match.getEscaped() ? OUTCOME__ESCAPED : OUTCOME__DIED;
+        killers[row] = (byte) (match.getKiller() != null ? match.getKiller().ordinal() + 1 : 0);
+        realmMaps[row] = (byte) (match.getRealmMap() != null ? match.getRealmMap().ordinal() + 1 : 0);
+        killerPlayerIds[row] = toKillerPlayerId(match.getKillerPlayerSteamId64());
+        serverRegions[row] = stringRef(match.getServerRegion());
+        networkStats[row] = match.getNetworkStats() != null ? match.getNetworkStats().toValues() : null;
+    }
+
+    /**
+     * Appends a row with the given id and every other value unknown, to be filled in with the setters below. This is
+     * how matches are decoded straight into the columns, without creating a {@link Match} for each one.
+     *
+     * @return The new row.
+     */
+    public int addRow(int id) {
+        if (size == ids.length) {
+            grow();
+        }
+        int row = size++;
+        ids[row] = id;
+        lobbiesFound[row] = NULL_INT;
+        secondsQueued[row] = NULL_INT;
+        secondsWaited[row] = NULL_INT;
+        secondsPlayed[row] = NULL_INT;
+        killCounts[row] = NULL_INT;
+        startTimes[row] = NULL_LONG;
+        outcomes[row] = OUTCOME__UNKNOWN;
+        killers[row] = 0;
+        realmMaps[row] = 0;
+        killerPlayerIds[row] = 0;
+        serverRegions[row] = 0;
+        networkStats[row] = null;
+
+        return row;
+    }
+
+    public void setLobbiesFound(int row, int value) {
+        lobbiesFound[row] = value;
+    }
+
+    public void setSecondsQueued(int row, int value) {
+        secondsQueued[row] = value;
+    }
+
+    public void setSecondsWaited(int row, int value) {
+        secondsWaited[row] = value;
+    }
+
+    public void setSecondsPlayed(int row, int value) {
+        secondsPlayed[row] = value;
+    }
+
+    public void setKillCount(int row, int value) {
+        killCounts[row] = value;
+    }
+
+    /**
+     * @param epochSecond Start time as epoch seconds (UTC).
+     */
+    public void setStartTime(int row, long epochSecond) {
+        startTimes[row] = epochSecond;
+    }
+
+    public void setEscaped(int row, boolean escaped) {
+        outcomes[row] = escaped ? OUTCOME__ESCAPED : OUTCOME__DIED;
+    }
+
+    public void setKiller(int row, Killer killer) {
+        killers[row] = (byte) (killer != null ? killer.ordinal() + 1 : 0);
+    }
+
+    public void setRealmMap(int row, RealmMap realmMap) {
+        realmMaps[row] = (byte) (realmMap != null ? realmMap.ordinal() + 1 : 0);
+    }
+
+    public void setKillerPlayerSteamId64(int row, String steamId64) {
+        killerPlayerIds[row] = toKillerPlayerId(steamId64);
+    }
+
+    public void setServerRegion(int row, String serverRegion) {
+        serverRegions[row] = stringRef(serverRegion);
+    }
+
+    /**
+     * @param values As returned by {@link MatchNetworkStats#toValues()} (null if unknown).
+     */
+    public void setNetworkStats(int row, int[] values) {
+        networkStats[row] = values;
+    }
+
+    public void remove(int row) {
+        int tail = size - row - 1;
+        System.arraycopy(ids, row + 1, ids, row, tail);
+        System.arraycopy(lobbiesFound, row + 1, lobbiesFound, row, tail);
+        System.arraycopy(secondsQueued, row + 1, secondsQueued, row, tail);
+        System.arraycopy(secondsWaited, row + 1, secondsWaited, row, tail);
+        System.arraycopy(secondsPlayed, row + 1, secondsPlayed, row, tail);
+        System.arraycopy(killCounts, row + 1, killCounts, row, tail);
+        System.arraycopy(startTimes, row + 1, startTimes, row, tail);
+        System.arraycopy(outcomes, row + 1, outcomes, row, tail);
+        System.arraycopy(killers, row + 1, killers, row, tail);
+        System.arraycopy(realmMaps, row + 1, realmMaps, row, tail);
+        System.arraycopy(killerPlayerIds, row + 1, killerPlayerIds, row, tail);
+        System.arraycopy(serverRegions, row + 1, serverRegions, row, tail);
+        System.arraycopy(networkStats, row + 1, networkStats, row, tail);
+        networkStats[--size] = null;
+    }
+
+    /**
+     * @return The row of the match with the given id, or -1 if there is none.
+     */
+    public int indexOf(int matchId) {
+        for (int row = 0; row < size; row++) {
+            if (ids[row] == matchId) {
+                return row;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Creates a match with the values of the given row.
+     */
+    public Match get(int row) {
+        return Match.builder()
+                .id(ids[row])
+                .lobbiesFound(toInteger(lobbiesFound[row]))
+                .secondsQueued(toInteger(secondsQueued[row]))
+                .secondsWaited(toInteger(secondsWaited[row]))
+                .secondsPlayed(toInteger(secondsPlayed[row]))
+                .killCount(toInteger(killCounts[row]))
+                .matchStartTime(hasStartTime(row) ?
+                        LocalDateTime.ofEpochSecond(startTimes[row], 0, ZoneOffset.UTC) : null)
+                .escaped(outcomes[row] == OUTCOME__UNKNOWN ? null : outcomes[row] == OUTCOME__ESCAPED)
+                .killer(killers[row] != 0 ? KILLERS[killers[row] - 1] : null)
+                .realmMap(realmMaps[row] != 0 ? REALM_MAPS[realmMaps[row] - 1] : null)
+                .killerPlayerSteamId64(fromKillerPlayerId(killerPlayerIds[row]))
+                .serverRegion(serverRegions[row] != 0 ? strings.get(serverRegions[row] - 1) : null)
+                .networkStats(networkStats[row] != null ? MatchNetworkStats.fromValues(networkStats[row]) : null)
+                .build();
+    }
+
+    /**
+     * Read-only view of all rows, creating each match as it is accessed.
+     */
+    public List<Match> asList() {
+        return new AbstractList<Match>() {
+            @Override
+            public Match get(int index) {
+                return PackedMatchTable.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+
+    public int getId(int row) {
+        return ids[row];
+    }
+
+    public boolean hasStartTime(int row) {
+        return startTimes[row] != NULL_LONG;
+    }
+
+    /**
+     * Start time as epoch seconds (only valid if {@link #hasStartTime(int)}).
+     */
+    public long getStartTime(int row) {
+        return startTimes[row];
+    }
+
+    public boolean escaped(int row) {
+        return outcomes[row] == OUTCOME__ESCAPED;
+    }
+
+    public boolean died(int row) {
+        return outcomes[row] == OUTCOME__DIED;
+    }
+
+    /**
+     * @return The value, or 0 if unknown.
+     */
+    public int getLobbiesFound(int row) {
+        return orZero(lobbiesFound[row]);
+    }
+
+    /**
+     * @return The value, or 0 if unknown.
+     */
+    public int getSecondsQueued(int row) {
+        return orZero(secondsQueued[row]);
+    }
+
+    /**
+     * @return The value, or 0 if unknown.
+     */
+    public int getSecondsWaited(int row) {
+        return orZero(secondsWaited[row]);
+    }
+
+    /**
+     * @return The value, or 0 if unknown.
+     */
+    public int getSecondsPlayed(int row) {
+        return orZero(secondsPlayed[row]);
+    }
+
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        lobbiesFound = Arrays.copyOf(lobbiesFound, capacity);
+        secondsQueued = Arrays.copyOf(secondsQueued, capacity);
+        secondsWaited = Arrays.copyOf(secondsWaited, capacity);
+        secondsPlayed = Arrays.copyOf(secondsPlayed, capacity);
+        killCounts = Arrays.copyOf(killCounts, capacity);
+        startTimes = Arrays.copyOf(startTimes, capacity);
+        outcomes = Arrays.copyOf(outcomes, capacity);
+        killers = Arrays.copyOf(killers, capacity);
+        realmMaps = Arrays.copyOf(realmMaps, capacity);
+        killerPlayerIds = Arrays.copyOf(killerPlayerIds, capacity);
+        serverRegions = Arrays.copyOf(serverRegions, capacity);
+        networkStats = Arrays.copyOf(networkStats, capacity);
+    }
+
+    private int stringRef(String value) {
+        if (value == null) {
+            return 0;
+        }
+
+        return stringRefs.computeIfAbsent(value, v -> {
+            strings.add(v);
+            return strings.size();
+        });
+    }
+
+    private long toKillerPlayerId(String steamId64) {
+        if (steamId64 == null) {
+            return 0;
+        }
+        // only canonical numbers are stored as such, so that they are read back exactly as they were
+        if (!steamId64.isEmpty() && steamId64.length() <= 18 && steamId64.charAt(0) != '0'
+                && steamId64.chars().allMatch(Character::isDigit)) {
+            return Long.parseLong(steamId64);
+        }
+
+        return -stringRef(steamId64);
+    }
+
+    private String fromKillerPlayerId(long killerPlayerId) {
+        if (killerPlayerId == 0) {
+            return null;
+        }
+
+        return killerPlayerId > 0 ? String.valueOf(killerPlayerId) : strings.get((int) -killerPlayerId - 1);
+    }
+
+    private static int toInt(Integer value) {
+        return value != null ? value : NULL_INT;
+    }
+
+    private static Integer toInteger(int value) {
+        return value != NULL_INT ? value : null;
+    }
+
+    private static int orZero(int value) {
+        return value != NULL_INT ? value : 0;
+    }
+
+}
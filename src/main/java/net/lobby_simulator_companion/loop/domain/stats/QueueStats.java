@@ -0,0 +1,100 @@
+package net.lobby_simulator_companion.loop.domain.stats;
+
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.apache.commons.lang3.StringUtils;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Queue time distribution by the hour of the week at which the lobby search started, and by server region.
+ * Updated incrementally as matches are added or removed, so that we can tell when (and where) lobbies are found
+ * the fastest.
+ *
+ * @author NickyRamone
+ */
+@EqualsAndHashCode
+@ToString
+public class QueueStats {
+
+    public static final int HOURS_IN_A_DAY = 24;
+
+    /**
+     * Key is the hour of the week, from 0 (Monday, 00:00 to 00:59) to 167 (Sunday, 23:00 to 23:59).
+     */
+    private final Map<Integer, DurationHistogram> byHourOfWeek = new TreeMap<>();
+    private final Map<String, DurationHistogram> byRegion = new TreeMap<>();
+
+
+    public void addMatchStats(Match match) {
+        update(match, DurationHistogram::record);
+    }
+
+    public void removeMatchStats(Match match) {
+        update(match, DurationHistogram::remove);
+        byHourOfWeek.values().removeIf(DurationHistogram::isEmpty);
+        byRegion.values().removeIf(DurationHistogram::isEmpty);
+    }
+
+    public void reset() {
+        byHourOfWeek.clear();
+        byRegion.clear();
+    }
+
+    private void update(Match match, ObjIntConsumer<DurationHistogram> operation) {
+        Integer secondsQueued = match.getSecondsQueued();
+        if (secondsQueued == null) {
+            return;
+        }
+
+        getSearchStartTime(match)
+                .map(QueueStats::hourOfWeek)
+                .ifPresent(hour -> operation.accept(byHourOfWeek.computeIfAbsent(hour, k -> new DurationHistogram()),
+                        secondsQueued));
+
+        if (StringUtils.isNotBlank(match.getServerRegion())) {
+            operation.accept(byRegion.computeIfAbsent(match.getServerRegion(), k -> new DurationHistogram()),
+                    secondsQueued);
+        }
+    }
+
+    /**
+     * Queue times of the lobby searches started on the given day, between the given hours.
+     *
+     * @param fromHour Inclusive.
+     * @param toHour   Exclusive.
+     */
+    public DurationHistogram getByHourOfWeek(DayOfWeek day, int fromHour, int toHour) {
+        DurationHistogram result = new DurationHistogram();
+        int dayOffset = (day.getValue() - 1) * HOURS_IN_A_DAY;
+
+        for (int hour = fromHour; hour < toHour; hour++) {
+            Optional.ofNullable(byHourOfWeek.get(dayOffset + hour)).ifPresent(result::merge);
+        }
+
+        return result;
+    }
+
+    public Map<String, DurationHistogram> getByRegion() {
+        return Collections.unmodifiableMap(byRegion);
+    }
+
+    /**
+     * The lobby search started before the match by the time we waited for it.
+     */
+    private static Optional<LocalDateTime> getSearchStartTime(Match match) {
+        return Optional.ofNullable(match.getMatchStartTime())
+                .map(t -> t.minusSeconds(Optional.ofNullable(match.getSecondsWaited()).orElse(0)));
+    }
+
+    static int hourOfWeek(LocalDateTime time) {
+        return (time.getDayOfWeek().getValue() - 1) * HOURS_IN_A_DAY + time.getHour();
+    }
+
+}
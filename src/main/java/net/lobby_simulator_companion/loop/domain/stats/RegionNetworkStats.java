@@ -0,0 +1,80 @@
+package net.lobby_simulator_companion.loop.domain.stats;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Network quality of the matches played on the servers of a region.
+ * Only sums are kept, so that matches can be removed as easily as they are added.
+ *
+ * @author NickyRamone
+ */
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@EqualsAndHashCode
+@ToString
+public class RegionNetworkStats {
+
+    private int matches;
+    /**
+     * Matches with latency samples (the latency sums only cover these).
+     */
+    private int matchesWithLatency;
+    private long latencySum;
+    private long jitterSum;
+    private long packetsIn;
+    private long estimatedLoss;
+    private int lossBursts;
+
+
+    void add(MatchNetworkStats stats) {
+        update(stats, 1);
+    }
+
+    void remove(MatchNetworkStats stats) {
+        update(stats, -1);
+    }
+
+    private void update(MatchNetworkStats stats, int sign) {
+        matches += sign;
+        if (stats.getLatencySamples() > 0) {
+            matchesWithLatency += sign;
+            latencySum += sign * stats.getLatencyMedian();
+            jitterSum += sign * stats.getJitter();
+        }
+        packetsIn += sign * (long) stats.getPacketsIn();
+        estimatedLoss += sign * (long) stats.getEstimatedLoss();
+        lossBursts += sign * stats.getLossBursts();
+    }
+
+    /**
+     * @return Average of the median latency of each match, in milliseconds.
+     */
+    public int getAverageLatency() {
+        return matchesWithLatency == 0 ? 0 : (int) (latencySum / matchesWithLatency);
+    }
+
+    public int getAverageJitter() {
+        return matchesWithLatency == 0 ? 0 : (int) (jitterSum / matchesWithLatency);
+    }
+
+    /**
+     * @return Estimated percentage of the packets from the server that were lost.
+     */
+    public float getLossRate() {
+        long expected = packetsIn + estimatedLoss;
+
+        return expected == 0 ? 0 : (float) estimatedLoss / expected * 100;
+    }
+
+    public float getLossBurstsPerMatch() {
+        return matches == 0 ? 0 : (float) lossBursts / matches;
+    }
+
+}
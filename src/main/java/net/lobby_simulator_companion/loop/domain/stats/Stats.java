@@ -17,7 +17,9 @@ import net.lobby_simulator_companion.loop.domain.stats.periodic.YearlyStats;
 
 import java.lang.reflect.Type;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.stream.Stream;
 
 /**
@@ -68,6 +70,64 @@ public class Stats {
         }
     }
 
+    /**
+     * Retracts a removed match from the periods that cover it.
+     *
+     * @param history Known matches in chronological order, still including the removed one.
+     */
+    public void removeMatchStats(Match match, List<Match> history) {
+        for (PeriodStats p : periodsStats) {
+            if (!p.covers(match)) {
+                continue;
+            }
+            List<Match> periodMatches = new ArrayList<>();
+            int position = -1;
+
+            for (Match m : history) {
+                if (m == match) {
+                    position = periodMatches.size();
+                } else if (p.covers(m)) {
+                    periodMatches.add(m);
+                }
+            }
+
+            if (position >= 0) {
+                p.removeMatchStats(match, periodMatches, position,
+                        periodMatches.size() == p.getMatchesPlayed() - 1);
+            }
+        }
+    }
+
+    /**
+     * Replaces the contribution of an edited match in the periods that cover it.
+     *
+     * @param previous Copy of the match before it was edited.
+     * @param current  The edited match.
+     * @param history  Known matches in chronological order, including the edited one.
+     */
+    public void replaceMatchStats(Match previous, Match current, List<Match> history) {
+        for (PeriodStats p : periodsStats) {
+            if (!p.covers(current)) {
+                continue;
+            }
+            List<Match> periodMatches = new ArrayList<>();
+            int position = -1;
+
+            for (Match m : history) {
+                if (m == current) {
+                    position = periodMatches.size();
+                    periodMatches.add(m);
+                } else if (p.covers(m)) {
+                    periodMatches.add(m);
+                }
+            }
+
+            if (position >= 0) {
+                p.replaceMatchStats(previous, periodMatches, position, periodMatches.size() == p.getMatchesPlayed());
+            }
+        }
+    }
+
     public Stream<PeriodStats> asStream() {
         return Arrays.stream(periodsStats);
     }
@@ -0,0 +1,172 @@
+package net.lobby_simulator_companion.loop.domain.stats;
+
+import java.util.List;
+
+import static java.lang.Math.max;
+
+/**
+ * Works out how the escape/death streaks of an ordered sequence of matches change when a single match is edited or
+ * removed, without scanning the whole sequence.
+ * <p>
+ * Matches with no survival status do not break or extend streaks, so they are skipped. Around the changed position
+ * we only need the run that ends right before it (left) and the run that starts right after it (right); runs
+ * further away cannot be affected.
+ *
+ * @author NickyRamone
+ */
+final class StreakSegments {
+
+    enum Outcome {NONE, ESCAPE, DEATH}
+
+    /**
+     * Summary of the runs around a changed position.
+     */
+    static final class Segment {
+        int maxEscapes;
+        int maxDeaths;
+
+        /**
+         * Last run of the segment; only meaningful when the segment reaches the end of the sequence.
+         */
+        Outcome lastOutcome = Outcome.NONE;
+        int lastRunLength;
+    }
+
+
+    private final List<Match> matches;
+    private final int position;
+    private final boolean removed;
+
+    private final Outcome leftOutcome;
+    private final int leftRunLength;
+    private final Outcome rightOutcome;
+    private final int rightRunLength;
+    private final boolean reachesEnd;
+
+
+    /**
+     * @param matches  sequence of matches after the change took place.
+     * @param position index of the changed match or, if it was removed, index of the match that followed it.
+     * @param removed  whether the match was removed from the sequence.
+     */
+    StreakSegments(List<Match> matches, int position, boolean removed) {
+        this.matches = matches;
+        this.position = position;
+        this.removed = removed;
+
+        int i = position - 1;
+        while (i >= 0 && outcome(matches.get(i)) == Outcome.NONE) {
+            i--;
+        }
+        leftOutcome = i >= 0 ? outcome(matches.get(i)) : Outcome.NONE;
+        leftRunLength = runLength(i, -1, leftOutcome);
+
+        i = removed ? position : position + 1;
+        while (i < matches.size() && outcome(matches.get(i)) == Outcome.NONE) {
+            i++;
+        }
+        rightOutcome = i < matches.size() ? outcome(matches.get(i)) : Outcome.NONE;
+        rightRunLength = runLength(i, 1, rightOutcome);
+        reachesEnd = runEnd(i, rightOutcome) == matches.size();
+    }
+
+
+    static Outcome outcome(Match match) {
+        if (match.escaped()) {
+            return Outcome.ESCAPE;
+        }
+        if (match.died()) {
+            return Outcome.DEATH;
+        }
+        return Outcome.NONE;
+    }
+
+    /**
+     * Number of matches in the run of the given outcome that starts at index 'from', walking in the given direction.
+     */
+    private int runLength(int from, int step, Outcome runOutcome) {
+        if (runOutcome == Outcome.NONE) {
+            return 0;
+        }
+        int length = 0;
+        for (int i = from; i >= 0 && i < matches.size(); i += step) {
+            Outcome o = outcome(matches.get(i));
+            if (o == runOutcome) {
+                length++;
+            } else if (o != Outcome.NONE) {
+                break;
+            }
+        }
+
+        return length;
+    }
+
+    /**
+     * Index right after the run of the given outcome that starts at 'from'.
+     */
+    private int runEnd(int from, Outcome runOutcome) {
+        int i = from;
+        while (i < matches.size()) {
+            Outcome o = outcome(matches.get(i));
+            if (o != Outcome.NONE && o != runOutcome) {
+                break;
+            }
+            i++;
+        }
+
+        return i;
+    }
+
+
+    /**
+     * Runs around the changed position, assuming the changed match had the given outcome
+     * ({@link Outcome#NONE} stands for no match at all).
+     */
+    Segment evaluate(Outcome changedOutcome) {
+        Segment segment = new Segment();
+        Outcome runOutcome = leftOutcome;
+        int runLength = leftRunLength;
+
+        if (changedOutcome != Outcome.NONE) {
+            if (changedOutcome == runOutcome) {
+                runLength++;
+            } else {
+                close(segment, runOutcome, runLength);
+                runOutcome = changedOutcome;
+                runLength = 1;
+            }
+        }
+
+        if (rightOutcome != Outcome.NONE) {
+            if (rightOutcome == runOutcome) {
+                runLength += rightRunLength;
+            } else {
+                close(segment, runOutcome, runLength);
+                runOutcome = rightOutcome;
+                runLength = rightRunLength;
+            }
+        }
+        close(segment, runOutcome, runLength);
+        segment.lastOutcome = runOutcome;
+        segment.lastRunLength = runLength;
+
+        return segment;
+    }
+
+    private void close(Segment segment, Outcome runOutcome, int runLength) {
+        if (runOutcome == Outcome.ESCAPE) {
+            segment.maxEscapes = max(segment.maxEscapes, runLength);
+        } else if (runOutcome == Outcome.DEATH) {
+            segment.maxDeaths = max(segment.maxDeaths, runLength);
+        }
+    }
+
+    /**
+     * Whether the segment includes the last decided match of the sequence, in which case it also determines the
+     * current streak.
+     */
+    boolean reachesEnd() {
+        return reachesEnd;
+    }
+
+}
@@ -8,6 +8,11 @@ import java.time.LocalTime;
  */
 public class DailyStats extends PeriodStats {
 
+    // used by Gson (so that field initializers run)
+    private DailyStats() {
+        this(LocalDateTime.now());
+    }
+
     public DailyStats(LocalDateTime now) {
         super(now);
     }
@@ -1,5 +1,7 @@
 package net.lobby_simulator_companion.loop.domain.stats.periodic;
 
+import net.lobby_simulator_companion.loop.domain.stats.Match;
+
 import java.time.LocalDateTime;
 
 /**
@@ -7,10 +9,23 @@ import java.time.LocalDateTime;
  */
 public class GlobalStats extends PeriodStats {
 
+    // used by Gson (so that field initializers run)
+    private GlobalStats() {
+        this(LocalDateTime.now());
+    }
+
     public GlobalStats(LocalDateTime now) {
         super(now);
     }
 
+    /**
+     * Every match ever recorded counts towards global stats, even those with no start time.
+     */
+    @Override
+    public boolean covers(Match match) {
+        return true;
+    }
+
     @Override
     protected LocalDateTime getPeriodStart(LocalDateTime now) {
         return now;
@@ -8,6 +8,11 @@ import java.time.LocalTime;
  */
 public class MonthlyStats extends PeriodStats {
 
+    // used by Gson (so that field initializers run)
+    private MonthlyStats() {
+        this(LocalDateTime.now());
+    }
+
     public MonthlyStats(LocalDateTime now) {
         super(now);
     }
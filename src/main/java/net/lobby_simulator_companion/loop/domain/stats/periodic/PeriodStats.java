@@ -2,6 +2,7 @@ package net.lobby_simulator_companion.loop.domain.stats.periodic;
 
 import lombok.Getter;
 import net.lobby_simulator_companion.loop.domain.stats.AggregateStats;
+import net.lobby_simulator_companion.loop.domain.stats.Match;
 
 import java.time.LocalDateTime;
 
@@ -29,6 +30,17 @@ public abstract class PeriodStats extends AggregateStats {
         periodEnd = getPeriodEnd(now);
     }
 
+    /**
+     * Whether the given match took place within this period.
+     */
+    public boolean covers(Match match) {
+        LocalDateTime matchTime = match.getMatchStartTime();
+
+        return matchTime != null
+                && !matchTime.isBefore(periodStart)
+                && (periodEnd == null || !matchTime.isAfter(periodEnd));
+    }
+
     abstract LocalDateTime getPeriodStart(LocalDateTime now);
 
     abstract LocalDateTime getPeriodEnd(LocalDateTime now);
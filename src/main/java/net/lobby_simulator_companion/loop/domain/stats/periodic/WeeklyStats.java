@@ -10,6 +10,11 @@ import java.time.temporal.TemporalAdjusters;
  */
 public class WeeklyStats extends PeriodStats {
 
+    // used by Gson (so that field initializers run)
+    private WeeklyStats() {
+        this(LocalDateTime.now());
+    }
+
     public WeeklyStats(LocalDateTime now) {
         super(now);
     }
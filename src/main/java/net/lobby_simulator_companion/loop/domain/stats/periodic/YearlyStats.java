@@ -8,6 +8,11 @@ import java.time.LocalTime;
  */
 public class YearlyStats extends PeriodStats {
 
+    // used by Gson (so that field initializers run)
+    private YearlyStats() {
+        this(LocalDateTime.now());
+    }
+
     public YearlyStats(LocalDateTime now) {
         super(now);
     }
@@ -0,0 +1,653 @@
+package net.lobby_simulator_companion.loop.repository;
+
+import com.google.gson.ExclusionStrategy;
+import com.google.gson.FieldAttributes;
+import com.google.gson.Gson;
+import net.lobby_simulator_companion.loop.config.LoopGsonFactory;
+import net.lobby_simulator_companion.loop.domain.Killer;
+import net.lobby_simulator_companion.loop.domain.LoopData;
+import net.lobby_simulator_companion.loop.domain.Player;
+import net.lobby_simulator_companion.loop.domain.RealmMap;
+import net.lobby_simulator_companion.loop.domain.stats.Match;
+import net.lobby_simulator_companion.loop.domain.stats.PackedMatchTable;
+import net.lobby_simulator_companion.loop.util.Crc32c;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Binary encoding of {@link LoopData}.
+ * <p>
+ * The body is a sequence of blocks, each one framed as: type (1 byte), payload length (varint), payload,
+ * CRC-32C of the payload (4 bytes). Blocks come in this order:
+ * <ul>
+ * <li>String table: every player id, name, note and server region, stored once and referenced by index.</li>
+ * <li>Enum dictionary: the constant names of each stored enum type, so that records can use ordinals and still be
+ * read after constants are added, removed or reordered.</li>
+ * <li>Players.</li>
+ * <li>Matches: the id and start time of each match are stored as the difference with the previous match.</li>
+ * <li>Aggregates: the rest of LoopData (stats, indexes), which is small and bounded, as JSON.</li>
+ * <li>End.</li>
+ * </ul>
+ * Integers are varints (7 bits per byte), dates are epoch seconds and nullable fields are flagged in a bit mask
+ * at the start of each record.
+ *
+ * @author NickyRamone
+ */
+public class BinaryLoopDataCodec {
+
+    public static final byte[] MAGIC = {'S', 'T', 'B', 'D'};
+    /**
+     * 2: matches may include network stats.
+     */
+    public static final int FORMAT_VERSION = 2;
+
+    private static final int BLOCK__END = 0;
+    private static final int BLOCK__STRING_TABLE = 1;
+    private static final int BLOCK__ENUM_DICTIONARY = 2;
+    private static final int BLOCK__PLAYERS = 3;
+    private static final int BLOCK__MATCHES = 4;
+    private static final int BLOCK__AGGREGATES = 5;
+
+    private static final int PLAYER__FIRST_SEEN = 1;
+    private static final int PLAYER__LAST_SEEN = 1 << 1;
+
+    private static final int MATCH__LOBBIES_FOUND = 1;
+    private static final int MATCH__SECONDS_QUEUED = 1 << 1;
+    private static final int MATCH__SECONDS_WAITED = 1 << 2;
+    private static final int MATCH__SECONDS_PLAYED = 1 << 3;
+    private static final int MATCH__START_TIME = 1 << 4;
+    private static final int MATCH__ESCAPED_KNOWN = 1 << 5;
+    private static final int MATCH__ESCAPED = 1 << 6;
+    private static final int MATCH__KILL_COUNT = 1 << 7;
+    private static final int MATCH__KILLER = 1 << 8;
+    private static final int MATCH__REALM_MAP = 1 << 9;
+    private static final int MATCH__SERVER_REGION = 1 << 10;
+    private static final int MATCH__KILLER_PLAYER = 1 << 11;
+    private static final int MATCH__NETWORK_STATS = 1 << 12;
+
+    /**
+     * Enum types stored as ordinals, in dictionary order.
+     */
+    private static final List<Class<? extends Enum<?>>> ENUM_TYPES =
+            Arrays.asList(Killer.class, RealmMap.class, Player.Rating.class);
+
+    private final Gson aggregatesGson = LoopGsonFactory.gson(false, new ExclusionStrategy() {
+        @Override
+        public boolean shouldSkipField(FieldAttributes f) {
+            return f.getDeclaringClass() == LoopData.class
+                    && (f.getName().equals("players") || f.getName().equals("matchLog"));
+        }
+
+        @Override
+        public boolean shouldSkipClass(Class<?> clazz) {
+            return false;
+        }
+    });
+
+
+    public static boolean hasMagic(byte[] header) {
+        return header.length >= MAGIC.length && Arrays.equals(Arrays.copyOf(header, MAGIC.length), MAGIC);
+    }
+
+
+    /**
+     * Writes the blocks (without the file header) to the given stream.
+     */
+    public void encode(LoopData loopData, OutputStream outputStream) throws IOException {
+        DataOutputStream out = new DataOutputStream(outputStream);
+        StringTable strings = new StringTable();
+
+        BlockWriter players = new BlockWriter();
+        encodePlayers(loopData.getPlayers(), players, strings);
+
+        BlockWriter matches = new BlockWriter();
+        encodeMatches(loopData.getMatchLog().getMatches(), matches, strings);
+
+        BlockWriter aggregates = new BlockWriter();
+        byte[] aggregatesJson = aggregatesGson.toJson(loopData).getBytes(StandardCharsets.UTF_8);
+        aggregates.write(aggregatesJson, 0, aggregatesJson.length);
+
+        writeDictionaryBlocks(out, strings);
+        writeBlock(out, BLOCK__PLAYERS, players);
+        writeBlock(out, BLOCK__MATCHES, matches);
+        writeBlock(out, BLOCK__AGGREGATES, aggregates);
+        writeBlock(out, BLOCK__END, new BlockWriter());
+        out.flush();
+    }
+
+    /**
+     * Writes only the given matches (along with the string table and dictionary they refer to), using the same block
+     * format. Used for storing match history segments.
+     */
+    public void encodeMatches(List<Match> matchList, OutputStream outputStream) throws IOException {
+        DataOutputStream out = new DataOutputStream(outputStream);
+        StringTable strings = new StringTable();
+
+        BlockWriter matches = new BlockWriter();
+        encodeMatches(matchList, matches, strings);
+
+        writeDictionaryBlocks(out, strings);
+        writeBlock(out, BLOCK__MATCHES, matches);
+        writeBlock(out, BLOCK__END, new BlockWriter());
+        out.flush();
+    }
+
+    private void writeDictionaryBlocks(DataOutputStream out, StringTable strings) throws IOException {
+        BlockWriter stringTable = new BlockWriter();
+        stringTable.writeVarInt(strings.values.size());
+        for (String value : strings.values) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            stringTable.writeVarInt(bytes.length);
+            stringTable.write(bytes, 0, bytes.length);
+        }
+
+        BlockWriter enumDictionary = new BlockWriter();
+        enumDictionary.writeVarInt(ENUM_TYPES.size());
+        for (Class<? extends Enum<?>> enumType : ENUM_TYPES) {
+            Enum<?>[] constants = enumType.getEnumConstants();
+            enumDictionary.writeVarInt(constants.length);
+            for (Enum<?> constant : constants) {
+                byte[] bytes = constant.name().getBytes(StandardCharsets.UTF_8);
+                enumDictionary.writeVarInt(bytes.length);
+                enumDictionary.write(bytes, 0, bytes.length);
+            }
+        }
+
+        writeBlock(out, BLOCK__STRING_TABLE, stringTable);
+        writeBlock(out, BLOCK__ENUM_DICTIONARY, enumDictionary);
+    }
+
+    private void encodePlayers(Collection<Player> players, BlockWriter out, StringTable strings) {
+        out.writeVarInt(players.size());
+
+        for (Player player : players) {
+            int flags = (player.getFirstSeen() != null ? PLAYER__FIRST_SEEN : 0)
+                    | (player.getLastSeen() != null ? PLAYER__LAST_SEEN : 0);
+            out.writeVarInt(flags);
+            out.writeVarInt(strings.ref(player.getSteamId64()));
+            out.writeVarInt(strings.ref(player.getDbdPlayerId()));
+            if (player.getFirstSeen() != null) {
+                out.writeVarLong(toEpochSecond(player.getFirstSeen()));
+            }
+            if (player.getLastSeen() != null) {
+                out.writeVarLong(toEpochSecond(player.getLastSeen()));
+            }
+            out.writeVarInt(player.getTimesEncountered());
+            out.writeVarInt(player.getMatchesPlayed());
+            out.writeVarInt(player.getSecondsPlayed());
+            out.writeVarInt(player.getEscapes());
+            out.writeVarInt(player.getDeaths());
+            List<String> names = Optional.ofNullable(player.getNames()).orElse(Collections.emptyList());
+            out.writeVarInt(names.size());
+            for (String name : names) {
+                out.writeVarInt(strings.ref(name));
+            }
+            out.writeVarInt(enumRef(player.getRating()));
+            out.writeVarInt(strings.ref(player.getDescription()));
+        }
+    }
+
+    private void encodeMatches(List<Match> matches, BlockWriter out, StringTable strings) {
+        out.writeVarInt(matches.size());
+        int previousId = 0;
+        long previousStartTime = 0;
+
+        for (Match match : matches) {
+            int flags = (match.getLobbiesFound() != null ? MATCH__LOBBIES_FOUND : 0)
+                    | (match.getSecondsQueued() != null ? MATCH__SECONDS_QUEUED : 0)
+                    | (match.getSecondsWaited() != null ? MATCH__SECONDS_WAITED : 0)
+                    | (match.getSecondsPlayed() != null ? MATCH__SECONDS_PLAYED : 0)
+                    | (match.getMatchStartTime() != null ? MATCH__START_TIME : 0)
+                    | (match.getEscaped() != null ? MATCH__ESCAPED_KNOWN : 0)
+                    | (match.escaped() ? MATCH__ESCAPED : 0)
+                    | (match.getKillCount() != null ? MATCH__KILL_COUNT : 0)
+                    | (match.getKiller() != null ? MATCH__KILLER : 0)
+                    | (match.getRealmMap() != null ? MATCH__REALM_MAP : 0)
+                    | (match.getServerRegion() != null ? MATCH__SERVER_REGION : 0)
+                    | (match.getKillerPlayerSteamId64() != null ? MATCH__KILLER_PLAYER : 0)
+                    | (match.getNetworkStats() != null ? MATCH__NETWORK_STATS : 0);
+
+            out.writeVarInt(flags);
+            out.writeSignedVarLong(match.getId() - previousId);
+            previousId = match.getId();
+
+            if (match.getLobbiesFound() != null) {
+                out.writeVarInt(match.getLobbiesFound());
+            }
+            if (match.getSecondsQueued() != null) {
+                out.writeVarInt(match.getSecondsQueued());
+            }
+            if (match.getSecondsWaited() != null) {
+                out.writeVarInt(match.getSecondsWaited());
+            }
+            if (match.getSecondsPlayed() != null) {
+                out.writeVarInt(match.getSecondsPlayed());
+            }
+            if (match.getMatchStartTime() != null) {
+                long startTime = toEpochSecond(match.getMatchStartTime());
+                out.writeSignedVarLong(startTime - previousStartTime);
+                previousStartTime = startTime;
+            }
+            if (match.getKillCount() != null) {
+                out.writeVarInt(match.getKillCount());
+            }
+            if (match.getKiller() != null) {
+                out.writeVarInt(enumRef(match.getKiller()));
+            }
+            if (match.getRealmMap() != null) {
+                out.writeVarInt(enumRef(match.getRealmMap()));
+            }
+            if (match.getServerRegion() != null) {
+                out.writeVarInt(strings.ref(match.getServerRegion()));
+            }
+            if (match.getKillerPlayerSteamId64() != null) {
+                out.writeVarInt(strings.ref(match.getKillerPlayerSteamId64()));
+            }
+            if (match.getNetworkStats() != null) {
+                int[] values = match.getNetworkStats().toValues();
+                out.writeVarInt(values.length);
+                for (int value : values) {
+                    out.writeVarInt(value);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Reads the blocks (without the file header) from the given stream.
+     */
+    public LoopData decode(InputStream inputStream) throws IOException {
+        DataInputStream in = new DataInputStream(inputStream);
+        List<String> strings = new ArrayList<>();
+        List<List<Enum<?>>> enumDictionary = new ArrayList<>();
+        List<Player> players = new ArrayList<>();
+        PackedMatchTable matches = new PackedMatchTable();
+        LoopData loopData = null;
+        int blockType;
+
+        do {
+            blockType = in.readUnsignedByte();
+            BlockReader block = readBlock(in);
+
+            switch (blockType) {
+                case BLOCK__STRING_TABLE:
+                    strings = decodeStrings(block);
+                    break;
+                case BLOCK__ENUM_DICTIONARY:
+                    enumDictionary = decodeEnumDictionary(block);
+                    break;
+                case BLOCK__PLAYERS:
+                    players = decodePlayers(block, strings, enumDictionary);
+                    break;
+                case BLOCK__MATCHES:
+                    matches = decodeMatches(block, strings, enumDictionary);
+                    break;
+                case BLOCK__AGGREGATES:
+                    loopData = aggregatesGson.fromJson(block.readRemainingString(), LoopData.class);
+                    break;
+                default:
+                    // unknown blocks (written by a newer version) are skipped
+                    break;
+            }
+        } while (blockType != BLOCK__END);
+
+        if (loopData == null) {
+            loopData = new LoopData();
+        }
+        loopData.addPlayers(players);
+        matches.asList().forEach(loopData.getMatchLog()::add);
+
+        return loopData;
+    }
+
+    /**
+     * Reads matches written by {@link #encodeMatches(List, OutputStream)} straight into the columns of a table.
+     */
+    public PackedMatchTable decodeMatches(InputStream inputStream) throws IOException {
+        DataInputStream in = new DataInputStream(inputStream);
+        List<String> strings = new ArrayList<>();
+        List<List<Enum<?>>> enumDictionary = new ArrayList<>();
+        PackedMatchTable matches = new PackedMatchTable();
+        int blockType;
+
+        do {
+            blockType = in.readUnsignedByte();
+            BlockReader block = readBlock(in);
+
+            if (blockType == BLOCK__STRING_TABLE) {
+                strings = decodeStrings(block);
+            } else if (blockType == BLOCK__ENUM_DICTIONARY) {
+                enumDictionary = decodeEnumDictionary(block);
+            } else if (blockType == BLOCK__MATCHES) {
+                matches = decodeMatches(block, strings, enumDictionary);
+            }
+        } while (blockType != BLOCK__END);
+
+        return matches;
+    }
+
+    private List<String> decodeStrings(BlockReader in) throws IOException {
+        int count = in.readVarInt();
+        List<String> strings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            strings.add(in.readString());
+        }
+
+        return strings;
+    }
+
+    private List<List<Enum<?>>> decodeEnumDictionary(BlockReader in) throws IOException {
+        int typeCount = in.readVarInt();
+        List<List<Enum<?>>> dictionary = new ArrayList<>(typeCount);
+
+        for (int t = 0; t < typeCount; t++) {
+            Map<String, Enum<?>> currentConstants = new HashMap<>();
+            if (t < ENUM_TYPES.size()) {
+                for (Enum<?> constant : ENUM_TYPES.get(t).getEnumConstants()) {
+                    currentConstants.put(constant.name(), constant);
+                }
+            }
+
+            int constantCount = in.readVarInt();
+            List<Enum<?>> constants = new ArrayList<>(constantCount);
+            for (int i = 0; i < constantCount; i++) {
+                // constants which no longer exist are read as null
+                constants.add(currentConstants.get(in.readString()));
+            }
+            dictionary.add(constants);
+        }
+
+        return dictionary;
+    }
+
+    private List<Player> decodePlayers(BlockReader in, List<String> strings, List<List<Enum<?>>> enums)
+            throws IOException {
+
+        int count = in.readVarInt();
+        List<Player> players = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            int flags = in.readVarInt();
+            Player player = new Player();
+            player.setSteamId64(string(strings, in.readVarInt()));
+            player.setDbdPlayerId(string(strings, in.readVarInt()));
+            player.setFirstSeen((flags & PLAYER__FIRST_SEEN) != 0 ? fromEpochSecond(in.readVarLong()) : null);
+            player.setLastSeen((flags & PLAYER__LAST_SEEN) != 0 ? fromEpochSecond(in.readVarLong()) : null);
+            player.setTimesEncountered(in.readVarInt());
+            player.setMatchesPlayed(in.readVarInt());
+            player.setSecondsPlayed(in.readVarInt());
+            player.setEscapes(in.readVarInt());
+            player.setDeaths(in.readVarInt());
+
+            int nameCount = in.readVarInt();
+            List<String> names = new ArrayList<>(nameCount);
+            for (int n = 0; n < nameCount; n++) {
+                names.add(string(strings, in.readVarInt()));
+            }
+            player.setNames(names);
+
+            Player.Rating rating = (Player.Rating) enumConstant(enums, Player.Rating.class, in.readVarInt());
+            player.setRating(rating != null ? rating : Player.Rating.UNRATED);
+            player.setDescription(string(strings, in.readVarInt()));
+            players.add(player);
+        }
+
+        return players;
+    }
+
+    private PackedMatchTable decodeMatches(BlockReader in, List<String> strings, List<List<Enum<?>>> enums)
+            throws IOException {
+
+        int count = in.readVarInt();
+        PackedMatchTable matches = new PackedMatchTable();
+        int previousId = 0;
+        long previousStartTime = 0;
+
+        for (int i = 0; i < count; i++) {
+            int flags = in.readVarInt();
+            previousId += (int) in.readSignedVarLong();
+            int row = matches.addRow(previousId);
+
+            if ((flags & MATCH__LOBBIES_FOUND) != 0) {
+                matches.setLobbiesFound(row, in.readVarInt());
+            }
+            if ((flags & MATCH__SECONDS_QUEUED) != 0) {
+                matches.setSecondsQueued(row, in.readVarInt());
+            }
+            if ((flags & MATCH__SECONDS_WAITED) != 0) {
+                matches.setSecondsWaited(row, in.readVarInt());
+            }
+            if ((flags & MATCH__SECONDS_PLAYED) != 0) {
+                matches.setSecondsPlayed(row, in.readVarInt());
+            }
+            if ((flags & MATCH__START_TIME) != 0) {
+                previousStartTime += in.readSignedVarLong();
+                matches.setStartTime(row, previousStartTime);
+            }
+            if ((flags & MATCH__ESCAPED_KNOWN) != 0) {
+                matches.setEscaped(row, (flags & MATCH__ESCAPED) != 0);
+            }
+            if ((flags & MATCH__KILL_COUNT) != 0) {
+                matches.setKillCount(row, in.readVarInt());
+            }
+            if ((flags & MATCH__KILLER) != 0) {
+                matches.setKiller(row, (Killer) enumConstant(enums, Killer.class, in.readVarInt()));
+            }
+            if ((flags & MATCH__REALM_MAP) != 0) {
+                matches.setRealmMap(row, (RealmMap) enumConstant(enums, RealmMap.class, in.readVarInt()));
+            }
+            if ((flags & MATCH__SERVER_REGION) != 0) {
+                matches.setServerRegion(row, string(strings, in.readVarInt()));
+            }
+            if ((flags & MATCH__KILLER_PLAYER) != 0) {
+                matches.setKillerPlayerSteamId64(row, string(strings, in.readVarInt()));
+            }
+            if ((flags & MATCH__NETWORK_STATS) != 0) {
+                int[] values = new int[in.readVarInt()];
+                for (int v = 0; v < values.length; v++) {
+                    values[v] = in.readVarInt();
+                }
+                matches.setNetworkStats(row, values);
+            }
+        }
+
+        return matches;
+    }
+
+
+    private static int enumRef(Enum<?> constant) {
+        return constant == null ? 0 : constant.ordinal() + 1;
+    }
+
+    private static Enum<?> enumConstant(List<List<Enum<?>>> dictionary, Class<? extends Enum<?>> enumType, int ref)
+            throws IOException {
+
+        if (ref == 0) {
+            return null;
+        }
+        int typeIdx = ENUM_TYPES.indexOf(enumType);
+        if (typeIdx >= dictionary.size() || ref > dictionary.get(typeIdx).size()) {
+            throw new IOException("Invalid reference to " + enumType.getSimpleName() + " constant: " + ref);
+        }
+
+        return dictionary.get(typeIdx).get(ref - 1);
+    }
+
+    private static String string(List<String> strings, int ref) throws IOException {
+        if (ref == 0) {
+            return null;
+        }
+        if (ref > strings.size()) {
+            throw new IOException("Invalid string reference: " + ref);
+        }
+
+        return strings.get(ref - 1);
+    }
+
+    private static long toEpochSecond(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime fromEpochSecond(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+
+    private static void writeBlock(DataOutputStream out, int type, BlockWriter block) throws IOException {
+        Crc32c crc = new Crc32c();
+        crc.update(block.buffer(), 0, block.size());
+
+        out.writeByte(type);
+        BlockWriter length = new BlockWriter();
+        length.writeVarInt(block.size());
+        length.writeTo(out);
+        block.writeTo(out);
+        out.writeInt((int) crc.getValue());
+    }
+
+    private static BlockReader readBlock(DataInputStream in) throws IOException {
+        int length = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            length |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        int storedCrc = in.readInt();
+
+        Crc32c crc = new Crc32c();
+        crc.update(payload, 0, payload.length);
+        if ((int) crc.getValue() != storedCrc) {
+            throw new IOException("Corrupt data block (checksum mismatch).");
+        }
+
+        return new BlockReader(payload);
+    }
+
+
+    /**
+     * Assigns an index to each distinct string. Index 0 stands for null.
+     */
+    private static final class StringTable {
+        private final Map<String, Integer> refs = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int ref(String value) {
+            if (value == null) {
+                return 0;
+            }
+
+            return refs.computeIfAbsent(value, v -> {
+                values.add(v);
+                return values.size();
+            });
+        }
+    }
+
+
+    private static final class BlockWriter extends ByteArrayOutputStream {
+
+        void writeVarInt(int value) {
+            while ((value & ~0x7F) != 0) {
+                write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write(value);
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        /**
+         * Zig-zag encoding, so that small negative values take few bytes as well.
+         */
+        void writeSignedVarLong(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+    }
+
+
+    private static final class BlockReader {
+        private final byte[] data;
+        private int pos;
+
+        BlockReader(byte[] data) {
+            this.data = data;
+        }
+
+        int readVarInt() throws IOException {
+            return (int) readVarLong();
+        }
+
+        long readVarLong() throws IOException {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (pos >= data.length || shift > 63) {
+                    throw new EOFException("Truncated data block.");
+                }
+                b = data[pos++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+
+            return value;
+        }
+
+        long readSignedVarLong() throws IOException {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        String readString() throws IOException {
+            int length = readVarInt();
+            if (length < 0 || pos + length > data.length) {
+                throw new EOFException("Truncated data block.");
+            }
+            String value = new String(data, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+
+            return value;
+        }
+
+        String readRemainingString() {
+            String value = new String(data, pos, data.length - pos, StandardCharsets.UTF_8);
+            pos = data.length;
+
+            return value;
+        }
+    }
+
+}
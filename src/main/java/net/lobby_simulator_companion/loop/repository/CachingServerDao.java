@@ -0,0 +1,309 @@
+package net.lobby_simulator_companion.loop.repository;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import net.lobby_simulator_companion.loop.domain.Server;
+import net.lobby_simulator_companion.loop.util.FileUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps the servers retrieved by another DAO, since the same dedicated servers are met over and over.
+ * <p>
+ * The most recently used servers are kept in memory and stored in a small file, so that they are known right away
+ * after a restart. Servers older than the TTL are retrieved again, but if that fails (for example, the service is
+ * down), the old information is still returned. Concurrent lookups of the same address share a single retrieval.
+ * <p>
+ * Servers are returned as copies, since callers complete them (for example, with the latency).
+ *
+ * @author NickyRamone
+ */
+@Slf4j
+public class CachingServerDao implements ServerDao {
+
+    private static final Type ENTRIES_TYPE = new TypeToken<List<CachedServer>>() {
+    }.getType();
+
+    private final ServerDao delegate;
+    private final File cacheFile;
+    private final Gson gson;
+    private final int capacity;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+
+    /**
+     * Servers by IP address, least recently used first. Guarded by itself.
+     */
+    private final LinkedHashMap<String, CachedServer> entries;
+    private final ConcurrentMap<String, CompletableFuture<Server>> retrievals = new ConcurrentHashMap<>();
+    private final Object saveLock = new Object();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong lookupNanos = new AtomicLong();
+    private final AtomicLong retrievalNanos = new AtomicLong();
+
+
+    @AllArgsConstructor
+    private static final class CachedServer {
+        private final Server server;
+        /**
+         * Epoch millis.
+         */
+        private final long retrievalTime;
+    }
+
+    /**
+     * Lookup counters since the application started.
+     * A hit is a lookup answered from the cache; a stale hit is one answered from the cache after the retrieval of
+     * an expired server failed; a miss is a successful retrieval (including the ones of expired servers).
+     * Coalesced lookups are the ones that waited for the retrieval started by another lookup.
+     */
+    @Getter
+    @AllArgsConstructor
+    @ToString
+    public static final class Metrics {
+        private final int size;
+        private final long hits;
+        private final long staleHits;
+        private final long misses;
+        private final long coalesced;
+        private final long failures;
+        private final long averageLookupMicros;
+        private final long averageRetrievalMillis;
+
+        public float getHitRatio() {
+            long lookups = hits + staleHits + misses;
+            return lookups == 0 ? 0 : (float) (hits + staleHits) / lookups;
+        }
+    }
+
+
+    /**
+     * @param cacheFile File where the servers are stored (null to keep them only in memory).
+     */
+    public CachingServerDao(ServerDao delegate, File cacheFile, Gson gson, int capacity, long ttlMillis) {
+        this(delegate, cacheFile, gson, capacity, ttlMillis, System::currentTimeMillis);
+    }
+
+    CachingServerDao(ServerDao delegate, File cacheFile, Gson gson, int capacity, long ttlMillis,
+                     LongSupplier clock) {
+        this.delegate = delegate;
+        this.cacheFile = cacheFile;
+        this.gson = gson;
+        this.capacity = capacity;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<String, CachedServer>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedServer> eldest) {
+                return size() > CachingServerDao.this.capacity;
+            }
+        };
+        load();
+    }
+
+
+    @Override
+    public Server getByIpAddress(String ipAddress) throws IOException {
+        long startTime = System.nanoTime();
+        try {
+            return copy(lookup(ipAddress));
+        } finally {
+            long elapsed = System.nanoTime() - startTime;
+            lookupNanos.addAndGet(elapsed);
+            if (log.isDebugEnabled()) {
+                log.debug("Looked up server {} in {} ms. {}", ipAddress, elapsed / 1_000_000, getMetrics());
+            }
+        }
+    }
+
+    public Metrics getMetrics() {
+        long hitCount = hits.get();
+        long staleHitCount = staleHits.get();
+        long missCount = misses.get();
+        long failureCount = failures.get();
+        long lookups = hitCount + staleHitCount + missCount + coalesced.get() + failureCount;
+        long retrievals = missCount + failureCount;
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+
+        return new Metrics(size, hitCount, staleHitCount, missCount, coalesced.get(), failureCount,
+                lookups == 0 ? 0 : lookupNanos.get() / lookups / 1000,
+                retrievals == 0 ? 0 : retrievalNanos.get() / retrievals / 1_000_000);
+    }
+
+
+    private Server lookup(String ipAddress) throws IOException {
+        CachedServer entry = getEntry(ipAddress);
+        if (isFresh(entry)) {
+            hits.incrementAndGet();
+            return entry.server;
+        }
+
+        CompletableFuture<Server> retrieval = new CompletableFuture<>();
+        CompletableFuture<Server> ongoingRetrieval = retrievals.putIfAbsent(ipAddress, retrieval);
+        if (ongoingRetrieval != null) {
+            coalesced.incrementAndGet();
+            return await(ongoingRetrieval);
+        }
+
+        try {
+            // another retrieval may have completed (and left) between the check above and winning the slot
+            entry = getEntry(ipAddress);
+            if (isFresh(entry)) {
+                hits.incrementAndGet();
+                retrieval.complete(entry.server);
+                return entry.server;
+            }
+            Server server = retrieve(ipAddress, entry);
+            retrieval.complete(server);
+            return server;
+        } catch (IOException | RuntimeException e) {
+            retrieval.completeExceptionally(e);
+            throw e;
+        } finally {
+            retrievals.remove(ipAddress, retrieval);
+        }
+    }
+
+    private CachedServer getEntry(String ipAddress) {
+        synchronized (entries) {
+            return entries.get(ipAddress);
+        }
+    }
+
+    private boolean isFresh(CachedServer entry) {
+        return entry != null && clock.getAsLong() - entry.retrievalTime < ttlMillis;
+    }
+
+    /**
+     * @param expiredEntry Entry to fall back to if the retrieval fails (may be null).
+     */
+    private Server retrieve(String ipAddress, CachedServer expiredEntry) throws IOException {
+        Server server;
+        long startTime = System.nanoTime();
+        try {
+            server = delegate.getByIpAddress(ipAddress);
+        } catch (IOException e) {
+            failures.incrementAndGet();
+            if (expiredEntry == null) {
+                throw e;
+            }
+            log.warn("Failed to retrieve information of server {} ({}). Using the cached information.",
+                    ipAddress, e.getMessage());
+            staleHits.incrementAndGet();
+            return expiredEntry.server;
+        } finally {
+            retrievalNanos.addAndGet(System.nanoTime() - startTime);
+        }
+        misses.incrementAndGet();
+
+        Server cachedServer = server.toBuilder().latency(null).build();
+        synchronized (entries) {
+            entries.put(ipAddress, new CachedServer(cachedServer, clock.getAsLong()));
+        }
+        save();
+
+        return cachedServer;
+    }
+
+    private Server await(CompletableFuture<Server> retrieval) throws IOException {
+        try {
+            return retrieval.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for server information.");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Failed to retrieve server information.", cause);
+        }
+    }
+
+    private static Server copy(Server server) {
+        return server.toBuilder().build();
+    }
+
+
+    private void load() {
+        if (cacheFile == null || !cacheFile.exists()) {
+            return;
+        }
+
+        try (Reader reader = new InputStreamReader(Files.newInputStream(cacheFile.toPath()), StandardCharsets.UTF_8)) {
+            List<CachedServer> storedEntries = gson.fromJson(reader, ENTRIES_TYPE);
+            if (storedEntries != null) {
+                for (CachedServer entry : storedEntries) {
+                    if (entry != null && entry.server != null && entry.server.getAddress() != null) {
+                        entries.put(entry.server.getAddress(), entry);
+                    }
+                }
+            }
+            log.debug("Loaded {} cached servers.", entries.size());
+        } catch (Exception e) {
+            // the cache can always be rebuilt
+            log.warn("Failed to load cached servers from {}.", cacheFile, e);
+        }
+    }
+
+    /**
+     * Stores the servers, least recently used first, so that the order survives a restart.
+     */
+    private void save() {
+        if (cacheFile == null) {
+            return;
+        }
+
+        synchronized (saveLock) {
+            List<CachedServer> snapshot;
+            synchronized (entries) {
+                snapshot = new ArrayList<>(entries.values());
+            }
+
+            try {
+                FileUtil.writeAtomically(cacheFile, 0, outputStream -> {
+                    Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+                    gson.toJson(snapshot, ENTRIES_TYPE, writer);
+                    writer.flush();
+                });
+            } catch (IOException e) {
+                log.warn("Failed to store cached servers in {}.", cacheFile, e);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,264 @@
+package net.lobby_simulator_companion.loop.repository;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Storage envelope which splits the payload into chunks that are compressed and AES-GCM encrypted independently,
+ * so that they can be processed in parallel.
+ * <p>
+ * Layout: MAGIC, version, chunk size (int), nonce prefix (8 bytes), then a frame per chunk: plain length (int),
+ * encrypted length (int), encrypted bytes (including the authentication tag).
+ * Each chunk's nonce is the prefix plus the chunk index. The index and a "last chunk" marker are authenticated along
+ * with the data, so reordered, dropped or truncated chunks are detected. There is always at least one chunk (which
+ * is then the last one), so a stream cut right after the header is detected as well.
+ *
+ * @author NickyRamone
+ */
+public class ChunkedAesGcmEnvelope {
+
+    public static final byte[] MAGIC = {'S', 'T', 'B', 'E'};
+    private static final int VERSION = 1;
+    private static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+    /**
+     * Upper bound for the chunk size read from the header, so that a corrupt one cannot make us allocate huge buffers.
+     */
+    private static final int MAX_CHUNK_SIZE = 1 << 26;
+    /**
+     * Largest array most JVMs can allocate.
+     */
+    private static final int MAX_PAYLOAD_SIZE = Integer.MAX_VALUE - 8;
+    private static final int NONCE_PREFIX_SIZE = 8;
+    private static final int TAG_BITS = 128;
+
+    private final SecretKey key;
+    private final int chunkSize;
+    private final SecureRandom random = new SecureRandom();
+
+
+    public ChunkedAesGcmEnvelope(SecretKey key) {
+        this(key, DEFAULT_CHUNK_SIZE);
+    }
+
+    public ChunkedAesGcmEnvelope(SecretKey key, int chunkSize) {
+        if (chunkSize <= 0 || chunkSize > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("Invalid chunk size: " + chunkSize);
+        }
+        this.key = key;
+        this.chunkSize = chunkSize;
+    }
+
+
+    public static boolean hasMagic(byte[] header) {
+        return header.length >= MAGIC.length && Arrays.equals(Arrays.copyOf(header, MAGIC.length), MAGIC);
+    }
+
+
+    public void seal(byte[] payload, OutputStream outputStream) throws IOException {
+        byte[] noncePrefix = new byte[NONCE_PREFIX_SIZE];
+        random.nextBytes(noncePrefix);
+        int chunkCount = Math.max(1, (payload.length + chunkSize - 1) / chunkSize);
+
+        List<byte[]> sealedChunks = runParallel(chunkCount, i -> {
+            int offset = i * chunkSize;
+            int length = Math.min(chunkSize, payload.length - offset);
+            byte[] compressed = deflate(payload, offset, length);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, nonce(noncePrefix, i)));
+            cipher.updateAAD(associatedData(i, i == chunkCount - 1));
+
+            return cipher.doFinal(compressed);
+        });
+
+        DataOutputStream out = new DataOutputStream(outputStream);
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(chunkSize);
+        out.write(noncePrefix);
+        for (int i = 0; i < chunkCount; i++) {
+            out.writeInt(Math.min(chunkSize, payload.length - i * chunkSize));
+            out.writeInt(sealedChunks.get(i).length);
+            out.write(sealedChunks.get(i));
+        }
+        out.flush();
+    }
+
+    public byte[] open(InputStream inputStream) throws IOException {
+        DataInputStream in = new DataInputStream(inputStream);
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (!hasMagic(magic)) {
+            throw new IOException("Not an encrypted data envelope.");
+        }
+        int version = in.readUnsignedByte();
+        if (version > VERSION) {
+            throw new IOException("Data was stored by a newer version of this application (envelope version "
+                    + version + ").");
+        }
+        int storedChunkSize = in.readInt();
+        if (storedChunkSize <= 0 || storedChunkSize > MAX_CHUNK_SIZE) {
+            throw new IOException("Corrupt envelope header (chunk size: " + storedChunkSize + ").");
+        }
+        byte[] noncePrefix = new byte[NONCE_PREFIX_SIZE];
+        in.readFully(noncePrefix);
+
+        List<Integer> plainLengths = new ArrayList<>();
+        List<byte[]> sealedChunks = new ArrayList<>();
+        // compressed chunks can only be slightly bigger than the plain ones
+        long maxSealedLength = storedChunkSize + storedChunkSize / 100L + 1024;
+        long payloadLength = 0;
+        int sealedLength;
+        while ((sealedLength = readFrameHeader(in, plainLengths)) >= 0) {
+            int plainLength = plainLengths.get(plainLengths.size() - 1);
+            if (plainLength < 0 || plainLength > storedChunkSize || sealedLength > maxSealedLength) {
+                throw new IOException("Corrupt chunk header.");
+            }
+            payloadLength += plainLength;
+            if (payloadLength > MAX_PAYLOAD_SIZE) {
+                throw new IOException("Encrypted data is too large (over " + payloadLength + " bytes).");
+            }
+            byte[] sealed = new byte[sealedLength];
+            in.readFully(sealed);
+            sealedChunks.add(sealed);
+        }
+        int chunkCount = sealedChunks.size();
+        if (chunkCount == 0) {
+            // the last chunk is missing
+            throw new IOException("Last chunk failed authentication (corrupt or truncated data).");
+        }
+
+        List<byte[]> chunks = runParallel(chunkCount, i -> {
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, nonce(noncePrefix, i)));
+            cipher.updateAAD(associatedData(i, i == chunkCount - 1));
+            byte[] compressed;
+            try {
+                compressed = cipher.doFinal(sealedChunks.get(i));
+            } catch (AEADBadTagException e) {
+                throw new IOException("Chunk " + i + " failed authentication (corrupt or truncated data).", e);
+            }
+
+            return inflate(compressed, plainLengths.get(i));
+        });
+
+        // sized after the lengths actually read, as the chunk count times the chunk size may not fit in an int
+        ByteArrayOutputStream payload = new ByteArrayOutputStream((int) payloadLength);
+        for (byte[] chunk : chunks) {
+            payload.write(chunk, 0, chunk.length);
+        }
+
+        return payload.toByteArray();
+    }
+
+
+    /**
+     * @return The length of the sealed chunk, or -1 at the end of the stream.
+     */
+    private static int readFrameHeader(DataInputStream in, List<Integer> plainLengths) throws IOException {
+        int first = in.read();
+        if (first < 0) {
+            return -1;
+        }
+        int plainLength = (first << 24) | (in.readUnsignedByte() << 16) | (in.readUnsignedShort());
+        plainLengths.add(plainLength);
+
+        return in.readInt();
+    }
+
+    private static byte[] nonce(byte[] prefix, int chunkIndex) {
+        return ByteBuffer.allocate(prefix.length + Integer.BYTES).put(prefix).putInt(chunkIndex).array();
+    }
+
+    private static byte[] associatedData(int chunkIndex, boolean last) {
+        return ByteBuffer.allocate(Integer.BYTES + 1).putInt(chunkIndex).put((byte) (last ? 1 : 0)).array();
+    }
+
+    private static byte[] deflate(byte[] data, int offset, int length) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(data, offset, length);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                out.write(buffer, 0, count);
+            }
+
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] data, int plainLength) throws IOException {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(data);
+            byte[] result = new byte[plainLength];
+            int total = 0;
+            while (total < plainLength) {
+                int count = inflater.inflate(result, total, plainLength - total);
+                if (count == 0 && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+                total += count;
+            }
+            if (total != plainLength) {
+                throw new IOException("Chunk length mismatch.");
+            }
+
+            return result;
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt chunk.", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+
+    @FunctionalInterface
+    private interface ChunkTask {
+        byte[] process(int chunkIndex) throws IOException, GeneralSecurityException;
+    }
+
+    private static List<byte[]> runParallel(int chunkCount, ChunkTask task) throws IOException {
+        try {
+            return IntStream.range(0, chunkCount).parallel()
+                    .mapToObj(i -> {
+                        try {
+                            return task.process(i);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        } catch (GeneralSecurityException e) {
+                            throw new UncheckedIOException(new IOException(e.getMessage(), e));
+                        }
+                    })
+                    .collect(toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+}
@@ -0,0 +1,168 @@
+package net.lobby_simulator_companion.loop.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import net.lobby_simulator_companion.loop.domain.LoopData;
+import net.lobby_simulator_companion.loop.domain.Player;
+import net.lobby_simulator_companion.loop.domain.stats.Match;
+import net.lobby_simulator_companion.loop.domain.stats.MatchHistorySummary;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * File-based store: the snapshot goes to the data file (see {@link LoopRepository}), players to a
+ * {@link MappedPlayerStore} and matches to a {@link MatchHistoryStore}.
+ * <p>
+ * Players whose id cannot be kept in the player store are stored along with the snapshot.
+ *
+ * @author NickyRamone
+ */
+@Slf4j
+public class FileLoopDataStore implements LoopDataStore {
+
+    private final LoopRepository repository;
+    private final MappedPlayerStore playerStore;
+    private final MatchHistoryStore matchHistory;
+    private final Map<String, Player> unstorablePlayers = new ConcurrentHashMap<>();
+
+
+    public FileLoopDataStore(LoopRepository repository, MappedPlayerStore playerStore,
+                             MatchHistoryStore matchHistory) {
+        this.repository = repository;
+        this.playerStore = playerStore;
+        this.matchHistory = matchHistory;
+    }
+
+
+    @Override
+    public synchronized LoopData loadSnapshot() throws IOException {
+        LoopData loopData;
+
+        try {
+            loopData = repository.load();
+        } catch (FileNotFoundException e) {
+            loopData = new LoopData();
+            repository.save(loopData);
+        }
+
+        migratePlayersToStore(loopData);
+        loopData.getPlayers().forEach(p -> unstorablePlayers.put(p.getSteamId64(), p));
+        loopData.getPlayers().clear();
+
+        return loopData;
+    }
+
+    /**
+     * Data stored by older versions keeps every player in the main data file, so we move them to the player store.
+     */
+    private void migratePlayersToStore(LoopData loopData) throws IOException {
+        int migrated = 0;
+
+        for (Player player : loopData.getPlayers()) {
+            if (MappedPlayerStore.supports(player.getSteamId64())) {
+                playerStore.put(player);
+                migrated++;
+            }
+        }
+
+        if (migrated > 0) {
+            log.info("Moved {} players to the player store.", migrated);
+            playerStore.flush();
+            loopData.getPlayers().removeIf(p -> MappedPlayerStore.supports(p.getSteamId64()));
+            repository.save(loopData);
+        }
+    }
+
+    @Override
+    public synchronized void saveSnapshot(LoopData loopData) throws IOException {
+        loopData.getPlayers().clear();
+        loopData.addPlayers(unstorablePlayers.values());
+        try {
+            repository.save(loopData);
+        } finally {
+            loopData.getPlayers().clear();
+        }
+    }
+
+
+    @Override
+    public synchronized Player findPlayer(String steamId64) {
+        return MappedPlayerStore.supports(steamId64) ? playerStore.get(steamId64) : unstorablePlayers.get(steamId64);
+    }
+
+    @Override
+    public synchronized void upsertPlayer(Player player) throws IOException {
+        if (MappedPlayerStore.supports(player.getSteamId64())) {
+            playerStore.put(player);
+        } else {
+            unstorablePlayers.put(player.getSteamId64(), player);
+        }
+    }
+
+    @Override
+    public synchronized void forEachPlayer(Consumer<Player> consumer) {
+        playerStore.forEach(consumer);
+        unstorablePlayers.values().forEach(consumer);
+    }
+
+
+    @Override
+    public synchronized void appendMatch(Match match) throws IOException {
+        matchHistory.add(match);
+    }
+
+    @Override
+    public synchronized void updateMatch(Match match) throws IOException {
+        matchHistory.update(match);
+    }
+
+    @Override
+    public synchronized void removeMatch(Match match) throws IOException {
+        matchHistory.remove(match);
+    }
+
+    @Override
+    public synchronized List<Match> findMatches(MatchQuery query) throws IOException {
+        return matchHistory.getMatches(query);
+    }
+
+    @Override
+    public synchronized List<Match> findMatches(int[] matchIds) throws IOException {
+        return matchHistory.getMatches(matchIds);
+    }
+
+    @Override
+    public synchronized MatchHistorySummary summarizeMatches(LocalDateTime from, LocalDateTime to)
+            throws IOException {
+        return matchHistory.summarize(from, to);
+    }
+
+    @Override
+    public synchronized boolean hasMatches() {
+        return !matchHistory.isEmpty();
+    }
+
+    @Override
+    public synchronized int getMaxMatchId() {
+        return matchHistory.getMaxMatchId();
+    }
+
+
+    @Override
+    public synchronized void flush() throws IOException {
+        playerStore.flush();
+        matchHistory.save();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        matchHistory.save();
+        playerStore.close();
+    }
+
+}
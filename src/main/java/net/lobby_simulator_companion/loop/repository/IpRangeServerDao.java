@@ -0,0 +1,62 @@
+package net.lobby_simulator_companion.loop.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import net.lobby_simulator_companion.loop.domain.Server;
+
+import java.io.IOException;
+
+/**
+ * Locates servers with a local {@link IpRangeTable}, with no network access.
+ * Addresses that are not in the table are looked up with the fallback DAO, if any.
+ *
+ * @author NickyRamone
+ */
+@Slf4j
+public class IpRangeServerDao implements ServerDao {
+
+    private final IpRangeTable table;
+    private final ServerDao fallback;
+
+
+    /**
+     * @param fallback DAO for the addresses that are not in the table (may be null).
+     */
+    public IpRangeServerDao(IpRangeTable table, ServerDao fallback) {
+        this.table = table;
+        this.fallback = fallback;
+    }
+
+
+    @Override
+    public Server getByIpAddress(String ipAddress) throws IOException {
+        IpRangeTable.Location location = find(ipAddress);
+
+        if (location != null) {
+            return Server.builder()
+                    .address(ipAddress)
+                    .country(location.getCountry())
+                    .countryCode(location.getCountryCode())
+                    .region(location.getRegion())
+                    .city(location.getCity())
+                    .latitude(location.getLatitude())
+                    .longitude(location.getLongitude())
+                    .build();
+        }
+        if (fallback == null) {
+            throw new IOException("Server " + ipAddress + " is not in the IP range table.");
+        }
+        log.debug("Server {} is not in the IP range table. Using the fallback.", ipAddress);
+
+        return fallback.getByIpAddress(ipAddress);
+    }
+
+    private IpRangeTable.Location find(String ipAddress) {
+        try {
+            return table.find((int) IpRangeTable.parseIpv4(ipAddress));
+        } catch (IllegalArgumentException e) {
+            // not an IPv4 address
+            return null;
+        }
+    }
+
+}
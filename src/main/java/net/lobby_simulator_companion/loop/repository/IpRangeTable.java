@@ -0,0 +1,339 @@
+package net.lobby_simulator_companion.loop.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import net.lobby_simulator_companion.loop.util.FileUtil;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Table of IPv4 address ranges and their locations, compiled from a CSV file into a binary file which is memory
+ * mapped, so opening it takes no time regardless of its size.
+ * <p>
+ * CSV columns: start IP, end IP, country, region, city, latitude, longitude and, optionally, country code.
+ * Addresses can be written in dotted form or as integers; lines that do not start with an IPv4 address (headers,
+ * comments, IPv6 ranges) are skipped.
+ * <p>
+ * The binary file holds the range starts, range ends and location indexes as three int arrays in address order
+ * (addresses are stored with the sign bit flipped, so that signed comparison orders them as unsigned), followed by
+ * the locations, which are shared by all the ranges that point to them and only decoded when found.
+ * Thread-safe once opened.
+ *
+ * @author NickyRamone
+ */
+@Slf4j
+public final class IpRangeTable {
+
+    private static final int MAGIC = 0x53495052; // "SIPR"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int NOT_FOUND = -1;
+
+    private final ByteBuffer buffer;
+    private final int rangeCount;
+    private final IntBuffer starts;
+    private final IntBuffer ends;
+    private final IntBuffer locationIndexes;
+    private final IntBuffer locationOffsets;
+
+
+    @Getter
+    @AllArgsConstructor
+    @ToString
+    public static final class Location {
+        private final String country;
+        private final String countryCode;
+        private final String region;
+        private final String city;
+        private final Double latitude;
+        private final Double longitude;
+    }
+
+
+    private IpRangeTable(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not an IP range table.");
+        }
+        if (buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Unsupported IP range table version: " + buffer.getInt(4));
+        }
+        rangeCount = buffer.getInt(8);
+        int locationCount = buffer.getInt(12);
+
+        starts = intSection(HEADER_SIZE, rangeCount);
+        ends = intSection(HEADER_SIZE + rangeCount * 4, rangeCount);
+        locationIndexes = intSection(HEADER_SIZE + rangeCount * 8, rangeCount);
+        locationOffsets = intSection(HEADER_SIZE + rangeCount * 12, locationCount);
+    }
+
+    /**
+     * Opens the table compiled from the given CSV file, compiling it first if the CSV file changed since.
+     */
+    public static IpRangeTable open(File csvFile) throws IOException {
+        File tableFile = new File(csvFile.getPath() + ".idx");
+        if (!tableFile.exists() || tableFile.lastModified() < csvFile.lastModified()) {
+            compile(csvFile, tableFile);
+        }
+
+        return map(tableFile);
+    }
+
+    public static IpRangeTable map(File tableFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(tableFile.toPath(), StandardOpenOption.READ)) {
+            return new IpRangeTable(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public static void compile(File csvFile, File tableFile) throws IOException {
+        long startTime = System.currentTimeMillis();
+        List<long[]> ranges = new ArrayList<>();
+        List<Location> locations = new ArrayList<>();
+        Map<String, Integer> locationIndexes = new HashMap<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(csvFile.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                List<String> fields = splitCsvLine(line);
+                if (fields.size() < 7 || !isIpv4(fields.get(0)) || !isIpv4(fields.get(1))) {
+                    continue;
+                }
+                Location location = new Location(StringUtils.trimToNull(fields.get(2)),
+                        fields.size() > 7 ? StringUtils.trimToNull(fields.get(7)) : null,
+                        StringUtils.trimToNull(fields.get(3)), StringUtils.trimToNull(fields.get(4)),
+                        parseCoordinate(fields.get(5)), parseCoordinate(fields.get(6)));
+                Integer locationIndex = locationIndexes.computeIfAbsent(location.toString(), key -> {
+                    locations.add(location);
+                    return locations.size() - 1;
+                });
+                ranges.add(new long[]{parseIpv4(fields.get(0)), parseIpv4(fields.get(1)), locationIndex});
+            }
+        }
+
+        ranges.sort((r1, r2) -> Long.compare(r1[0], r2[0]));
+        List<long[]> validRanges = new ArrayList<>(ranges.size());
+        long lastEnd = -1;
+        for (long[] range : ranges) {
+            // overlapping ranges would break the search, so the first one wins
+            if (range[0] > lastEnd && range[1] >= range[0]) {
+                validRanges.add(range);
+                lastEnd = range[1];
+            }
+        }
+        if (validRanges.size() < ranges.size()) {
+            log.warn("Skipped {} overlapping or invalid IP ranges.", ranges.size() - validRanges.size());
+        }
+
+        FileUtil.writeAtomically(tableFile, 0, outputStream -> write(validRanges, locations, outputStream));
+        log.info("Compiled {} IP ranges ({} locations) in {} ms.", validRanges.size(), locations.size(),
+                System.currentTimeMillis() - startTime);
+    }
+
+
+    /**
+     * @return The location of the given address, or null if it is not in any range.
+     */
+    public Location find(int ipAddress) {
+        int index = findRange(ipAddress);
+
+        return index == NOT_FOUND ? null : readLocation(locationIndexes.get(index));
+    }
+
+    public int size() {
+        return rangeCount;
+    }
+
+    /**
+     * @return Index of the range that contains the given address, or -1.
+     */
+    int findRange(int ipAddress) {
+        int key = ipAddress ^ Integer.MIN_VALUE;
+        int low = 0;
+        int high = rangeCount - 1;
+
+        // last range that starts at or before the address
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (starts.get(mid) <= key) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        return high >= 0 && ends.get(high) >= key ? high : NOT_FOUND;
+    }
+
+    private Location readLocation(int locationIndex) {
+        ByteBuffer in = buffer.duplicate();
+        in.position(locationOffsets.get(locationIndex));
+        double latitude = in.getDouble();
+        double longitude = in.getDouble();
+
+        return new Location(readString(in), readString(in), readString(in), readString(in),
+                Double.isNaN(latitude) ? null : latitude,
+                Double.isNaN(longitude) ? null : longitude);
+    }
+
+    private IntBuffer intSection(int offset, int length) throws IOException {
+        if (offset + length * 4L > buffer.limit()) {
+            throw new IOException("IP range table is truncated.");
+        }
+        ByteBuffer section = buffer.duplicate();
+        section.position(offset);
+        section.limit(offset + length * 4);
+
+        return section.slice().asIntBuffer();
+    }
+
+
+    private static void write(List<long[]> ranges, List<Location> locations, OutputStream outputStream)
+            throws IOException {
+        DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(ranges.size());
+        out.writeInt(locations.size());
+        for (int field = 0; field < 2; field++) {
+            for (long[] range : ranges) {
+                out.writeInt((int) range[field] ^ Integer.MIN_VALUE);
+            }
+        }
+        for (long[] range : ranges) {
+            out.writeInt((int) range[2]);
+        }
+
+        int offset = HEADER_SIZE + ranges.size() * 12 + locations.size() * 4;
+        List<byte[]> encodedLocations = new ArrayList<>(locations.size());
+        for (Location location : locations) {
+            byte[] encoded = encode(location);
+            encodedLocations.add(encoded);
+            out.writeInt(offset);
+            offset += encoded.length;
+        }
+        for (byte[] encoded : encodedLocations) {
+            out.write(encoded);
+        }
+        out.flush();
+    }
+
+    private static byte[] encode(Location location) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeDouble(location.latitude == null ? Double.NaN : location.latitude);
+        out.writeDouble(location.longitude == null ? Double.NaN : location.longitude);
+        for (String value : Arrays.asList(location.country, location.countryCode, location.region, location.city)) {
+            byte[] encoded = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+            out.writeShort(Math.min(encoded.length, Short.MAX_VALUE));
+            out.write(encoded, 0, Math.min(encoded.length, Short.MAX_VALUE));
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getShort();
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+
+    /**
+     * Splits a CSV line, honoring double quotes (so that names can contain commas).
+     */
+    static List<String> splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>(8);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (c == ',' && !quoted) {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().trim());
+
+        return fields;
+    }
+
+    private static boolean isIpv4(String value) {
+        try {
+            parseIpv4(value);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return The address as an unsigned 32-bit number.
+     */
+    static long parseIpv4(String value) {
+        if (value.indexOf('.') < 0) {
+            long number = Long.parseLong(value);
+            if (number < 0 || number > 0xFFFF_FFFFL) {
+                throw new IllegalArgumentException("Not an IPv4 address: " + value);
+            }
+            return number;
+        }
+
+        String[] octets = value.split("\\.", -1);
+        if (octets.length != 4) {
+            throw new IllegalArgumentException("Not an IPv4 address: " + value);
+        }
+        long address = 0;
+        for (String octet : octets) {
+            int octetValue = Integer.parseInt(octet);
+            if (octetValue < 0 || octetValue > 255) {
+                throw new IllegalArgumentException("Not an IPv4 address: " + value);
+            }
+            address = address << 8 | octetValue;
+        }
+
+        return address;
+    }
+
+    private static Double parseCoordinate(String value) {
+        try {
+            return value.isEmpty() ? null : Double.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+}
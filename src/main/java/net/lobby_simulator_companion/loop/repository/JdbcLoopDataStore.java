@@ -0,0 +1,540 @@
+package net.lobby_simulator_companion.loop.repository;
+
+import com.google.gson.ExclusionStrategy;
+import com.google.gson.FieldAttributes;
+import com.google.gson.Gson;
+import lombok.extern.slf4j.Slf4j;
+import net.lobby_simulator_companion.loop.config.LoopGsonFactory;
+import net.lobby_simulator_companion.loop.domain.Killer;
+import net.lobby_simulator_companion.loop.domain.LoopData;
+import net.lobby_simulator_companion.loop.domain.Player;
+import net.lobby_simulator_companion.loop.domain.RealmMap;
+import net.lobby_simulator_companion.loop.domain.stats.Match;
+import net.lobby_simulator_companion.loop.domain.stats.MatchHistorySummary;
+import net.lobby_simulator_companion.loop.domain.stats.MatchNetworkStats;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Store backed by an embedded SQL database (any JDBC driver on the classpath; see the "storage.jdbc" properties).
+ * <p>
+ * Matches are stored as rows, indexed by start time, killer, map and killer player, so queries on the match history
+ * run in the database. Players are stored as JSON documents keyed by their id, and the snapshot as a single JSON
+ * document. Only standard SQL is used (no upserts, sequences, etc.), so it runs on H2 as well as on SQLite.
+ * <p>
+ * Changes are committed on {@link #flush()}.
+ *
+ * @author NickyRamone
+ */
+@Slf4j
+public class JdbcLoopDataStore implements LoopDataStore {
+
+    private static final int SNAPSHOT_ID = 1;
+
+    /**
+     * Maximum number of parameters per IN clause.
+     */
+    private static final int MAX_IN_PARAMETERS = 500;
+
+    private static final String[] SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS snapshot (id INTEGER PRIMARY KEY, data CLOB NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS players (steam_id VARCHAR(64) PRIMARY KEY, data CLOB NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS matches ("
+                    + "id INTEGER PRIMARY KEY, "
+                    + "start_time BIGINT, "
+                    + "killer VARCHAR(64), "
+                    + "realm_map VARCHAR(64), "
+                    + "killer_player VARCHAR(64), "
+                    + "server_region VARCHAR(64), "
+                    + "escaped BOOLEAN, "
+                    + "kill_count INTEGER, "
+                    + "lobbies_found INTEGER, "
+                    + "seconds_queued INTEGER, "
+                    + "seconds_waited INTEGER, "
+                    + "seconds_played INTEGER)",
+            "CREATE INDEX IF NOT EXISTS matches_start_time ON matches (start_time)",
+            "CREATE INDEX IF NOT EXISTS matches_killer ON matches (killer)",
+            "CREATE INDEX IF NOT EXISTS matches_realm_map ON matches (realm_map)",
+            "CREATE INDEX IF NOT EXISTS matches_killer_player ON matches (killer_player)"
+    };
+
+    /**
+     * Columns added after the first version: table, column and definition. "ADD COLUMN IF NOT EXISTS" is not
+     * supported everywhere, so they are only added when the database metadata does not list them.
+     */
+    private static final String[][] ADDED_COLUMNS = {
+            {"matches", "network_stats", "VARCHAR(255)"}
+    };
+
+    private static final String MATCH_COLUMNS = "id, start_time, killer, realm_map, killer_player, server_region, "
+            + "escaped, kill_count, lobbies_found, seconds_queued, seconds_waited, seconds_played, network_stats";
+
+    private static final String SQL__INSERT_MATCH = "INSERT INTO matches (" + MATCH_COLUMNS + ") "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SQL__UPDATE_MATCH = "UPDATE matches SET start_time = ?, killer = ?, realm_map = ?, "
+            + "killer_player = ?, server_region = ?, escaped = ?, kill_count = ?, lobbies_found = ?, "
+            + "seconds_queued = ?, seconds_waited = ?, seconds_played = ?, network_stats = ? WHERE id = ?";
+    private static final String SQL__SUMMARIZE_MATCHES = "SELECT COUNT(*), MIN(id), MAX(id), "
+            + "MIN(start_time), MAX(start_time), "
+            + "SUM(CASE WHEN escaped THEN 1 ELSE 0 END), SUM(CASE WHEN NOT escaped THEN 1 ELSE 0 END), "
+            + "SUM(lobbies_found), SUM(seconds_queued), SUM(seconds_waited), SUM(seconds_played) "
+            + "FROM matches WHERE start_time BETWEEN ? AND ?";
+
+    private final Connection connection;
+
+    /**
+     * Players are left out of the snapshot (they are stored in their own table).
+     */
+    private final Gson gson = LoopGsonFactory.gson(false, new ExclusionStrategy() {
+        @Override
+        public boolean shouldSkipField(FieldAttributes f) {
+            return f.getDeclaringClass() == LoopData.class && f.getName().equals("players");
+        }
+
+        @Override
+        public boolean shouldSkipClass(Class<?> clazz) {
+            return false;
+        }
+    });
+
+
+    public JdbcLoopDataStore(String jdbcUrl) throws IOException {
+        try {
+            connection = DriverManager.getConnection(jdbcUrl);
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                for (String ddl : SCHEMA) {
+                    statement.execute(ddl);
+                }
+                for (String[] column : ADDED_COLUMNS) {
+                    if (!hasColumn(column[0], column[1])) {
+                        statement.execute("ALTER TABLE " + column[0] + " ADD COLUMN " + column[1] + " " + column[2]);
+                    }
+                }
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw new IOException("Failed to open database: " + jdbcUrl, e);
+        }
+        log.info("Opened database: {}", jdbcUrl);
+    }
+
+
+    @Override
+    public synchronized LoopData loadSnapshot() throws IOException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT data FROM snapshot WHERE id = ?")) {
+            statement.setInt(1, SNAPSHOT_ID);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? gson.fromJson(resultSet.getString(1), LoopData.class) : new LoopData();
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to load snapshot.", e);
+        }
+    }
+
+    public synchronized boolean hasSnapshot() throws IOException {
+        return queryInt("SELECT COUNT(*) FROM snapshot") > 0;
+    }
+
+    @Override
+    public synchronized void saveSnapshot(LoopData loopData) throws IOException {
+        try {
+            upsert("UPDATE snapshot SET data = ? WHERE id = ?", "INSERT INTO snapshot (data, id) VALUES (?, ?)",
+                    gson.toJson(loopData, LoopData.class), SNAPSHOT_ID);
+        } catch (SQLException e) {
+            throw new IOException("Failed to save snapshot.", e);
+        }
+    }
+
+
+    @Override
+    public synchronized Player findPlayer(String steamId64) throws IOException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT data FROM players WHERE steam_id = ?")) {
+            statement.setString(1, steamId64);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? gson.fromJson(resultSet.getString(1), Player.class) : null;
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to read player.", e);
+        }
+    }
+
+    @Override
+    public synchronized void upsertPlayer(Player player) throws IOException {
+        try {
+            upsert("UPDATE players SET data = ? WHERE steam_id = ?", "INSERT INTO players (data, steam_id) VALUES (?, ?)",
+                    gson.toJson(player, Player.class), player.getSteamId64());
+        } catch (SQLException e) {
+            throw new IOException("Failed to store player.", e);
+        }
+    }
+
+    @Override
+    public synchronized void forEachPlayer(Consumer<Player> consumer) throws IOException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT data FROM players")) {
+            while (resultSet.next()) {
+                consumer.accept(gson.fromJson(resultSet.getString(1), Player.class));
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to read players.", e);
+        }
+    }
+
+    /**
+     * Updates the row or, if there is none, inserts it. Both statements take the value and then the key.
+     */
+    private void upsert(String updateSql, String insertSql, String value, Object key) throws SQLException {
+        try (PreparedStatement update = connection.prepareStatement(updateSql)) {
+            update.setString(1, value);
+            update.setObject(2, key);
+            if (update.executeUpdate() > 0) {
+                return;
+            }
+        }
+        try (PreparedStatement insert = connection.prepareStatement(insertSql)) {
+            insert.setString(1, value);
+            insert.setObject(2, key);
+            insert.executeUpdate();
+        }
+    }
+
+
+    @Override
+    public synchronized void appendMatch(Match match) throws IOException {
+        try (PreparedStatement statement = connection.prepareStatement(SQL__INSERT_MATCH)) {
+            statement.setInt(1, match.getId());
+            setMatchValues(statement, 2, match);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new IOException("Failed to store match.", e);
+        }
+    }
+
+    @Override
+    public synchronized void updateMatch(Match match) throws IOException {
+        try (PreparedStatement statement = connection.prepareStatement(SQL__UPDATE_MATCH)) {
+            int index = setMatchValues(statement, 1, match);
+            statement.setInt(index, match.getId());
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new IOException("Failed to store match.", e);
+        }
+    }
+
+    @Override
+    public synchronized void removeMatch(Match match) throws IOException {
+        try (PreparedStatement statement = connection.prepareStatement("DELETE FROM matches WHERE id = ?")) {
+            statement.setInt(1, match.getId());
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new IOException("Failed to delete match.", e);
+        }
+    }
+
+    @Override
+    public synchronized List<Match> findMatches(MatchQuery query) throws IOException {
+        List<String> conditions = new ArrayList<>();
+        List<Object> parameters = new ArrayList<>();
+
+        if (query.getFrom() != null) {
+            conditions.add("start_time >= ?");
+            parameters.add(toEpochSecond(query.getFrom()));
+        }
+        if (query.getTo() != null) {
+            conditions.add("start_time <= ?");
+            parameters.add(toEpochSecond(query.getTo()));
+        }
+        if (query.getKiller() != null) {
+            conditions.add("killer = ?");
+            parameters.add(query.getKiller().name());
+        }
+        if (query.getRealmMap() != null) {
+            conditions.add("realm_map = ?");
+            parameters.add(query.getRealmMap().name());
+        }
+        if (query.getKillerPlayerSteamId64() != null) {
+            conditions.add("killer_player = ?");
+            parameters.add(query.getKillerPlayerSteamId64());
+        }
+
+        String sql = "SELECT " + MATCH_COLUMNS + " FROM matches"
+                + (conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions))
+                + " ORDER BY id";
+
+        try {
+            return queryMatches(sql, parameters);
+        } catch (SQLException e) {
+            throw new IOException("Failed to query matches.", e);
+        }
+    }
+
+    @Override
+    public synchronized List<Match> findMatches(int[] matchIds) throws IOException {
+        Map<Integer, Match> found = new HashMap<>();
+
+        try {
+            for (int offset = 0; offset < matchIds.length; offset += MAX_IN_PARAMETERS) {
+                List<Object> ids = Arrays.stream(matchIds, offset, Math.min(matchIds.length, offset + MAX_IN_PARAMETERS))
+                        .boxed()
+                        .collect(toList());
+                String sql = "SELECT " + MATCH_COLUMNS + " FROM matches WHERE id IN ("
+                        + ids.stream().map(id -> "?").collect(joining(", ")) + ")";
+                queryMatches(sql, ids).forEach(m -> found.put(m.getId(), m));
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to query matches.", e);
+        }
+
+        return Arrays.stream(matchIds)
+                .mapToObj(found::get)
+                .filter(Objects::nonNull)
+                .collect(toList());
+    }
+
+    @Override
+    public synchronized MatchHistorySummary summarizeMatches(LocalDateTime from, LocalDateTime to)
+            throws IOException {
+        try (PreparedStatement statement = connection.prepareStatement(SQL__SUMMARIZE_MATCHES)) {
+            statement.setLong(1, toEpochSecond(from));
+            statement.setLong(2, toEpochSecond(to));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next() || resultSet.getInt(1) == 0) {
+                    return new MatchHistorySummary();
+                }
+
+                return new MatchHistorySummary(resultSet.getInt(1), resultSet.getInt(2), resultSet.getInt(3),
+                        resultSet.getLong(4), resultSet.getLong(5), 0,
+                        resultSet.getInt(6), resultSet.getInt(7), resultSet.getInt(8),
+                        resultSet.getLong(9), resultSet.getLong(10), resultSet.getLong(11));
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to summarize matches.", e);
+        }
+    }
+
+    @Override
+    public synchronized boolean hasMatches() throws IOException {
+        return queryInt("SELECT COUNT(*) FROM matches") > 0;
+    }
+
+    @Override
+    public synchronized int getMaxMatchId() throws IOException {
+        return queryInt("SELECT MAX(id) FROM matches");
+    }
+
+
+    @Override
+    public synchronized void flush() throws IOException {
+        try {
+            connection.commit();
+        } catch (SQLException e) {
+            throw new IOException("Failed to commit changes.", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            connection.commit();
+            connection.close();
+        } catch (SQLException e) {
+            throw new IOException("Failed to close database.", e);
+        }
+    }
+
+
+    /**
+     * Identifiers may be stored in upper case (H2) or as written (SQLite), so both are looked up.
+     */
+    private boolean hasColumn(String table, String column) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+
+        for (String tableName : new String[]{table, table.toUpperCase(Locale.ROOT)}) {
+            try (ResultSet columns = metaData.getColumns(null, null, tableName, null)) {
+                while (columns.next()) {
+                    if (column.equalsIgnoreCase(columns.getString("COLUMN_NAME"))) {
+                        return true;
+                    }
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private int queryInt(String sql) throws IOException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            // null (an aggregate over no rows) is read as 0
+            return resultSet.next() ? resultSet.getInt(1) : 0;
+        } catch (SQLException e) {
+            throw new IOException("Failed to query database.", e);
+        }
+    }
+
+    private List<Match> queryMatches(String sql, List<Object> parameters) throws SQLException {
+        List<Match> result = new ArrayList<>();
+
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setObject(i + 1, parameters.get(i));
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    result.add(readMatch(resultSet));
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Sets every match column except the id, starting at the given parameter index.
+     *
+     * @return The index of the next parameter.
+     */
+    private static int setMatchValues(PreparedStatement statement, int index, Match match) throws SQLException {
+        setLong(statement, index++, match.getMatchStartTime() != null ? toEpochSecond(match.getMatchStartTime()) : null);
+        setString(statement, index++, match.getKiller() != null ? match.getKiller().name() : null);
+        setString(statement, index++, match.getRealmMap() != null ? match.getRealmMap().name() : null);
+        setString(statement, index++, match.getKillerPlayerSteamId64());
+        setString(statement, index++, match.getServerRegion());
+        if (match.getEscaped() != null) {
+            statement.setBoolean(index++, match.getEscaped());
+        } else {
+            statement.setNull(index++, Types.BOOLEAN);
+        }
+        setInt(statement, index++, match.getKillCount());
+        setInt(statement, index++, match.getLobbiesFound());
+        setInt(statement, index++, match.getSecondsQueued());
+        setInt(statement, index++, match.getSecondsWaited());
+        setInt(statement, index++, match.getSecondsPlayed());
+        setString(statement, index++, toColumnValue(match.getNetworkStats()));
+
+        return index;
+    }
+
+    private static Match readMatch(ResultSet resultSet) throws SQLException {
+        Long startTime = getLong(resultSet, "start_time");
+
+        return Match.builder()
+                .id(resultSet.getInt("id"))
+                .matchStartTime(startTime != null ? LocalDateTime.ofEpochSecond(startTime, 0, ZoneOffset.UTC) : null)
+                .killer(toEnum(Killer.class, resultSet.getString("killer")))
+                .realmMap(toEnum(RealmMap.class, resultSet.getString("realm_map")))
+                .killerPlayerSteamId64(resultSet.getString("killer_player"))
+                .serverRegion(resultSet.getString("server_region"))
+                .escaped(getBoolean(resultSet, "escaped"))
+                .killCount(getInt(resultSet, "kill_count"))
+                .lobbiesFound(getInt(resultSet, "lobbies_found"))
+                .secondsQueued(getInt(resultSet, "seconds_queued"))
+                .secondsWaited(getInt(resultSet, "seconds_waited"))
+                .secondsPlayed(getInt(resultSet, "seconds_played"))
+                .networkStats(toNetworkStats(resultSet.getString("network_stats")))
+                .build();
+    }
+
+    /**
+     * Network stats are stored as their comma-separated values.
+     */
+    private static String toColumnValue(MatchNetworkStats networkStats) {
+        if (networkStats == null) {
+            return null;
+        }
+
+        return Arrays.stream(networkStats.toValues()).mapToObj(String::valueOf).collect(joining(","));
+    }
+
+    private static MatchNetworkStats toNetworkStats(String columnValue) {
+        if (columnValue == null) {
+            return null;
+        }
+
+        return MatchNetworkStats.fromValues(Arrays.stream(columnValue.split(","))
+                .mapToInt(Integer::parseInt)
+                .toArray());
+    }
+
+    private static long toEpochSecond(LocalDateTime dateTime) {
+        return MatchHistorySummary.toEpochSecond(dateTime);
+    }
+
+    /**
+     * Enums are stored by name, so that reordering them does not corrupt stored data.
+     * Values which no longer exist are read as null.
+     */
+    private static <E extends Enum<E>> E toEnum(Class<E> enumClass, String name) {
+        if (name == null) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(enumClass, name);
+        } catch (IllegalArgumentException e) {
+            log.warn("Unknown {} value in database: {}", enumClass.getSimpleName(), name);
+            return null;
+        }
+    }
+
+    private static void setString(PreparedStatement statement, int index, String value) throws SQLException {
+        if (value != null) {
+            statement.setString(index, value);
+        } else {
+            statement.setNull(index, Types.VARCHAR);
+        }
+    }
+
+    private static void setInt(PreparedStatement statement, int index, Integer value) throws SQLException {
+        if (value != null) {
+            statement.setInt(index, value);
+        } else {
+            statement.setNull(index, Types.INTEGER);
+        }
+    }
+
+    private static void setLong(PreparedStatement statement, int index, Long value) throws SQLException {
+        if (value != null) {
+            statement.setLong(index, value);
+        } else {
+            statement.setNull(index, Types.BIGINT);
+        }
+    }
+
+    private static Boolean getBoolean(ResultSet resultSet, String column) throws SQLException {
+        boolean value = resultSet.getBoolean(column);
+        return resultSet.wasNull() ? null : value;
+    }
+
+    private static Integer getInt(ResultSet resultSet, String column) throws SQLException {
+        int value = resultSet.getInt(column);
+        return resultSet.wasNull() ? null : value;
+    }
+
+    private static Long getLong(ResultSet resultSet, String column) throws SQLException {
+        long value = resultSet.getLong(column);
+        return resultSet.wasNull() ? null : value;
+    }
+
+}
@@ -0,0 +1,109 @@
+package net.lobby_simulator_companion.loop.repository;
+
+import net.lobby_simulator_companion.loop.domain.LoopData;
+import net.lobby_simulator_companion.loop.domain.Player;
+import net.lobby_simulator_companion.loop.domain.stats.Match;
+import net.lobby_simulator_companion.loop.domain.stats.MatchHistorySummary;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Storage backend for Loop data.
+ * <p>
+ * The snapshot holds the aggregates (stats, match log, rankings, etc.) and is loaded whole at startup.
+ * Players and the full match history are stored individually, so they are only read when they are queried.
+ *
+ * @author NickyRamone
+ */
+public interface LoopDataStore extends Closeable {
+
+    /**
+     * @return The stored snapshot (without players), or a new one if nothing was stored yet.
+     */
+    LoopData loadSnapshot() throws IOException;
+
+    /**
+     * Stores the snapshot. Players in the given data are ignored (they are stored with {@link #upsertPlayer}).
+     */
+    void saveSnapshot(LoopData loopData) throws IOException;
+
+
+    /**
+     * @return The stored player, or null if there is none.
+     */
+    Player findPlayer(String steamId64) throws IOException;
+
+    void upsertPlayer(Player player) throws IOException;
+
+    void forEachPlayer(Consumer<Player> consumer) throws IOException;
+
+
+    void appendMatch(Match match) throws IOException;
+
+    void updateMatch(Match match) throws IOException;
+
+    void removeMatch(Match match) throws IOException;
+
+    /**
+     * Matches meeting the query, in chronological order.
+     */
+    List<Match> findMatches(MatchQuery query) throws IOException;
+
+    /**
+     * Matches with the given ids (the ones that are not found are skipped), in the given order.
+     */
+    List<Match> findMatches(int[] matchIds) throws IOException;
+
+    /**
+     * Summary of the matches started within the given range (both ends inclusive).
+     */
+    MatchHistorySummary summarizeMatches(LocalDateTime from, LocalDateTime to) throws IOException;
+
+    boolean hasMatches() throws IOException;
+
+    int getMaxMatchId() throws IOException;
+
+
+    /**
+     * Makes every change durable.
+     */
+    void flush() throws IOException;
+
+    /**
+     * Makes every change durable and releases the store, which cannot be used afterwards.
+     */
+    @Override
+    void close() throws IOException;
+
+
+    /**
+     * Copies everything stored in one store into another (for example, when switching backends).
+     */
+    static void copy(LoopDataStore source, LoopDataStore target) throws IOException {
+        target.saveSnapshot(source.loadSnapshot());
+
+        IOException[] failure = new IOException[1];
+        source.forEachPlayer(player -> {
+            try {
+                if (failure[0] == null) {
+                    target.upsertPlayer(player);
+                }
+            } catch (IOException e) {
+                failure[0] = e;
+            }
+        });
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+
+        for (Match match : source.findMatches(MatchQuery.all())) {
+            target.appendMatch(match);
+        }
+        target.flush();
+    }
+
+}
@@ -10,14 +10,17 @@ import net.lobby_simulator_companion.loop.util.FileUtil;
 
 import javax.crypto.Cipher;
 import javax.crypto.CipherInputStream;
-import javax.crypto.CipherOutputStream;
 import javax.crypto.SecretKey;
 import javax.crypto.SecretKeyFactory;
 import javax.crypto.spec.DESKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -25,10 +28,13 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Optional;
 import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
 /**
  * File-based repository for Loop-data storage.
@@ -41,11 +47,22 @@ public class LoopRepository {
     private static final byte[] CIPHER_KEY_MATERIAL = new byte[]{2, 3, -57, 11, 73, 57, -66, 21};
     private static final String PROPERTY__READ_ENCRYPTED = "storage.read.encrypted";
     private static final String PROPERTY__WRITE_ENCRYPTED = "storage.write.encrypted";
+    private static final String PROPERTY__WRITE_FORMAT = "storage.write.format";
+    private static final String PROPERTY__BACKUP_GENERATIONS = "storage.backup.generations";
+
+    private static final int HEADER_SIZE = 4;
+
+    public enum Format {
+        JSON,
+        BINARY
+    }
 
     private AppProperties properties;
     private File saveFile;
     private final Gson gson;
     private final String jsonIndent;
+    private final BinaryLoopDataCodec binaryCodec = new BinaryLoopDataCodec();
+    private final ChunkedAesGcmEnvelope envelope = new ChunkedAesGcmEnvelope(createAesKey());
 
 
     public LoopRepository(AppProperties properties, Gson gson) {
@@ -60,18 +77,54 @@ public class LoopRepository {
         }
     }
 
+    /**
+     * Whether there is stored data (either the data file or its latest backup).
+     */
+    public boolean exists() {
+        return saveFile.exists() || FileUtil.getSaveName(saveFile, 1).exists();
+    }
+
     public LoopData load() throws IOException {
+        File latestBackup = FileUtil.getSaveName(saveFile, 1);
+
+        if (!saveFile.exists() && latestBackup.exists()) {
+            // the file can only be missing if we crashed while replacing it on a file system without hard links
+            log.warn("Data file not found; restoring latest backup.");
+            return load(latestBackup);
+        }
+
+        return load(saveFile);
+    }
+
+    /**
+     * Loads data stored in any of the supported formats (the format is detected from the file header).
+     */
+    public LoopData load(File file) throws IOException {
         log.info("Loading data...");
         LoopData loopData;
 
-        try {
+        try (InputStream fileStream = new BufferedInputStream(new FileInputStream(file))) {
             Instant loadStartTime = Instant.now();
-            Cipher cipher = getCipher(true);
-            JsonReader reader = createJsonReader(saveFile, cipher);
-            loopData = gson.fromJson(reader, LoopData.class);
-            reader.close();
+            InputStream inputStream = fileStream;
+            boolean legacyEncryption = properties.getBoolean(PROPERTY__READ_ENCRYPTED);
+
+            if (ChunkedAesGcmEnvelope.hasMagic(peekHeader(fileStream))) {
+                inputStream = new ByteArrayInputStream(envelope.open(fileStream));
+                legacyEncryption = false;
+            }
+
+            Format format = BinaryLoopDataCodec.hasMagic(peekHeader(inputStream)) ? Format.BINARY : Format.JSON;
+            if (format == Format.BINARY) {
+                loopData = readBinary(inputStream);
+            } else {
+                JsonReader reader = createJsonReader(inputStream, legacyEncryption);
+                loopData = gson.fromJson(reader, LoopData.class);
+                reader.close();
+            }
+
             Duration elapsed = Duration.between(loadStartTime, Instant.now());
-            log.info("Loaded data ({} players; {} matches) in {} ms.",
+            log.info("Loaded {} data ({} players; {} matches) in {} ms.",
+                    format,
                     loopData.getPlayers().size(),
                     loopData.getMatchLog().matchCount(),
                     elapsed.toMillis());
@@ -86,85 +139,151 @@ public class LoopRepository {
     }
 
     public void save(LoopData loopData) throws IOException {
+        Format format = Optional.ofNullable(properties.get(PROPERTY__WRITE_FORMAT))
+                .map(value -> Format.valueOf(value.trim().toUpperCase()))
+                .orElse(Format.JSON);
+        save(loopData, saveFile, format, properties.getInt(PROPERTY__BACKUP_GENERATIONS));
+    }
+
+    public void save(LoopData loopData, File file, Format format) throws IOException {
+        save(loopData, file, format, 0);
+    }
+
+    private void save(LoopData loopData, File file, Format format, int backupGenerations) throws IOException {
         log.debug("Saving data ({} players)...", loopData.getPlayers().size());
         Instant saveStartTime = Instant.now();
-        if (this.saveFile.exists()) {
-            FileUtil.saveFile(this.saveFile, "");
+
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        if (format == Format.BINARY) {
+            writeBinary(loopData, payload);
+        } else {
+            JsonWriter writer = gson.newJsonWriter(new OutputStreamWriter(payload, StandardCharsets.UTF_8));
+            writer.setIndent(jsonIndent);
+            gson.toJson(loopData, LoopData.class, writer);
+            writer.close();
         }
 
-        JsonWriter writer = createJsonWriter();
-        writer.setIndent(jsonIndent);
-        gson.toJson(loopData, LoopData.class, writer);
-        writer.close();
+        FileUtil.writeAtomically(file, backupGenerations, fileStream -> {
+            if (properties.getBoolean(PROPERTY__WRITE_ENCRYPTED)) {
+                envelope.seal(payload.toByteArray(), fileStream);
+            } else {
+                payload.writeTo(fileStream);
+            }
+        });
+
         Duration elapsed = Duration.between(saveStartTime, Instant.now());
-        log.debug("Saved data ({} players; {} matches) in {} ms.",
+        log.debug("Saved {} data ({} players; {} matches) in {} ms.",
+                format,
                 loopData.getPlayers().size(),
                 loopData.getMatchLog().matchCount(),
                 elapsed.toMillis());
     }
 
 
-    private JsonReader createJsonReader(File file, Cipher cipher) throws IOException {
-        InputStream inputStream;
+    /**
+     * Peeks at the header of the stream (which must support mark/reset).
+     */
+    private byte[] peekHeader(InputStream inputStream) throws IOException {
+        byte[] header = new byte[HEADER_SIZE];
+        inputStream.mark(header.length);
+        int bytesRead = inputStream.read(header);
+        inputStream.reset();
 
-        if (properties.getBoolean(PROPERTY__READ_ENCRYPTED)) {
-            CipherInputStream decStream;
-            FileInputStream fis = new FileInputStream(file);
-            try {
-                decStream = new CipherInputStream(fis, cipher);
-            } catch (Exception e) {
-                log.error("Failed to create encrypted stream.", e);
-                throw new IOException(e.getMessage());
-            }
-            inputStream = new GZIPInputStream(decStream);
-        } else {
-            inputStream = new FileInputStream(file);
+        return bytesRead == header.length ? header : new byte[0];
+    }
+
+    private LoopData readBinary(InputStream inputStream) throws Exception {
+        DataInputStream in = new DataInputStream(inputStream);
+        in.skipBytes(BinaryLoopDataCodec.MAGIC.length);
+        int version = in.readUnsignedByte();
+        if (version > BinaryLoopDataCodec.FORMAT_VERSION) {
+            throw new IOException("Data was stored by a newer version of this application (format version "
+                    + version + ").");
         }
 
-        return gson.newJsonReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        int flags = in.readUnsignedByte();
+        if (flags != 0) {
+            throw new IOException("Unsupported binary data flags: " + flags);
+        }
+
+        return binaryCodec.decode(new BufferedInputStream(in));
     }
 
+    private void writeBinary(LoopData loopData, OutputStream outputStream) throws IOException {
+        outputStream.write(BinaryLoopDataCodec.MAGIC);
+        outputStream.write(BinaryLoopDataCodec.FORMAT_VERSION);
+        outputStream.write(0);
+        binaryCodec.encode(loopData, outputStream);
+    }
 
-    private JsonWriter createJsonWriter() throws IOException {
-        OutputStream outputStream;
 
-        if (properties.getBoolean(PROPERTY__WRITE_ENCRYPTED)) {
-            Cipher cipher;
+    private JsonReader createJsonReader(InputStream fileStream, boolean encrypted) throws IOException {
+        InputStream inputStream;
+
+        if (encrypted) {
+            CipherInputStream decStream;
             try {
-                cipher = getCipher(false);
+                decStream = new CipherInputStream(fileStream, getCipher(true));
             } catch (Exception e) {
-                log.error("Failed to configure encryption.", e);
+                log.error("Failed to create encrypted stream.", e);
                 throw new IOException(e.getMessage());
             }
-            outputStream = new GZIPOutputStream(new CipherOutputStream(new FileOutputStream(saveFile), cipher));
+            inputStream = new GZIPInputStream(decStream);
         } else {
-            outputStream = new FileOutputStream(this.saveFile.getAbsolutePath());
+            inputStream = fileStream;
         }
 
-        return gson.newJsonWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        return gson.newJsonReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
     }
 
 
     /**
-     * Builds the Cipher Object used for encryption/decryption.
+     * Builds the Cipher Object used for decrypting data stored by older versions.
      *
      * @param readMode The Cipher will be initiated in either encrypt/decrypt mode.
      * @return Cipher argument, ready to go.
      * @throws Exception Many possible issues can arise, so this is a catch-all.
      */
     public static Cipher getCipher(boolean readMode) throws Exception {
-
-        DESKeySpec key = new DESKeySpec(CIPHER_KEY_MATERIAL);
-        SecretKeyFactory keyFactory = SecretKeyFactory.getInstance("DES");
-        SecretKey desKey = keyFactory.generateSecret(key);
         Cipher cipher = Cipher.getInstance("DES");
 
         if (readMode) {
-            cipher.init(Cipher.DECRYPT_MODE, desKey);
+            cipher.init(Cipher.DECRYPT_MODE, DesKeyHolder.KEY);
         } else {
-            cipher.init(Cipher.ENCRYPT_MODE, desKey);
+            cipher.init(Cipher.ENCRYPT_MODE, DesKeyHolder.KEY);
         }
         return cipher;
     }
 
+    /**
+     * The AES key is derived from the same key material that was used with DES.
+     */
+    private static SecretKey createAesKey() {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update("stabd-aes".getBytes(StandardCharsets.UTF_8));
+            byte[] hash = digest.digest(CIPHER_KEY_MATERIAL);
+
+            return new SecretKeySpec(hash, 0, 16, "AES");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+
+    /**
+     * The DES key is only built once (and only if there is legacy data to read).
+     */
+    private static final class DesKeyHolder {
+        private static final SecretKey KEY = createDesKey();
+
+        private static SecretKey createDesKey() {
+            try {
+                return SecretKeyFactory.getInstance("DES").generateSecret(new DESKeySpec(CIPHER_KEY_MATERIAL));
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
 }
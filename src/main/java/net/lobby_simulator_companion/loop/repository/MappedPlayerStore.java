@@ -0,0 +1,422 @@
+package net.lobby_simulator_companion.loop.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import net.lobby_simulator_companion.loop.domain.Player;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Player store backed by two memory-mapped files, so that players are only materialized when they are looked up
+ * (most stored players are never encountered again).
+ * <p>
+ * The index file holds an open-addressing hash table (linear probing) from the numeric steamId64 to the offset of the
+ * player record in the data file. Records are written in place when they still fit in the space allocated for them;
+ * otherwise they are appended and the index entry is updated.
+ * <p>
+ * Neither the number of stored players nor the size of the files affect the heap: lookups read the mapped memory.
+ * Instances are not thread-safe.
+ *
+ * @author NickyRamone
+ */
+@Slf4j
+public class MappedPlayerStore {
+
+    private static final int MAGIC = 0x53544250; // "STBP"
+    private static final int VERSION = 1;
+
+    // index file: header + slots of (steamId64, record offset); a slot with offset 0 is free
+    private static final int INDEX_HEADER_SIZE = 32;
+    private static final int INDEX_HEADER__MAGIC = 0;
+    private static final int INDEX_HEADER__VERSION = 4;
+    private static final int INDEX_HEADER__SLOT_COUNT = 8;
+    private static final int INDEX_HEADER__SIZE = 12;
+    private static final int INDEX_HEADER__DATA_END = 16;
+    private static final int SLOT_SIZE = 16;
+    private static final int INITIAL_SLOT_COUNT = 1 << 12;
+    private static final double MAX_LOAD_FACTOR = 0.7;
+
+    // data file: records of (allocated size, length, payload); offset 0 is reserved
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final long DATA_START = 8;
+    private static final long MIN_DATA_MAPPING_SIZE = 1 << 20;
+
+    private static final long NULL_DATE = Long.MIN_VALUE;
+
+    private final RandomAccessFile indexFile;
+    private final RandomAccessFile dataFile;
+    private MappedByteBuffer index;
+    private MappedByteBuffer data;
+    private int slotCount;
+    private int size;
+    private long dataEnd;
+
+
+    public MappedPlayerStore(File baseFile) throws IOException {
+        File indexPath = getIndexFile(baseFile);
+        File dataPath = getDataFile(baseFile);
+        boolean exists = indexPath.exists() && dataPath.exists();
+
+        indexFile = new RandomAccessFile(indexPath, "rw");
+        dataFile = new RandomAccessFile(dataPath, "rw");
+
+        if (exists) {
+            open();
+        } else {
+            create();
+        }
+        log.info("Opened player store ({} players).", size);
+    }
+
+    public static File getIndexFile(File baseFile) {
+        return new File(baseFile.getPath() + ".idx");
+    }
+
+    public static File getDataFile(File baseFile) {
+        return new File(baseFile.getPath() + ".dat");
+    }
+
+    private void create() throws IOException {
+        slotCount = INITIAL_SLOT_COUNT;
+        size = 0;
+        dataEnd = DATA_START;
+        index = map(indexFile, INDEX_HEADER_SIZE + (long) slotCount * SLOT_SIZE);
+        data = map(dataFile, MIN_DATA_MAPPING_SIZE);
+        writeIndexHeader();
+    }
+
+    private void open() throws IOException {
+        index = map(indexFile, indexFile.length());
+        if (index.capacity() < INDEX_HEADER_SIZE || index.getInt(INDEX_HEADER__MAGIC) != MAGIC) {
+            throw new IOException("Invalid player store index.");
+        }
+        if (index.getInt(INDEX_HEADER__VERSION) > VERSION) {
+            throw new IOException("Player store was written by a newer version of this application.");
+        }
+        slotCount = index.getInt(INDEX_HEADER__SLOT_COUNT);
+        size = index.getInt(INDEX_HEADER__SIZE);
+        dataEnd = index.getLong(INDEX_HEADER__DATA_END);
+        data = map(dataFile, Math.max(MIN_DATA_MAPPING_SIZE, dataFile.length()));
+    }
+
+
+    /**
+     * Only numeric steam ids can be stored.
+     */
+    public static boolean supports(String steamId64) {
+        return toKey(steamId64) != 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The stored player, or null if there is none (or the id is not supported).
+     */
+    public Player get(String steamId64) {
+        long key = toKey(steamId64);
+        if (key == 0) {
+            return null;
+        }
+        int slot = findSlot(key);
+        long offset = slotOffset(slot);
+
+        return offset == 0 ? null : readRecord(offset);
+    }
+
+    /**
+     * Stores the player, writing only if its record has changed.
+     */
+    public void put(Player player) throws IOException {
+        long key = toKey(player.getSteamId64());
+        if (key == 0) {
+            throw new IllegalArgumentException("Unsupported steam id: " + player.getSteamId64());
+        }
+        byte[] record = encode(player);
+        int slot = findSlot(key);
+        long offset = slotOffset(slot);
+
+        if (offset != 0) {
+            int allocated = data.getInt((int) offset);
+            int length = data.getInt((int) offset + 4);
+
+            if (length == record.length && Arrays.equals(record, readBytes(offset + RECORD_HEADER_SIZE, length))) {
+                return;
+            }
+            if (record.length <= allocated) {
+                writeRecord(offset, allocated, record);
+                return;
+            }
+            index.putLong(slotPosition(slot) + 8, appendRecord(record));
+            writeIndexHeader();
+            return;
+        }
+
+        if (size + 1 > slotCount * MAX_LOAD_FACTOR) {
+            rehash(slotCount * 2);
+            slot = findSlot(key);
+        }
+        long newOffset = appendRecord(record);
+        index.putLong(slotPosition(slot), key);
+        index.putLong(slotPosition(slot) + 8, newOffset);
+        size++;
+        writeIndexHeader();
+    }
+
+    /**
+     * Materializes every stored player, in no particular order.
+     */
+    public void forEach(Consumer<Player> consumer) {
+        for (int slot = 0; slot < slotCount; slot++) {
+            long offset = slotOffset(slot);
+            if (offset != 0) {
+                consumer.accept(readRecord(offset));
+            }
+        }
+    }
+
+    /**
+     * Makes sure that all changes have reached the disk.
+     */
+    public void flush() {
+        data.force();
+        index.force();
+    }
+
+    public void close() throws IOException {
+        flush();
+        indexFile.close();
+        dataFile.close();
+    }
+
+
+    private int findSlot(long key) {
+        int slot = hash(key) & (slotCount - 1);
+
+        while (true) {
+            long offset = slotOffset(slot);
+            if (offset == 0 || index.getLong(slotPosition(slot)) == key) {
+                return slot;
+            }
+            slot = (slot + 1) & (slotCount - 1);
+        }
+    }
+
+    private void rehash(int newSlotCount) throws IOException {
+        List<long[]> entries = new ArrayList<>(size);
+        for (int slot = 0; slot < slotCount; slot++) {
+            long offset = slotOffset(slot);
+            if (offset != 0) {
+                entries.add(new long[]{index.getLong(slotPosition(slot)), offset});
+            }
+        }
+
+        index = map(indexFile, INDEX_HEADER_SIZE + (long) newSlotCount * SLOT_SIZE);
+        for (int position = INDEX_HEADER_SIZE; position < index.capacity(); position += 8) {
+            index.putLong(position, 0);
+        }
+        slotCount = newSlotCount;
+
+        for (long[] entry : entries) {
+            int slot = findSlot(entry[0]);
+            index.putLong(slotPosition(slot), entry[0]);
+            index.putLong(slotPosition(slot) + 8, entry[1]);
+        }
+        writeIndexHeader();
+        log.debug("Player store index resized to {} slots.", newSlotCount);
+    }
+
+    private long appendRecord(byte[] record) throws IOException {
+        // leave some room so that records can grow (new names, description) without being moved
+        int allocated = record.length + record.length / 4;
+        long offset = dataEnd;
+        long newDataEnd = offset + RECORD_HEADER_SIZE + allocated;
+
+        if (newDataEnd > data.capacity()) {
+            long mappingSize = data.capacity();
+            while (mappingSize < newDataEnd) {
+                mappingSize *= 2;
+            }
+            if (mappingSize > Integer.MAX_VALUE) {
+                throw new IOException("Player store is full.");
+            }
+            data = map(dataFile, mappingSize);
+        }
+
+        writeRecord(offset, allocated, record);
+        dataEnd = newDataEnd;
+
+        return offset;
+    }
+
+    private void writeRecord(long offset, int allocated, byte[] record) {
+        data.putInt((int) offset, allocated);
+        data.putInt((int) offset + 4, record.length);
+        for (int i = 0; i < record.length; i++) {
+            data.put((int) offset + RECORD_HEADER_SIZE + i, record[i]);
+        }
+    }
+
+    private Player readRecord(long offset) {
+        int length = data.getInt((int) offset + 4);
+        try {
+            return decode(readBytes(offset + RECORD_HEADER_SIZE, length));
+        } catch (IOException e) {
+            throw new IllegalStateException("Corrupt player record at offset " + offset, e);
+        }
+    }
+
+    private byte[] readBytes(long offset, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = data.get((int) offset + i);
+        }
+
+        return bytes;
+    }
+
+    private void writeIndexHeader() {
+        index.putInt(INDEX_HEADER__MAGIC, MAGIC);
+        index.putInt(INDEX_HEADER__VERSION, VERSION);
+        index.putInt(INDEX_HEADER__SLOT_COUNT, slotCount);
+        index.putInt(INDEX_HEADER__SIZE, size);
+        index.putLong(INDEX_HEADER__DATA_END, dataEnd);
+    }
+
+    private long slotOffset(int slot) {
+        return index.getLong(slotPosition(slot) + 8);
+    }
+
+    private static int slotPosition(int slot) {
+        return INDEX_HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static MappedByteBuffer map(RandomAccessFile file, long size) throws IOException {
+        return file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    private static long toKey(String steamId64) {
+        if (steamId64 == null || steamId64.isEmpty() || steamId64.length() > 19) {
+            return 0;
+        }
+        for (int i = 0; i < steamId64.length(); i++) {
+            if (!Character.isDigit(steamId64.charAt(i))) {
+                return 0;
+            }
+        }
+
+        try {
+            return Long.parseLong(steamId64);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+
+    private static byte[] encode(Player player) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        out.writeUTF(player.getSteamId64());
+        writeNullableString(out, player.getDbdPlayerId());
+        out.writeLong(toEpochSecond(player.getFirstSeen()));
+        out.writeLong(toEpochSecond(player.getLastSeen()));
+        out.writeInt(player.getTimesEncountered());
+        out.writeInt(player.getMatchesPlayed());
+        out.writeInt(player.getSecondsPlayed());
+        out.writeInt(player.getEscapes());
+        out.writeInt(player.getDeaths());
+        List<String> names = player.getNames() != null ? player.getNames() : new ArrayList<>();
+        out.writeShort(names.size());
+        for (String name : names) {
+            out.writeUTF(name);
+        }
+        writeNullableString(out, player.getRating() != null ? player.getRating().name() : null);
+        writeNullableString(out, player.getDescription());
+        out.flush();
+
+        return bytes.toByteArray();
+    }
+
+    private static Player decode(byte[] record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        Player player = new Player();
+
+        player.setSteamId64(in.readUTF());
+        player.setDbdPlayerId(readNullableString(in));
+        player.setFirstSeen(fromEpochSecond(in.readLong()));
+        player.setLastSeen(fromEpochSecond(in.readLong()));
+        player.setTimesEncountered(in.readInt());
+        player.setMatchesPlayed(in.readInt());
+        player.setSecondsPlayed(in.readInt());
+        player.setEscapes(in.readInt());
+        player.setDeaths(in.readInt());
+        int nameCount = in.readUnsignedShort();
+        List<String> names = new ArrayList<>(nameCount);
+        for (int i = 0; i < nameCount; i++) {
+            names.add(in.readUTF());
+        }
+        player.setNames(names);
+        String rating = readNullableString(in);
+        player.setRating(parseRating(rating));
+        player.setDescription(readNullableString(in));
+
+        return player;
+    }
+
+    /**
+     * Unknown values (for example, stored by a newer version) are read as no rating, so that the player can still be
+     * read.
+     */
+    private static Player.Rating parseRating(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Player.Rating.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring unknown player rating: {}", value);
+            return null;
+        }
+    }
+
+    private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static long toEpochSecond(LocalDateTime dateTime) {
+        return dateTime == null ? NULL_DATE : dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime fromEpochSecond(long epochSecond) {
+        return epochSecond == NULL_DATE ? null : LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+}
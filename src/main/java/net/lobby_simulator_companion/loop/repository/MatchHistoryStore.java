@@ -0,0 +1,371 @@
+package net.lobby_simulator_companion.loop.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import net.lobby_simulator_companion.loop.domain.stats.Match;
+import net.lobby_simulator_companion.loop.domain.stats.MatchHistorySummary;
+import net.lobby_simulator_companion.loop.domain.stats.PackedMatchTable;
+import net.lobby_simulator_companion.loop.util.Crc32c;
+import net.lobby_simulator_companion.loop.util.FileUtil;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Unlimited match history, stored as one segment file per month (by match start time).
+ * <p>
+ * Each segment starts with a header holding a {@link MatchHistorySummary} of its matches (time and id ranges, plus
+ * counters), followed by the matches in the {@link BinaryLoopDataCodec} block format. Only the headers are read at
+ * startup; range queries use them to skip segments, and to summarize whole segments without reading their matches.
+ * <p>
+ * Only the latest segment is kept in memory (as a {@link PackedMatchTable}) and rewritten on save. Older segments
+ * are only rewritten if one of their matches is edited or deleted. Segments are decoded straight into the columns of
+ * a table, without creating a {@link Match} per match. Instances are not thread-safe.
+ *
+ * @author NickyRamone
+ */
+@Slf4j
+public class MatchHistoryStore {
+
+    private static final byte[] MAGIC = {'S', 'T', 'B', 'H'};
+    /**
+     * 2: matches may include network stats (see {@link BinaryLoopDataCodec#FORMAT_VERSION}).
+     */
+    private static final int VERSION = 2;
+    private static final String FILE_PREFIX = "matches-";
+    private static final String FILE_SUFFIX = ".seg";
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    private final File directory;
+    private final BinaryLoopDataCodec codec = new BinaryLoopDataCodec();
+    private final TreeMap<YearMonth, MatchHistorySummary> summaries = new TreeMap<>();
+    private YearMonth currentMonth;
+    private PackedMatchTable currentSegment = new PackedMatchTable();
+    private boolean dirty;
+
+
+    public MatchHistoryStore(File directory) throws IOException {
+        this.directory = directory;
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Failed to create match history directory: " + directory);
+        }
+
+        for (File file : Optional.ofNullable(directory.listFiles()).orElse(new File[0])) {
+            Optional<YearMonth> month = parseMonth(file.getName());
+            if (month.isPresent()) {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                    summaries.put(month.get(), readHeader(in));
+                }
+            }
+        }
+
+        if (!summaries.isEmpty()) {
+            currentMonth = summaries.lastKey();
+            currentSegment = readSegment(currentMonth);
+        }
+        log.info("Opened match history ({} segments).", summaries.size());
+    }
+
+
+    public boolean isEmpty() {
+        return summaries.values().stream().allMatch(s -> s.getMatchCount() == 0);
+    }
+
+    public int getMaxMatchId() {
+        return summaries.values().stream()
+                .mapToInt(MatchHistorySummary::getMaxMatchId)
+                .max()
+                .orElse(0);
+    }
+
+    public void add(Match match) throws IOException {
+        YearMonth month = monthOf(match);
+
+        if (currentMonth == null || month.isAfter(currentMonth)) {
+            // the current segment is sealed: from now on, it will only be rewritten if its matches change
+            save();
+            currentMonth = month;
+            currentSegment = new PackedMatchTable();
+        }
+
+        if (month.equals(currentMonth)) {
+            currentSegment.add(match);
+            summaries.computeIfAbsent(month, k -> new MatchHistorySummary()).add(match);
+            dirty = true;
+        } else {
+            PackedMatchTable segment = readSegment(month);
+            segment.add(match);
+            writeSegment(month, segment);
+        }
+    }
+
+    public void update(Match match) throws IOException {
+        modifySegmentOf(match.getId(), (segment, row) -> segment.set(row, match));
+    }
+
+    public void remove(Match match) throws IOException {
+        modifySegmentOf(match.getId(), PackedMatchTable::remove);
+    }
+
+    private void modifySegmentOf(int matchId, ObjIntConsumer<PackedMatchTable> modification) throws IOException {
+        for (Map.Entry<YearMonth, MatchHistorySummary> entry : summaries.entrySet()) {
+            if (!entry.getValue().containsMatchId(matchId)) {
+                continue;
+            }
+            YearMonth month = entry.getKey();
+            boolean current = month.equals(currentMonth);
+            PackedMatchTable segment = current ? currentSegment : readSegment(month);
+            int row = segment.indexOf(matchId);
+
+            if (row >= 0) {
+                modification.accept(segment, row);
+                if (current) {
+                    summaries.put(month, summarize(segment));
+                    dirty = true;
+                } else {
+                    writeSegment(month, segment);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Matches started within the given range (both ends inclusive), in chronological order.
+     */
+    public List<Match> getMatches(LocalDateTime from, LocalDateTime to) throws IOException {
+        return getMatches(MatchQuery.between(from, to));
+    }
+
+    /**
+     * Matches meeting the query, in chronological order.
+     * Segments outside the query's time range are skipped, and rows outside it are not materialized.
+     */
+    public List<Match> getMatches(MatchQuery query) throws IOException {
+        LocalDateTime from = Optional.ofNullable(query.getFrom()).orElse(LocalDateTime.MIN);
+        LocalDateTime to = Optional.ofNullable(query.getTo()).orElse(LocalDateTime.MAX);
+        List<Match> result = new ArrayList<>();
+
+        for (Map.Entry<YearMonth, MatchHistorySummary> entry : summaries.entrySet()) {
+            if (query.hasTimeRange() && !entry.getValue().overlaps(from, to)) {
+                continue;
+            }
+            PackedMatchTable segment = getSegment(entry.getKey());
+            IntConsumer collector = row -> {
+                Match match = segment.get(row);
+                if (query.test(match)) {
+                    result.add(match);
+                }
+            };
+            if (query.hasTimeRange()) {
+                forEachRowWithin(segment, from, to, collector);
+            } else {
+                IntStream.range(0, segment.size()).forEach(collector);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Summary of the matches started within the given range (both ends inclusive).
+     * Segments entirely within the range are summarized from their headers.
+     */
+    public MatchHistorySummary summarize(LocalDateTime from, LocalDateTime to) throws IOException {
+        MatchHistorySummary result = new MatchHistorySummary();
+
+        for (Map.Entry<YearMonth, MatchHistorySummary> entry : summaries.entrySet()) {
+            MatchHistorySummary segmentSummary = entry.getValue();
+            if (!segmentSummary.overlaps(from, to)) {
+                continue;
+            }
+            if (segmentSummary.isWithin(from, to)) {
+                result.merge(segmentSummary);
+            } else {
+                PackedMatchTable segment = getSegment(entry.getKey());
+                forEachRowWithin(segment, from, to, row -> result.add(segment, row));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Matches with the given ids (the ones that are not found are skipped), in the given order.
+     */
+    public List<Match> getMatches(int[] matchIds) throws IOException {
+        Map<Integer, Match> found = new HashMap<>();
+        Set<Integer> wanted = Arrays.stream(matchIds).boxed().collect(Collectors.toSet());
+
+        for (Map.Entry<YearMonth, MatchHistorySummary> entry : summaries.entrySet()) {
+            MatchHistorySummary summary = entry.getValue();
+            if (Arrays.stream(matchIds).anyMatch(summary::containsMatchId)) {
+                PackedMatchTable segment = getSegment(entry.getKey());
+                for (int row = 0; row < segment.size(); row++) {
+                    if (wanted.contains(segment.getId(row))) {
+                        found.put(segment.getId(row), segment.get(row));
+                    }
+                }
+            }
+        }
+
+        return Arrays.stream(matchIds)
+                .mapToObj(found::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    public void save() throws IOException {
+        if (dirty) {
+            writeSegment(currentMonth, currentSegment);
+            dirty = false;
+        }
+    }
+
+
+    /**
+     * Scans the start time column, so that only the matching rows are materialized.
+     */
+    private static void forEachRowWithin(PackedMatchTable segment, LocalDateTime from, LocalDateTime to,
+                                         IntConsumer consumer) {
+        long fromSecond = MatchHistorySummary.toEpochSecond(from);
+        long toSecond = MatchHistorySummary.toEpochSecond(to);
+
+        for (int row = 0; row < segment.size(); row++) {
+            if (segment.hasStartTime(row)
+                    && segment.getStartTime(row) >= fromSecond && segment.getStartTime(row) <= toSecond) {
+                consumer.accept(row);
+            }
+        }
+    }
+
+    private PackedMatchTable getSegment(YearMonth month) throws IOException {
+        return month.equals(currentMonth) ? currentSegment : readSegment(month);
+    }
+
+    private PackedMatchTable readSegment(YearMonth month) throws IOException {
+        File file = segmentFile(month);
+        if (!file.exists()) {
+            return new PackedMatchTable();
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            readHeader(in);
+            return codec.decodeMatches(in);
+        }
+    }
+
+    private void writeSegment(YearMonth month, PackedMatchTable segment) throws IOException {
+        MatchHistorySummary summary = summarize(segment);
+        FileUtil.writeAtomically(segmentFile(month), 0, out -> {
+            writeHeader(new DataOutputStream(out), summary);
+            codec.encodeMatches(segment.asList(), out);
+        });
+        summaries.put(month, summary);
+    }
+
+    private static MatchHistorySummary summarize(PackedMatchTable segment) {
+        MatchHistorySummary summary = new MatchHistorySummary();
+        for (int row = 0; row < segment.size(); row++) {
+            summary.add(segment, row);
+        }
+
+        return summary;
+    }
+
+    private static void writeHeader(DataOutputStream out, MatchHistorySummary summary) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(bytes);
+        header.writeInt(summary.getMatchCount());
+        header.writeInt(summary.getMinMatchId());
+        header.writeInt(summary.getMaxMatchId());
+        header.writeLong(summary.getMinStartTime());
+        header.writeLong(summary.getMaxStartTime());
+        header.writeInt(summary.getUndatedMatchCount());
+        header.writeInt(summary.getEscapes());
+        header.writeInt(summary.getDeaths());
+        header.writeInt(summary.getLobbiesFound());
+        header.writeLong(summary.getSecondsQueued());
+        header.writeLong(summary.getSecondsWaited());
+        header.writeLong(summary.getSecondsPlayed());
+
+        Crc32c crc = new Crc32c();
+        crc.update(bytes.toByteArray(), 0, bytes.size());
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+        out.writeShort(bytes.size());
+        bytes.writeTo(out);
+        out.writeInt((int) crc.getValue());
+        out.flush();
+    }
+
+    private static MatchHistorySummary readHeader(DataInputStream in) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Invalid match history segment.");
+        }
+        if (in.readUnsignedByte() > VERSION) {
+            throw new IOException("Match history was stored by a newer version of this application.");
+        }
+        byte[] bytes = new byte[in.readUnsignedShort()];
+        in.readFully(bytes);
+        Crc32c crc = new Crc32c();
+        crc.update(bytes, 0, bytes.length);
+        if ((int) crc.getValue() != in.readInt()) {
+            throw new IOException("Corrupt match history segment header.");
+        }
+
+        // newer versions may append fields to the header, which we skip
+        DataInputStream header = new DataInputStream(new ByteArrayInputStream(bytes));
+        return new MatchHistorySummary(header.readInt(), header.readInt(), header.readInt(),
+                header.readLong(), header.readLong(), header.readInt(),
+                header.readInt(), header.readInt(), header.readInt(),
+                header.readLong(), header.readLong(), header.readLong());
+    }
+
+    private YearMonth monthOf(Match match) {
+        LocalDateTime startTime = Optional.ofNullable(match.getMatchStartTime()).orElse(LocalDateTime.now());
+
+        return YearMonth.from(startTime);
+    }
+
+    private File segmentFile(YearMonth month) {
+        return new File(directory, FILE_PREFIX + month.format(MONTH_FORMAT) + FILE_SUFFIX);
+    }
+
+    private static Optional<YearMonth> parseMonth(String fileName) {
+        if (!fileName.startsWith(FILE_PREFIX) || !fileName.endsWith(FILE_SUFFIX)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(YearMonth.parse(
+                    fileName.substring(FILE_PREFIX.length(), fileName.length() - FILE_SUFFIX.length()), MONTH_FORMAT));
+        } catch (DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+
+}
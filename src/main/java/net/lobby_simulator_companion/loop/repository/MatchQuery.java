@@ -0,0 +1,65 @@
+package net.lobby_simulator_companion.loop.repository;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+import net.lobby_simulator_companion.loop.domain.Killer;
+import net.lobby_simulator_companion.loop.domain.RealmMap;
+import net.lobby_simulator_companion.loop.domain.stats.Match;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Criteria for querying stored matches. Criteria which are not set (null) match everything.
+ *
+ * @author NickyRamone
+ */
+@Builder
+@Getter
+@ToString
+public class MatchQuery {
+
+    /**
+     * Start time range (both ends inclusive). When any end is set, matches with an unknown start time are excluded.
+     */
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+
+    private final Killer killer;
+    private final RealmMap realmMap;
+    private final String killerPlayerSteamId64;
+
+
+    public static MatchQuery all() {
+        return builder().build();
+    }
+
+    public static MatchQuery between(LocalDateTime from, LocalDateTime to) {
+        return builder().from(from).to(to).build();
+    }
+
+    public boolean hasTimeRange() {
+        return from != null || to != null;
+    }
+
+    /**
+     * For stores which cannot evaluate the criteria themselves.
+     */
+    public boolean test(Match match) {
+        if (hasTimeRange()) {
+            LocalDateTime startTime = match.getMatchStartTime();
+            if (startTime == null
+                    || (from != null && startTime.isBefore(from))
+                    || (to != null && startTime.isAfter(to))) {
+                return false;
+            }
+        }
+
+        return (killer == null || killer == match.getKiller())
+                && (realmMap == null || realmMap == match.getRealmMap())
+                && (killerPlayerSteamId64 == null
+                || Objects.equals(killerPlayerSteamId64, match.getKillerPlayerSteamId64()));
+    }
+
+}
@@ -0,0 +1,39 @@
+package net.lobby_simulator_companion.loop.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import net.lobby_simulator_companion.loop.Factory;
+import net.lobby_simulator_companion.loop.domain.LoopData;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Command-line tool for converting a data file between the JSON and the binary storage formats.
+ * The format of the input file is detected automatically; encryption follows the application properties.
+ * <p>
+ * Usage: StorageConverter &lt;input file&gt; &lt;output file&gt; &lt;json|binary&gt;
+ *
+ * @author NickyRamone
+ */
+@Slf4j
+public class StorageConverter {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("Usage: " + StorageConverter.class.getSimpleName()
+                    + " <input file> <output file> <json|binary>");
+            System.exit(1);
+        }
+
+        File inputFile = new File(args[0]);
+        File outputFile = new File(args[1]);
+        LoopRepository.Format format = LoopRepository.Format.valueOf(args[2].toUpperCase());
+
+        LoopRepository repository = Factory.loopRepository();
+        LoopData loopData = repository.load(inputFile);
+        repository.save(loopData, outputFile, format);
+        log.info("Converted {} into {} ({} bytes -> {} bytes).",
+                inputFile, outputFile, inputFile.length(), outputFile.length());
+    }
+
+}
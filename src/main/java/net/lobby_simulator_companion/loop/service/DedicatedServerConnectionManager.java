@@ -1,14 +1,25 @@
 package net.lobby_simulator_companion.loop.service;
 
-import lombok.ToString;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import net.lobby_simulator_companion.loop.domain.Connection;
+import net.lobby_simulator_companion.loop.domain.stats.MatchNetworkStats;
+import net.lobby_simulator_companion.loop.service.network.CaptureMetrics;
+import net.lobby_simulator_companion.loop.service.network.CaptureStats;
+import net.lobby_simulator_companion.loop.service.network.FrameRing;
+import net.lobby_simulator_companion.loop.service.network.HandshakeFlowTable;
+import net.lobby_simulator_companion.loop.service.network.LatencyTracker;
+import net.lobby_simulator_companion.loop.service.network.TimerWheel;
+import net.lobby_simulator_companion.loop.service.network.TrafficTracker;
+import net.lobby_simulator_companion.loop.service.network.UdpDatagram;
 import org.pcap4j.core.*;
-import org.pcap4j.packet.*;
 
 import java.net.InetAddress;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * The initial handshake with the dedicated server hosting the match (including lobby) is through WireGuard protocol:
@@ -27,72 +38,221 @@ public class DedicatedServerConnectionManager implements ConnectionManager {
      * is alive, we need to consider at least 150 bytes for server responses.
      */
     private static final int MAX_CAPTURED_PACKET_SIZE = 150;
-    private static final int CLEANER_POLL_MS = 1000;
+    /**
+     * Resolution of the timeouts, which is also the longest the analysis thread waits for packets.
+     */
+    private static final int TIMER_TICK_MS = 100;
+    private static final int TIMER_WHEEL_SLOTS = 128;
+    /**
+     * Silence from the server after which we consider the connection lost. There can be a few seconds without traffic
+     * while a match is loading.
+     */
     private static final int CONNECTION_TIMEOUT_MS = 5000;
+    private static final int HANDSHAKE_TIMEOUT_MS = 5000;
+    private static final int MAX_HANDSHAKE_FLOWS = 64;
+    private static final int PING_UPDATE_INTERVAL_MICROS = 250_000;
+    /**
+     * Frames that can wait for analysis (about 600 KB with the maximum captured size).
+     */
+    private static final int FRAME_RING_CAPACITY = 4096;
+    /**
+     * How often the capture thread reads the pcap totals while packets arrive.
+     */
+    private static final int PCAP_TOTALS_REFRESH_INTERVAL_MICROS = 1_000_000;
+
+    /**
+     * Length of the UDP payload of the handshake requests and responses.
+     */
+    private static final int HANDSHAKE_PAYLOAD_LEN = 29;
 
     /**
      * Berkley Packet Filter (BPF):
      * http://biot.com/capstats/bpf.html
      * https://www.tcpdump.org/manpages/pcap-filter.7.html
+     * <p>
+     * While searching, every handshake-sized packet of the local host passes, in both directions: UDP length (header
+     * included) of 8 + 29 bytes. The filter does not change until a handshake completes, since the server answers
+     * within a round trip and switching filters takes longer than that (the handle reads in batches); the flows are
+     * told apart by the analysis (see {@link HandshakeFlowTable}).
+     * Once a handshake completes, the whole server flow passes (both directions, to measure latency).
      */
-    private static final String PACKET_FILTER__SEARCH_CONNECTION = "udp and len <= 100";
-    private static final String PACKET_FILTER__CHECK_CONNECTION_ALIVE = "udp and src host %s and dst host %s and len <= 150";
-
-
-    @ToString(exclude = "payload")
-    private static final class PacketInfo {
-        enum Protocol {TCP, UDP}
-
-        Protocol protocol;
-        int packetLen;
-        InetAddress srcAddress;
-        InetAddress dstAddress;
-        int srcPort;
-        int dstPort;
-        int payloadLen;
-        Packet payload;
-        long timestamp;
-    }
-
-    private enum State {IDLE, HANDSHAKE1_REQUESTED, HANDSHAKE1_RESPONDED, HANDSHAKE2_REQUESTED, HANDSHAKE_COMPLETE}
+    static final String PACKET_FILTER__SEARCH_CONNECTION = "udp and host %s and udp[4:2] = "
+            + (8 + HANDSHAKE_PAYLOAD_LEN);
+    private static final String PACKET_FILTER__SERVER_FLOW = "udp and host %s and udp port %d";
 
     private final InetAddress localAddr;
+    private final int localAddrValue;
     private final SnifferListener snifferListener;
-    private final Timer connectionCleanerTimer = new Timer();
-    private PcapHandle pcapHandle;
+    /**
+     * False when replaying a capture file: then, time is measured with the capture timestamps.
+     */
+    private final boolean live;
+    /**
+     * Reused for every captured packet; only the packets we keep track of are turned into objects.
+     */
+    private final UdpDatagram datagram = new UdpDatagram();
+    private final CaptureStats captureStats = new CaptureStats();
+    private final LatencyTracker latencyTracker = new LatencyTracker();
+    private final TrafficTracker trafficTracker = new TrafficTracker();
+    /**
+     * Timeouts of the server connection and the handshake candidates. Its clock is monotonic: {@link System#nanoTime()}
+     * when live, and the capture timestamps when replaying (see {@link #currentTime()}).
+     */
+    private final TimerWheel timerWheel = new TimerWheel(TIMER_WHEEL_SLOTS, TIMER_TICK_MS);
+    private final HandshakeFlowTable handshakeFlows;
+    private final long clockOrigin = System.nanoTime();
+    private long captureClock;
+    /**
+     * Captured frames waiting for the analysis thread, so that the capture thread only copies them.
+     */
+    private final FrameRing frameRing = new FrameRing(FRAME_RING_CAPACITY, MAX_CAPTURED_PACKET_SIZE);
+    private final PcapHandle pcapHandle;
+    private final int linkType;
+    private volatile boolean capturing;
+    private volatile boolean stopRequested;
+    /**
+     * The pcap handle is only used by the capture thread (except for {@link PcapHandle#breakLoop()}, which is meant to
+     * be called from other threads), so filter changes are handed to it.
+     */
+    private final AtomicReference<PacketFilter> pendingFilter = new AtomicReference<>();
+    /**
+     * Latest pcap totals of received, dropped and dropped-by-interface packets, read by the capture thread.
+     */
+    private volatile long[] pcapTotals = new long[3];
+    private long nextPcapTotalsRefresh;
+    private long reportedRingDrops;
+    /**
+     * Connection to the match server, once its handshake is complete.
+     */
     private Connection serverConnection;
-    private State state = State.IDLE;
-    private PacketInfo lastRequest;
+    private TimerWheel.Timeout connectionTimeout;
+    private int serverAddr;
+    private int serverPort;
+    private long nextPingUpdateTime;
+
+    /**
+     * Replay speed relative to the capture (0 for as fast as possible).
+     */
+    @Setter
+    private double replaySpeed;
+    private long replayStartCaptureTime;
+    private long replayStartNanos;
+
+
+    private static final class PacketFilter {
+        /**
+         * Identifies the filter in the capture stats.
+         */
+        private final String template;
+        private final String expression;
+
+        private PacketFilter(String template, String expression) {
+            this.template = template;
+            this.expression = expression;
+        }
+    }
 
 
     public DedicatedServerConnectionManager(InetAddress localAddr, SnifferListener snifferListener)
             throws PcapNativeException, NotOpenException, InvalidNetworkInterfaceException {
 
+        this(localAddr, snifferListener, openLive(localAddr), true);
+    }
+
+    DedicatedServerConnectionManager(InetAddress localAddr, SnifferListener snifferListener, PcapHandle pcapHandle,
+                                     boolean live) throws NotOpenException {
         this.localAddr = localAddr;
+        this.localAddrValue = UdpDatagram.toInt(localAddr);
         this.snifferListener = snifferListener;
-        initNetworkInterface();
-        startConnectionCleaner();
+        this.handshakeFlows = new HandshakeFlowTable(localAddrValue, HANDSHAKE_TIMEOUT_MS, MAX_HANDSHAKE_FLOWS,
+                timerWheel);
+        this.pcapHandle = pcapHandle;
+        this.live = live;
+        this.linkType = pcapHandle != null ? pcapHandle.getDlt().value() : UdpDatagram.LINK_TYPE_ETHERNET;
+        setPacketFilter(PACKET_FILTER__SEARCH_CONNECTION, localAddr.getHostAddress());
     }
 
+    /**
+     * Creates a manager that reads the packets from a capture file (.pcap or .pcapng) instead of a network interface,
+     * so that recorded sessions can be analyzed, tested or benchmarked.
+     * <p>
+     * Packets go through the same filters and detection as live ones, but timeouts are measured with the capture
+     * timestamps (and the end of the file counts as a disconnection). By default, the file is read as fast as
+     * possible; see {@link #setReplaySpeed(double)}.
+     *
+     * @param localAddr Address of the host where the capture was taken.
+     */
+    public static DedicatedServerConnectionManager replay(String captureFile, InetAddress localAddr,
+                                                          SnifferListener snifferListener)
+            throws PcapNativeException, NotOpenException {
+
+        PcapHandle pcapHandle;
+        try {
+            pcapHandle = Pcaps.openOffline(captureFile, PcapHandle.TimestampPrecision.NANO);
+        } catch (PcapNativeException e) {
+            // nanosecond precision requires libpcap 1.5
+            pcapHandle = Pcaps.openOffline(captureFile);
+        }
+
+        return new DedicatedServerConnectionManager(localAddr, snifferListener, pcapHandle, false);
+    }
+
+
+    /**
+     * Creates a manager without a packet source: frames are fed through {@link #processFrame(byte[], int, long)}
+     * (as in tests and benchmarks), and timeouts are measured with their timestamps.
+     */
+    public static DedicatedServerConnectionManager detached(InetAddress localAddr, SnifferListener snifferListener) {
+        try {
+            return new DedicatedServerConnectionManager(localAddr, snifferListener, null, false);
+        } catch (NotOpenException e) {
+            // there is no handle to be closed
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static PcapHandle openLive(InetAddress localAddr)
+            throws PcapNativeException, InvalidNetworkInterfaceException {
 
-    private void initNetworkInterface() throws PcapNativeException, InvalidNetworkInterfaceException, NotOpenException {
         PcapNetworkInterface networkInterface = Pcaps.getDevByAddress(localAddr);
         if (networkInterface == null) {
             throw new InvalidNetworkInterfaceException();
         }
 
         final PcapNetworkInterface.PromiscuousMode mode = PcapNetworkInterface.PromiscuousMode.NONPROMISCUOUS;
-        pcapHandle = networkInterface.openLive(MAX_CAPTURED_PACKET_SIZE, mode, 1000);
-        pcapHandle.setFilter(PACKET_FILTER__SEARCH_CONNECTION, BpfProgram.BpfCompileMode.OPTIMIZE);
+        return networkInterface.openLive(MAX_CAPTURED_PACKET_SIZE, mode, 1000);
     }
 
 
+    /**
+     * Captures packets until the capture is stopped (or the capture file ends).
+     * <p>
+     * The calling thread only captures; the packets are analyzed in a separate thread, so that slow analysis (or
+     * slow listeners) does not make the capture lose packets.
+     */
     @Override
     public void start() {
+        Thread analysisThread = new Thread(this::analyzePackets, "packet-analysis");
+        analysisThread.setDaemon(true);
+        capturing = true;
+        analysisThread.start();
+
         try {
             sniffPackets();
         } catch (Exception e) {
             snifferListener.handleException(e);
+        } finally {
+            capturing = false;
+            LockSupport.unpark(analysisThread);
+            try {
+                analysisThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (!live) {
+            endReplay();
         }
     }
 
@@ -100,162 +260,342 @@ public class DedicatedServerConnectionManager implements ConnectionManager {
         log.info("Started sniffing packets.");
 
         try {
-            pcapHandle.loop(-1, this::handlePacket);
-        } catch (InterruptedException e) {
-            // can be interrupted on purpose
+            while (!stopRequested) {
+                applyPendingFilter();
+                try {
+                    pcapHandle.loop(-1, this::handlePacket);
+                    // end of the capture file
+                    break;
+                } catch (InterruptedException e) {
+                    // the loop is broken on purpose: to stop, or to change the filter
+                }
+            }
+        } finally {
+            refreshPcapTotals();
+        }
+    }
+
+    private void endReplay() {
+        log.info("Reached the end of the capture.");
+        handshakeFlows.clear();
+        if (serverConnection != null) {
+            clearConnection();
+        }
+    }
+
+    private void handlePacket(byte[] frame) {
+        Timestamp timestamp = pcapHandle.getTimestamp();
+        long timestampMicros = timestamp.getTime() * 1000 + timestamp.getNanos() / 1000 % 1000;
+
+        if (pendingFilter.get() != null) {
+            // in case the request to break the loop was lost
+            breakLoop();
+        }
+        if (live && timestampMicros >= nextPcapTotalsRefresh) {
+            refreshPcapTotals();
+            nextPcapTotalsRefresh = timestampMicros + PCAP_TOTALS_REFRESH_INTERVAL_MICROS;
+        }
+
+        if (live) {
+            frameRing.offer(frame, frame.length, timestampMicros);
+        } else {
+            if (replaySpeed > 0) {
+                pace(timestampMicros);
+            }
+            // capture files can wait for the analysis
+            frameRing.put(frame, frame.length, timestampMicros);
+        }
+    }
+
+    private void analyzePackets() {
+        while (capturing || frameRing.size() > 0) {
+            frameRing.drain(this::analyzeFrame, TIMER_TICK_MS, TimeUnit.MILLISECONDS);
+
+            if (live) {
+                advanceTimers();
+                reportRingDrops();
+            }
+        }
+    }
+
+    private void analyzeFrame(byte[] frame, int frameLength, long timestampMicros) {
+        try {
+            processFrame(frame, frameLength, timestampMicros);
+        } catch (RuntimeException e) {
+            log.error("Failed to analyze packet.", e);
         }
     }
 
-    private void handlePacket(Packet packet) {
+    private void reportRingDrops() {
+        long ringDrops = frameRing.getDropped();
+
+        if (ringDrops > reportedRingDrops) {
+            log.warn("Dropped {} packets because the analysis was falling behind.", ringDrops - reportedRingDrops);
+            reportedRingDrops = ringDrops;
+        }
+    }
 
-        PacketInfo packetInfo = adaptPacket(packet);
-        if (packetInfo == null) {
+    private void pace(long timestampMicros) {
+        if (replayStartNanos == 0) {
+            replayStartNanos = System.nanoTime();
+            replayStartCaptureTime = timestampMicros;
             return;
         }
 
-        boolean isServerRequest = isServerRequest(packetInfo);
-        boolean isServerResponse = isServerResponse(packetInfo);
-
-        if (state != State.HANDSHAKE_COMPLETE && isPossibleHandshake(packetInfo)) {
-            if (state == State.IDLE && isHandshakeInitRequest(packetInfo)) {
-                log.debug("Server connection - handhake 1 requested");
-                state = State.HANDSHAKE1_REQUESTED;
-                lastRequest = packetInfo;
-                serverConnection = new Connection(localAddr, packetInfo.srcPort, packetInfo.dstAddress, packetInfo.dstPort);
-                log.debug("Connection request to game server: {}", serverConnection);
-
-            } else if (state == State.HANDSHAKE1_REQUESTED && isServerResponse) {
-                log.debug("Server connection - handhake 1 responded");
-                state = State.HANDSHAKE1_RESPONDED;
-                serverConnection.setLatency((int) (packetInfo.timestamp - lastRequest.timestamp));
-
-            } else if (state == State.HANDSHAKE1_RESPONDED && isServerRequest) {
-                log.debug("Server connection - handhake 2 requested");
-                state = State.HANDSHAKE2_REQUESTED;
-                lastRequest = packetInfo;
-
-            } else if (state == State.HANDSHAKE2_REQUESTED && isServerResponse) {
-                log.debug("Server connection - handhake 2 responded");
-                state = State.HANDSHAKE_COMPLETE;
-                int latency = (int) (packetInfo.timestamp - lastRequest.timestamp);
-                serverConnection.setLatency((serverConnection.getLatency() + latency) / 2);
-                setPacketFilter(PACKET_FILTER__CHECK_CONNECTION_ALIVE,
-                        serverConnection.getRemoteAddr().getHostAddress(), serverConnection.getLocalAddr().getHostAddress());
-                snifferListener.notifyMatchConnect(serverConnection);
+        long targetNanos = replayStartNanos + (long) ((timestampMicros - replayStartCaptureTime) * 1000 / replaySpeed);
+        long waitNanos = targetNanos - System.nanoTime();
+        if (waitNanos > 0) {
+            try {
+                Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
-        } else if (state == State.HANDSHAKE_COMPLETE && isServerResponse) {
-            serverConnection.setLastSeen(packetInfo.timestamp);
         }
     }
 
-    private PacketInfo adaptPacket(Packet packet) {
-        IpPacket ipPacket = packet.get(IpV4Packet.class);
+    /**
+     * Runs a link-layer frame through the connection detection.
+     * Used for captured packets, and also to feed frames from other sources (such as benchmarks).
+     *
+     * @param timestampMicros Capture time, in microseconds since the epoch.
+     */
+    public void processFrame(byte[] frame, int frameLength, long timestampMicros) {
+        captureStats.countDelivered();
+        if (!live) {
+            captureClock = Math.max(captureClock, timestampMicros / 1000);
+            advanceTimers();
+        }
+        if (!datagram.decode(linkType, frame, frameLength, timestampMicros)) {
+            return;
+        }
+
+        if (serverConnection == null) {
+            if (isPossibleHandshake(datagram)) {
+                processHandshake(datagram);
+            }
+            return;
+        }
+
+        boolean isServerResponse = isServerResponse(datagram);
+        if (isServerResponse || isServerRequest(datagram)) {
+            if (isServerResponse) {
+                serverConnection.setLastSeen(datagram.getTimestamp());
+                timerWheel.reschedule(connectionTimeout, currentTime() + CONNECTION_TIMEOUT_MS);
+                latencyTracker.onIncoming(datagram.getTimestampMicros());
+                trafficTracker.onIncoming(datagram.getTimestampMicros(), datagram.getIpLength());
+            } else {
+                latencyTracker.onOutgoing(datagram.getTimestampMicros());
+                trafficTracker.onOutgoing(datagram.getTimestampMicros(), datagram.getIpLength());
+            }
+            captureStats.countUsed();
 
-        if (ipPacket == null) {
-            return null;
+            if (datagram.getTimestampMicros() >= nextPingUpdateTime) {
+                nextPingUpdateTime = datagram.getTimestampMicros() + PING_UPDATE_INTERVAL_MICROS;
+                updatePing(datagram.getTimestampMicros());
+            }
         }
+    }
 
-        PacketInfo info = new PacketInfo();
-        info.timestamp = pcapHandle.getTimestamp().getTime();
-        info.packetLen = packet.length();
-        TcpPacket tcpPacket = ipPacket.get(TcpPacket.class);
-        UdpPacket udpPacket = ipPacket.get(UdpPacket.class);
-        info.srcAddress = ipPacket.getHeader().getSrcAddr();
-        info.dstAddress = ipPacket.getHeader().getDstAddr();
+    private void processHandshake(UdpDatagram datagram) {
+        HandshakeFlowTable.Flow flow = handshakeFlows.process(datagram, isHandshakeInitRequest(datagram),
+                currentTime());
 
-        if (tcpPacket != null) {
-            info.protocol = PacketInfo.Protocol.TCP;
-            info.srcPort = tcpPacket.getHeader().getSrcPort().valueAsInt();
-            info.dstPort = tcpPacket.getHeader().getDstPort().valueAsInt();
-            info.payloadLen = tcpPacket.getPayload() != null ? tcpPacket.getPayload().length() : 0;
-            info.payload = tcpPacket.getPayload();
-        } else if (udpPacket != null) {
-            info.protocol = PacketInfo.Protocol.UDP;
-            info.srcPort = udpPacket.getHeader().getSrcPort().valueAsInt();
-            info.dstPort = udpPacket.getHeader().getDstPort().valueAsInt();
-            info.payloadLen = udpPacket.getPayload() != null ? udpPacket.getPayload().length() : 0;
-            info.payload = udpPacket.getPayload();
+        if (flow == null) {
+            return;
         }
+        captureStats.countUsed();
+        log.debug("Server connection - {}", flow);
+
+        if (flow.getState() == HandshakeFlowTable.State.HANDSHAKE_COMPLETE) {
+            serverAddr = flow.getRemoteAddr();
+            serverPort = flow.getRemotePort();
+            serverConnection = new Connection(localAddr, flow.getLocalPort(), UdpDatagram.toInetAddress(serverAddr),
+                    serverPort);
+            serverConnection.setLatency(flow.getLatency());
+            serverConnection.setLastSeen(datagram.getTimestamp());
+            connectionTimeout = timerWheel.schedule(currentTime() + CONNECTION_TIMEOUT_MS, this::expireConnection);
+            log.debug("Connected to game server: {}", serverConnection);
+
+            // other candidates are no longer relevant
+            handshakeFlows.clear();
+            latencyTracker.reset();
+            trafficTracker.reset();
+            nextPingUpdateTime = datagram.getTimestampMicros() + PING_UPDATE_INTERVAL_MICROS;
+            setPacketFilter(PACKET_FILTER__SERVER_FLOW, serverConnection.getRemoteAddr().getHostAddress(), serverPort);
+            snifferListener.notifyMatchConnect(serverConnection);
+        }
+    }
+
+    /**
+     * @return Current time of the timer wheel's clock, in milliseconds.
+     */
+    private long currentTime() {
+        return live ? TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - clockOrigin) : captureClock;
+    }
+
+    private void advanceTimers() {
+        timerWheel.advance(currentTime());
+    }
 
-        return info;
+    private void updatePing(long timeMicros) {
+        LatencyTracker.Snapshot snapshot = latencyTracker.snapshot(timeMicros);
+        log.trace("Server flow: {}", snapshot);
+
+        serverConnection.setNetworkStats(summarizeNetworkStats());
+        if (snapshot.getSamples() > 0) {
+            serverConnection.setLatency(snapshot.getLatencyMedian());
+            snifferListener.notifyPingUpdate(snapshot.getLatencyMedian());
+        }
     }
 
-    private boolean isPossibleHandshake(PacketInfo packetInfo) {
-        return packetInfo != null
-                && packetInfo.payload != null
-                && packetInfo.payload.length() == 29;
+    private MatchNetworkStats summarizeNetworkStats() {
+        MatchNetworkStats stats = latencyTracker.summarize();
+        if (stats == null) {
+            stats = new MatchNetworkStats();
+        }
+        trafficTracker.summarizeInto(stats);
+
+        return stats;
     }
 
-    private boolean isHandshakeInitRequest(PacketInfo packetInfo) {
-        byte[] udpData = packetInfo.payload.getRawData();
+    private boolean isPossibleHandshake(UdpDatagram datagram) {
+        return datagram.getPayloadLength() == HANDSHAKE_PAYLOAD_LEN;
+    }
 
-        return packetInfo.srcAddress.equals(localAddr)
-                && udpData[0] == 0x01
-                && udpData[2] == 0x00
-                && udpData[3] == 0x00
-                && udpData[4] == 0x00;
+    private boolean isHandshakeInitRequest(UdpDatagram datagram) {
+        return datagram.getSrcAddr() == localAddrValue
+                && datagram.payloadByte(0) == 0x01
+                && datagram.payloadByte(2) == 0x00
+                && datagram.payloadByte(3) == 0x00
+                && datagram.payloadByte(4) == 0x00;
     }
 
-    private boolean isServerRequest(PacketInfo packetInfo) {
-        return serverConnection != null
-                && packetInfo.dstAddress.equals(serverConnection.getRemoteAddr()) && packetInfo.dstPort == serverConnection.getRemotePort();
+    private boolean isServerRequest(UdpDatagram datagram) {
+        return datagram.getDstAddr() == serverAddr && datagram.getDstPort() == serverPort;
     }
 
-    private boolean isServerResponse(PacketInfo packetInfo) {
-        return serverConnection != null
-                && packetInfo.srcAddress.equals(serverConnection.getRemoteAddr()) && packetInfo.srcPort == serverConnection.getRemotePort();
+    private boolean isServerResponse(UdpDatagram datagram) {
+        return datagram.getSrcAddr() == serverAddr && datagram.getSrcPort() == serverPort;
     }
 
     @Override
     public void stop() {
         if (pcapHandle != null) {
             log.info("Cleaning up sniffer...");
-            try {
-                pcapHandle.breakLoop();
-            } catch (NotOpenException e) {
-                log.error("Failed when attempting to stop sniffer.", e);
-            }
+            stopRequested = true;
+            breakLoop();
+        }
+    }
+
+    private void breakLoop() {
+        try {
+            pcapHandle.breakLoop();
+        } catch (NotOpenException e) {
+            log.error("Failed to break the capture loop.", e);
         }
     }
 
     public void close() {
-        connectionCleanerTimer.cancel();
         stop();
-        pcapHandle.close();
+        getCaptureStats().forEach(stats -> log.info("Capture stats: {}", stats));
+        log.info("Capture metrics: {}", getCaptureMetrics());
+        if (pcapHandle != null) {
+            pcapHandle.close();
+        }
         log.info("Freed network interface handle.");
     }
 
 
-    private void startConnectionCleaner() {
-        connectionCleanerTimer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                long currentTime = System.currentTimeMillis();
-
-                if (serverConnection != null && currentTime > serverConnection.getLastSeen() + CONNECTION_TIMEOUT_MS) {
-                    log.debug("Detected match disconnection.");
-                    clearConnection();
-                }
-            }
-        }, 0, CLEANER_POLL_MS);
+    private void expireConnection() {
+        log.debug("Detected match disconnection.");
+        clearConnection();
     }
 
     private void clearConnection() {
-        if (state == State.HANDSHAKE_COMPLETE) {
-            snifferListener.notifyMatchDisconnect();
-        }
+        timerWheel.cancel(connectionTimeout);
+        // include the traffic since the last update
+        serverConnection.setNetworkStats(summarizeNetworkStats());
+        snifferListener.notifyMatchDisconnect();
         serverConnection = null;
-        state = State.IDLE;
-        setPacketFilter(PACKET_FILTER__SEARCH_CONNECTION);
+        connectionTimeout = null;
+        setPacketFilter(PACKET_FILTER__SEARCH_CONNECTION, localAddr.getHostAddress());
     }
 
+    /**
+     * While capturing, the filter is applied by the capture thread, between packets.
+     */
     private void setPacketFilter(String filterExpr, Object... args) {
+        if (pcapHandle == null) {
+            return;
+        }
+        pendingFilter.set(new PacketFilter(filterExpr, String.format(filterExpr, args)));
+
+        if (capturing) {
+            breakLoop();
+        } else {
+            applyPendingFilter();
+        }
+    }
+
+    /**
+     * Only to be called while the capture loop is not running.
+     */
+    private void applyPendingFilter() {
+        PacketFilter filter = pendingFilter.getAndSet(null);
+        if (filter == null) {
+            return;
+        }
         try {
-            String filter = String.format(filterExpr, args);
-            pcapHandle.setFilter(filter, BpfProgram.BpfCompileMode.OPTIMIZE);
-        } catch (Exception e) {
+            pcapHandle.setFilter(filter.expression, BpfProgram.BpfCompileMode.OPTIMIZE);
+        } catch (PcapNativeException | NotOpenException e) {
             throw new RuntimeException(e);
         }
+
+        refreshPcapTotals();
+        long[] totals = pcapTotals;
+        captureStats.switchFilter(filter.template, totals[0], totals[1], totals[2]);
+        log.debug("Packet filter: {}", filter.expression);
+    }
+
+    /**
+     * @return Packet counters for each filter used so far (the filters are identified by their template).
+     */
+    public List<CaptureStats.FilterStats> getCaptureStats() {
+        long[] pcapTotals = getPcapTotals();
+
+        return captureStats.snapshot(pcapTotals[0], pcapTotals[1], pcapTotals[2]);
+    }
+
+    public CaptureMetrics getCaptureMetrics() {
+        long[] pcapTotals = getPcapTotals();
+
+        return new CaptureMetrics(pcapTotals[0], pcapTotals[1], pcapTotals[2], frameRing.getCapacity(),
+                frameRing.size(), frameRing.getHighWaterMark(), frameRing.getDropped());
+    }
+
+    /**
+     * @return pcap totals of received, dropped and dropped-by-interface packets (zeros if they are not available), as
+     * of the last time the capture thread read them (at least once per second while packets arrive).
+     */
+    private long[] getPcapTotals() {
+        return pcapTotals;
+    }
+
+    /**
+     * Only to be called from the thread that owns the pcap handle.
+     */
+    private void refreshPcapTotals() {
+        if (pcapHandle == null || !live) {
+            // there are no stats for capture files
+            return;
+        }
+        try {
+            PcapStat pcapStat = pcapHandle.getStats();
+            pcapTotals = new long[]{pcapStat.getNumPacketsReceived(), pcapStat.getNumPacketsDropped(),
+                    pcapStat.getNumPacketsDroppedByIf()};
+        } catch (PcapNativeException | NotOpenException e) {
+            log.debug("Failed to get pcap stats.", e);
+        }
     }
 
 }
@@ -7,6 +7,7 @@ public enum GameEvent {
     DISCONNECTED,
     START_LOBBY_SEARCH,
     CONNECTED_TO_LOBBY,
+    PING_UPDATED,
     NEW_KILLER_PLAYER,
     NEW_KILLER_CHARACTER,
     START_MAP_GENERATION,
@@ -17,6 +18,7 @@ public enum GameEvent {
     LEFT_REALM,
     MATCH_ENDED,
     MANUALLY_INPUT_MATCH_STATS,
+    EDITING_MATCH,
     UPDATED_CHASE_SUMMARY,
     UPDATED_STATS,
     TIMER_START,
@@ -8,9 +8,11 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import net.lobby_simulator_companion.loop.config.AppProperties;
+import net.lobby_simulator_companion.loop.domain.Connection;
 import net.lobby_simulator_companion.loop.domain.Killer;
 import net.lobby_simulator_companion.loop.domain.Player;
 import net.lobby_simulator_companion.loop.domain.RealmMap;
+import net.lobby_simulator_companion.loop.domain.Server;
 import net.lobby_simulator_companion.loop.domain.stats.Match;
 import net.lobby_simulator_companion.loop.repository.SteamProfileDao;
 import net.lobby_simulator_companion.loop.service.jna.WindowService;
@@ -20,11 +22,14 @@ import net.lobby_simulator_companion.loop.util.Stopwatch;
 import net.lobby_simulator_companion.loop.util.event.EventListener;
 import net.lobby_simulator_companion.loop.util.event.EventSupport;
 import net.lobby_simulator_companion.loop.util.event.SwingEventSupport;
+import org.apache.commons.lang3.StringUtils;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.time.LocalDateTime;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static javax.swing.SwingUtilities.invokeLater;
 import static net.lobby_simulator_companion.loop.service.DbdLogMonitor.State;
@@ -47,6 +52,9 @@ public class GameStateManager implements NativeKeyListener {
 
     private static final int KEYCODE__ENTER = 13;
     private static final int KEYCODE__F4 = 115;
+    private static final int KEYCODE__DELETE = 46;
+    private static final int KEYCODE__PAGE_UP = 33;
+    private static final int KEYCODE__PAGE_DOWN = 34;
     private static final int KEYCODE__0 = 48;
     private static final int KEYCODE__1 = 49;
     private static final int KEYCODE__2 = 50;
@@ -54,6 +62,7 @@ public class GameStateManager implements NativeKeyListener {
     private static final int KEYCODE__4 = 52;
     private static final int KEYCODE__D = 68;
     private static final int KEYCODE__E = 69;
+    private static final int KEYCODE__Z = 90;
     private static final int KEY_MODIFIER__LEFT_CTRL = 2;
     private static final int KEY_MODIFIER__RIGHT_CTRL = 32;
 
@@ -73,12 +82,29 @@ public class GameStateManager implements NativeKeyListener {
     private int minMatchSeconds;
     @Getter
     private Match currentMatch = new Match();
+    /**
+     * Copy of a stored match while it is being corrected (see {@link #toggleMatchEditing()}).
+     * Manual input goes to it instead of the current match, which is left untouched.
+     */
+    private Match editedMatch;
+    /**
+     * Connection to the server hosting the current match, if it was detected.
+     */
+    private volatile Connection matchConnection;
     private boolean resetMatchWait;
     private boolean timerRunning;
 
 
     public GameStateManager(AppProperties appProperties, LoopDataService dataService,
                             SteamProfileDao steamProfileDao, ChaseEventManager chaseEventManager) {
+        this(appProperties, dataService, steamProfileDao, chaseEventManager, true);
+    }
+
+    /**
+     * @param hotkeys Whether to listen to the keyboard (not wanted in tests).
+     */
+    GameStateManager(AppProperties appProperties, LoopDataService dataService, SteamProfileDao steamProfileDao,
+                     ChaseEventManager chaseEventManager, boolean hotkeys) {
         this.appProperties = appProperties;
         this.dataService = dataService;
         this.steamProfileDao = steamProfileDao;
@@ -87,17 +113,31 @@ public class GameStateManager implements NativeKeyListener {
         this.appWindowTitle = appProperties.get("app.name.short");
         this.dbdWindowTitle = appProperties.get("dbd.window.title");
 
-        init();
+        init(hotkeys);
     }
 
 
-    private void init() {
+    private void init(boolean hotkeys) {
         chaseEventManager.registerEventListener(ChaseEventManager.Event.CHASE_START, evt -> fireEvent(GameEvent.CHASE_STARTED, evt.getValue()));
         chaseEventManager.registerEventListener(ChaseEventManager.Event.CHASE_END, evt -> fireEvent(GameEvent.CHASE_ENDED));
 
         dataService.registerListener(evt -> fireEvent(GameEvent.UPDATED_STATS));
-
-        registerHotkeys();
+        registerListener(GameEvent.CONNECTED_TO_LOBBY, evt -> {
+            if (evt.getValue() instanceof Connection) {
+                matchConnection = (Connection) evt.getValue();
+                // in case there was an earlier lobby for which no match was submitted
+                currentMatch.setNetworkStats(null);
+            }
+        });
+        registerListener(GameEvent.DISCONNECTED, evt -> {
+            // the match is usually submitted after leaving the server
+            attachNetworkStats();
+            matchConnection = null;
+        });
+
+        if (hotkeys) {
+            registerHotkeys();
+        }
     }
 
 
@@ -164,6 +204,8 @@ public class GameStateManager implements NativeKeyListener {
         matchStopwatch.stop();
         currentMatch.setSecondsPlayed(getMatchDurationInSeconds());
         currentMatch.setEscaped(Optional.ofNullable(currentMatch.getEscaped()).orElse(false));
+        attachNetworkStats();
+        matchConnection = null;
 
         // TODO: can we detect match cancel automatically?
         boolean matchCancelled = getMatchDurationInSeconds() < minMatchSeconds;
@@ -179,6 +221,15 @@ public class GameStateManager implements NativeKeyListener {
         fireEvent(GameEvent.UPDATED_CHASE_SUMMARY, chaseEventManager.getChaseSummary());
     }
 
+    /**
+     * Copies the network stats of the server connection (so far) into the current match.
+     */
+    private void attachNetworkStats() {
+        Optional.ofNullable(matchConnection)
+                .map(Connection::getNetworkStats)
+                .ifPresent(currentMatch::setNetworkStats);
+    }
+
     private void handleCurrentPlayerSurvival() {
         currentMatch.setEscaped(true);
     }
@@ -224,6 +275,7 @@ public class GameStateManager implements NativeKeyListener {
                 player.incrementTimesEncountered();
                 dataService.notifyChange();
             }
+            dataService.notifyKillerEncounter(player);
 
             currentMatch.setKillerPlayerSteamId64(player.getSteamId64());
             currentMatch.setKillerPlayerDbdId(player.getDbdPlayerId());
@@ -246,6 +298,17 @@ public class GameStateManager implements NativeKeyListener {
         fireEvent(GameEvent.START_MAP_GENERATION, realmMap);
     }
 
+    /**
+     * Remembers where the current match is hosted, so that queue times can be aggregated by region.
+     */
+    public void notifyServerInfo(Server server) {
+        String region = Stream.of(server.getRegion(), server.getCountry())
+                .filter(StringUtils::isNotBlank)
+                .collect(Collectors.joining(", "));
+
+        currentMatch.setServerRegion(StringUtils.trimToNull(region));
+    }
+
     @Deprecated
     public void notifySurvivalUserInput(Boolean survived) {
         currentMatch.setEscaped(survived);
@@ -304,6 +367,11 @@ public class GameStateManager implements NativeKeyListener {
             return;
         }
 
+        if (keyCode == KEYCODE__Z && ctrlPressed) {
+            toggleMatchEditing();
+            return;
+        }
+
         Integer killCount = null;
         Boolean escaped = null;
 
@@ -327,23 +395,24 @@ public class GameStateManager implements NativeKeyListener {
             return;
         }
 
-        if (currentMatch.getEscaped() != null && currentMatch.getEscaped().equals(escaped)) {
+        Match inputMatch = editedMatch != null ? editedMatch : currentMatch;
+        if (inputMatch.getEscaped() != null && inputMatch.getEscaped().equals(escaped)) {
             escaped = null;
-            currentMatch.setEscaped(null);
+            inputMatch.setEscaped(null);
         }
-        if (currentMatch.getKillCount() != null && currentMatch.getKillCount().equals(killCount)) {
+        if (inputMatch.getKillCount() != null && inputMatch.getKillCount().equals(killCount)) {
             killCount = null;
-            currentMatch.setKillCount(null);
+            inputMatch.setKillCount(null);
         }
 
         if (escaped != null) {
-            currentMatch.setEscaped(escaped);
+            inputMatch.setEscaped(escaped);
         }
         if (killCount != null) {
-            currentMatch.setKillCount(killCount);
+            inputMatch.setKillCount(killCount);
         }
 
-        fireEvent(GameEvent.MANUALLY_INPUT_MATCH_STATS, currentMatch);
+        fireEvent(GameEvent.MANUALLY_INPUT_MATCH_STATS, inputMatch);
     }
 
     @Override
@@ -364,6 +433,16 @@ public class GameStateManager implements NativeKeyListener {
                 fireEvent(GameEvent.TIMER_START);
             }
         }
+
+        // these keys do not produce typed events
+        boolean ctrlPressed = modifiers == KEY_MODIFIER__LEFT_CTRL || modifiers == KEY_MODIFIER__RIGHT_CTRL;
+        if (keyCode == KEYCODE__DELETE && ctrlPressed) {
+            deleteEditedMatch();
+        } else if (keyCode == KEYCODE__PAGE_UP && ctrlPressed) {
+            editMatchNextToEdited(true);
+        } else if (keyCode == KEYCODE__PAGE_DOWN && ctrlPressed) {
+            editMatchNextToEdited(false);
+        }
     }
 
     private boolean isValidActiveWindow() {
@@ -372,23 +451,106 @@ public class GameStateManager implements NativeKeyListener {
         return appWindowTitle.equals(activeWindowTitle) || dbdWindowTitle.equals(activeWindowTitle);
     }
 
-    private void updateAggregateStatsWithMatchResults() {
-        Boolean escaped = currentMatch.getEscaped();
-        Integer killCount = currentMatch.getKillCount();
+    /**
+     * Stores the current match (or the corrections to the match being edited), as done with Ctrl+Enter.
+     */
+    void updateAggregateStatsWithMatchResults() {
+        if (editedMatch != null) {
+            submitEditedMatch();
+            return;
+        }
+
+        if (!isValidInput(currentMatch)) {
+            return;
+        }
+
+        if (currentMatch.getMatchStartTime() == null) {
+            // needed to know which periods the match belongs to if it's edited later
+            currentMatch.setMatchStartTime(LocalDateTime.now());
+        }
+        attachNetworkStats();
+        // the connection belongs to the submitted match, even if it is still open
+        matchConnection = null;
+
+        dataService.addMatch(currentMatch);
+        currentMatch = new Match();
+        fireEvent(GameEvent.UPDATED_STATS);
+    }
+
+    private static boolean isValidInput(Match match) {
+        Boolean escaped = match.getEscaped();
+        Integer killCount = match.getKillCount();
 
         if (escaped == null && killCount == null) {
+            return false;
+        }
+
+        return escaped == null || killCount == null || (escaped ? killCount != 4 : killCount != 0);
+    }
+
+    /**
+     * Starts correcting the most recent stored match, or stops it (discarding the corrections) if a match was already
+     * being corrected. While it is, manual input applies to it, Ctrl+PageUp and Ctrl+PageDown move to the previous and
+     * next matches, Ctrl+Enter stores the corrections and Ctrl+Delete deletes the match altogether.
+     * Not allowed while there is manual input for the current match which was not submitted yet.
+     */
+    private void toggleMatchEditing() {
+        if (editedMatch != null) {
+            log.debug("Stopped editing match #{}.", editedMatch.getId());
+            stopEditing();
+            return;
+        }
+        if (currentMatch.getEscaped() != null || currentMatch.getKillCount() != null) {
             return;
         }
 
-        if (escaped != null && killCount != null && ((escaped && killCount == 4) || (!escaped && killCount == 0))) {
-            // invalid input
+        dataService.getLastMatch().ifPresent(this::startEditing);
+    }
+
+    /**
+     * Moves on to correct an older (or newer) match, discarding the corrections to the current one.
+     */
+    private void editMatchNextToEdited(boolean older) {
+        if (editedMatch == null) {
             return;
         }
 
-        dataService.getStats().addMatchStats(currentMatch);
-        dataService.getMatchLog().add(currentMatch);
-        dataService.notifyChange();
-        currentMatch = new Match();
+        dataService.getMatchNextTo(editedMatch.getId(), older).ifPresent(this::startEditing);
+    }
+
+    private void startEditing(Match match) {
+        editedMatch = match.toBuilder().build();
+        log.debug("Editing match #{}.", editedMatch.getId());
+        fireEvent(GameEvent.EDITING_MATCH, editedMatch);
+        fireEvent(GameEvent.MANUALLY_INPUT_MATCH_STATS, editedMatch);
+    }
+
+    private void stopEditing() {
+        editedMatch = null;
+        fireEvent(GameEvent.EDITING_MATCH, null);
+        fireEvent(GameEvent.MANUALLY_INPUT_MATCH_STATS, currentMatch);
+    }
+
+    private void submitEditedMatch() {
+        if (!isValidInput(editedMatch)) {
+            return;
+        }
+
+        if (dataService.updateMatch(editedMatch.getId(), editedMatch.getEscaped(), editedMatch.getKillCount())) {
+            log.debug("Updated match #{}.", editedMatch.getId());
+        }
+        stopEditing();
+        fireEvent(GameEvent.UPDATED_STATS);
+    }
+
+    private void deleteEditedMatch() {
+        if (editedMatch == null) {
+            return;
+        }
+
+        dataService.deleteMatch(editedMatch.getId())
+                .ifPresent(match -> log.debug("Deleted match #{}.", match.getId()));
+        stopEditing();
         fireEvent(GameEvent.UPDATED_STATS);
     }
 
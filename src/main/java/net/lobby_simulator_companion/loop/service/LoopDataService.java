@@ -1,30 +1,40 @@
 package net.lobby_simulator_companion.loop.service;
 
 import lombok.extern.slf4j.Slf4j;
+import net.lobby_simulator_companion.loop.domain.KillerMatchIndex;
 import net.lobby_simulator_companion.loop.domain.LoopData;
 import net.lobby_simulator_companion.loop.domain.MatchLog;
 import net.lobby_simulator_companion.loop.domain.Player;
+import net.lobby_simulator_companion.loop.domain.stats.HeavyHitters;
 import net.lobby_simulator_companion.loop.domain.stats.Match;
+import net.lobby_simulator_companion.loop.domain.stats.QueueStats;
 import net.lobby_simulator_companion.loop.domain.stats.Stats;
 import net.lobby_simulator_companion.loop.domain.stats.periodic.PeriodStats;
-import net.lobby_simulator_companion.loop.repository.LoopRepository;
+import net.lobby_simulator_companion.loop.repository.LoopDataStore;
 import net.lobby_simulator_companion.loop.util.event.EventListener;
 import net.lobby_simulator_companion.loop.util.event.EventSupport;
 import org.apache.commons.lang3.StringUtils;
 
-import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.PriorityQueue;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
-import static java.util.function.Function.identity;
-import static java.util.stream.Collectors.toConcurrentMap;
+import static java.util.stream.Collectors.toList;
 
 /**
  * Service for managing data related to players and servers.
@@ -35,52 +45,199 @@ import static java.util.stream.Collectors.toConcurrentMap;
 public class LoopDataService {
 
     public enum DataServiceEvent {
-        STATS_RESET
+        STATS_RESET,
+
+        /**
+         * The stored stats, match log and queue stats are available.
+         */
+        SNAPSHOT_LOADED,
+
+        /**
+         * Everything else derived from the stored data (killer index and rankings) is available.
+         */
+        DATA_LOADED
+    }
+
+    public enum KillerRanking {
+        MOST_ENCOUNTERED,
+        NEMESIS
     }
 
     private static final long SAVE_PERIOD_MS = 5000;
 
-    private final LoopRepository repository;
-    private Map<String, Player> players = new HashMap<>();
-    private LoopData loopData = new LoopData();
+    private final Supplier<LoopDataStore> storeFactory;
+    private LoopDataStore store;
+
+    /**
+     * Players materialized from the store during this session.
+     */
+    private final Map<String, Player> players = new ConcurrentHashMap<>();
+
+    /**
+     * Empty until the snapshot is loaded, so that the UI can be shown in the meantime.
+     */
+    private volatile LoopData loopData = new LoopData();
+    private volatile boolean snapshotLoaded;
+    private Exception loadFailure;
     private boolean dirty;
+    private boolean closed;
+    private Timer saveTimer;
     private EventSupport eventSupport = new EventSupport();
 
 
-    public LoopDataService(LoopRepository loopRepository) {
-        repository = loopRepository;
+    /**
+     * @param storeFactory The store is opened when the service is started (opening it may take a while).
+     */
+    public LoopDataService(Supplier<LoopDataStore> storeFactory) {
+        this.storeFactory = storeFactory;
     }
 
 
-    public void start() throws IOException {
-        loopData = loadData();
-        players = loopData.getPlayers().stream()
-                .collect(toConcurrentMap(Player::getSteamId64, identity()));
+    /**
+     * Loads the stored data in the background, in phases: first the snapshot (which holds every stat shown on
+     * screen), then the rest. An event is fired at the end of each phase.
+     */
+    public CompletableFuture<Void> start() {
+        CompletableFuture<Void> result = new CompletableFuture<>();
 
-        // schedule thread for saving dirty data
-        Timer timer = new Timer();
-        timer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                save();
+        Thread thread = new Thread(() -> {
+            try {
+                load();
+                result.complete(null);
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        }, "data-loader");
+        thread.setDaemon(true);
+        thread.start();
+
+        return result;
+    }
+
+    private void load() throws IOException {
+        Instant startTime = Instant.now();
+        LoopDataStore openedStore;
+        LoopData storedData;
+
+        // the lock is only taken to publish the result, so that nobody waits for the whole load just to get the lock
+        try {
+            openedStore = storeFactory.get();
+            logPhase("Opened storage", startTime);
+
+            storedData = openedStore.loadSnapshot();
+            initMatchHistory(openedStore, storedData.getMatchLog());
+            initKillerMatchIndex(storedData);
+        } catch (IOException | RuntimeException e) {
+            synchronized (this) {
+                loadFailure = e;
+                notifyAll();
+            }
+            throw e;
+        }
+        boolean seedKillerRankings = storedData.getMostEncounteredKillers().isEmpty()
+                && storedData.getNemesisKillers().isEmpty();
+
+        synchronized (this) {
+            if (closed) {
+                // the application is exiting
+                openedStore.close();
+                return;
             }
-        }, SAVE_PERIOD_MS, SAVE_PERIOD_MS);
+            store = openedStore;
+            loopData = storedData;
+            snapshotLoaded = true;
+            notifyAll();
+        }
+        logPhase("Loaded snapshot", startTime);
+        eventSupport.fireEvent(DataServiceEvent.SNAPSHOT_LOADED);
 
+        // schedule thread for saving dirty data
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            saveTimer = new Timer("data-saver", true);
+            saveTimer.scheduleAtFixedRate(new TimerTask() {
+                @Override
+                public void run() {
+                    save();
+                }
+            }, SAVE_PERIOD_MS, SAVE_PERIOD_MS);
+        }
         initStatResetTimers();
+
+        if (seedKillerRankings) {
+            synchronized (this) {
+                initKillerRankings();
+            }
+        }
+        logPhase("Loaded all data", startTime);
+        eventSupport.fireEvent(DataServiceEvent.DATA_LOADED);
+    }
+
+    /**
+     * Blocks until the snapshot is loaded (only callers arriving during startup actually wait).
+     * Waiting releases the lock, so it can be called from synchronized methods.
+     */
+    private synchronized void awaitSnapshot() {
+        while (!snapshotLoaded) {
+            if (loadFailure != null) {
+                throw new IllegalStateException("Failed to load data.", loadFailure);
+            }
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for data to load.", e);
+            }
+        }
     }
 
+    private void logPhase(String phase, Instant startTime) {
+        log.info("{} ({} ms since data load started).", phase, Duration.between(startTime, Instant.now()).toMillis());
+    }
+
+    public boolean isSnapshotLoaded() {
+        return snapshotLoaded;
+    }
 
-    private LoopData loadData() throws IOException {
-        LoopData data;
 
-        try {
-            data = repository.load();
-        } catch (FileNotFoundException e) {
-            data = new LoopData();
-            repository.save(data);
+    /**
+     * Data stored by older versions has no match history, so we start it with the match log.
+     */
+    private static void initMatchHistory(LoopDataStore store, MatchLog matchLog) throws IOException {
+        if (!store.hasMatches()) {
+            for (Match match : matchLog.getMatches()) {
+                store.appendMatch(match);
+            }
+            store.flush();
         }
+        matchLog.reserveIdsUpTo(store.getMaxMatchId());
+    }
 
-        return data;
+    /**
+     * Data stored by older versions has no index, so we build it from the match log.
+     */
+    private static void initKillerMatchIndex(LoopData loopData) {
+        KillerMatchIndex index = loopData.getKillerMatchIndex();
+        if (index.isEmpty()) {
+            loopData.getMatchLog().getMatches().forEach(m -> index.add(m.getKillerPlayerSteamId64(), m.getId()));
+        }
+    }
+
+    /**
+     * Data stored by older versions has no rankings, so we seed them with the players' counters.
+     * This visits every player, which is why it is left for the end of the loading.
+     */
+    private void initKillerRankings() throws IOException {
+        HeavyHitters mostEncountered = loopData.getMostEncounteredKillers();
+        HeavyHitters nemesis = loopData.getNemesisKillers();
+
+        forEachPlayer(p -> {
+            mostEncountered.offer(p.getSteamId64(), p.getTimesEncountered());
+            nemesis.offer(p.getSteamId64(), p.getDeaths());
+        });
+        dirty = true;
     }
 
     private void initStatResetTimers() {
@@ -117,31 +274,260 @@ public class LoopDataService {
         return loopData.getMatchLog();
     }
 
-    public void addMatch(Match match) {
-        Player player = players.get(match.getKillerPlayerSteamId64());
+    public QueueStats getQueueStats() {
+        return loopData.getQueueStats();
+    }
 
-        if (player != null) {
+    public synchronized void addMatch(Match match) {
+        awaitSnapshot();
+        getPlayerBySteamId(match.getKillerPlayerSteamId64()).ifPresent(player -> {
             player.incrementMatchesPlayed();
-            player.incrementSecondsPlayed(match.getSecondsPlayed());
+            player.incrementSecondsPlayed(Optional.ofNullable(match.getSecondsPlayed()).orElse(0));
 
             if (match.escaped()) {
                 player.incrementEscapes();
             } else if (match.died()) {
                 player.incrementDeaths();
             }
-        }
+        });
 
         loopData.getStats().addMatchStats(match);
         loopData.getMatchLog().add(match);
+        loopData.getQueueStats().addMatchStats(match);
+        loopData.getKillerMatchIndex().add(match.getKillerPlayerSteamId64(), match.getId());
+        if (match.died()) {
+            loopData.getNemesisKillers().offer(match.getKillerPlayerSteamId64());
+        }
+        updateMatchHistory(s -> s.appendMatch(match));
         dirty = true;
     }
 
+    /**
+     * The most recent match that can be corrected (only the matches in the match log can).
+     */
+    public synchronized Optional<Match> getLastMatch() {
+        awaitSnapshot();
+
+        return loopData.getMatchLog().getLastMatch();
+    }
+
+    /**
+     * The match added right before (or right after) the given one, among the ones that can be corrected.
+     */
+    public synchronized Optional<Match> getMatchNextTo(int matchId, boolean older) {
+        awaitSnapshot();
+
+        return loopData.getMatchLog().getMatch(matchId, older ? -1 : 1);
+    }
+
+    /**
+     * Corrects the survival status and kill count of a match that was already added, retracting its previous
+     * contribution from every aggregate it was part of and applying the new one.
+     */
+    public synchronized boolean updateMatch(int matchId, Boolean escaped, Integer killCount) {
+        awaitSnapshot();
+        Optional<Match> storedMatch = loopData.getMatchLog().getMatch(matchId);
+        if (!storedMatch.isPresent()) {
+            return false;
+        }
+
+        Match match = storedMatch.get();
+        Match previous = match.toBuilder().build();
+        match.setEscaped(escaped);
+        match.setKillCount(killCount);
+
+        getPlayerBySteamId(match.getKillerPlayerSteamId64()).ifPresent(player -> {
+            retractMatchOutcome(player, previous);
+            if (match.escaped()) {
+                player.incrementEscapes();
+            } else if (match.died()) {
+                player.incrementDeaths();
+            }
+        });
+
+        if (previous.died() && !match.died()) {
+            loopData.getNemesisKillers().retract(match.getKillerPlayerSteamId64());
+        } else if (!previous.died() && match.died()) {
+            loopData.getNemesisKillers().offer(match.getKillerPlayerSteamId64());
+        }
+
+        loopData.getStats().replaceMatchStats(previous, match, loopData.getMatchLog().getMatches());
+        loopData.getMatchLog().update(previous, match);
+        updateMatchHistory(s -> s.updateMatch(match));
+        dirty = true;
+
+        return true;
+    }
+
+    /**
+     * Deletes a match that was already added, retracting its contribution from every aggregate it was part of.
+     */
+    public synchronized Optional<Match> deleteMatch(int matchId) {
+        awaitSnapshot();
+        Optional<Match> storedMatch = loopData.getMatchLog().getMatch(matchId);
+
+        storedMatch.ifPresent(match -> {
+            getPlayerBySteamId(match.getKillerPlayerSteamId64()).ifPresent(player -> {
+                player.decrementMatchesPlayed();
+                player.decrementSecondsPlayed(Optional.ofNullable(match.getSecondsPlayed()).orElse(0));
+                retractMatchOutcome(player, match);
+            });
+
+            loopData.getStats().removeMatchStats(match, loopData.getMatchLog().getMatches());
+            loopData.getMatchLog().remove(match);
+            loopData.getQueueStats().removeMatchStats(match);
+            loopData.getKillerMatchIndex().remove(match.getKillerPlayerSteamId64(), match.getId());
+            if (match.died()) {
+                loopData.getNemesisKillers().retract(match.getKillerPlayerSteamId64());
+            }
+            updateMatchHistory(s -> s.removeMatch(match));
+            dirty = true;
+        });
+
+        return storedMatch;
+    }
+
+    private void updateMatchHistory(MatchHistoryUpdate update) {
+        try {
+            update.apply(store);
+        } catch (IOException e) {
+            log.error("Failed to update match history.", e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface MatchHistoryUpdate {
+        void apply(LoopDataStore store) throws IOException;
+    }
+
+    private void retractMatchOutcome(Player player, Match match) {
+        if (match.escaped()) {
+            player.decrementEscapes();
+        } else if (match.died()) {
+            player.decrementDeaths();
+        }
+    }
+
+
+    /**
+     * Matches played against the given killer player, in chronological order.
+     * Matches which are no longer in the match log are read from the match history, which may take a while, so this
+     * should not be called from the UI thread. The history is read without holding the lock.
+     */
+    public List<Match> getMatchesAgainst(String steamId64) {
+        LoopDataStore matchStore;
+        int[] archivedMatchIds;
+        List<Match> recentMatches;
+
+        synchronized (this) {
+            awaitSnapshot();
+            MatchLog matchLog = loopData.getMatchLog();
+            int[] matchIds = loopData.getKillerMatchIndex().getMatchIds(steamId64);
+            archivedMatchIds = Arrays.stream(matchIds)
+                    .filter(id -> !matchLog.getMatch(id).isPresent())
+                    .toArray();
+            recentMatches = Arrays.stream(matchIds)
+                    .mapToObj(matchLog::getMatch)
+                    .filter(Optional::isPresent)
+                    .map(Optional::get)
+                    .collect(toList());
+            matchStore = store;
+        }
+
+        List<Match> result = new ArrayList<>();
+        if (archivedMatchIds.length > 0) {
+            try {
+                result.addAll(matchStore.findMatches(archivedMatchIds));
+            } catch (IOException e) {
+                log.error("Failed to read match history.", e);
+            }
+        }
+        result.addAll(recentMatches);
+
+        return result;
+    }
+
+    public synchronized void notifyKillerEncounter(Player player) {
+        awaitSnapshot();
+        loopData.getMostEncounteredKillers().offer(player.getSteamId64());
+        dirty = true;
+    }
+
+    /**
+     * Killer players we have encountered the most, or died against the most.
+     *
+     * @param exact When false, the result comes from a bounded-memory approximation which is kept up to date on
+     *              every encounter/match (see {@link HeavyHitters} for the error bounds).
+     *              When true, every stored player is visited, which is slower but exact.
+     */
+    public synchronized List<HeavyHitters.Entry> getTopKillers(KillerRanking ranking, int k, boolean exact) {
+        awaitSnapshot();
+        if (!exact) {
+            HeavyHitters heavyHitters = ranking == KillerRanking.MOST_ENCOUNTERED ?
+                    loopData.getMostEncounteredKillers() : loopData.getNemesisKillers();
+
+            return heavyHitters.getTop(k);
+        }
+
+        Comparator<Player> comparator = Comparator.comparingInt(ranking == KillerRanking.MOST_ENCOUNTERED ?
+                Player::getTimesEncountered : Player::getDeaths);
+        PriorityQueue<Player> top = new PriorityQueue<>(k + 1, comparator);
+
+        try {
+            forEachPlayer(player -> {
+                top.add(player);
+                if (top.size() > k) {
+                    top.poll();
+                }
+            });
+        } catch (IOException e) {
+            log.error("Failed to read players.", e);
+        }
+
+        return top.stream()
+                .sorted(comparator.reversed())
+                .map(p -> new HeavyHitters.Entry(p.getSteamId64(),
+                        ranking == KillerRanking.MOST_ENCOUNTERED ? p.getTimesEncountered() : p.getDeaths(), 0))
+                .collect(toList());
+    }
 
     public Optional<Player> getPlayerBySteamId(String steamId) {
-        return Optional.ofNullable(steamId).filter(StringUtils::isNotBlank).map(players::get);
+        awaitSnapshot();
+        if (StringUtils.isBlank(steamId)) {
+            return Optional.empty();
+        }
+
+        Player player = players.get(steamId);
+        if (player == null) {
+            // read outside of the map, since the store is guarded by this service's lock (which callers may hold)
+            Player storedPlayer = loadStoredPlayer(steamId);
+            if (storedPlayer != null) {
+                Player concurrentlyLoadedPlayer = players.putIfAbsent(steamId, storedPlayer);
+                player = concurrentlyLoadedPlayer != null ? concurrentlyLoadedPlayer : storedPlayer;
+            }
+        }
+
+        return Optional.ofNullable(player);
+    }
+
+    private synchronized Player loadStoredPlayer(String steamId) {
+        try {
+            return store.findPlayer(steamId);
+        } catch (IOException e) {
+            log.error("Failed to read player.", e);
+            return null;
+        }
+    }
+
+    /**
+     * Visits every stored player, preferring the instances that were already materialized.
+     */
+    private void forEachPlayer(Consumer<Player> consumer) throws IOException {
+        store.forEachPlayer(p -> consumer.accept(players.getOrDefault(p.getSteamId64(), p)));
     }
 
     public void addPlayer(Player player) {
+        awaitSnapshot();
         players.put(player.getSteamId64(), player);
         dirty = true;
     }
@@ -151,21 +537,50 @@ public class LoopDataService {
     }
 
     public synchronized void save() {
-        if (!dirty) {
+        if (!dirty || !snapshotLoaded || closed) {
             return;
         }
 
-        loopData.getPlayers().clear();
-        loopData.addPlayers(new ArrayList<>(players.values()));
         try {
-            repository.save(loopData);
+            for (Player player : players.values()) {
+                store.upsertPlayer(player);
+            }
+            // the snapshot must be part of what is made durable (for the database, flushing is the commit)
+            store.saveSnapshot(loopData);
+            store.flush();
             dirty = false;
         } catch (IOException e) {
             log.error("Failed to save data.", e);
         }
     }
 
+    /**
+     * Saves pending changes and closes the store. Meant for the application exit.
+     */
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        if (saveTimer != null) {
+            saveTimer.cancel();
+        }
+        save();
+        closed = true;
+
+        if (store != null) {
+            try {
+                store.close();
+            } catch (IOException e) {
+                log.error("Failed to close the storage.", e);
+            }
+        }
+    }
+
     public void registerListener(EventListener eventListener) {
         eventSupport.registerListener(eventListener);
     }
+
+    public void registerListener(DataServiceEvent eventType, EventListener eventListener) {
+        eventSupport.registerListener(eventType, eventListener);
+    }
 }
@@ -0,0 +1,27 @@
+package net.lobby_simulator_companion.loop.service.network;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Health of the capture at a given moment: pcap totals for the whole capture, and the state of the ring between the
+ * capture and analysis threads.
+ * <p>
+ * Packets dropped by pcap never reached us (the kernel buffer was full); packets dropped by the ring were captured,
+ * but the analysis was not keeping up.
+ *
+ * @author NickyRamone
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public final class CaptureMetrics {
+    private final long pcapReceived;
+    private final long pcapDropped;
+    private final long pcapDroppedByInterface;
+    private final int ringCapacity;
+    private final int ringOccupancy;
+    private final int ringHighWaterMark;
+    private final long ringDropped;
+}
@@ -0,0 +1,143 @@
+package net.lobby_simulator_companion.loop.service.network;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Packet counters for each packet filter used during the capture, to check how many packets each filter lets into
+ * user space and how many of them are actually used.
+ * <p>
+ * pcap only keeps totals for the whole capture, so the totals are read whenever the filter changes and the
+ * difference is added to the filter that was active until then. Whether "received" includes packets rejected by the
+ * filter depends on the platform (on Linux, it does not).
+ * <p>
+ * {@link #countDelivered()} and {@link #countUsed()} are meant to be called from the analysis thread only. Since
+ * frames wait for analysis in a ring, a few of them may be counted for the next filter when the filter changes.
+ *
+ * @author NickyRamone
+ */
+public class CaptureStats {
+
+    @Getter
+    @ToString
+    public static final class FilterStats {
+        private final String filter;
+        /**
+         * Packets received, as reported by pcap.
+         */
+        private long received;
+        /**
+         * Packets dropped because there was no room in the capture buffer.
+         */
+        private long dropped;
+        /**
+         * Packets dropped by the network interface or its driver.
+         */
+        private long droppedByInterface;
+        /**
+         * Packets handed to us.
+         */
+        private long delivered;
+        /**
+         * Delivered packets that were relevant to the connection detection.
+         */
+        private long used;
+
+        private FilterStats(String filter) {
+            this.filter = filter;
+        }
+
+        private FilterStats copy() {
+            FilterStats copy = new FilterStats(filter);
+            copy.add(this);
+
+            return copy;
+        }
+
+        private void add(FilterStats other) {
+            received += other.received;
+            dropped += other.dropped;
+            droppedByInterface += other.droppedByInterface;
+            delivered += other.delivered;
+            used += other.used;
+        }
+
+        /**
+         * @return Delivered packets that were not relevant.
+         */
+        public long getWasted() {
+            return delivered - used;
+        }
+    }
+
+    private final Map<String, FilterStats> statsByFilter = new LinkedHashMap<>();
+    private volatile FilterStats current;
+    private long baseReceived;
+    private long baseDropped;
+    private long baseDroppedByInterface;
+
+
+    /**
+     * @param filter             Name of the filter that becomes active.
+     * @param received           pcap total of received packets.
+     * @param dropped            pcap total of dropped packets.
+     * @param droppedByInterface pcap total of packets dropped by the interface.
+     */
+    public synchronized void switchFilter(String filter, long received, long dropped, long droppedByInterface) {
+        closeCurrent(received, dropped, droppedByInterface);
+        current = new FilterStats(filter);
+    }
+
+    public void countDelivered() {
+        FilterStats stats = current;
+        if (stats != null) {
+            stats.delivered++;
+        }
+    }
+
+    public void countUsed() {
+        FilterStats stats = current;
+        if (stats != null) {
+            stats.used++;
+        }
+    }
+
+    /**
+     * @return Counters per filter (in the order the filters were first used), including the active one up to now.
+     */
+    public synchronized List<FilterStats> snapshot(long received, long dropped, long droppedByInterface) {
+        Map<String, FilterStats> result = new LinkedHashMap<>();
+        statsByFilter.forEach((filter, stats) -> result.put(filter, stats.copy()));
+
+        if (current != null) {
+            FilterStats active = current.copy();
+            setDeltas(active, received, dropped, droppedByInterface);
+            result.computeIfAbsent(active.filter, FilterStats::new).add(active);
+        }
+
+        return new ArrayList<>(result.values());
+    }
+
+
+    private void closeCurrent(long received, long dropped, long droppedByInterface) {
+        if (current != null) {
+            setDeltas(current, received, dropped, droppedByInterface);
+            statsByFilter.computeIfAbsent(current.filter, FilterStats::new).add(current);
+        }
+        baseReceived = received;
+        baseDropped = dropped;
+        baseDroppedByInterface = droppedByInterface;
+    }
+
+    private void setDeltas(FilterStats stats, long received, long dropped, long droppedByInterface) {
+        stats.received = Math.max(0, received - baseReceived);
+        stats.dropped = Math.max(0, dropped - baseDropped);
+        stats.droppedByInterface = Math.max(0, droppedByInterface - baseDroppedByInterface);
+    }
+
+}
@@ -0,0 +1,157 @@
+package net.lobby_simulator_companion.loop.service.network;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded ring of captured frames, handing them from the capture thread to the analysis thread.
+ * <p>
+ * Every slot is allocated up front, and frames are copied into them, so capturing does not allocate. There must be
+ * a single producer (the capture thread) and a single consumer (the analysis thread). When the ring is full,
+ * {@link #offer} drops the frame and counts it, so that the capture thread never waits for the analysis.
+ *
+ * @author NickyRamone
+ */
+public class FrameRing {
+
+    @FunctionalInterface
+    public interface FrameHandler {
+        void handle(byte[] frame, int frameLength, long timestampMicros);
+    }
+
+    private static final long FULL_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final int capacity;
+    private final int mask;
+    private final int slotSize;
+    private final byte[][] frames;
+    private final int[] frameLengths;
+    private final long[] timestamps;
+
+    /**
+     * Sequence of the next frame to be consumed.
+     */
+    private final AtomicLong head = new AtomicLong();
+    /**
+     * Sequence of the next frame to be added.
+     */
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile int highWaterMark;
+    private volatile Thread waitingConsumer;
+
+
+    /**
+     * @param capacity Number of slots (rounded up to a power of two).
+     * @param slotSize Maximum frame length; longer frames are truncated.
+     */
+    public FrameRing(int capacity, int slotSize) {
+        this.capacity = capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.slotSize = slotSize;
+        this.frames = new byte[this.capacity][slotSize];
+        this.frameLengths = new int[this.capacity];
+        this.timestamps = new long[this.capacity];
+    }
+
+
+    /**
+     * Copies a frame into the ring.
+     *
+     * @return False if the ring was full (the frame is dropped).
+     */
+    public boolean offer(byte[] frame, int frameLength, long timestampMicros) {
+        long sequence = tail.get();
+        int occupancy = (int) (sequence - head.get());
+
+        if (occupancy >= capacity) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        if (occupancy >= highWaterMark) {
+            highWaterMark = occupancy + 1;
+        }
+
+        int slot = (int) sequence & mask;
+        int length = Math.min(frameLength, slotSize);
+        System.arraycopy(frame, 0, frames[slot], 0, length);
+        frameLengths[slot] = length;
+        timestamps[slot] = timestampMicros;
+        tail.lazySet(sequence + 1);
+
+        Thread consumer = waitingConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+
+        return true;
+    }
+
+    /**
+     * Like {@link #offer}, but waits for room instead of dropping the frame (for sources that can wait, such as
+     * capture files).
+     */
+    public void put(byte[] frame, int frameLength, long timestampMicros) {
+        while (tail.get() - head.get() >= capacity) {
+            LockSupport.parkNanos(this, FULL_WAIT_NANOS);
+        }
+        offer(frame, frameLength, timestampMicros);
+    }
+
+    /**
+     * Hands every available frame to the handler, waiting up to the given time if there are none.
+     * The frame array is only valid during the call to the handler.
+     *
+     * @return Number of frames handled.
+     */
+    public int drain(FrameHandler handler, long timeout, TimeUnit unit) {
+        long start = head.get();
+        long sequence = start;
+        long end = tail.get();
+
+        if (sequence == end) {
+            waitingConsumer = Thread.currentThread();
+            end = tail.get();
+            if (sequence == end) {
+                LockSupport.parkNanos(this, unit.toNanos(timeout));
+                end = tail.get();
+            }
+            waitingConsumer = null;
+        }
+
+        for (; sequence < end; sequence++) {
+            int slot = (int) sequence & mask;
+            handler.handle(frames[slot], frameLengths[slot], timestamps[slot]);
+            head.lazySet(sequence + 1);
+        }
+
+        return (int) (end - start);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return Number of frames waiting to be consumed.
+     */
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    /**
+     * @return Highest number of frames that were waiting at once.
+     */
+    public int getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    /**
+     * @return Number of frames dropped because the ring was full.
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+}
@@ -0,0 +1,171 @@
+package net.lobby_simulator_companion.loop.service.network;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Handshake candidates: one per UDP flow between the local host and a remote one, each going through the two round
+ * trips of the handshake on its own. This way, unrelated packets of the same size (or several connection attempts at
+ * once) do not get in the way of the real handshake.
+ * <p>
+ * Flows are identified by their 5-tuple. Since the protocol and the local address are always the same, the key packs
+ * the rest of it into a long: remote address, remote port and local port.
+ * <p>
+ * A flow expires when it sees no handshake packets for a while (its timeout is kept in a {@link TimerWheel}). When the
+ * table is full, the flow seen least recently is dropped.
+ * <p>
+ * Not thread-safe: it is meant to be used from the analysis thread only.
+ *
+ * @author NickyRamone
+ */
+public class HandshakeFlowTable {
+
+    public enum State {HANDSHAKE1_REQUESTED, HANDSHAKE1_RESPONDED, HANDSHAKE2_REQUESTED, HANDSHAKE_COMPLETE}
+
+    @Getter
+    @ToString
+    public static final class Flow {
+        private final int localPort;
+        private final int remoteAddr;
+        private final int remotePort;
+        private State state = State.HANDSHAKE1_REQUESTED;
+        /**
+         * Average round trip time of both handshake steps, in milliseconds (available once the handshake is complete).
+         */
+        private int latency;
+        @Getter(AccessLevel.NONE)
+        @ToString.Exclude
+        private TimerWheel.Timeout timeout;
+        @Getter(AccessLevel.NONE)
+        private long requestTime;
+        @Getter(AccessLevel.NONE)
+        private int firstLatency;
+
+        private Flow(int localPort, int remoteAddr, int remotePort) {
+            this.localPort = localPort;
+            this.remoteAddr = remoteAddr;
+            this.remotePort = remotePort;
+        }
+    }
+
+    private final int localAddr;
+    private final int timeoutMs;
+    private final TimerWheel timerWheel;
+    private final Map<Long, Flow> flows;
+
+
+    /**
+     * @param localAddr Address of the local host (see {@link UdpDatagram#toInt}).
+     * @param timeoutMs How long a flow is kept without seeing handshake packets.
+     * @param capacity  Maximum number of flows tracked at once.
+     */
+    public HandshakeFlowTable(int localAddr, int timeoutMs, int capacity, TimerWheel timerWheel) {
+        this.localAddr = localAddr;
+        this.timeoutMs = timeoutMs;
+        this.timerWheel = timerWheel;
+        this.flows = new LinkedHashMap<Long, Flow>(capacity * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Flow> eldest) {
+                if (size() > capacity) {
+                    timerWheel.cancel(eldest.getValue().timeout);
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+
+    /**
+     * Moves the flow of a handshake-sized datagram one step forward. Only an initiation request can start tracking
+     * a new flow; other datagrams are only considered if their flow is already tracked.
+     * <p>
+     * A flow whose handshake is complete is removed from the table.
+     *
+     * @param handshakeInit Whether the datagram looks like a handshake initiation.
+     * @param time          Current time of the timer wheel's clock.
+     * @return The flow the datagram belongs to, or null if it does not belong to any tracked flow.
+     */
+    public Flow process(UdpDatagram datagram, boolean handshakeInit, long time) {
+        boolean outgoing = datagram.getSrcAddr() == localAddr;
+        if (!outgoing && datagram.getDstAddr() != localAddr) {
+            return null;
+        }
+
+        long key = outgoing
+                ? key(datagram.getDstAddr(), datagram.getDstPort(), datagram.getSrcPort())
+                : key(datagram.getSrcAddr(), datagram.getSrcPort(), datagram.getDstPort());
+        long captureTime = datagram.getTimestamp();
+        Flow flow = flows.get(key);
+
+        if (flow == null) {
+            if (!outgoing || !handshakeInit) {
+                return null;
+            }
+            Flow newFlow = new Flow(datagram.getSrcPort(), datagram.getDstAddr(), datagram.getDstPort());
+            newFlow.requestTime = captureTime;
+            newFlow.timeout = timerWheel.schedule(time + timeoutMs, () -> flows.remove(key, newFlow));
+            flows.put(key, newFlow);
+
+            return newFlow;
+        }
+
+        timerWheel.reschedule(flow.timeout, time + timeoutMs);
+
+        switch (flow.state) {
+            case HANDSHAKE1_REQUESTED:
+                if (outgoing) {
+                    // the initiation was sent again
+                    flow.requestTime = captureTime;
+                } else {
+                    flow.state = State.HANDSHAKE1_RESPONDED;
+                    flow.firstLatency = (int) (captureTime - flow.requestTime);
+                }
+                break;
+
+            case HANDSHAKE1_RESPONDED:
+                if (outgoing) {
+                    flow.state = State.HANDSHAKE2_REQUESTED;
+                    flow.requestTime = captureTime;
+                }
+                break;
+
+            case HANDSHAKE2_REQUESTED:
+                if (!outgoing) {
+                    flow.state = State.HANDSHAKE_COMPLETE;
+                    flow.latency = (flow.firstLatency + (int) (captureTime - flow.requestTime)) / 2;
+                    flows.remove(key);
+                    timerWheel.cancel(flow.timeout);
+                }
+                break;
+
+            default:
+                break;
+        }
+
+        return flow;
+    }
+
+    public boolean isEmpty() {
+        return flows.isEmpty();
+    }
+
+    public int size() {
+        return flows.size();
+    }
+
+    public void clear() {
+        flows.values().forEach(flow -> timerWheel.cancel(flow.timeout));
+        flows.clear();
+    }
+
+
+    private static long key(int remoteAddr, int remotePort, int localPort) {
+        return ((long) remoteAddr << 32) | ((long) remotePort << 16) | localPort;
+    }
+
+}
@@ -0,0 +1,183 @@
+package net.lobby_simulator_companion.loop.service.network;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import net.lobby_simulator_companion.loop.domain.stats.MatchNetworkStats;
+
+import java.util.Arrays;
+
+/**
+ * Passive latency and jitter estimation from the timing of a UDP flow: every packet we send that is not yet
+ * "answered" is paired with the next packet received from the server, and the delay between them is a latency
+ * sample. Nothing is sent by us, so this is only an estimate; it follows the handshake round trip while the server
+ * answers our packets, and is bounded by the server send interval while both sides are streaming.
+ * <p>
+ * Keeps the latest {@value #WINDOW_SIZE} samples for the live percentiles, and a 1 ms histogram of every sample for
+ * the summary of the whole connection. Times are in microseconds. Not thread-safe (meant for the analysis thread).
+ *
+ * @author NickyRamone
+ */
+public class LatencyTracker {
+
+    private static final int WINDOW_SIZE = 128;
+    private static final int HISTOGRAM_MAX_MS = 2000;
+    private static final long NONE = -1;
+
+    @Getter
+    @AllArgsConstructor
+    @ToString
+    public static final class Snapshot {
+        private final int latencyMedian;
+        private final int latencyP95;
+        private final int latencyMax;
+        private final int jitter;
+        private final float packetsInPerSecond;
+        private final float packetsOutPerSecond;
+        private final int samples;
+    }
+
+    private final int[] window = new int[WINDOW_SIZE];
+    private final int[] sorted = new int[WINDOW_SIZE];
+    private final int[] histogram = new int[HISTOGRAM_MAX_MS + 1];
+    private int windowSize;
+    private int windowPos;
+    private int sampleCount;
+    private int maxSample;
+    private long pendingRequestTime = NONE;
+    private int lastSample = -1;
+    private double jitter;
+    private double jitterSum;
+    private long packetsIn;
+    private long packetsOut;
+    private long rateStartTime = NONE;
+    private long rateStartPacketsIn;
+    private long rateStartPacketsOut;
+
+
+    public void reset() {
+        Arrays.fill(histogram, 0);
+        windowSize = 0;
+        windowPos = 0;
+        sampleCount = 0;
+        maxSample = 0;
+        pendingRequestTime = NONE;
+        lastSample = -1;
+        jitter = 0;
+        jitterSum = 0;
+        packetsIn = 0;
+        packetsOut = 0;
+        rateStartTime = NONE;
+    }
+
+    /**
+     * A packet was sent to the server.
+     */
+    public void onOutgoing(long timeMicros) {
+        packetsOut++;
+        if (pendingRequestTime == NONE) {
+            pendingRequestTime = timeMicros;
+        }
+    }
+
+    /**
+     * A packet was received from the server.
+     */
+    public void onIncoming(long timeMicros) {
+        packetsIn++;
+        if (pendingRequestTime != NONE && timeMicros >= pendingRequestTime) {
+            addSample((int) Math.min(Integer.MAX_VALUE, timeMicros - pendingRequestTime));
+        }
+        pendingRequestTime = NONE;
+    }
+
+    private void addSample(int sample) {
+        window[windowPos] = sample;
+        windowPos = (windowPos + 1) % WINDOW_SIZE;
+        windowSize = Math.min(windowSize + 1, WINDOW_SIZE);
+        histogram[Math.min(sample / 1000, HISTOGRAM_MAX_MS)]++;
+        maxSample = Math.max(maxSample, sample);
+
+        if (lastSample >= 0) {
+            // RFC 3550 style: exponentially smoothed mean deviation, with a gain of 1/16
+            jitter += (Math.abs(sample - lastSample) - jitter) / 16;
+            jitterSum += jitter;
+        }
+        lastSample = sample;
+        sampleCount++;
+    }
+
+    /**
+     * Values of the latest samples (in milliseconds), and packet rates since the previous snapshot.
+     */
+    public Snapshot snapshot(long timeMicros) {
+        float elapsedSeconds = rateStartTime == NONE ? 0 : (timeMicros - rateStartTime) / 1_000_000f;
+        float inRate = elapsedSeconds > 0 ? (packetsIn - rateStartPacketsIn) / elapsedSeconds : 0;
+        float outRate = elapsedSeconds > 0 ? (packetsOut - rateStartPacketsOut) / elapsedSeconds : 0;
+        rateStartTime = timeMicros;
+        rateStartPacketsIn = packetsIn;
+        rateStartPacketsOut = packetsOut;
+
+        if (windowSize == 0) {
+            return new Snapshot(0, 0, 0, 0, inRate, outRate, 0);
+        }
+
+        System.arraycopy(window, 0, sorted, 0, windowSize);
+        Arrays.sort(sorted, 0, windowSize);
+
+        return new Snapshot(
+                toMillis(sorted[percentileIndex(windowSize, 50)]),
+                toMillis(sorted[percentileIndex(windowSize, 95)]),
+                toMillis(sorted[windowSize - 1]),
+                toMillis((int) jitter),
+                inRate, outRate, windowSize);
+    }
+
+    /**
+     * Summary of every sample since the last reset, or null if there is none.
+     */
+    public MatchNetworkStats summarize() {
+        if (sampleCount == 0) {
+            return null;
+        }
+
+        return MatchNetworkStats.builder()
+                .latencyMedian(histogramPercentile(50))
+                .latencyP95(histogramPercentile(95))
+                .latencyMax(toMillis(maxSample))
+                .jitter(sampleCount > 1 ? toMillis((int) (jitterSum / (sampleCount - 1))) : 0)
+                .latencySamples(sampleCount)
+                .build();
+    }
+
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+
+    private int histogramPercentile(int percentile) {
+        int rank = percentileIndex(sampleCount, percentile) + 1;
+        int count = 0;
+
+        for (int ms = 0; ms < histogram.length; ms++) {
+            count += histogram[ms];
+            if (count >= rank) {
+                return ms;
+            }
+        }
+
+        return HISTOGRAM_MAX_MS;
+    }
+
+    /**
+     * Nearest-rank percentile.
+     */
+    private static int percentileIndex(int count, int percentile) {
+        return Math.max(0, (int) Math.ceil(count * percentile / 100.0) - 1);
+    }
+
+    private static int toMillis(int micros) {
+        return Math.round(micros / 1000f);
+    }
+
+}
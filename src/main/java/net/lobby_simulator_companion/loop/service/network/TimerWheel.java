@@ -0,0 +1,191 @@
+package net.lobby_simulator_companion.loop.service.network;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hashed timer wheel: schedules timeouts in slots of a fixed duration (a tick), so that scheduling, cancelling and
+ * expiring them are O(1) no matter how many are pending.
+ * <p>
+ * Deadlines can be pushed back with {@link #reschedule} for the cost of a field write: the timeout stays in its slot
+ * and, when the slot comes up, it is moved to the slot of its new deadline instead of expiring. This suits timeouts
+ * that are extended on every packet.
+ * <p>
+ * Time is whatever monotonic clock the caller uses (in milliseconds, not negative); the wheel only moves forward
+ * when {@link #advance} is called, and timeouts expire within a tick of their deadline. Not thread-safe.
+ *
+ * @author NickyRamone
+ */
+public class TimerWheel {
+
+    private static final int NOT_SCHEDULED = -1;
+    private static final int EXPIRING = -2;
+
+    public static final class Timeout {
+        private final Runnable action;
+        private long deadline;
+        private Timeout prev;
+        private Timeout next;
+        private int slot = NOT_SCHEDULED;
+
+        private Timeout(Runnable action) {
+            this.action = action;
+        }
+
+        public long getDeadline() {
+            return deadline;
+        }
+
+        public boolean isPending() {
+            return slot >= 0;
+        }
+    }
+
+    private final long tickMillis;
+    private final int mask;
+    private final Timeout[] slots;
+    private final List<Timeout> expiring = new ArrayList<>();
+    private long currentTick;
+    private int size;
+
+
+    /**
+     * @param slotCount  Number of slots (rounded up to a power of two). The wheel works best when most timeouts are
+     *                   shorter than a full turn (slot count times tick).
+     * @param tickMillis Duration of each slot.
+     */
+    public TimerWheel(int slotCount, long tickMillis) {
+        int count = slotCount <= 1 ? 1 : Integer.highestOneBit(slotCount - 1) << 1;
+        this.tickMillis = tickMillis;
+        this.mask = count - 1;
+        this.slots = new Timeout[count];
+    }
+
+
+    /**
+     * @param action Run when the timeout expires (from {@link #advance}).
+     */
+    public Timeout schedule(long deadline, Runnable action) {
+        Timeout timeout = new Timeout(action);
+        timeout.deadline = deadline;
+        link(timeout);
+
+        return timeout;
+    }
+
+    /**
+     * Changes the deadline of a timeout, scheduling it again if it already expired or was cancelled.
+     */
+    public void reschedule(Timeout timeout, long deadline) {
+        long previousDeadline = timeout.deadline;
+        timeout.deadline = deadline;
+
+        if (!timeout.isPending()) {
+            // (if it was about to expire, it no longer does)
+            link(timeout);
+        } else if (deadline < previousDeadline) {
+            // it might be in a slot that comes up too late
+            unlink(timeout);
+            link(timeout);
+        }
+    }
+
+    public void cancel(Timeout timeout) {
+        if (timeout.isPending()) {
+            unlink(timeout);
+        } else {
+            timeout.slot = NOT_SCHEDULED;
+        }
+    }
+
+    /**
+     * Moves the wheel to the given time, running the actions of the timeouts whose deadline is not after it.
+     * Actions may schedule or cancel timeouts (including the ones expiring in the same call).
+     *
+     * @return Number of timeouts that expired.
+     */
+    public int advance(long time) {
+        long targetTick = time / tickMillis;
+        if (targetTick <= currentTick) {
+            return 0;
+        }
+
+        // after a full turn, every slot has been visited
+        long firstTick = Math.max(currentTick + 1, targetTick - mask);
+        currentTick = targetTick;
+
+        for (long tick = firstTick; tick <= targetTick; tick++) {
+            int slot = (int) (tick & mask);
+            Timeout timeout = slots[slot];
+            slots[slot] = null;
+
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                timeout.prev = null;
+                timeout.next = null;
+                timeout.slot = NOT_SCHEDULED;
+                size--;
+
+                if (timeout.deadline <= time) {
+                    timeout.slot = EXPIRING;
+                    expiring.add(timeout);
+                } else {
+                    link(timeout);
+                }
+                timeout = next;
+            }
+        }
+
+        // actions run once the wheel is consistent
+        int expired = 0;
+        for (Timeout timeout : expiring) {
+            if (timeout.slot == EXPIRING) {
+                timeout.slot = NOT_SCHEDULED;
+                expired++;
+                timeout.action.run();
+            }
+        }
+        expiring.clear();
+
+        return expired;
+    }
+
+    /**
+     * @return Number of pending timeouts.
+     */
+    public int size() {
+        return size;
+    }
+
+
+    private void link(Timeout timeout) {
+        // a slot is visited once its tick has started, so the deadline must not be before it
+        long tick = Math.max(currentTick + 1, (timeout.deadline + tickMillis - 1) / tickMillis);
+        int slot = (int) (tick & mask);
+
+        timeout.slot = slot;
+        timeout.prev = null;
+        timeout.next = slots[slot];
+        if (slots[slot] != null) {
+            slots[slot].prev = timeout;
+        }
+        slots[slot] = timeout;
+        size++;
+    }
+
+    private void unlink(Timeout timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            slots[timeout.slot] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.slot = NOT_SCHEDULED;
+        size--;
+    }
+
+}
@@ -0,0 +1,157 @@
+package net.lobby_simulator_companion.loop.service.network;
+
+import net.lobby_simulator_companion.loop.domain.stats.MatchNetworkStats;
+
+import java.util.Arrays;
+
+/**
+ * Traffic of the server flow: packets and bytes in each direction, and the gaps between the packets received from
+ * the server.
+ * <p>
+ * While a match runs, the server sends packets at a steady rate, so the typical gap (the median) tells the rate, and
+ * a gap a few times longer points to packets that were lost in between. This is only an estimate: the server may
+ * also go quiet on purpose (for example, while loading), and loss is not estimated at all when the server sends
+ * less than a few packets per second.
+ * <p>
+ * Updated on every packet, so everything is kept in primitive counters; gaps are counted by millisecond.
+ * Times are in microseconds. Not thread-safe (meant for the analysis thread).
+ *
+ * @author NickyRamone
+ */
+public class TrafficTracker {
+
+    /**
+     * Gaps are counted by millisecond up to this length; longer ones share the last bucket.
+     */
+    private static final int MAX_GAP_MS = 1000;
+    /**
+     * Loss is estimated only if the typical gap is this short, so that the longest gaps can be told apart.
+     */
+    private static final int MAX_NOMINAL_GAP_MS = MAX_GAP_MS / 3;
+    private static final long NONE = -1;
+
+    private final int[] gaps = new int[MAX_GAP_MS + 1];
+    private long longGapsMs;
+    private int gapCount;
+    private int longestGapMs;
+    private long packetsIn;
+    private long packetsOut;
+    private long bytesIn;
+    private long bytesOut;
+    private long lastIncomingTime = NONE;
+
+
+    public void onIncoming(long timeMicros, int bytes) {
+        packetsIn++;
+        bytesIn += bytes;
+
+        if (lastIncomingTime != NONE && timeMicros >= lastIncomingTime) {
+            long gapMs = (timeMicros - lastIncomingTime) / 1000;
+            if (gapMs < MAX_GAP_MS) {
+                gaps[(int) gapMs]++;
+            } else {
+                gaps[MAX_GAP_MS]++;
+                longGapsMs += gapMs;
+            }
+            gapCount++;
+            longestGapMs = (int) Math.max(longestGapMs, Math.min(gapMs, Integer.MAX_VALUE));
+        }
+        lastIncomingTime = timeMicros;
+    }
+
+    public void onOutgoing(long timeMicros, int bytes) {
+        packetsOut++;
+        bytesOut += bytes;
+    }
+
+    /**
+     * Fills in the traffic values of the given stats.
+     */
+    public void summarizeInto(MatchNetworkStats stats) {
+        stats.setPacketsIn(toInt(packetsIn));
+        stats.setPacketsOut(toInt(packetsOut));
+        stats.setBytesIn(toInt(bytesIn));
+        stats.setBytesOut(toInt(bytesOut));
+        stats.setLongestSilence(longestGapMs);
+        stats.setGapHistogram(gapHistogram());
+
+        int nominalGap = nominalGap();
+        int estimatedLoss = 0;
+        int lossBursts = 0;
+
+        if (nominalGap > 0 && nominalGap <= MAX_NOMINAL_GAP_MS) {
+            for (int gap = 0; gap < MAX_GAP_MS; gap++) {
+                int missing = missingPackets(gap, nominalGap);
+                estimatedLoss += gaps[gap] * missing;
+                lossBursts += missing > 1 ? gaps[gap] : 0;
+            }
+            // gaps beyond the counted range are longer than three typical gaps, so they are all bursts
+            estimatedLoss += Math.max(0, (int) Math.min(Integer.MAX_VALUE,
+                    (longGapsMs + nominalGap / 2) / nominalGap - gaps[MAX_GAP_MS]));
+            lossBursts += gaps[MAX_GAP_MS];
+        }
+        stats.setEstimatedLoss(estimatedLoss);
+        stats.setLossBursts(lossBursts);
+    }
+
+    public void reset() {
+        Arrays.fill(gaps, 0);
+        longGapsMs = 0;
+        gapCount = 0;
+        longestGapMs = 0;
+        packetsIn = 0;
+        packetsOut = 0;
+        bytesIn = 0;
+        bytesOut = 0;
+        lastIncomingTime = NONE;
+    }
+
+
+    /**
+     * @return Median gap, in milliseconds (at least 1), or 0 if there are no gaps.
+     */
+    private int nominalGap() {
+        if (gapCount == 0) {
+            return 0;
+        }
+
+        int rank = (gapCount + 1) / 2;
+        int count = 0;
+        for (int gap = 0; gap <= MAX_GAP_MS; gap++) {
+            count += gaps[gap];
+            if (count >= rank) {
+                return Math.max(1, gap);
+            }
+        }
+
+        return MAX_GAP_MS;
+    }
+
+    /**
+     * A gap about k times the typical one means that k - 1 packets are missing (so gaps up to about 1.5 times the
+     * typical one are just jitter).
+     */
+    private static int missingPackets(int gap, int nominalGap) {
+        return Math.max(0, (gap + nominalGap / 2) / nominalGap - 1);
+    }
+
+    private int[] gapHistogram() {
+        int[] limits = MatchNetworkStats.GAP_HISTOGRAM_LIMITS;
+        int[] histogram = new int[limits.length + 1];
+        int bucket = 0;
+
+        for (int gap = 0; gap <= MAX_GAP_MS; gap++) {
+            while (bucket < limits.length && gap > limits[bucket]) {
+                bucket++;
+            }
+            histogram[bucket] += gaps[gap];
+        }
+
+        return histogram;
+    }
+
+    private static int toInt(long value) {
+        return (int) Math.min(value, Integer.MAX_VALUE);
+    }
+
+}
@@ -0,0 +1,176 @@
+package net.lobby_simulator_companion.loop.service.network;
+
+import lombok.Getter;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * IPv4/UDP fields decoded in place from a captured link-layer frame.
+ * <p>
+ * Meant to be reused for every captured frame: {@link #decode} only reads offsets from the frame and stores
+ * primitives, so nothing is allocated per packet. Addresses are kept as ints (network byte order, as in
+ * {@link #toInt(InetAddress)}).
+ *
+ * @author NickyRamone
+ */
+@Getter
+public final class UdpDatagram {
+
+    /**
+     * Data link types (https://www.tcpdump.org/linktypes.html).
+     */
+    public static final int LINK_TYPE_NULL = 0;
+    public static final int LINK_TYPE_ETHERNET = 1;
+    public static final int LINK_TYPE_RAW = 101;
+    public static final int LINK_TYPE_LOOP = 108;
+    public static final int LINK_TYPE_LINUX_SLL = 113;
+    /**
+     * Some platforms use the DLT value instead of the link type for raw IP captures.
+     */
+    private static final int DLT_RAW_BSD = 12;
+    private static final int DLT_RAW_OPENBSD = 14;
+
+    private static final int ETHER_TYPE_IPV4 = 0x0800;
+    private static final int ETHER_TYPE_VLAN = 0x8100;
+    private static final int IP_PROTOCOL_UDP = 17;
+    private static final int UDP_HEADER_LEN = 8;
+
+    private byte[] frame;
+    private int frameLength;
+    /**
+     * Capture time, in microseconds since the epoch.
+     */
+    private long timestampMicros;
+    private int ipLength;
+    private int srcAddr;
+    private int dstAddr;
+    private int srcPort;
+    private int dstPort;
+    /**
+     * Offset of the UDP payload within the frame.
+     */
+    private int payloadOffset;
+    /**
+     * Length of the UDP payload as stated in the header (the frame may have been truncated to the capture length).
+     */
+    private int payloadLength;
+
+
+    /**
+     * @return True if the frame holds an IPv4/UDP datagram (in which case the fields are updated).
+     */
+    public boolean decode(int linkType, byte[] frame, int frameLength, long timestampMicros) {
+        int ipOffset = ipOffset(linkType, frame, frameLength);
+
+        if (ipOffset < 0 || frameLength < ipOffset + 20 || (frame[ipOffset] & 0xf0) != 0x40) {
+            return false;
+        }
+
+        int ipHeaderLen = (frame[ipOffset] & 0x0f) * 4;
+        int udpOffset = ipOffset + ipHeaderLen;
+        int fragmentOffset = readShort(frame, ipOffset + 6) & 0x1fff;
+
+        if (frame[ipOffset + 9] != IP_PROTOCOL_UDP || fragmentOffset != 0 || ipHeaderLen < 20
+                || frameLength < udpOffset + UDP_HEADER_LEN) {
+            return false;
+        }
+
+        this.frame = frame;
+        this.frameLength = frameLength;
+        this.timestampMicros = timestampMicros;
+        ipLength = readShort(frame, ipOffset + 2);
+        srcAddr = readInt(frame, ipOffset + 12);
+        dstAddr = readInt(frame, ipOffset + 16);
+        srcPort = readShort(frame, udpOffset);
+        dstPort = readShort(frame, udpOffset + 2);
+        payloadOffset = udpOffset + UDP_HEADER_LEN;
+        payloadLength = Math.max(0, readShort(frame, udpOffset + 4) - UDP_HEADER_LEN);
+
+        return true;
+    }
+
+    /**
+     * @return Byte of the UDP payload at the given index, or -1 if it was not captured.
+     */
+    public int payloadByte(int index) {
+        int offset = payloadOffset + index;
+
+        return index < payloadLength && offset < frameLength ? frame[offset] & 0xff : -1;
+    }
+
+    /**
+     * @return Capture time, in milliseconds since the epoch.
+     */
+    public long getTimestamp() {
+        return timestampMicros / 1000;
+    }
+
+    public InetAddress getSrcInetAddress() {
+        return toInetAddress(srcAddr);
+    }
+
+    public InetAddress getDstInetAddress() {
+        return toInetAddress(dstAddr);
+    }
+
+
+    private static int ipOffset(int linkType, byte[] frame, int frameLength) {
+        switch (linkType) {
+            case LINK_TYPE_ETHERNET:
+                if (frameLength < 14) {
+                    return -1;
+                }
+                int etherType = readShort(frame, 12);
+                if (etherType == ETHER_TYPE_VLAN) {
+                    return frameLength >= 18 && readShort(frame, 16) == ETHER_TYPE_IPV4 ? 18 : -1;
+                }
+                return etherType == ETHER_TYPE_IPV4 ? 14 : -1;
+
+            case LINK_TYPE_NULL:
+            case LINK_TYPE_LOOP:
+                return 4;
+
+            case LINK_TYPE_RAW:
+            case DLT_RAW_BSD:
+            case DLT_RAW_OPENBSD:
+                return 0;
+
+            case LINK_TYPE_LINUX_SLL:
+                return frameLength >= 16 && readShort(frame, 14) == ETHER_TYPE_IPV4 ? 16 : -1;
+
+            default:
+                return -1;
+        }
+    }
+
+    private static int readShort(byte[] data, int offset) {
+        return ((data[offset] & 0xff) << 8) | (data[offset + 1] & 0xff);
+    }
+
+    private static int readInt(byte[] data, int offset) {
+        return ((data[offset] & 0xff) << 24) | ((data[offset + 1] & 0xff) << 16)
+                | ((data[offset + 2] & 0xff) << 8) | (data[offset + 3] & 0xff);
+    }
+
+
+    public static int toInt(InetAddress address) {
+        byte[] bytes = address.getAddress();
+        if (bytes.length != 4) {
+            throw new IllegalArgumentException("Not an IPv4 address: " + address);
+        }
+
+        return readInt(bytes, 0);
+    }
+
+    public static InetAddress toInetAddress(int address) {
+        try {
+            return InetAddress.getByAddress(new byte[]{
+                    (byte) (address >>> 24), (byte) (address >>> 16), (byte) (address >>> 8), (byte) address});
+        } catch (UnknownHostException e) {
+            // cannot happen with 4 bytes
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
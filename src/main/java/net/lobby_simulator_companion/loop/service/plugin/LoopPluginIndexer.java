@@ -0,0 +1,77 @@
+package net.lobby_simulator_companion.loop.service.plugin;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Annotation processor that writes the {@link PluginIndex} of the {@link LoopPlugin} classes being compiled.
+ * <p>
+ * It is not registered as a service (it would run when compiling Loop itself), so plugin builds have to name it
+ * explicitly; for example, with Maven:
+ * <pre>
+ * &lt;annotationProcessors&gt;
+ *     &lt;annotationProcessor&gt;net.lobby_simulator_companion.loop.service.plugin.LoopPluginIndexer&lt;/annotationProcessor&gt;
+ * &lt;/annotationProcessors&gt;
+ * </pre>
+ *
+ * @author NickyRamone
+ */
+@SupportedAnnotationTypes("net.lobby_simulator_companion.loop.service.plugin.LoopPlugin")
+public class LoopPluginIndexer extends AbstractProcessor {
+
+    private final Set<String> pluginClasses = new TreeSet<>();
+
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(LoopPlugin.class)) {
+            if (element.getKind() == ElementKind.CLASS) {
+                TypeElement type = (TypeElement) element;
+                pluginClasses.add(processingEnv.getElementUtils().getBinaryName(type).toString());
+            }
+        }
+
+        if (roundEnv.processingOver() && !pluginClasses.isEmpty()) {
+            writeIndex();
+        }
+
+        return false;
+    }
+
+    private void writeIndex() {
+        try {
+            FileObject index = processingEnv.getFiler()
+                    .createResource(StandardLocation.CLASS_OUTPUT, "", PluginIndex.LOCATION);
+
+            try (Writer writer = new OutputStreamWriter(index.openOutputStream(), StandardCharsets.UTF_8)) {
+                for (String pluginClass : pluginClasses) {
+                    writer.write(pluginClass);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Failed to write plugin index: " + e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,64 @@
+package net.lobby_simulator_companion.loop.service.plugin;
+
+import lombok.experimental.UtilityClass;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Index of the {@link LoopPlugin} classes contained in a plugin, so that they can be found without scanning
+ * every class.
+ * <p>
+ * The index is a UTF-8 text resource at {@link #LOCATION} with one binary class name per line; blank lines and
+ * lines starting with '#' are ignored. Plugin builds generate it with {@link LoopPluginIndexer}.
+ *
+ * @author NickyRamone
+ */
+@UtilityClass
+public class PluginIndex {
+
+    public static final String LOCATION = "META-INF/loop-plugins";
+
+
+    /**
+     * @param pluginRoot URL of the plugin root (a classes directory or a "jar:...!/" URL).
+     * @return The indexed class names, or an empty list if the plugin has no index.
+     */
+    public List<String> read(URL pluginRoot) throws IOException {
+        URLConnection connection = new URL(pluginRoot, LOCATION).openConnection();
+        // do not keep the plugin jar open (and locked, on Windows) once we are done with the index
+        connection.setUseCaches(false);
+
+        try (InputStream input = connection.getInputStream()) {
+            return parse(new InputStreamReader(input, StandardCharsets.UTF_8));
+        } catch (FileNotFoundException e) {
+            return Collections.emptyList();
+        }
+    }
+
+    List<String> parse(Reader reader) throws IOException {
+        List<String> classNames = new ArrayList<>();
+        BufferedReader bufferedReader = new BufferedReader(reader);
+        String line;
+
+        while ((line = bufferedReader.readLine()) != null) {
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                classNames.add(line);
+            }
+        }
+
+        return classNames;
+    }
+
+}
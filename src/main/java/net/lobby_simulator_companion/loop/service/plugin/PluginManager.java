@@ -3,40 +3,42 @@ package net.lobby_simulator_companion.loop.service.plugin;
 import lombok.extern.slf4j.Slf4j;
 import net.lobby_simulator_companion.loop.config.AppProperties;
 import org.apache.commons.lang3.StringUtils;
-import org.reflections.Reflections;
-import org.reflections.scanners.SubTypesScanner;
-import org.reflections.scanners.TypeAnnotationsScanner;
-import org.reflections.util.ConfigurationBuilder;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 
 /**
+ * Finds the plugin through its {@link PluginIndex}, so only the indexed classes are loaded.
+ * The plugin is not opened until {@link #searchPlugin()} is called.
+ *
  * @author NickyRamone
  */
 @Slf4j
 public class PluginManager {
 
     private final AppProperties appProperties;
-    private final Reflections reflections;
     private Object pluginInstance;
 
 
-    public PluginManager(AppProperties appProperties) throws MalformedURLException {
+    public PluginManager(AppProperties appProperties) {
         this.appProperties = appProperties;
-        this.reflections = buildReflections(appProperties);
     }
 
 
     public Optional<Class<?>> searchPlugin() {
         try {
-            return searchPlugin(reflections);
+            Optional<URL> pluginClasspathUrl = getPluginClasspathUrl(appProperties);
+
+            return pluginClasspathUrl.isPresent() ? searchPlugin(pluginClasspathUrl.get()) : Optional.empty();
         } catch (Throwable e) {
             log.error("Failed to search for plugin.", e);
             return Optional.empty();
@@ -52,26 +54,6 @@ public class PluginManager {
         }
     }
 
-    private Reflections buildReflections(AppProperties appProperties) throws MalformedURLException {
-        Optional<URL> pluginClasspathUrl = getPluginClasspathUrl(appProperties);
-
-        return pluginClasspathUrl.map(
-                classpathUrl -> new URLClassLoader(
-                        new URL[]{classpathUrl},
-                        PluginManager.class.getClassLoader()
-                ))
-                .map(classLoader -> new Reflections(new ConfigurationBuilder()
-                        .setUrls(classLoader.getURLs())
-                        .setScanners(
-                                new TypeAnnotationsScanner(),
-                                new SubTypesScanner()
-                        )
-                        .addClassLoader(classLoader)
-                ))
-                .orElse(null);
-    }
-
-
     private Optional<URL> getPluginClasspathUrl(AppProperties appProperties) throws MalformedURLException {
         String pluginClasspath = System.getProperty("plugin.classpath");
         boolean pluginDev = appProperties.getBoolean("plugin.development");
@@ -116,15 +98,28 @@ public class PluginManager {
     }
 
 
-    private Optional<Class<?>> searchPlugin(Reflections reflections) {
-        if (reflections == null) {
+    private Optional<Class<?>> searchPlugin(URL pluginRoot) throws IOException {
+        List<String> indexedClasses = PluginIndex.read(pluginRoot);
+
+        if (indexedClasses.isEmpty()) {
+            log.warn("Plugin at {} has no plugin index ({}). Ignoring it.", pluginRoot, PluginIndex.LOCATION);
             return Optional.empty();
         }
 
-        return reflections.getTypesAnnotatedWith(LoopPlugin.class).stream()
+        ClassLoader classLoader = new URLClassLoader(new URL[]{pluginRoot}, PluginManager.class.getClassLoader());
+
+        return indexedClasses.stream()
+                .<Class<?>>map(className -> loadClass(className, classLoader))
+                .filter(Objects::nonNull)
                 .filter(clazz -> {
                     LoopPlugin plugin = clazz.getAnnotation(LoopPlugin.class);
 
+                    if (plugin == null) {
+                        log.warn("Indexed plugin class is not annotated with @{}: {}",
+                                LoopPlugin.class.getSimpleName(), clazz.getName());
+                        return false;
+                    }
+
                     try {
                         UUID.fromString(plugin.id());
                         return true;
@@ -136,4 +131,13 @@ public class PluginManager {
                 .findFirst();
     }
 
+    private Class<?> loadClass(String className, ClassLoader classLoader) {
+        try {
+            return Class.forName(className, false, classLoader);
+        } catch (ClassNotFoundException | LinkageError e) {
+            log.warn("Failed to load indexed plugin class: {}", className, e);
+            return null;
+        }
+    }
+
 }
@@ -6,6 +6,8 @@ import net.lobby_simulator_companion.loop.config.Settings;
 import net.lobby_simulator_companion.loop.domain.Killer;
 import net.lobby_simulator_companion.loop.domain.RealmMap;
 import net.lobby_simulator_companion.loop.domain.stats.AggregateStats;
+import net.lobby_simulator_companion.loop.domain.stats.DurationHistogram;
+import net.lobby_simulator_companion.loop.domain.stats.RegionNetworkStats;
 import net.lobby_simulator_companion.loop.service.GameEvent;
 import net.lobby_simulator_companion.loop.service.GameStateManager;
 import net.lobby_simulator_companion.loop.service.StatsUtils;
@@ -13,6 +15,7 @@ import net.lobby_simulator_companion.loop.ui.common.ComponentUtils;
 import net.lobby_simulator_companion.loop.ui.common.NameValueInfoPanel;
 import net.lobby_simulator_companion.loop.ui.common.ResourceFactory;
 import net.lobby_simulator_companion.loop.ui.common.UiConstants;
+import net.lobby_simulator_companion.loop.util.TimeUtil;
 import org.apache.commons.lang3.StringUtils;
 
 import javax.swing.*;
@@ -20,9 +23,11 @@ import java.awt.*;
 import java.awt.datatransfer.StringSelection;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import static net.lobby_simulator_companion.loop.ui.common.UiConstants.WIDTH__INFO_PANEL__NAME_COLUMN;
@@ -44,6 +49,12 @@ public abstract class AbstractAggregateStatsPanel<G extends Enum<G>, A extends A
 //        AVG_MATCH_DURATION("Average match duration"),
 //        AVG_QUEUE_TIME("Average queue time"),
 //        AVG_MATCH_WAIT_TIME("Average match wait time"),
+        MATCH_DURATION_PERCENTILES("Match duration - p50/p90/p99",
+                "50% / 90% / 99% of the matches lasted up to this long"),
+        QUEUE_TIME_PERCENTILES("Queue time - p50/p90/p99",
+                "50% / 90% / 99% of the times, a lobby was found within this time"),
+        WAIT_TIME_PERCENTILES("Wait time - p50/p90/p99",
+                "50% / 90% / 99% of the times, the match started within this time since you started searching"),
         ESCAPES("Escapes"),
         ESCAPES_IN_A_ROW("Escapes in a row - streak"),
         MAX_ESCAPES_IN_A_ROW("Escapes in a row - record"),
@@ -83,12 +94,17 @@ public abstract class AbstractAggregateStatsPanel<G extends Enum<G>, A extends A
     }
 
     private static final String MSG__NOT_AVAILABLE = "--";
+    private static final String MSG__NO_REGIONS = "No data yet";
+    private static final String TOOLTIP__REGION_NETWORK =
+            "average latency ± jitter / estimated packet loss / loss bursts per match (number of matches)";
+    private static final int ROW_HEIGHT = 22;
 
 
     private final Settings settings;
     private final G[] statGroups;
 
     private NameValueInfoPanel statsContainer;
+    private NameValueInfoPanel regionsContainer;
     private JLabel periodLabel;
     private JLabel statsPeriodTitle;
     private G currentStatGroup;
@@ -157,17 +173,29 @@ public abstract class AbstractAggregateStatsPanel<G extends Enum<G>, A extends A
         freqTitleContainer.add(copyToClipboardButton);
 
         statsContainer = new NameValueInfoPanel();
-        statsContainer.setSizes(WIDTH__INFO_PANEL__NAME_COLUMN, WIDTH__INFO_PANEL__VALUE_COLUMN, 330);
+        statsContainer.setSizes(WIDTH__INFO_PANEL__NAME_COLUMN, WIDTH__INFO_PANEL__VALUE_COLUMN, 396);
 
         for (StatType statType : StatType.values()) {
             statsContainer.addField(statType, statType.getTooltip());
         }
 
+        JLabel regionsTitle = new JLabel("Network by server region");
+        regionsTitle.setForeground(Color.MAGENTA);
+        regionsTitle.setFont(ResourceFactory.getRobotoFont());
+
+        JPanel regionsTitleContainer = new JPanel();
+        regionsTitleContainer.setBackground(UiConstants.COLOR__INFO_PANEL__BG);
+        regionsTitleContainer.add(regionsTitle);
+
+        regionsContainer = new NameValueInfoPanel();
+
         setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
         setBackground(UiConstants.COLOR__INFO_PANEL__BG);
         add(periodContainer);
         add(freqTitleContainer);
         add(statsContainer);
+        add(regionsTitleContainer);
+        add(regionsContainer);
     }
 
     private G getPreviousStatPeriod() {
@@ -194,6 +222,9 @@ public abstract class AbstractAggregateStatsPanel<G extends Enum<G>, A extends A
 //        setStatValue(StatType.AVG_MATCH_DURATION, TimeUtil.formatTimeUpToYears(stats.getAverageSecondsPerMatch()));
 //        setStatValue(StatType.AVG_QUEUE_TIME, TimeUtil.formatTimeUpToYears(stats.getAverageSecondsInQueue()));
 //        setStatValue(StatType.AVG_MATCH_WAIT_TIME, TimeUtil.formatTimeUpToYears(stats.getAverageSecondsWaitedPerMatch()));
+        setStatValue(StatType.MATCH_DURATION_PERCENTILES, formatPercentiles(stats.getMatchDurations()));
+        setStatValue(StatType.QUEUE_TIME_PERCENTILES, formatPercentiles(stats.getQueueTimes()));
+        setStatValue(StatType.WAIT_TIME_PERCENTILES, formatPercentiles(stats.getWaitTimes()));
         setStatValue(StatType.ESCAPES, String.valueOf(stats.getEscapes()));
         setStatValue(StatType.ESCAPES_IN_A_ROW, String.valueOf(stats.getEscapesInARow()));
         setStatValue(StatType.MAX_ESCAPES_IN_A_ROW, String.valueOf(stats.getMaxEscapesInARow()));
@@ -214,6 +245,8 @@ public abstract class AbstractAggregateStatsPanel<G extends Enum<G>, A extends A
                 MSG__NOT_AVAILABLE :
                 String.format("%.1f %%", stats.getKillRate()));
 
+        refreshRegionNetworkStats(stats.getRegionNetworkStats());
+
 //        float mapVariability = calculateMapsDistro(stats);
 //        setStatValue(StatType.MAP_RANDOMNESS, stats.getMatchesPlayed() == 0 ?
 //                MSG__NOT_AVAILABLE :
@@ -225,6 +258,21 @@ public abstract class AbstractAggregateStatsPanel<G extends Enum<G>, A extends A
 //                String.format("%.1f %% (%s)", killerVariability * 100, getVariabilityLabel(killerVariability)));
     }
 
+    private void refreshRegionNetworkStats(Map<String, RegionNetworkStats> byRegion) {
+        new ArrayList<>(regionsContainer.entrySet()).forEach(e -> regionsContainer.remove(e.getKey()));
+        byRegion.forEach((region, regionStats) -> {
+            regionsContainer.addField(region, TOOLTIP__REGION_NETWORK);
+            regionsContainer.getRight(region).setText(formatNetworkStats(regionStats));
+        });
+        if (byRegion.isEmpty()) {
+            regionsContainer.addField(MSG__NO_REGIONS);
+        }
+        regionsContainer.setSizes(WIDTH__INFO_PANEL__NAME_COLUMN, WIDTH__INFO_PANEL__VALUE_COLUMN,
+                Math.max(byRegion.size(), 1) * ROW_HEIGHT);
+
+        revalidate();
+    }
+
     protected abstract A getStatsForGroup(G currentStatGroup);
 
 
@@ -235,6 +283,25 @@ public abstract class AbstractAggregateStatsPanel<G extends Enum<G>, A extends A
         statsContainer.getRight(statType, JLabel.class).setText(value);
     }
 
+    private String formatPercentiles(DurationHistogram histogram) {
+        if (histogram == null || histogram.isEmpty()) {
+            return MSG__NOT_AVAILABLE;
+        }
+
+        return Arrays.stream(new double[]{50, 90, 99})
+                .mapToObj(p -> TimeUtil.formatTimeUpToHours(histogram.getValueAtPercentile(p)))
+                .collect(Collectors.joining(" / "));
+    }
+
+    private String formatNetworkStats(RegionNetworkStats stats) {
+        String latency = stats.getMatchesWithLatency() == 0 ?
+                MSG__NOT_AVAILABLE :
+                String.format("%d ± %d ms", stats.getAverageLatency(), stats.getAverageJitter());
+
+        return String.format("%s / %.1f %% / %.1f (%d)", latency, stats.getLossRate(), stats.getLossBurstsPerMatch(),
+                stats.getMatches());
+    }
+
     private float calculateMapsDistro(AggregateStats stats) {
         Collection<Integer> mapsDistro = Arrays.stream(RealmMap.values())
                 .filter(RealmMap::isIdentified)
@@ -296,6 +363,12 @@ public abstract class AbstractAggregateStatsPanel<G extends Enum<G>, A extends A
             content.append(((JLabel) e.getValue().getRight()).getText()).append('\n');
         });
 
+        content.append("\nNetwork by server region (").append(TOOLTIP__REGION_NETWORK).append(")\n");
+        regionsContainer.entrySet().forEach(e -> {
+            content.append(e.getKey()).append(": ");
+            content.append(((JLabel) e.getValue().getRight()).getText()).append('\n');
+        });
+
         StringSelection stringSelection = new StringSelection(content.toString());
         Toolkit.getDefaultToolkit().getSystemClipboard().setContents(stringSelection, null);
     }
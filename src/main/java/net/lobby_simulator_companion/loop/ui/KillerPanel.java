@@ -4,7 +4,10 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.lobby_simulator_companion.loop.Factory;
 import net.lobby_simulator_companion.loop.config.Settings;
+import net.lobby_simulator_companion.loop.domain.Killer;
 import net.lobby_simulator_companion.loop.domain.Player;
+import net.lobby_simulator_companion.loop.domain.stats.HeavyHitters;
+import net.lobby_simulator_companion.loop.domain.stats.Match;
 import net.lobby_simulator_companion.loop.service.GameEvent;
 import net.lobby_simulator_companion.loop.service.GameStateManager;
 import net.lobby_simulator_companion.loop.service.LoopDataService;
@@ -29,10 +32,14 @@ import java.awt.event.MouseEvent;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Timer;
 import java.util.TimerTask;
 
@@ -55,6 +62,9 @@ public class KillerPanel extends JPanel {
      */
     private static final int DESCRIPTION_UPDATE_DELAY_MS = 5000;
     private static final int MAX_KILLER_DESCRIPTION_SIZE = 1256;
+    private static final int MAX_RECENT_MATCHES = 10;
+    private static final int NEMESIS_RANKING_SIZE = 10;
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy/MM/dd");
     private static final Font font = ResourceFactory.getRobotoFont();
 
     @RequiredArgsConstructor
@@ -65,6 +75,9 @@ public class KillerPanel extends JPanel {
         TIME_PLAYED_AGAINST("Total time played against:"),
         ESCAPES_AGAINST("Total escapes against:"),
         DEATHS_BY("Times died against:"),
+        RECENT_MATCHES("Recent matches against:"),
+        MOST_PLAYED_KILLER("Most played killer:"),
+        NEMESIS_RANK("Nemesis rank:"),
         NOTES("Your notes:");
 
         private final String description;
@@ -89,6 +102,10 @@ public class KillerPanel extends JPanel {
     private JTextArea userNotesArea;
 
     private Timer userNotesUpdateTimer;
+    /**
+     * Player whose match history was last requested (it is read in the background).
+     */
+    private String matchHistorySteamId64;
 
 
     public KillerPanel(Settings settings, LoopDataService dataService, GameStateManager gameStateManager,
@@ -212,7 +229,7 @@ public class KillerPanel extends JPanel {
         userNotesEditButton.setVisible(false);
 
         statsContainer = new NameValueInfoPanel();
-        statsContainer.setSizes(WIDTH__INFO_PANEL__NAME_COLUMN, WIDTH__INFO_PANEL__VALUE_COLUMN, 170);
+        statsContainer.setSizes(WIDTH__INFO_PANEL__NAME_COLUMN, WIDTH__INFO_PANEL__VALUE_COLUMN, 245);
         statsContainer.addFields(InfoType.class);
         statsContainer.setRight(InfoType.NOTES, userNotesEditButton);
 
@@ -318,6 +335,11 @@ public class KillerPanel extends JPanel {
         statsContainer.getRight(InfoType.ESCAPES_AGAINST).setText(null);
         statsContainer.getRight(InfoType.DEATHS_BY).setText(null);
         statsContainer.getRight(InfoType.TIME_PLAYED_AGAINST).setText(null);
+        statsContainer.getRight(InfoType.RECENT_MATCHES).setText(null);
+        statsContainer.getRight(InfoType.RECENT_MATCHES).setToolTipText(null);
+        statsContainer.getRight(InfoType.MOST_PLAYED_KILLER).setText(null);
+        statsContainer.getRight(InfoType.NEMESIS_RANK).setText(null);
+        matchHistorySteamId64 = null;
 
         userNotesEditButton.setVisible(false);
         userNotesArea.setText("");
@@ -361,6 +383,8 @@ public class KillerPanel extends JPanel {
         statsContainer.getRight(InfoType.DEATHS_BY).setText(String.valueOf(killerPlayer.getDeaths()));
         statsContainer.getRight(InfoType.TIME_PLAYED_AGAINST).setText(TimeUtil.formatTimeUpToYears(killerPlayer.getSecondsPlayed()));
 
+        refreshMatchHistoryOnScreen(killerPlayer);
+        refreshNemesisRankOnScreen(killerPlayer);
         refreshKillerPlayerRatingOnScreen();
 
         userNotesEditButton.setVisible(true);
@@ -373,6 +397,84 @@ public class KillerPanel extends JPanel {
         }
     }
 
+    /**
+     * Shows the outcome of the most recent matches against this player (most recent first; "E" for escaped,
+     * "D" for died, "?" when unknown) and the killer they played the most.
+     * Older matches may have to be read from disk, so the matches are retrieved in the background.
+     */
+    private void refreshMatchHistoryOnScreen(Player killerPlayer) {
+        String steamId64 = killerPlayer.getSteamId64();
+        matchHistorySteamId64 = steamId64;
+
+        new Thread(() -> {
+            List<Match> matches = dataService.getMatchesAgainst(steamId64);
+            invokeLater(() -> {
+                // ignore the result if another player was shown in the meantime
+                if (steamId64.equals(matchHistorySteamId64)) {
+                    refreshMatchHistoryOnScreen(matches);
+                }
+            });
+        }).start();
+    }
+
+    private void refreshMatchHistoryOnScreen(List<Match> matches) {
+        JLabel recentMatchesLabel = statsContainer.getRight(InfoType.RECENT_MATCHES);
+        JLabel mostPlayedKillerLabel = statsContainer.getRight(InfoType.MOST_PLAYED_KILLER);
+
+        if (matches.isEmpty()) {
+            recentMatchesLabel.setText("--");
+            recentMatchesLabel.setToolTipText(null);
+            mostPlayedKillerLabel.setText("--");
+            return;
+        }
+
+        StringBuilder outcomes = new StringBuilder();
+        StringBuilder tooltip = new StringBuilder("<html>");
+        Map<Killer, Integer> killerCount = new EnumMap<>(Killer.class);
+
+        for (int i = matches.size() - 1; i >= 0; i--) {
+            Match match = matches.get(i);
+            if (match.getKiller() != null && match.getKiller().isIdentified()) {
+                killerCount.merge(match.getKiller(), 1, Integer::sum);
+            }
+            if (matches.size() - i > MAX_RECENT_MATCHES) {
+                continue;
+            }
+
+            String outcome = match.escaped() ? "escaped" : match.died() ? "died" : "?";
+            outcomes.append(match.escaped() ? 'E' : match.died() ? 'D' : '?').append(' ');
+            tooltip.append(Optional.ofNullable(match.getMatchStartTime()).map(DATE_FORMATTER::format).orElse("?"))
+                    .append(" - ").append(Optional.ofNullable(match.getKiller()).orElse(Killer.UNIDENTIFIED))
+                    .append(" @ ").append(Optional.ofNullable(match.getRealmMap()).map(Object::toString).orElse("?"))
+                    .append(" - ").append(outcome).append("<br>");
+        }
+
+        recentMatchesLabel.setText(outcomes.toString().trim());
+        recentMatchesLabel.setToolTipText(tooltip.append("</html>").toString());
+        mostPlayedKillerLabel.setText(killerCount.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .map(e -> String.format("%s (%d of %d)", e.getKey(), e.getValue(), matches.size()))
+                .orElse("--"));
+    }
+
+    /**
+     * Shows whether this player is among the ones we died against the most.
+     */
+    private void refreshNemesisRankOnScreen(Player killerPlayer) {
+        List<HeavyHitters.Entry> nemeses = dataService.getTopKillers(
+                LoopDataService.KillerRanking.NEMESIS, NEMESIS_RANKING_SIZE, false);
+        String rank = "--";
+
+        for (int i = 0; i < nemeses.size(); i++) {
+            if (nemeses.get(i).getKey().equals(killerPlayer.getSteamId64())) {
+                rank = String.format("#%d of top %d", i + 1, NEMESIS_RANKING_SIZE);
+                break;
+            }
+        }
+
+        statsContainer.getRight(InfoType.NEMESIS_RANK).setText(rank);
+    }
+
     private void toggleUserNotesAreaVisibility(boolean visible) {
         userNotesPane.setVisible(visible);
         uiEventOrchestrator.fireEvent(UiEvent.STRUCTURE_RESIZED);
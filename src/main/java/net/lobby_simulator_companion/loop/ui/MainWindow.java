@@ -24,6 +24,7 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.time.Duration;
 import java.time.Instant;
+import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.Optional;
@@ -72,6 +73,8 @@ public class MainWindow extends JFrame {
     private static final String MSG__LAST_CONNECTION_DURATION = "Last connection duration: ";
     private static final String MSG__STATUS__PLAYER_ESCAPED = "You escaped :)";
     private static final String MSG__STATUS__PLAYER_DIED = "You died :(";
+    private static final String MSG__EDITING_MATCH = "Editing match #%d (%s)";
+    private static final DateTimeFormatter MATCH_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm");
 
     private final Settings settings;
     private final AppProperties appProperties;
@@ -172,6 +175,7 @@ public class MainWindow extends JFrame {
 //        gameStateManager.registerListener(GameEvent.MATCH_ENDED, evt -> handleMatchEnd((Match) evt.getValue()));
 //        gameStateManager.registerListener(GameEvent.NEW_KILLER_PLAYER, evt -> refreshKillerPlayerOnTitleBar((Player) evt.getValue()));
         gameStateManager.registerListener(GameEvent.MANUALLY_INPUT_MATCH_STATS, evt -> handleMatchManualInput((Match) evt.getValue()));
+        gameStateManager.registerListener(GameEvent.EDITING_MATCH, evt -> handleMatchEditing((Match) evt.getValue()));
         gameStateManager.registerListener(GameEvent.UPDATED_STATS, evt -> refreshMatchInputOnTitleBar(new Match()));
         gameStateManager.registerListener(GameEvent.TIMER_START, evt -> handleTimerStart());
         gameStateManager.registerListener(GameEvent.TIMER_END, evt -> handleTimerEnd());
@@ -664,6 +668,18 @@ public class MainWindow extends JFrame {
         refreshMatchInputOnTitleBar(match);
     }
 
+    private void handleMatchEditing(Match match) {
+        if (match == null) {
+            hideMessage();
+            return;
+        }
+
+        String matchTime = Optional.ofNullable(match.getMatchStartTime())
+                .map(MATCH_TIME_FORMATTER::format)
+                .orElse("unknown date");
+        showMessage(String.format(MSG__EDITING_MATCH, match.getId(), matchTime));
+    }
+
     private void changeTitleBarColor(Color bgColor, Color fgColor) {
         Queue<Component> queue = new LinkedList<>();
 //        queue.add(titleBar);
@@ -764,7 +780,7 @@ public class MainWindow extends JFrame {
 
     public void close() {
         settings.forceSave();
-        dataService.save();
+        dataService.close();
         dispose();
     }
 
@@ -0,0 +1,161 @@
+package net.lobby_simulator_companion.loop.ui;
+
+import net.lobby_simulator_companion.loop.config.Settings;
+import net.lobby_simulator_companion.loop.domain.stats.DurationHistogram;
+import net.lobby_simulator_companion.loop.domain.stats.QueueStats;
+import net.lobby_simulator_companion.loop.service.GameEvent;
+import net.lobby_simulator_companion.loop.service.GameStateManager;
+import net.lobby_simulator_companion.loop.service.LoopDataService;
+import net.lobby_simulator_companion.loop.ui.common.ComponentUtils;
+import net.lobby_simulator_companion.loop.ui.common.NameValueInfoPanel;
+import net.lobby_simulator_companion.loop.ui.common.ResourceFactory;
+import net.lobby_simulator_companion.loop.ui.common.UiConstants;
+import net.lobby_simulator_companion.loop.util.TimeUtil;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.time.DayOfWeek;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.Map;
+
+import static net.lobby_simulator_companion.loop.ui.common.UiConstants.WIDTH__INFO_PANEL__NAME_COLUMN;
+import static net.lobby_simulator_companion.loop.ui.common.UiConstants.WIDTH__INFO_PANEL__VALUE_COLUMN;
+
+/**
+ * Shows the queue times by time of the day (for a selected day of the week) and by server region.
+ * Queue times are only recorded while the log monitor tracks the lobby search; the sniffer only sees the lobby
+ * connection, so without it this panel shows no data.
+ *
+ * @author NickyRamone
+ */
+public class QueueStatsPanel extends JPanel {
+
+    private static final long serialVersionUID = 3285024623788810935L;
+    private static final String SETTINGS__DAY_OF_WEEK = "ui.panel.stats.queue.dayOfWeek";
+    private static final int HOURS_PER_SLOT = 3;
+    private static final int ROW_HEIGHT = 22;
+    private static final String MSG__NOT_AVAILABLE = "--";
+    private static final String MSG__NO_REGIONS = "No data yet";
+    private static final String TOOLTIP__QUEUE_TIMES = "queue time p50 / p90 (number of matches)";
+
+    private final Settings settings;
+    private final LoopDataService dataService;
+
+    private JLabel dayLabel;
+    private NameValueInfoPanel hourSlotsContainer;
+    private NameValueInfoPanel regionsContainer;
+    private DayOfWeek currentDay;
+
+
+    public QueueStatsPanel(Settings settings, LoopDataService dataService, GameStateManager gameStateManager) {
+        this.settings = settings;
+        this.dataService = dataService;
+        currentDay = settings.get(SETTINGS__DAY_OF_WEEK, DayOfWeek.class, DayOfWeek.MONDAY);
+
+        draw();
+        gameStateManager.registerListener(GameEvent.UPDATED_STATS, e -> refreshStatsOnScreen());
+        refreshStatsOnScreen();
+    }
+
+
+    private void draw() {
+        dayLabel = new JLabel();
+        dayLabel.setBorder(ComponentUtils.DEFAULT_BORDER);
+        dayLabel.setForeground(Color.MAGENTA);
+        dayLabel.setFont(ResourceFactory.getRobotoFont());
+
+        JPanel dayContainer = new JPanel();
+        dayContainer.setBackground(UiConstants.COLOR__INFO_PANEL__BG);
+        dayContainer.add(ComponentUtils.createButtonLabel(null, null, ResourceFactory.Icon.LEFT, new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                selectDay(currentDay.minus(1));
+            }
+        }));
+        dayContainer.add(dayLabel);
+        dayContainer.add(ComponentUtils.createButtonLabel(null, null, ResourceFactory.Icon.RIGHT, new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                selectDay(currentDay.plus(1));
+            }
+        }));
+
+        int slots = QueueStats.HOURS_IN_A_DAY / HOURS_PER_SLOT;
+        hourSlotsContainer = new NameValueInfoPanel();
+        hourSlotsContainer.setSizes(WIDTH__INFO_PANEL__NAME_COLUMN, WIDTH__INFO_PANEL__VALUE_COLUMN, slots * ROW_HEIGHT);
+        for (int slot = 0; slot < slots; slot++) {
+            hourSlotsContainer.addField(getSlotDescription(slot), TOOLTIP__QUEUE_TIMES);
+        }
+
+        JLabel regionsTitle = new JLabel("By server region");
+        regionsTitle.setForeground(Color.MAGENTA);
+        regionsTitle.setFont(ResourceFactory.getRobotoFont());
+
+        JPanel regionsTitleContainer = new JPanel();
+        regionsTitleContainer.setBackground(UiConstants.COLOR__INFO_PANEL__BG);
+        regionsTitleContainer.add(regionsTitle);
+
+        regionsContainer = new NameValueInfoPanel();
+
+        setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
+        setBackground(UiConstants.COLOR__INFO_PANEL__BG);
+        add(dayContainer);
+        add(hourSlotsContainer);
+        add(regionsTitleContainer);
+        add(regionsContainer);
+    }
+
+    private void selectDay(DayOfWeek day) {
+        currentDay = day;
+        settings.set(SETTINGS__DAY_OF_WEEK, day);
+        refreshStatsOnScreen();
+    }
+
+    private String getSlotDescription(int slot) {
+        int fromHour = slot * HOURS_PER_SLOT;
+
+        return String.format("%02d:00 - %02d:00", fromHour, fromHour + HOURS_PER_SLOT);
+    }
+
+
+    public void refreshStatsOnScreen() {
+        QueueStats queueStats = dataService.getQueueStats();
+        dayLabel.setText(currentDay.getDisplayName(TextStyle.FULL, Locale.ENGLISH));
+
+        for (int slot = 0; slot < QueueStats.HOURS_IN_A_DAY / HOURS_PER_SLOT; slot++) {
+            int fromHour = slot * HOURS_PER_SLOT;
+            DurationHistogram histogram = queueStats.getByHourOfWeek(currentDay, fromHour, fromHour + HOURS_PER_SLOT);
+            hourSlotsContainer.getRight(getSlotDescription(slot)).setText(formatQueueTimes(histogram));
+        }
+
+        new ArrayList<>(regionsContainer.entrySet()).forEach(e -> regionsContainer.remove(e.getKey()));
+        Map<String, DurationHistogram> byRegion = queueStats.getByRegion();
+        byRegion.forEach((region, histogram) -> {
+            regionsContainer.addField(region, TOOLTIP__QUEUE_TIMES);
+            regionsContainer.getRight(region).setText(formatQueueTimes(histogram));
+        });
+        if (byRegion.isEmpty()) {
+            regionsContainer.addField(MSG__NO_REGIONS);
+        }
+        regionsContainer.setSizes(WIDTH__INFO_PANEL__NAME_COLUMN, WIDTH__INFO_PANEL__VALUE_COLUMN,
+                Math.max(byRegion.size(), 1) * ROW_HEIGHT);
+
+        revalidate();
+    }
+
+    private String formatQueueTimes(DurationHistogram histogram) {
+        if (histogram.isEmpty()) {
+            return MSG__NOT_AVAILABLE;
+        }
+
+        return String.format("%s / %s (%d)",
+                TimeUtil.formatTimeUpToHours(histogram.getValueAtPercentile(50)),
+                TimeUtil.formatTimeUpToHours(histogram.getValueAtPercentile(90)),
+                histogram.getTotalCount());
+    }
+
+}
@@ -80,7 +80,9 @@ public class ServerPanel extends JPanel {
         gameStateManager.registerListener(GameEvent.CONNECTED_TO_LOBBY,
                 evt -> updateServerConnection((Connection) evt.getValue()));
         gameStateManager.registerListener(GameEvent.DISCONNECTED,
-                evt -> refreshClear());
+                evt -> SwingUtilities.invokeLater(this::refreshClear));
+        gameStateManager.registerListener(GameEvent.PING_UPDATED,
+                evt -> updateLatency((Integer) evt.getValue()));
     }
 
     private void draw() {
@@ -165,6 +167,7 @@ public class ServerPanel extends JPanel {
                 newServerInfo.setLatency(serverConnection.getLatency());
                 SwingUtilities.invokeLater(() -> {
                     refreshServerOnScreen(newServerInfo);
+                    gameStateManager.notifyServerInfo(newServerInfo);
                     uiEventOrchestrator.fireEvent(UiEventOrchestrator.UiEvent.SERVER_INFO_UPDATED, newServerInfo);
                 });
             } catch (IOException e) {
@@ -187,6 +190,21 @@ public class ServerPanel extends JPanel {
         setServerValue(InfoType.LATENCY, server.getLatency() != null ? server.getLatency() + " ms" : "?");
     }
 
+    /**
+     * Called from the packet analysis thread.
+     */
+    private void updateLatency(int latency) {
+        SwingUtilities.invokeLater(() -> {
+            if (server == null) {
+                return;
+            }
+
+            server.setLatency(latency);
+            setServerValue(InfoType.LATENCY, latency + " ms");
+            uiEventOrchestrator.fireEvent(UiEventOrchestrator.UiEvent.SERVER_INFO_UPDATED, server);
+        });
+    }
+
     public void refreshClear() {
         server = null;
         summaryLabel.setText(null);
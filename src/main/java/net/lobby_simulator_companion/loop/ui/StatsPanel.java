@@ -6,6 +6,7 @@ import net.lobby_simulator_companion.loop.config.Settings;
 import net.lobby_simulator_companion.loop.service.GameEvent;
 import net.lobby_simulator_companion.loop.service.GameStateManager;
 import net.lobby_simulator_companion.loop.service.LoopDataService;
+import net.lobby_simulator_companion.loop.service.LoopDataService.DataServiceEvent;
 import net.lobby_simulator_companion.loop.ui.common.*;
 
 import javax.swing.*;
@@ -22,12 +23,14 @@ public class StatsPanel extends JPanel {
 
     private static final Font font = ResourceFactory.getRobotoFont();
     private static final String SETTINGS__STATS_TYPE_SELECTED = "ui.panel.stats.selected";
+    private static final String MSG__LOADING = "Loading stats...";
 
 
     @RequiredArgsConstructor
     private enum AggregatedStatsType {
         PERIOD_STATS("By period"),
-        MATCH_COUNT_ROLLING_STATS("By match-count (rolling)");
+        MATCH_COUNT_ROLLING_STATS("By match-count (rolling)"),
+        QUEUE_STATS("Queue times");
 
         private final String description;
 
@@ -42,17 +45,27 @@ public class StatsPanel extends JPanel {
     private final LoopDataService dataService;
     private final PeriodAggregateStatsPanel periodStatsPanel;
     private final RollingAggregateStatsPanel rollingStatsPanel;
+    private final QueueStatsPanel queueStatsPanel;
+    private final UiEventOrchestrator uiEventOrchestrator;
 
-    private AbstractAggregateStatsPanel selectedStatsPanel;
+    private JLabel loadingLabel;
+    private AggregatedStatsType selectedStatsType;
 
 
     public StatsPanel(Settings settings, LoopDataService dataService, GameStateManager gameStateManager,
                       UiEventOrchestrator uiEventOrchestrator,
-                      PeriodAggregateStatsPanel periodStatsPanel, RollingAggregateStatsPanel rollingStatsPanel) {
+                      PeriodAggregateStatsPanel periodStatsPanel, RollingAggregateStatsPanel rollingStatsPanel,
+                      QueueStatsPanel queueStatsPanel) {
         this.settings = settings;
         this.dataService = dataService;
         this.periodStatsPanel = periodStatsPanel;
         this.rollingStatsPanel = rollingStatsPanel;
+        this.queueStatsPanel = queueStatsPanel;
+        this.uiEventOrchestrator = uiEventOrchestrator;
+
+        // registered before drawing, so that the snapshot cannot be loaded in between unnoticed
+        dataService.registerListener(DataServiceEvent.SNAPSHOT_LOADED,
+                evt -> SwingUtilities.invokeLater(this::handleSnapshotLoaded));
 
         setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
 
@@ -89,6 +102,12 @@ public class StatsPanel extends JPanel {
         AggregatedStatsType storedSelectedStatsType = settings.get(SETTINGS__STATS_TYPE_SELECTED, AggregatedStatsType.class,
                 AggregatedStatsType.MATCH_COUNT_ROLLING_STATS);
 
+        loadingLabel = new JLabel(MSG__LOADING);
+        loadingLabel.setBorder(ComponentUtils.DEFAULT_BORDER);
+        loadingLabel.setForeground(Color.MAGENTA);
+        loadingLabel.setFont(font);
+        loadingLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+
         JComboBox aggregationSelection = new JComboBox<>(AggregatedStatsType.values());
         aggregationSelection.setMaximumSize(new Dimension(250, 25));
         aggregationSelection.setFont(font);
@@ -104,8 +123,10 @@ public class StatsPanel extends JPanel {
         container.setLayout(new BoxLayout(container, BoxLayout.Y_AXIS));
         container.setBackground(UiConstants.COLOR__INFO_PANEL__BG);
         container.add(aggregationSelection);
+        container.add(loadingLabel);
         container.add(periodStatsPanel);
         container.add(rollingStatsPanel);
+        container.add(queueStatsPanel);
 
         return container;
     }
@@ -113,25 +134,35 @@ public class StatsPanel extends JPanel {
 
     private void refreshStatsTypeSelection(AggregatedStatsType statsType) {
         settings.set(SETTINGS__STATS_TYPE_SELECTED, statsType);
+        selectedStatsType = statsType;
+        refreshStatsOnScreen();
 
-        switch (statsType) {
-            case PERIOD_STATS:
-                rollingStatsPanel.setVisible(false);
-                selectedStatsPanel = periodStatsPanel;
-                break;
-            case MATCH_COUNT_ROLLING_STATS:
-                periodStatsPanel.setVisible(false);
-                selectedStatsPanel = rollingStatsPanel;
-                break;
-        }
+        // until the stored stats are loaded, only a placeholder is shown
+        boolean loaded = dataService.isSnapshotLoaded();
+        loadingLabel.setVisible(!loaded);
+        periodStatsPanel.setVisible(loaded && statsType == AggregatedStatsType.PERIOD_STATS);
+        rollingStatsPanel.setVisible(loaded && statsType == AggregatedStatsType.MATCH_COUNT_ROLLING_STATS);
+        queueStatsPanel.setVisible(loaded && statsType == AggregatedStatsType.QUEUE_STATS);
+    }
 
-        refreshStatsOnScreen();
-        selectedStatsPanel.setVisible(true);
+    private void handleSnapshotLoaded() {
+        refreshStatsTypeSelection(selectedStatsType);
+        uiEventOrchestrator.fireEvent(UiEvent.STRUCTURE_RESIZED);
     }
 
 
     public void refreshStatsOnScreen() {
-        selectedStatsPanel.refreshStatsOnScreen();
+        switch (selectedStatsType) {
+            case PERIOD_STATS:
+                periodStatsPanel.refreshStatsOnScreen();
+                break;
+            case MATCH_COUNT_ROLLING_STATS:
+                rollingStatsPanel.refreshStatsOnScreen();
+                break;
+            case QUEUE_STATS:
+                queueStatsPanel.refreshStatsOnScreen();
+                break;
+        }
     }
 
 }
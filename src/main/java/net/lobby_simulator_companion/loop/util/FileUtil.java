@@ -4,13 +4,19 @@ import lombok.experimental.UtilityClass;
 import lombok.extern.slf4j.Slf4j;
 import net.lobby_simulator_companion.loop.Factory;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 
 /**
  * Includes various methods commonly needed by various modules of the program.
@@ -85,6 +91,80 @@ public class FileUtil {
         return saveFile(f, backupDir);
     }
 
+    /**
+     * Writes a file so that it is never left half-written: the content goes to a temporary file which is synced to
+     * disk and then atomically renamed over the target. <br>
+     * The previous version of the file is kept as backup generation 1 (older generations are shifted by renaming),
+     * using a hard link when the file system supports it, so no data is copied.
+     *
+     * @param f                 The file to write
+     * @param backupGenerations How many previous versions to keep (0 for none).
+     * @param writer            Writes the new content.
+     */
+    public void writeAtomically(File f, int backupGenerations, StreamWriter writer) throws IOException {
+        Path target = f.toPath().toAbsolutePath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel));
+            writer.write(out);
+            out.flush();
+            channel.force(true);
+        }
+
+        if (backupGenerations > 0 && Files.exists(target)) {
+            rotateBackups(target.toFile(), backupGenerations);
+        }
+
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Keeps a copy of the file as backup generation 1, shifting the older generations like
+     * {@link #writeAtomically(File, int, StreamWriter)} does. <br>
+     * Meant for files which are modified in place (such as memory-mapped ones), which cannot share their content with
+     * a backup through a hard link.
+     *
+     * @param f                 The file to back up (nothing is done if it does not exist)
+     * @param backupGenerations How many previous versions to keep.
+     */
+    public void copyToBackup(File f, int backupGenerations) throws IOException {
+        if (backupGenerations <= 0 || !f.exists()) {
+            return;
+        }
+        shiftBackups(f, backupGenerations);
+        Files.copy(f.toPath(), getSaveName(f, 1).toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void shiftBackups(File f, int generations) throws IOException {
+        Files.deleteIfExists(getSaveName(f, generations).toPath());
+        for (int version = generations - 1; version >= 1; version--) {
+            Path backup = getSaveName(f, version).toPath();
+            if (Files.exists(backup)) {
+                Files.move(backup, getSaveName(f, version + 1).toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    private void rotateBackups(File f, int generations) throws IOException {
+        shiftBackups(f, generations);
+
+        Path latestBackup = getSaveName(f, 1).toPath();
+        try {
+            Files.createLink(latestBackup, f.toPath());
+        } catch (IOException | UnsupportedOperationException e) {
+            // no hard links on this file system: the file is moved instead, so there is a brief window without it
+            log.debug("Failed to link backup; moving it instead.", e);
+            Files.move(f.toPath(), latestBackup, StandardCopyOption.REPLACE_EXISTING);
+        }
+        log.debug("Made backup of file.");
+    }
+
     /**
      * Get a File argument representing version <i>version</i> of the given File <i>f</i>.<br>
      * It is crucial (for ease of tracking) that all backup files follow the same naming conventions.<br>
@@ -106,4 +186,10 @@ public class FileUtil {
         return ClassLoader.getSystemClassLoader().getResourceAsStream(resourceName);
     }
 
+
+    @FunctionalInterface
+    public interface StreamWriter {
+        void write(OutputStream outputStream) throws IOException;
+    }
+
 }
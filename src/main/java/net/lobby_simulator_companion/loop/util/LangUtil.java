@@ -16,7 +16,7 @@ public class LangUtil {
         }
     }
 
-    public static Supplier unchecked(ThrowingFunction f) {
+    public static <R> Supplier<R> unchecked(ThrowingFunction<?, R> f) {
         return () -> {
             try {
                 return f.apply();
@@ -0,0 +1,79 @@
+package net.lobby_simulator_companion.loop;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * @author NickyRamone
+ */
+public class StartupGraphUTest {
+
+    @Test
+    public void execute__shouldRunTasksAfterTheirDependencies() throws Exception {
+        List<String> executed = new CopyOnWriteArrayList<>();
+
+        new StartupGraph(4)
+                .add("a", () -> executed.add("a"))
+                .add("b", () -> executed.add("b"), "a")
+                .add("c", () -> executed.add("c"), "a", "b")
+                .execute();
+
+        assertThat(executed.toString(), equalTo("[a, b, c]"));
+    }
+
+    @Test
+    public void execute__shouldRunIndependentTasksConcurrently() throws Exception {
+        // each task waits for the other one, so they can only finish if they run at the same time
+        CountDownLatch latch = new CountDownLatch(2);
+        StartupGraph.Task task = () -> {
+            latch.countDown();
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Tasks did not run concurrently.");
+            }
+        };
+
+        new StartupGraph(2)
+                .add("a", task)
+                .add("b", task)
+                .execute();
+
+        assertThat(latch.getCount(), equalTo(0L));
+    }
+
+    @Test
+    public void execute__failedTask__shouldSkipDependentsAndThrowFailure() throws Exception {
+        List<String> executed = new CopyOnWriteArrayList<>();
+        StartupGraph graph = new StartupGraph(2)
+                .add("a", () -> {
+                    throw new IOException("boom");
+                })
+                .add("b", () -> executed.add("b"), "a")
+                .add("c", () -> executed.add("c"));
+
+        try {
+            graph.execute();
+            fail("Expected exception.");
+        } catch (IOException e) {
+            assertThat(e.getMessage(), equalTo("boom"));
+        }
+
+        assertThat(executed.toString(), equalTo("[c]"));
+        assertThat(graph.getDuration("b").isPresent(), equalTo(false));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void add__unknownDependency__shouldFail() {
+        new StartupGraph(1).add("a", () -> {
+        }, "b");
+    }
+
+}
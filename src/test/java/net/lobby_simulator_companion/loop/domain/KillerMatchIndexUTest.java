@@ -0,0 +1,87 @@
+package net.lobby_simulator_companion.loop.domain;
+
+import com.google.gson.Gson;
+import net.lobby_simulator_companion.loop.config.LoopGsonFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author NickyRamone
+ */
+public class KillerMatchIndexUTest {
+
+    private static final String PLAYER_1 = "76561198000000001";
+    private static final String PLAYER_2 = "76561198000000002";
+
+    private KillerMatchIndex index;
+
+
+    @Before
+    public void setUp() {
+        index = new KillerMatchIndex();
+    }
+
+
+    @Test
+    public void add__shouldKeepMatchIdsPerPlayer() {
+        index.add(PLAYER_1, 1);
+        index.add(PLAYER_2, 2);
+        index.add(PLAYER_1, 3);
+        index.add(PLAYER_1, 500);
+        index.add(PLAYER_1, 100_000);
+
+        assertThat(index.getMatchIds(PLAYER_1), equalTo(new int[]{1, 3, 500, 100_000}));
+        assertThat(index.getMatchIds(PLAYER_2), equalTo(new int[]{2}));
+        assertThat(index.getMatchIds("76561198000000003"), equalTo(new int[0]));
+    }
+
+    @Test
+    public void add__invalidSteamId__shouldBeIgnored() {
+        index.add(null, 1);
+        index.add("", 2);
+        index.add("abc", 3);
+
+        assertThat(index.isEmpty(), equalTo(true));
+    }
+
+    @Test
+    public void add__outOfOrder__shouldKeepIdsSorted() {
+        index.add(PLAYER_1, 10);
+        index.add(PLAYER_1, 20);
+        index.add(PLAYER_1, 15);
+        index.add(PLAYER_1, 20);
+
+        assertThat(index.getMatchIds(PLAYER_1), equalTo(new int[]{10, 15, 20}));
+    }
+
+    @Test
+    public void remove__shouldRemoveOnlyTheGivenMatch() {
+        index.add(PLAYER_1, 1);
+        index.add(PLAYER_1, 200);
+        index.add(PLAYER_1, 300);
+        index.add(PLAYER_2, 2);
+
+        index.remove(PLAYER_1, 200);
+        index.remove(PLAYER_2, 2);
+
+        assertThat(index.getMatchIds(PLAYER_1), equalTo(new int[]{1, 300}));
+        assertThat(index.getMatchIds(PLAYER_2), equalTo(new int[0]));
+    }
+
+    @Test
+    public void serialization__shouldKeepPostingLists() {
+        Gson gson = LoopGsonFactory.gson(false);
+        for (int i = 1; i <= 1000; i++) {
+            index.add(i % 3 == 0 ? PLAYER_1 : PLAYER_2, i * 7);
+        }
+
+        KillerMatchIndex deserialized = gson.fromJson(gson.toJson(index), KillerMatchIndex.class);
+
+        assertThat(deserialized.getMatchIds(PLAYER_1), equalTo(index.getMatchIds(PLAYER_1)));
+        assertThat(deserialized.getMatchIds(PLAYER_2), equalTo(index.getMatchIds(PLAYER_2)));
+    }
+
+}
@@ -6,6 +6,9 @@ import net.lobby_simulator_companion.loop.domain.stats.MapStats;
 import net.lobby_simulator_companion.loop.domain.stats.Match;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static net.lobby_simulator_companion.loop.domain.MatchLog.RollingGroup;
 import static net.lobby_simulator_companion.loop.domain.MatchLog.RollingGroup.LAST_100_MATCHES;
 import static net.lobby_simulator_companion.loop.domain.MatchLog.RollingGroup.LAST_50_MATCHES;
@@ -35,6 +38,73 @@ public class MatchLogUTest {
     }
 
 
+    @Test
+    public void remove__shouldRetractMatchFromRollingAggregation() {
+        List<Match> matches = new ArrayList<>();
+        for (int i = 1; i <= 120; i++) {
+            Match match = generateMatchStats(i);
+            matches.add(match);
+            matchLog.add(match);
+        }
+        // break the alternating pattern so that there are longer streaks to recalculate
+        for (int idx : new int[]{101, 103}) {
+            Match previous = matches.get(idx).toBuilder().build();
+            matches.get(idx).setEscaped(true);
+            matchLog.update(previous, matches.get(idx));
+        }
+
+        Match removed = matches.remove(102);
+        matchLog.remove(removed);
+
+        assertRollingAggregationEqualsRebuild(matches);
+    }
+
+    @Test
+    public void update__shouldReplaceMatchInRollingAggregation() {
+        List<Match> matches = new ArrayList<>();
+        for (int i = 1; i <= 120; i++) {
+            Match match = generateMatchStats(i);
+            matches.add(match);
+            matchLog.add(match);
+        }
+
+        for (int idx : new int[]{119, 118, 80, 81, 82, 30}) {
+            Match match = matches.get(idx);
+            Match previous = match.toBuilder().build();
+            match.setEscaped(!match.escaped());
+            match.setKillCount(2);
+            matchLog.update(previous, match);
+        }
+
+        assertRollingAggregationEqualsRebuild(matches);
+    }
+
+    @Test
+    public void getMatch__offset__shouldMoveThroughLog() {
+        for (int i = 1; i <= 5; i++) {
+            matchLog.add(generateMatchStats(i));
+        }
+        matchLog.remove(matchLog.getMatch(3).get());
+
+        assertThat(matchLog.getLastMatch().get().getId(), equalTo(5));
+        assertThat(matchLog.getMatch(4, -1).get().getId(), equalTo(2));
+        assertThat(matchLog.getMatch(2, 1).get().getId(), equalTo(4));
+        assertThat(matchLog.getMatch(1, -1).isPresent(), equalTo(false));
+        assertThat(matchLog.getMatch(5, 1).isPresent(), equalTo(false));
+        assertThat(matchLog.getMatch(3, 1).isPresent(), equalTo(false));
+        assertThat(new MatchLog().getLastMatch().isPresent(), equalTo(false));
+    }
+
+    private void assertRollingAggregationEqualsRebuild(List<Match> matches) {
+        MatchLog rebuilt = new MatchLog();
+        matches.forEach(m -> rebuilt.add(m.toBuilder().build()));
+
+        for (RollingGroup group : RollingGroup.values()) {
+            assertThat(matchLog.getStats(group), equalTo(rebuilt.getStats(group)));
+        }
+    }
+
+
     /**
      * Generate deterministic match data dependent of the match number.
      * Deterministic aspects:
@@ -112,6 +182,15 @@ public class MatchLogUTest {
                 .matchTime(arithmeticSeriesSum(n / 2, oldestMatchNum + 1 + 3, 2))
                 .build());
 
+        for (int matchNumber = oldestMatchNum; matchNumber <= numMatchesAggregated; matchNumber++) {
+            Match match = generateMatchStats(matchNumber);
+            expectedStats.getQueueTimes().record(match.getSecondsQueued());
+            expectedStats.getWaitTimes().record(match.getSecondsWaited());
+            expectedStats.getMatchDurations().record(match.getSecondsPlayed());
+            expectedStats.getKillersStats().get(match.getKiller()).getMatchDurations().record(match.getSecondsPlayed());
+            expectedStats.getMapStats().get(match.getRealmMap()).getMatchDurations().record(match.getSecondsPlayed());
+        }
+
         assertThat(actualStats, equalTo(expectedStats));
     }
 
@@ -0,0 +1,169 @@
+package net.lobby_simulator_companion.loop.domain.stats;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Outcomes are written as strings: 'E' for escaped, 'D' for died and '?' for unknown.
+ *
+ * @author NickyRamone
+ */
+public class AggregateStatsUTest {
+
+    @Test
+    public void removeMatchStats__matchBetweenRuns__shouldJoinRuns() {
+        List<Match> matches = matches("EEDEE");
+        AggregateStats stats = aggregate(matches);
+
+        remove(stats, matches, 2, true);
+
+        assertThat(streaks(stats), equalTo(streaks(aggregate(matches))));
+        assertThat(stats.getMaxEscapesInARow(), equalTo(4));
+        assertThat(stats.getEscapesInARow(), equalTo(4));
+        assertThat(stats.getMaxDeathsInARow(), equalTo(0));
+    }
+
+    @Test
+    public void removeMatchStats__recordRunShortened__shouldRecalculateRecord() {
+        List<Match> matches = matches("EEEDEDD");
+        AggregateStats stats = aggregate(matches);
+
+        remove(stats, matches, 1, true);
+
+        assertThat(streaks(stats), equalTo(streaks(aggregate(matches))));
+        assertThat(stats.getMaxEscapesInARow(), equalTo(2));
+        assertThat(stats.getDeathsInARow(), equalTo(2));
+    }
+
+    @Test
+    public void removeMatchStats__recordRunShortenedWithIncompleteMatches__shouldKeepRecord() {
+        List<Match> matches = matches("EEEDEDD");
+        AggregateStats stats = aggregate(matches);
+
+        remove(stats, matches, 1, false);
+
+        assertThat(stats.getMaxEscapesInARow(), equalTo(3));
+        assertThat(stats.getDeathsInARow(), equalTo(2));
+    }
+
+    @Test
+    public void removeMatchStats__lastMatch__shouldUpdateCurrentStreak() {
+        List<Match> matches = matches("DDEE?E");
+        AggregateStats stats = aggregate(matches);
+
+        remove(stats, matches, 5, true);
+
+        assertThat(streaks(stats), equalTo(streaks(aggregate(matches))));
+        assertThat(stats.getEscapesInARow(), equalTo(2));
+        assertThat(stats.getMatchesPlayed(), equalTo(5));
+        assertThat(stats.getEscapes(), equalTo(2));
+        assertThat(stats.getDeaths(), equalTo(2));
+    }
+
+    @Test
+    public void removeMatchStats__unknownOutcome__shouldNotBreakStreaks() {
+        List<Match> matches = matches("EE?EE");
+        AggregateStats stats = aggregate(matches);
+
+        remove(stats, matches, 2, true);
+
+        assertThat(streaks(stats), equalTo(streaks(aggregate(matches))));
+        assertThat(stats.getMaxEscapesInARow(), equalTo(4));
+    }
+
+    @Test
+    public void replaceMatchStats__deathTurnedIntoEscape__shouldJoinRuns() {
+        List<Match> matches = matches("DEEDEEE");
+        AggregateStats stats = aggregate(matches);
+
+        replace(stats, matches, 3, "E");
+
+        assertThat(streaks(stats), equalTo(streaks(aggregate(matches))));
+        assertThat(stats.getMaxEscapesInARow(), equalTo(6));
+        assertThat(stats.getMaxDeathsInARow(), equalTo(1));
+        assertThat(stats.getEscapes(), equalTo(6));
+        assertThat(stats.getDeaths(), equalTo(1));
+    }
+
+    @Test
+    public void replaceMatchStats__recordRunBroken__shouldRecalculateRecord() {
+        List<Match> matches = matches("EEEEDDEE");
+        AggregateStats stats = aggregate(matches);
+
+        replace(stats, matches, 1, "D");
+
+        assertThat(streaks(stats), equalTo(streaks(aggregate(matches))));
+        assertThat(stats.getMaxEscapesInARow(), equalTo(2));
+        assertThat(stats.getMaxDeathsInARow(), equalTo(2));
+        assertThat(stats.getEscapesInARow(), equalTo(2));
+    }
+
+    @Test
+    public void replaceMatchStats__lastMatchCleared__shouldEndCurrentStreakBeforeIt() {
+        List<Match> matches = matches("EDDD");
+        AggregateStats stats = aggregate(matches);
+
+        replace(stats, matches, 3, "?");
+
+        assertThat(streaks(stats), equalTo(streaks(aggregate(matches))));
+        assertThat(stats.getDeathsInARow(), equalTo(2));
+        // the record was set by the run which was shortened
+        assertThat(stats.getMaxDeathsInARow(), equalTo(2));
+    }
+
+    @Test
+    public void recalculateStreaks__shouldStartFromScratch() {
+        AggregateStats stats = aggregate(matches("EEEEE"));
+
+        stats.recalculateStreaks(matches("DE?ED"));
+
+        assertThat(stats.getMaxEscapesInARow(), equalTo(2));
+        assertThat(stats.getEscapesInARow(), equalTo(0));
+        assertThat(stats.getMaxDeathsInARow(), equalTo(1));
+        assertThat(stats.getDeathsInARow(), equalTo(1));
+    }
+
+
+    private static void remove(AggregateStats stats, List<Match> matches, int position, boolean complete) {
+        Match removed = matches.remove(position);
+        stats.removeMatchStats(removed, matches, position, complete);
+    }
+
+    private static void replace(AggregateStats stats, List<Match> matches, int position, String outcome) {
+        Match previous = matches.get(position).toBuilder().build();
+        matches.get(position).setEscaped(matches(outcome).get(0).getEscaped());
+        stats.replaceMatchStats(previous, matches, position, true);
+    }
+
+    private static AggregateStats aggregate(List<Match> matches) {
+        AggregateStats stats = new AggregateStats();
+        matches.forEach(stats::addMatchStats);
+
+        return stats;
+    }
+
+    static List<Match> matches(String outcomes) {
+        List<Match> matches = new ArrayList<>();
+        for (char outcome : outcomes.toCharArray()) {
+            matches.add(Match.builder()
+                    .id(matches.size() + 1)
+                    .escaped(outcome == '?' ? null : outcome == 'E')
+                    .secondsPlayed(600)
+                    .build());
+        }
+
+        return matches;
+    }
+
+    static String streaks(AggregateStats stats) {
+        return String.format("escapes: %d (%d in a row, max %d), deaths: %d (%d in a row, max %d)",
+                stats.getEscapes(), stats.getEscapesInARow(), stats.getMaxEscapesInARow(),
+                stats.getDeaths(), stats.getDeathsInARow(), stats.getMaxDeathsInARow());
+    }
+
+}
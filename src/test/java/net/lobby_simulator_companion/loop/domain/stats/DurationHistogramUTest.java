@@ -0,0 +1,101 @@
+package net.lobby_simulator_companion.loop.domain.stats;
+
+import com.google.gson.Gson;
+import net.lobby_simulator_companion.loop.config.LoopGsonFactory;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author NickyRamone
+ */
+public class DurationHistogramUTest {
+
+    private static final double MAX_RELATIVE_ERROR = 0.02;
+
+
+    @Test
+    public void bucketIndex__shouldBeContinuousAndMonotonic() {
+        for (int value = 0; value < 200_000; value++) {
+            int idx = DurationHistogram.bucketIndex(value);
+            int lowerBound = DurationHistogram.bucketLowerBound(idx);
+            int nextLowerBound = DurationHistogram.bucketLowerBound(idx + 1);
+
+            assertThat(value >= lowerBound && value < nextLowerBound, equalTo(true));
+        }
+    }
+
+    @Test
+    public void getValueAtPercentile__emptyHistogram__shouldReturnNull() {
+        assertThat(new DurationHistogram().getValueAtPercentile(50), nullValue());
+    }
+
+    @Test
+    public void getValueAtPercentile__shouldBeWithinRelativeError() {
+        DurationHistogram histogram = new DurationHistogram();
+        for (int i = 1; i <= 3600; i++) {
+            histogram.record(i);
+        }
+
+        assertPercentile(histogram, 50, 1800);
+        assertPercentile(histogram, 90, 3240);
+        assertPercentile(histogram, 99, 3564);
+        assertThat(histogram.getValueAtPercentile(0), equalTo(1));
+    }
+
+    @Test
+    public void remove__shouldUndoRecord() {
+        DurationHistogram histogram = new DurationHistogram();
+        DurationHistogram expected = new DurationHistogram();
+        for (int i = 0; i < 1000; i++) {
+            histogram.record(i * 7);
+            expected.record(i * 7);
+        }
+        histogram.record(86_400);
+        histogram.remove(86_400);
+
+        assertThat(histogram, equalTo(expected));
+        assertThat(histogram.getTotalCount(), equalTo(1000));
+    }
+
+    @Test
+    public void merge__shouldBeEquivalentToRecordingBoth() {
+        DurationHistogram first = new DurationHistogram();
+        DurationHistogram second = new DurationHistogram();
+        DurationHistogram all = new DurationHistogram();
+        for (int i = 0; i < 500; i++) {
+            first.record(i);
+            second.record(i * 100);
+            all.record(i);
+            all.record(i * 100);
+        }
+        first.merge(second);
+
+        assertThat(first, equalTo(all));
+    }
+
+    @Test
+    public void serialization__shouldKeepCounts() {
+        Gson gson = LoopGsonFactory.gson(false);
+        DurationHistogram histogram = new DurationHistogram();
+        for (int i = 0; i < 300; i++) {
+            histogram.record(i * i);
+        }
+
+        DurationHistogram deserialized = gson.fromJson(gson.toJson(histogram), DurationHistogram.class);
+
+        assertThat(deserialized, equalTo(histogram));
+        assertThat(deserialized.getValueAtPercentile(90), equalTo(histogram.getValueAtPercentile(90)));
+    }
+
+
+    private void assertPercentile(DurationHistogram histogram, double percentile, int exactValue) {
+        int value = histogram.getValueAtPercentile(percentile);
+        double relativeError = Math.abs(value - exactValue) / (double) exactValue;
+
+        assertThat(relativeError <= MAX_RELATIVE_ERROR, equalTo(true));
+    }
+
+}
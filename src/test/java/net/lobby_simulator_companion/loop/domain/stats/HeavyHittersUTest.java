@@ -0,0 +1,95 @@
+package net.lobby_simulator_companion.loop.domain.stats;
+
+import com.google.gson.Gson;
+import net.lobby_simulator_companion.loop.config.LoopGsonFactory;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author NickyRamone
+ */
+public class HeavyHittersUTest {
+
+    @Test
+    public void offer__belowCapacity__shouldCountExactly() {
+        HeavyHitters heavyHitters = new HeavyHitters(10);
+        heavyHitters.offer("a");
+        heavyHitters.offer("b", 3);
+        heavyHitters.offer("a");
+        heavyHitters.offer("c");
+
+        List<HeavyHitters.Entry> top = heavyHitters.getTop(2);
+
+        assertThat(top.size(), equalTo(2));
+        assertThat(top.get(0).getKey(), equalTo("b"));
+        assertThat(top.get(0).getCount(), equalTo(3L));
+        assertThat(top.get(1).getKey(), equalTo("a"));
+        assertThat(top.get(1).getError(), equalTo(0L));
+        assertThat(heavyHitters.getTotal(), equalTo(6L));
+    }
+
+    @Test
+    public void offer__aboveCapacity__shouldKeepFrequentKeysWithinErrorBounds() {
+        HeavyHitters heavyHitters = new HeavyHitters(100);
+        Map<String, Long> exactCounts = new HashMap<>();
+        Random random = new Random(1);
+
+        for (int i = 0; i < 20_000; i++) {
+            // a few frequent keys within a long tail of rare ones
+            String key = random.nextInt(4) == 0 ? "frequent" + random.nextInt(5) : "rare" + random.nextInt(5000);
+            heavyHitters.offer(key);
+            exactCounts.merge(key, 1L, Long::sum);
+        }
+
+        List<HeavyHitters.Entry> top = heavyHitters.getTop(5);
+        List<String> topKeys = top.stream().map(HeavyHitters.Entry::getKey).sorted().collect(Collectors.toList());
+
+        assertThat(topKeys, equalTo(Arrays.asList(
+                "frequent0", "frequent1", "frequent2", "frequent3", "frequent4")));
+
+        for (HeavyHitters.Entry entry : top) {
+            long exactCount = exactCounts.get(entry.getKey());
+            assertThat(entry.getGuaranteedCount() <= exactCount && exactCount <= entry.getCount(), equalTo(true));
+            assertThat(heavyHitters.isGuaranteed(entry, 5), equalTo(true));
+        }
+    }
+
+    @Test
+    public void retract__shouldUndoOffer() {
+        HeavyHitters heavyHitters = new HeavyHitters(10);
+        heavyHitters.offer("a", 2);
+        heavyHitters.offer("b");
+
+        heavyHitters.retract("a");
+        heavyHitters.retract("b");
+
+        assertThat(heavyHitters.getTop(10).size(), equalTo(1));
+        assertThat(heavyHitters.getTop(10).get(0).getCount(), equalTo(1L));
+        assertThat(heavyHitters.getTotal(), equalTo(1L));
+    }
+
+    @Test
+    public void serialization__shouldKeepEntries() {
+        Gson gson = LoopGsonFactory.gson(false);
+        HeavyHitters heavyHitters = new HeavyHitters(3);
+        for (int i = 0; i < 100; i++) {
+            heavyHitters.offer("key" + (i % 7), i % 7 + 1);
+        }
+
+        HeavyHitters deserialized = gson.fromJson(gson.toJson(heavyHitters), HeavyHitters.class);
+
+        assertThat(deserialized.getCapacity(), equalTo(3));
+        assertThat(deserialized.getTotal(), equalTo(heavyHitters.getTotal()));
+        assertThat(deserialized.getTop(3).toString(), equalTo(heavyHitters.getTop(3).toString()));
+    }
+
+}
@@ -0,0 +1,108 @@
+package net.lobby_simulator_companion.loop.domain.stats;
+
+import net.lobby_simulator_companion.loop.domain.Killer;
+import net.lobby_simulator_companion.loop.domain.RealmMap;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author NickyRamone
+ */
+public class PackedMatchTableUTest {
+
+    private List<Match> matches;
+    private PackedMatchTable table;
+
+
+    @Before
+    public void setUp() {
+        matches = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            matches.add(Match.builder()
+                    .id(i + 1)
+                    .lobbiesFound(i % 4 == 0 ? null : i % 3)
+                    .secondsQueued(i * 3)
+                    .secondsWaited(i % 5 == 0 ? null : i * 4)
+                    .secondsPlayed(600 + i)
+                    .killCount(i % 2 == 0 ? null : i % 5)
+                    .matchStartTime(i % 7 == 0 ? null : LocalDateTime.of(2020, 1, 1, 0, 0).plusMinutes(i * 30L))
+                    .escaped(i % 3 == 0 ? null : i % 2 == 0)
+                    .killer(i % 6 == 0 ? null : Killer.values()[i % Killer.values().length])
+                    .realmMap(i % 8 == 0 ? null : RealmMap.values()[i % RealmMap.values().length])
+                    .serverRegion(i % 2 == 0 ? "Frankfurt, DE" : null)
+                    .killerPlayerSteamId64(i % 3 == 0 ? null : i % 3 == 1 ? "7656119800000000" + (i % 10) : "id-" + i)
+                    .networkStats(i % 4 == 0 ? null : new MatchNetworkStats(40 + i, 60 + i, 200, 3, 1000 + i,
+                            30_000 + i, 20_000, 4_000_000, 1_500_000, i, 1, 900, new int[]{10, 5000, 20000, 40, 4, 0, 1, 2}))
+                    .build());
+        }
+        table = new PackedMatchTable(matches);
+    }
+
+
+    @Test
+    public void get__shouldRestoreEveryField() {
+        assertThat(table.size(), equalTo(matches.size()));
+        assertThat(table.asList(), equalTo(matches));
+    }
+
+    @Test
+    public void set__shouldReplaceRow() {
+        Match updated = matches.get(10).toBuilder().escaped(false).killCount(4).build();
+        table.set(10, updated);
+
+        assertThat(table.get(10), equalTo(updated));
+        assertThat(table.died(10), equalTo(true));
+    }
+
+    @Test
+    public void addRow__shouldStartWithUnknownValues() {
+        PackedMatchTable packedMatches = new PackedMatchTable();
+        packedMatches.addRow(1);
+        int row = packedMatches.addRow(2);
+        packedMatches.setEscaped(row, true);
+        packedMatches.setKiller(row, Killer.CLOWN);
+        packedMatches.setServerRegion(row, "Frankfurt, DE");
+        packedMatches.setKillerPlayerSteamId64(row, "76561198000000001");
+
+        assertThat(packedMatches.get(0), equalTo(Match.builder().id(1).build()));
+        assertThat(packedMatches.get(1), equalTo(Match.builder()
+                .id(2)
+                .escaped(true)
+                .killer(Killer.CLOWN)
+                .serverRegion("Frankfurt, DE")
+                .killerPlayerSteamId64("76561198000000001")
+                .build()));
+    }
+
+    @Test
+    public void remove__shouldShiftFollowingRows() {
+        table.remove(0);
+        table.remove(50);
+        matches.remove(0);
+        matches.remove(50);
+
+        assertThat(table.asList(), equalTo(matches));
+        assertThat(table.indexOf(1), equalTo(-1));
+        assertThat(table.indexOf(53), equalTo(50));
+    }
+
+    @Test
+    public void summary__fromColumns__shouldMatchSummaryFromMatches() {
+        MatchHistorySummary fromMatches = new MatchHistorySummary();
+        MatchHistorySummary fromColumns = new MatchHistorySummary();
+        matches.forEach(fromMatches::add);
+        for (int row = 0; row < table.size(); row++) {
+            fromColumns.add(table, row);
+        }
+
+        assertThat(fromColumns, equalTo(fromMatches));
+    }
+
+}
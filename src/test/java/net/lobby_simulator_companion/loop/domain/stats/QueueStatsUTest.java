@@ -0,0 +1,96 @@
+package net.lobby_simulator_companion.loop.domain.stats;
+
+import com.google.gson.Gson;
+import net.lobby_simulator_companion.loop.config.LoopGsonFactory;
+import net.lobby_simulator_companion.loop.domain.Killer;
+import net.lobby_simulator_companion.loop.domain.RealmMap;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author NickyRamone
+ */
+public class QueueStatsUTest {
+
+    /**
+     * A Wednesday.
+     */
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2021, 3, 10, 20, 30);
+
+    private QueueStats queueStats;
+
+
+    @Before
+    public void setUp() {
+        queueStats = new QueueStats();
+    }
+
+
+    @Test
+    public void addMatchStats__shouldAggregateByLobbySearchStartTime() {
+        // search started on Wednesday at 19:55
+        queueStats.addMatchStats(match(BASE_TIME, 60, 35 * 60, "Virginia, United States"));
+        // search started on Wednesday at 20:29
+        queueStats.addMatchStats(match(BASE_TIME, 30, 60, "Virginia, United States"));
+        // search started on Thursday at 20:29
+        queueStats.addMatchStats(match(BASE_TIME.plusDays(1), 90, 60, "Frankfurt am Main, Germany"));
+
+        assertThat(queueStats.getByHourOfWeek(DayOfWeek.WEDNESDAY, 19, 20).getTotalCount(), equalTo(1));
+        assertThat(queueStats.getByHourOfWeek(DayOfWeek.WEDNESDAY, 20, 21).getTotalCount(), equalTo(1));
+        assertThat(queueStats.getByHourOfWeek(DayOfWeek.WEDNESDAY, 18, 21).getTotalCount(), equalTo(2));
+        assertThat(queueStats.getByHourOfWeek(DayOfWeek.THURSDAY, 18, 21).getValueAtPercentile(50), equalTo(90));
+        assertThat(queueStats.getByRegion().size(), equalTo(2));
+        assertThat(queueStats.getByRegion().get("Virginia, United States").getTotalCount(), equalTo(2));
+    }
+
+    @Test
+    public void addMatchStats__matchWithNoQueueTime__shouldBeIgnored() {
+        queueStats.addMatchStats(match(BASE_TIME, null, 60, "Virginia, United States"));
+
+        assertThat(queueStats, equalTo(new QueueStats()));
+    }
+
+    @Test
+    public void removeMatchStats__shouldUndoAddMatchStats() {
+        Match match = match(BASE_TIME, 45, 100, "Virginia, United States");
+        queueStats.addMatchStats(match(BASE_TIME, 30, 60, null));
+        QueueStats expected = new QueueStats();
+        expected.addMatchStats(match(BASE_TIME, 30, 60, null));
+
+        queueStats.addMatchStats(match);
+        queueStats.removeMatchStats(match);
+
+        assertThat(queueStats, equalTo(expected));
+    }
+
+    @Test
+    public void serialization__shouldKeepMatchTimingsAndQueueStats() {
+        Gson gson = LoopGsonFactory.gson(false);
+        Match match = match(BASE_TIME, 45, 100, "Virginia, United States");
+        match.setLobbiesFound(2);
+        match.setSecondsPlayed(600);
+        match.setKiller(Killer.HILLBILLY);
+        match.setRealmMap(RealmMap.COAL_TOWER);
+        queueStats.addMatchStats(match);
+
+        assertThat(gson.fromJson(gson.toJson(match), Match.class), equalTo(match));
+        assertThat(gson.fromJson(gson.toJson(queueStats), QueueStats.class), equalTo(queueStats));
+    }
+
+
+    private Match match(LocalDateTime startTime, Integer secondsQueued, int secondsWaited, String region) {
+        return Match.builder()
+                .matchStartTime(startTime)
+                .secondsQueued(secondsQueued)
+                .secondsWaited(secondsWaited)
+                .serverRegion(region)
+                .build();
+    }
+
+}
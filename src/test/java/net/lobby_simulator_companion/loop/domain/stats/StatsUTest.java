@@ -0,0 +1,83 @@
+package net.lobby_simulator_companion.loop.domain.stats;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static net.lobby_simulator_companion.loop.domain.stats.AggregateStatsUTest.matches;
+import static net.lobby_simulator_companion.loop.domain.stats.AggregateStatsUTest.streaks;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author NickyRamone
+ */
+public class StatsUTest {
+
+    private Stats stats;
+    private List<Match> history;
+
+
+    @Before
+    public void setUp() {
+        stats = new Stats();
+        history = matches("EEDEEDD");
+        LocalDateTime now = LocalDateTime.now();
+        history.forEach(m -> m.setMatchStartTime(now));
+        history.forEach(stats::addMatchStats);
+    }
+
+
+    @Test
+    public void removeMatchStats__shouldRetractFromEveryPeriod() {
+        Match removed = history.get(2);
+
+        stats.removeMatchStats(removed, history);
+        history.remove(removed);
+
+        Stats expected = stats(history);
+        for (Stats.Period period : Stats.Period.values()) {
+            assertThat(period.name(), streaks(stats.get(period)), equalTo(streaks(expected.get(period))));
+            assertThat(period.name(), stats.get(period).getMatchesPlayed(), equalTo(6));
+            assertThat(period.name(), stats.get(period).getMaxEscapesInARow(), equalTo(4));
+        }
+    }
+
+    @Test
+    public void removeMatchStats__matchNotCoveredByPeriod__shouldIgnoreIt() {
+        Match unknownTime = Match.builder().id(99).escaped(true).build();
+
+        stats.removeMatchStats(unknownTime, history);
+
+        for (Stats.Period period : Stats.Period.values()) {
+            assertThat(period.name(), stats.get(period).getMatchesPlayed(), equalTo(7));
+        }
+    }
+
+    @Test
+    public void replaceMatchStats__shouldReplaceInEveryPeriod() {
+        Match edited = history.get(0);
+        Match previous = edited.toBuilder().build();
+        edited.setEscaped(false);
+
+        stats.replaceMatchStats(previous, edited, history);
+
+        Stats expected = stats(history);
+        for (Stats.Period period : Stats.Period.values()) {
+            assertThat(period.name(), streaks(stats.get(period)), equalTo(streaks(expected.get(period))));
+            assertThat(period.name(), stats.get(period).getMatchesPlayed(), equalTo(7));
+            assertThat(period.name(), stats.get(period).getMaxEscapesInARow(), equalTo(2));
+        }
+    }
+
+
+    private static Stats stats(List<Match> matches) {
+        Stats stats = new Stats();
+        matches.forEach(stats::addMatchStats);
+
+        return stats;
+    }
+
+}
@@ -0,0 +1,101 @@
+package net.lobby_simulator_companion.loop.manual_testing;
+
+import lombok.extern.slf4j.Slf4j;
+import net.lobby_simulator_companion.loop.domain.Connection;
+import net.lobby_simulator_companion.loop.service.DedicatedServerConnectionManager;
+import net.lobby_simulator_companion.loop.service.SnifferListener;
+import net.lobby_simulator_companion.loop.service.network.TestFrames;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures how many packets per second go through the connection detection, with a synthetic session: a handshake
+ * followed by match traffic, mixed with unrelated small UDP traffic (voice chat, other games).
+ * <p>
+ * Frames are fed directly, as if no packet filter was applied, so this measures the worst case.
+ *
+ * @author NickyRamone
+ */
+@Slf4j
+public class ConnectionDetectionBenchmark {
+
+    private static final String LOCAL = "192.168.0.10";
+    private static final String SERVER = "35.1.2.3";
+    private static final int FRAME_COUNT = 100_000;
+    private static final int ROUNDS = 10;
+    private static final int PASSES_PER_ROUND = 20;
+
+
+    public static void main(String[] args) throws Exception {
+        List<byte[]> frames = buildSession();
+        long bestNanos = Long.MAX_VALUE;
+
+        for (int round = 0; round < ROUNDS; round++) {
+            DedicatedServerConnectionManager manager = DedicatedServerConnectionManager.detached(
+                    InetAddress.getByName(LOCAL), new NoOpListener());
+            long time = 0;
+            long start = System.nanoTime();
+
+            for (int pass = 0; pass < PASSES_PER_ROUND; pass++) {
+                for (byte[] frame : frames) {
+                    time += 100;
+                    manager.processFrame(frame, frame.length, time);
+                }
+            }
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+
+        long packets = (long) FRAME_COUNT * PASSES_PER_ROUND;
+        log.info("{} packets in {} ms (best of {}): {} packets/s", packets, bestNanos / 1_000_000, ROUNDS,
+                packets * 1_000_000_000L / bestNanos);
+    }
+
+    private static List<byte[]> buildSession() {
+        Random random = new Random(1);
+        List<byte[]> frames = new ArrayList<>(FRAME_COUNT);
+
+        frames.add(TestFrames.udp(LOCAL, 50000, SERVER, 7777, TestFrames.handshakePayload(0x01)));
+        frames.add(TestFrames.udp(SERVER, 7777, LOCAL, 50000, TestFrames.handshakePayload(0x02)));
+        frames.add(TestFrames.udp(LOCAL, 50000, SERVER, 7777, TestFrames.handshakePayload(0x03)));
+        frames.add(TestFrames.udp(SERVER, 7777, LOCAL, 50000, TestFrames.handshakePayload(0x04)));
+
+        while (frames.size() < FRAME_COUNT) {
+            int kind = random.nextInt(4);
+            if (kind == 0) {
+                frames.add(TestFrames.udp(LOCAL, 50000, SERVER, 7777, new byte[40 + random.nextInt(60)]));
+            } else if (kind == 1) {
+                frames.add(TestFrames.udp(SERVER, 7777, LOCAL, 50000, new byte[40 + random.nextInt(100)]));
+            } else {
+                byte[] payload = new byte[20 + random.nextInt(80)];
+                random.nextBytes(payload);
+                frames.add(TestFrames.udp("10.1.1." + random.nextInt(255), 3478, LOCAL, 40000 + kind, payload));
+            }
+        }
+
+        return frames;
+    }
+
+
+    private static final class NoOpListener implements SnifferListener {
+        @Override
+        public void notifyMatchConnect(Connection connection) {
+        }
+
+        @Override
+        public void notifyMatchDisconnect() {
+        }
+
+        @Override
+        public void notifyPingUpdate(int ping) {
+        }
+
+        @Override
+        public void handleException(Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -28,10 +28,12 @@ public class DataGenerator {
     public static void main(String[] args) {
         DataGenerator dg = new DataGenerator();
         Instant startInstant = Instant.now();
+        dataService.start().join();
         dg.addPlayers(2000);
         dg.addMatches(2000);
         dataService.save();
         log.info("Elapsed: {} seconds", Duration.between(startInstant, Instant.now()).toMillis() / 1000.0);
+        System.exit(0);
     }
 
     private void addPlayers(int n) {
@@ -0,0 +1,86 @@
+package net.lobby_simulator_companion.loop.manual_testing;
+
+import lombok.extern.slf4j.Slf4j;
+import net.lobby_simulator_companion.loop.repository.IpRangeTable;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+/**
+ * Measures the IP range table with a synthetic database the size of a city-level one: how long it takes to compile,
+ * to open once compiled, and to locate addresses.
+ *
+ * @author NickyRamone
+ */
+@Slf4j
+public class IpRangeLookupBenchmark {
+
+    private static final int RANGE_COUNT = 3_000_000;
+    private static final int LOCATION_COUNT = 100_000;
+    private static final int LOOKUP_COUNT = 10_000_000;
+    private static final int ROUNDS = 5;
+
+
+    public static void main(String[] args) throws Exception {
+        File directory = Files.createTempDirectory("ip-range-benchmark").toFile();
+        File csvFile = new File(directory, "ranges.csv");
+        writeCsv(csvFile);
+
+        IpRangeTable.open(csvFile);
+        long start = System.nanoTime();
+        IpRangeTable table = IpRangeTable.map(new File(csvFile.getPath() + ".idx"));
+        log.info("Opened {} ranges in {} microseconds.", table.size(), (System.nanoTime() - start) / 1000);
+
+        Random random = new Random(1);
+        int[] addresses = new int[LOOKUP_COUNT];
+        for (int i = 0; i < addresses.length; i++) {
+            addresses[i] = random.nextInt();
+        }
+
+        long bestNanos = Long.MAX_VALUE;
+        int found = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            found = 0;
+            start = System.nanoTime();
+            for (int address : addresses) {
+                if (table.find(address) != null) {
+                    found++;
+                }
+            }
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+
+        log.info("{} lookups ({} found) in {} ms (best of {}): {} ns/lookup", LOOKUP_COUNT, found,
+                bestNanos / 1_000_000, ROUNDS, bestNanos / LOOKUP_COUNT);
+
+        for (File f : directory.listFiles()) {
+            f.delete();
+        }
+        directory.delete();
+    }
+
+    /**
+     * Ranges of random length spread over the whole address space, with gaps between them.
+     */
+    private static void writeCsv(File csvFile) throws IOException {
+        Random random = new Random(1);
+        long step = (1L << 32) / RANGE_COUNT;
+
+        try (BufferedWriter writer = Files.newBufferedWriter(csvFile.toPath(), StandardCharsets.UTF_8)) {
+            writer.write("start,end,country,region,city,latitude,longitude,country_code\n");
+            for (int i = 0; i < RANGE_COUNT; i++) {
+                long rangeStart = i * step;
+                long rangeEnd = rangeStart + random.nextInt((int) step);
+                int location = random.nextInt(LOCATION_COUNT);
+                writer.write(String.format("%d,%d,Country %d,Region %d,City %d,%.4f,%.4f,C%d%n",
+                        rangeStart, rangeEnd, location % 200, location % 5000, location,
+                        (location % 180) - 90.0, (location % 360) - 180.0, location % 200));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,78 @@
+package net.lobby_simulator_companion.loop.manual_testing;
+
+import lombok.extern.slf4j.Slf4j;
+import net.lobby_simulator_companion.loop.domain.Connection;
+import net.lobby_simulator_companion.loop.service.DedicatedServerConnectionManager;
+import net.lobby_simulator_companion.loop.service.SnifferListener;
+
+import java.net.InetAddress;
+import java.time.Instant;
+
+/**
+ * Runs a capture file through the connection detection and reports what was detected.
+ * <p>
+ * Usage: PcapReplay &lt;capture file&gt; &lt;local IP address&gt; [speed]
+ * <p>
+ * The local address is the one of the host where the capture was taken. Speed is relative to the capture
+ * (for example, 10 replays ten times faster); by default, the file is read as fast as possible.
+ *
+ * @author NickyRamone
+ */
+@Slf4j
+public class PcapReplay {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: PcapReplay <capture file> <local IP address> [speed]");
+            System.exit(1);
+        }
+
+        DedicatedServerConnectionManager manager = DedicatedServerConnectionManager.replay(
+                args[0], InetAddress.getByName(args[1]), new SnifferListener() {
+                    private Connection connection;
+                    private int lastPing = -1;
+
+                    @Override
+                    public void notifyMatchConnect(Connection connection) {
+                        this.connection = connection;
+                        log.info("{} Connected to {}:{} (handshake latency: {} ms)",
+                                Instant.ofEpochMilli(connection.getLastSeen()), connection.getRemoteAddr().getHostAddress(),
+                                connection.getRemotePort(), connection.getLatency());
+                    }
+
+                    @Override
+                    public void notifyMatchDisconnect() {
+                        log.info("{} Disconnected. Network stats: {}", Instant.ofEpochMilli(connection.getLastSeen()),
+                                connection.getNetworkStats());
+                    }
+
+                    @Override
+                    public void notifyPingUpdate(int ping) {
+                        if (ping != lastPing) {
+                            log.debug("Latency: {} ms", ping);
+                            lastPing = ping;
+                        }
+                    }
+
+                    @Override
+                    public void handleException(Exception e) {
+                        log.error("Failed to replay capture.", e);
+                    }
+                });
+
+        if (args.length > 2) {
+            manager.setReplaySpeed(Double.parseDouble(args[2]));
+        }
+
+        long start = System.nanoTime();
+        manager.start();
+        long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+
+        manager.getCaptureStats().forEach(stats -> log.info("Filter: {}", stats));
+        log.info("Ring: {}", manager.getCaptureMetrics());
+        long packets = manager.getCaptureStats().stream().mapToLong(s -> s.getDelivered()).sum();
+        log.info("Replayed {} packets in {} ms ({} packets/s).", packets, elapsedMillis, packets * 1000 / elapsedMillis);
+        manager.close();
+    }
+
+}
@@ -0,0 +1,147 @@
+package net.lobby_simulator_companion.loop.manual_testing;
+
+import lombok.extern.slf4j.Slf4j;
+import net.lobby_simulator_companion.loop.service.plugin.LoopPlugin;
+import net.lobby_simulator_companion.loop.service.plugin.LoopPluginIndexer;
+import net.lobby_simulator_companion.loop.service.plugin.PluginIndex;
+import org.reflections.Reflections;
+import org.reflections.scanners.SubTypesScanner;
+import org.reflections.scanners.TypeAnnotationsScanner;
+import org.reflections.util.ConfigurationBuilder;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Compares the time it takes to find the plugin class in a plugin jar with thousands of classes, scanning it with
+ * Reflections (how plugins used to be found) and reading its plugin index.
+ * <p>
+ * Each round uses a new class loader, as it happens on startup. Requires a JDK (the plugin jar is compiled here).
+ *
+ * @author NickyRamone
+ */
+@Slf4j
+public class PluginDiscoveryBenchmark {
+
+    private static final int CLASS_COUNT = 5000;
+    private static final int ROUNDS = 5;
+
+
+    public static void main(String[] args) throws Exception {
+        Path workDir = Files.createTempDirectory("plugin-benchmark");
+        File jar = buildPluginJar(workDir);
+        URL jarUrl = new URL("jar:" + jar.toURI() + "!/");
+        log.info("Plugin jar: {} ({} classes, {} KB)", jar, CLASS_COUNT + 1, jar.length() / 1024);
+
+        long scanMicros = Long.MAX_VALUE;
+        long indexMicros = Long.MAX_VALUE;
+
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            Set<Class<?>> scanned = scan(jarUrl);
+            scanMicros = Math.min(scanMicros, elapsedMicros(start));
+
+            start = System.nanoTime();
+            List<Class<?>> indexed = readIndex(jarUrl);
+            indexMicros = Math.min(indexMicros, elapsedMicros(start));
+
+            if (scanned.size() != 1 || indexed.size() != 1) {
+                throw new IllegalStateException("Expected exactly one plugin class: " + scanned + " / " + indexed);
+            }
+        }
+
+        log.info("Reflections scan: {} us; plugin index: {} us (best of {})", scanMicros, indexMicros, ROUNDS);
+    }
+
+    private static Set<Class<?>> scan(URL jarUrl) {
+        URLClassLoader classLoader = new URLClassLoader(new URL[]{jarUrl}, LoopPlugin.class.getClassLoader());
+
+        return new Reflections(new ConfigurationBuilder()
+                .setUrls(classLoader.getURLs())
+                .setScanners(new TypeAnnotationsScanner(), new SubTypesScanner(false))
+                .addClassLoader(classLoader))
+                .getTypesAnnotatedWith(LoopPlugin.class);
+    }
+
+    private static List<Class<?>> readIndex(URL jarUrl) throws IOException, ClassNotFoundException {
+        URLClassLoader classLoader = new URLClassLoader(new URL[]{jarUrl}, LoopPlugin.class.getClassLoader());
+        List<Class<?>> classes = new ArrayList<>();
+
+        for (String className : PluginIndex.read(jarUrl)) {
+            classes.add(Class.forName(className, false, classLoader));
+        }
+
+        return classes;
+    }
+
+    private static File buildPluginJar(Path workDir) throws IOException {
+        Path sourceDir = Files.createDirectories(workDir.resolve("src/bench"));
+        Path classesDir = Files.createDirectories(workDir.resolve("classes"));
+        List<String> sources = new ArrayList<>();
+
+        for (int i = 0; i < CLASS_COUNT; i++) {
+            sources.add(write(sourceDir, "Filler" + i, "package bench;\n"
+                    + "public class Filler" + i + " {\n"
+                    + "    private int value = " + i + ";\n"
+                    + "    public int getValue() { return value; }\n"
+                    + "    public String describe() { return \"filler \" + value; }\n"
+                    + "}\n"));
+        }
+        sources.add(write(sourceDir, "BenchmarkPlugin", "package bench;\n"
+                + "@" + LoopPlugin.class.getName() + "(id = \"" + UUID.randomUUID() + "\")\n"
+                + "public class BenchmarkPlugin {\n"
+                + "}\n"));
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        List<String> compilerArgs = new ArrayList<>();
+        Stream.of("-cp", System.getProperty("java.class.path"), "-d", classesDir.toString(),
+                "-processor", LoopPluginIndexer.class.getName()).forEach(compilerArgs::add);
+        compilerArgs.addAll(sources);
+
+        if (compiler.run(null, null, null, compilerArgs.toArray(new String[0])) != 0) {
+            throw new IllegalStateException("Failed to compile the plugin jar.");
+        }
+
+        File jar = workDir.resolve("loop.plugin").toFile();
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(classesDir)) {
+            files = walk.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar.toPath()))) {
+            for (Path file : files) {
+                out.putNextEntry(new JarEntry(classesDir.relativize(file).toString().replace('\\', '/')));
+                Files.copy(file, out);
+                out.closeEntry();
+            }
+        }
+
+        return jar;
+    }
+
+    private static String write(Path dir, String className, String source) throws IOException {
+        Path file = dir.resolve(className + ".java");
+        Files.write(file, source.getBytes(StandardCharsets.UTF_8));
+
+        return file.toString();
+    }
+
+    private static long elapsedMicros(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000;
+    }
+
+}
@@ -0,0 +1,145 @@
+package net.lobby_simulator_companion.loop.manual_testing;
+
+import com.google.gson.Gson;
+import lombok.extern.slf4j.Slf4j;
+import net.lobby_simulator_companion.loop.config.LoopGsonFactory;
+import net.lobby_simulator_companion.loop.domain.Killer;
+import net.lobby_simulator_companion.loop.domain.LoopData;
+import net.lobby_simulator_companion.loop.domain.Player;
+import net.lobby_simulator_companion.loop.domain.RealmMap;
+import net.lobby_simulator_companion.loop.domain.stats.Match;
+import net.lobby_simulator_companion.loop.repository.BinaryLoopDataCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares load/save times and sizes of the JSON and binary storage formats (in memory, without encryption).
+ * <p>
+ * The match log only keeps the latest matches, so each data set holds a full match log plus as many players
+ * as the nominal size (every match adds around one new player to the store).
+ *
+ * @author NickyRamone
+ */
+@Slf4j
+public class StorageBenchmark {
+
+    private static final int[] SIZES = {10_000, 100_000, 1_000_000};
+    private static final int ROUNDS = 3;
+
+    private final Random random = new Random(1);
+    private final Gson gson = LoopGsonFactory.gson(false);
+    private final BinaryLoopDataCodec codec = new BinaryLoopDataCodec();
+
+
+    public static void main(String[] args) throws IOException {
+        StorageBenchmark benchmark = new StorageBenchmark();
+
+        for (int size : SIZES) {
+            benchmark.run(size);
+        }
+    }
+
+    private void run(int size) throws IOException {
+        LoopData loopData = generateData(size);
+        long jsonSaveMillis = Long.MAX_VALUE;
+        long jsonLoadMillis = Long.MAX_VALUE;
+        long binarySaveMillis = Long.MAX_VALUE;
+        long binaryLoadMillis = Long.MAX_VALUE;
+        byte[] json = null;
+        byte[] binary = null;
+
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            json = saveJson(loopData);
+            jsonSaveMillis = Math.min(jsonSaveMillis, elapsedMillis(start));
+
+            start = System.nanoTime();
+            gson.fromJson(new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8),
+                    LoopData.class);
+            jsonLoadMillis = Math.min(jsonLoadMillis, elapsedMillis(start));
+
+            start = System.nanoTime();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            codec.encode(loopData, out);
+            binary = out.toByteArray();
+            binarySaveMillis = Math.min(binarySaveMillis, elapsedMillis(start));
+
+            start = System.nanoTime();
+            codec.decode(new ByteArrayInputStream(binary));
+            binaryLoadMillis = Math.min(binaryLoadMillis, elapsedMillis(start));
+        }
+
+        log.info("{} players: JSON {} KB (save {} ms; load {} ms) | binary {} KB (save {} ms; load {} ms)",
+                size,
+                json.length / 1024, jsonSaveMillis, jsonLoadMillis,
+                binary.length / 1024, binarySaveMillis, binaryLoadMillis);
+    }
+
+    private byte[] saveJson(LoopData loopData) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+            gson.toJson(loopData, LoopData.class, writer);
+        }
+
+        return out.toByteArray();
+    }
+
+    private long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+
+    private LoopData generateData(int size) {
+        LoopData loopData = new LoopData();
+        List<Player> players = new ArrayList<>(size);
+        LocalDateTime date = LocalDateTime.of(2019, 1, 1, 0, 0);
+
+        for (int i = 0; i < size; i++) {
+            String steamId = String.valueOf(76561198000000000L + random.nextInt(Integer.MAX_VALUE));
+            date = date.plusSeconds(random.nextInt(600));
+            players.add(Player.builder()
+                    .steamId64(steamId)
+                    .dbdPlayerId(Long.toHexString(random.nextLong()))
+                    .names(Collections.singletonList("player " + steamId))
+                    .rating(Player.Rating.values()[random.nextInt(Player.Rating.values().length)])
+                    .firstSeen(date)
+                    .lastSeen(date.plusDays(random.nextInt(30)))
+                    .timesEncountered(1 + random.nextInt(5))
+                    .matchesPlayed(random.nextInt(5))
+                    .secondsPlayed(random.nextInt(5000))
+                    .escapes(random.nextInt(3))
+                    .deaths(random.nextInt(3))
+                    .build());
+        }
+        loopData.addPlayers(players);
+
+        for (int i = 0; i < size && i < 1000; i++) {
+            date = date.plusMinutes(10 + random.nextInt(20));
+            loopData.getMatchLog().add(Match.builder()
+                    .lobbiesFound(1 + random.nextInt(3))
+                    .secondsQueued(random.nextInt(180))
+                    .secondsWaited(60 + random.nextInt(180))
+                    .secondsPlayed(180 + random.nextInt(1000))
+                    .matchStartTime(date)
+                    .escaped(random.nextBoolean())
+                    .killer(Killer.values()[random.nextInt(Killer.values().length)])
+                    .realmMap(RealmMap.values()[random.nextInt(RealmMap.values().length)])
+                    .killerPlayerSteamId64(players.get(random.nextInt(players.size())).getSteamId64())
+                    .build());
+        }
+
+        return loopData;
+    }
+
+}
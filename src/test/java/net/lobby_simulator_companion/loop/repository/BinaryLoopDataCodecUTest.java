@@ -0,0 +1,101 @@
+package net.lobby_simulator_companion.loop.repository;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParser;
+import net.lobby_simulator_companion.loop.config.LoopGsonFactory;
+import net.lobby_simulator_companion.loop.domain.Killer;
+import net.lobby_simulator_companion.loop.domain.LoopData;
+import net.lobby_simulator_companion.loop.domain.Player;
+import net.lobby_simulator_companion.loop.domain.RealmMap;
+import net.lobby_simulator_companion.loop.domain.stats.Match;
+import net.lobby_simulator_companion.loop.domain.stats.MatchNetworkStats;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author NickyRamone
+ */
+public class BinaryLoopDataCodecUTest {
+
+    private final Gson gson = LoopGsonFactory.gson(false);
+    private final BinaryLoopDataCodec codec = new BinaryLoopDataCodec();
+    private LoopData loopData;
+
+
+    @Before
+    public void setUp() {
+        loopData = new LoopData();
+        loopData.addPlayers(Arrays.asList(
+                Player.builder()
+                        .steamId64("76561198000000001")
+                        .dbdPlayerId("dbd-1")
+                        .names(Arrays.asList("Meg", "Meg Thomas"))
+                        .description("fast")
+                        .rating(Player.Rating.THUMBS_UP)
+                        .firstSeen(LocalDateTime.of(2020, 3, 1, 10, 30, 15))
+                        .lastSeen(LocalDateTime.of(2020, 4, 2, 22, 0, 0))
+                        .timesEncountered(7)
+                        .matchesPlayed(5)
+                        .secondsPlayed(3000)
+                        .escapes(2)
+                        .deaths(3)
+                        .build(),
+                Player.builder()
+                        .steamId64("76561198000000002")
+                        .dbdPlayerId("dbd-2")
+                        .build()));
+
+        for (int i = 0; i < 50; i++) {
+            loopData.getMatchLog().add(Match.builder()
+                    .lobbiesFound(1 + i % 3)
+                    .secondsQueued(30 + i)
+                    .secondsWaited(90 + i)
+                    .secondsPlayed(600 + i * 10)
+                    .matchStartTime(LocalDateTime.of(2020, 5, 1, 12, 0).plusMinutes(i * 15L))
+                    .escaped(i % 4 == 0 ? null : i % 2 == 0)
+                    .killer(Killer.values()[i % Killer.values().length])
+                    .realmMap(i % 5 == 0 ? null : RealmMap.values()[i % RealmMap.values().length])
+                    .serverRegion(i % 2 == 0 ? "Frankfurt, DE" : null)
+                    .killerPlayerSteamId64(i % 3 == 0 ? "76561198000000001" : null)
+                    .networkStats(i % 4 == 0 ? null : new MatchNetworkStats(40 + i, 60 + i, 200, 3, 1000 + i,
+                            30_000 + i, 20_000, 4_000_000, 1_500_000, i, 1, 900, new int[]{10, 5000, 20000, 40, 4, 0, 1, 2}))
+                    .build());
+        }
+        loopData.getStats().addMatchStats(loopData.getMatchLog().getMatches().get(0));
+    }
+
+
+    @Test
+    public void decode__shouldRestoreEncodedData() throws IOException {
+        LoopData decoded = codec.decode(new ByteArrayInputStream(encode(loopData)));
+
+        assertThat(new JsonParser().parse(gson.toJson(decoded)),
+                equalTo(new JsonParser().parse(gson.toJson(loopData))));
+    }
+
+    @Test(expected = IOException.class)
+    public void decode__corruptBlock__shouldFail() throws IOException {
+        byte[] data = encode(loopData);
+        data[data.length / 2] ^= 0x10;
+
+        codec.decode(new ByteArrayInputStream(data));
+    }
+
+
+    private byte[] encode(LoopData loopData) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.encode(loopData, out);
+
+        return out.toByteArray();
+    }
+
+}
@@ -0,0 +1,223 @@
+package net.lobby_simulator_companion.loop.repository;
+
+import net.lobby_simulator_companion.loop.config.LoopGsonFactory;
+import net.lobby_simulator_companion.loop.domain.Server;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author NickyRamone
+ */
+public class CachingServerDaoUTest {
+
+    private static final long TTL = 1000;
+
+    private File directory;
+    private File cacheFile;
+    private final AtomicInteger retrievals = new AtomicInteger();
+    private volatile boolean serviceDown;
+    private long time = 1_600_000_000_000L;
+
+    private final ServerDao remoteDao = ipAddress -> {
+        retrievals.incrementAndGet();
+        if (serviceDown) {
+            throw new IOException("Service unavailable");
+        }
+        return Server.builder()
+                .address(ipAddress)
+                .city("City " + retrievals.get())
+                .country("Country")
+                .build();
+    };
+
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("server-cache").toFile();
+        cacheFile = new File(directory, "servers.json");
+    }
+
+    @After
+    public void tearDown() {
+        for (File f : directory.listFiles()) {
+            f.delete();
+        }
+        directory.delete();
+    }
+
+
+    @Test
+    public void getByIpAddress__knownServer__shouldNotRetrieveAgain() throws IOException {
+        CachingServerDao dao = createDao(remoteDao);
+
+        Server server = dao.getByIpAddress("1.2.3.4");
+        server.setLatency(80);
+        Server cachedServer = dao.getByIpAddress("1.2.3.4");
+
+        assertThat(retrievals.get(), equalTo(1));
+        assertThat(cachedServer.getCity(), equalTo("City 1"));
+        assertThat(cachedServer.getLatency(), equalTo(null));
+        assertThat(dao.getMetrics().getHits(), equalTo(1L));
+        assertThat(dao.getMetrics().getMisses(), equalTo(1L));
+        assertThat(dao.getMetrics().getHitRatio(), equalTo(0.5f));
+    }
+
+    @Test
+    public void getByIpAddress__expiredServer__shouldRetrieveAgain() throws IOException {
+        CachingServerDao dao = createDao(remoteDao);
+        dao.getByIpAddress("1.2.3.4");
+
+        time += TTL;
+        Server server = dao.getByIpAddress("1.2.3.4");
+
+        assertThat(retrievals.get(), equalTo(2));
+        assertThat(server.getCity(), equalTo("City 2"));
+    }
+
+    @Test
+    public void getByIpAddress__expiredServerAndServiceDown__shouldReturnCachedServer() throws IOException {
+        CachingServerDao dao = createDao(remoteDao);
+        dao.getByIpAddress("1.2.3.4");
+
+        time += TTL;
+        serviceDown = true;
+        Server server = dao.getByIpAddress("1.2.3.4");
+
+        assertThat(server.getCity(), equalTo("City 1"));
+        assertThat(dao.getMetrics().getStaleHits(), equalTo(1L));
+        assertThat(dao.getMetrics().getFailures(), equalTo(1L));
+    }
+
+    @Test(expected = IOException.class)
+    public void getByIpAddress__unknownServerAndServiceDown__shouldFail() throws IOException {
+        serviceDown = true;
+        createDao(remoteDao).getByIpAddress("1.2.3.4");
+    }
+
+    @Test
+    public void constructor__shouldLoadServersFromDisk() throws IOException {
+        CachingServerDao dao = createDao(remoteDao);
+        dao.getByIpAddress("1.2.3.4");
+        dao.getByIpAddress("5.6.7.8");
+
+        serviceDown = true;
+        dao = createDao(remoteDao);
+
+        assertThat(dao.getMetrics().getSize(), equalTo(2));
+        assertThat(dao.getByIpAddress("1.2.3.4").getCity(), equalTo("City 1"));
+        assertThat(dao.getByIpAddress("5.6.7.8").getCity(), equalTo("City 2"));
+        assertThat(retrievals.get(), equalTo(2));
+    }
+
+    @Test
+    public void getByIpAddress__fullCache__shouldEvictLeastRecentlyUsed() throws IOException {
+        CachingServerDao dao = new CachingServerDao(remoteDao, null, LoopGsonFactory.gson(false), 2, TTL,
+                () -> time);
+        dao.getByIpAddress("1.1.1.1");
+        dao.getByIpAddress("2.2.2.2");
+        dao.getByIpAddress("1.1.1.1");
+        dao.getByIpAddress("3.3.3.3");
+
+        dao.getByIpAddress("1.1.1.1");
+        assertThat(retrievals.get(), equalTo(3));
+        dao.getByIpAddress("2.2.2.2");
+        assertThat(retrievals.get(), equalTo(4));
+    }
+
+    @Test
+    public void getByIpAddress__concurrentLookups__shouldRetrieveOnce() throws Exception {
+        CountDownLatch retrievalStarted = new CountDownLatch(1);
+        CountDownLatch retrievalReleased = new CountDownLatch(1);
+        CachingServerDao dao = createDao(ipAddress -> {
+            retrievalStarted.countDown();
+            try {
+                retrievalReleased.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            return remoteDao.getByIpAddress(ipAddress);
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            List<Future<Server>> lookups = new ArrayList<>();
+            lookups.add(executor.submit(() -> dao.getByIpAddress("1.2.3.4")));
+            retrievalStarted.await(5, TimeUnit.SECONDS);
+            for (int i = 0; i < 3; i++) {
+                lookups.add(executor.submit(() -> dao.getByIpAddress("1.2.3.4")));
+            }
+            while (dao.getMetrics().getCoalesced() < 3) {
+                Thread.sleep(1);
+            }
+            retrievalReleased.countDown();
+
+            for (Future<Server> lookup : lookups) {
+                assertThat(lookup.get(5, TimeUnit.SECONDS).getCity(), equalTo("City 1"));
+            }
+            assertThat(retrievals.get(), equalTo(1));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void getByIpAddress__retrievedByOtherLookupAfterExpiring__shouldNotRetrieveAgain() throws Exception {
+        AtomicBoolean interleaveLookup = new AtomicBoolean();
+        AtomicReference<CachingServerDao> daoRef = new AtomicReference<>();
+        // when enabled, the next clock reading runs another lookup to completion, as if it had finished its
+        // retrieval right after this lookup found the server expired
+        CachingServerDao dao = new CachingServerDao(remoteDao, cacheFile, LoopGsonFactory.gson(false), 10, TTL, () -> {
+            if (interleaveLookup.compareAndSet(true, false)) {
+                Thread otherLookup = new Thread(() -> {
+                    try {
+                        daoRef.get().getByIpAddress("1.2.3.4");
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                otherLookup.start();
+                try {
+                    otherLookup.join(5000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return time;
+        });
+        daoRef.set(dao);
+        dao.getByIpAddress("1.2.3.4");
+
+        time += TTL;
+        interleaveLookup.set(true);
+        Server server = dao.getByIpAddress("1.2.3.4");
+
+        assertThat(retrievals.get(), equalTo(2));
+        assertThat(server.getCity(), equalTo("City 2"));
+        assertThat(dao.getMetrics().getHits(), equalTo(1L));
+    }
+
+
+    private CachingServerDao createDao(ServerDao delegate) {
+        return new CachingServerDao(delegate, cacheFile, LoopGsonFactory.gson(false), 10, TTL, () -> time);
+    }
+
+}
@@ -0,0 +1,116 @@
+package net.lobby_simulator_companion.loop.repository;
+
+import org.junit.Test;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author NickyRamone
+ */
+public class ChunkedAesGcmEnvelopeUTest {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private final ChunkedAesGcmEnvelope envelope =
+            new ChunkedAesGcmEnvelope(new SecretKeySpec(new byte[16], "AES"), CHUNK_SIZE);
+
+
+    @Test
+    public void open__shouldRestoreSealedPayload() throws IOException {
+        for (int length : new int[]{0, 1, CHUNK_SIZE, CHUNK_SIZE * 10 + 7}) {
+            byte[] payload = randomPayload(length);
+
+            assertThat(envelope.open(new ByteArrayInputStream(seal(payload))), equalTo(payload));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void open__tamperedChunk__shouldFail() throws IOException {
+        byte[] sealed = seal(randomPayload(CHUNK_SIZE * 3));
+        sealed[sealed.length / 2] ^= 1;
+
+        envelope.open(new ByteArrayInputStream(sealed));
+    }
+
+    @Test(expected = IOException.class)
+    public void open__truncatedData__shouldFail() throws IOException {
+        byte[] sealed = seal(randomPayload(CHUNK_SIZE * 3));
+        // drop the whole last chunk, so that every remaining chunk is intact
+        byte[] truncated = Arrays.copyOf(sealed, findLastFrameStart(sealed));
+
+        envelope.open(new ByteArrayInputStream(truncated));
+    }
+
+    @Test(expected = IOException.class)
+    public void open__truncatedAfterHeader__shouldFail() throws IOException {
+        byte[] sealed = seal(randomPayload(CHUNK_SIZE * 3));
+        // no chunk frames at all
+        byte[] truncated = Arrays.copyOf(sealed, ChunkedAesGcmEnvelope.MAGIC.length + 1 + 4 + 8);
+
+        envelope.open(new ByteArrayInputStream(truncated));
+    }
+
+    @Test
+    public void open__chunkCountTimesChunkSizeOverflowing__shouldRestoreSealedPayload() throws IOException {
+        byte[] payload = randomPayload(CHUNK_SIZE * 40);
+        byte[] sealed = seal(payload);
+        // the chunk size is not authenticated; 40 chunks of 64 MiB would not fit in an int
+        setChunkSize(sealed, 1 << 26);
+
+        assertThat(envelope.open(new ByteArrayInputStream(sealed)), equalTo(payload));
+    }
+
+    @Test(expected = IOException.class)
+    public void open__corruptChunkSize__shouldFail() throws IOException {
+        byte[] sealed = seal(randomPayload(CHUNK_SIZE));
+        setChunkSize(sealed, Integer.MAX_VALUE);
+
+        envelope.open(new ByteArrayInputStream(sealed));
+    }
+
+
+    private void setChunkSize(byte[] sealed, int chunkSize) {
+        ByteBuffer.wrap(sealed).putInt(ChunkedAesGcmEnvelope.MAGIC.length + 1, chunkSize);
+    }
+
+    private int findLastFrameStart(byte[] sealed) {
+        int position = ChunkedAesGcmEnvelope.MAGIC.length + 1 + 4 + 8;
+        int lastFrameStart = position;
+        while (position < sealed.length) {
+            lastFrameStart = position;
+            int sealedLength = ((sealed[position + 4] & 0xFF) << 24) | ((sealed[position + 5] & 0xFF) << 16)
+                    | ((sealed[position + 6] & 0xFF) << 8) | (sealed[position + 7] & 0xFF);
+            position += 8 + sealedLength;
+        }
+
+        return lastFrameStart;
+    }
+
+    private byte[] seal(byte[] payload) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        envelope.seal(payload, out);
+
+        return out.toByteArray();
+    }
+
+    private byte[] randomPayload(int length) {
+        Random random = new Random(length);
+        byte[] payload = new byte[length];
+        for (int i = 0; i < length; i++) {
+            // compressible, but not trivially
+            payload[i] = (byte) ('a' + random.nextInt(8));
+        }
+
+        return payload;
+    }
+
+}
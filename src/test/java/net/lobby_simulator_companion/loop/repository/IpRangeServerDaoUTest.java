@@ -0,0 +1,70 @@
+package net.lobby_simulator_companion.loop.repository;
+
+import net.lobby_simulator_companion.loop.domain.Server;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author NickyRamone
+ */
+public class IpRangeServerDaoUTest {
+
+    private final ServerDao fallback = ipAddress -> Server.builder().address(ipAddress).city("Online").build();
+
+    private File directory;
+    private IpRangeTable table;
+
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("ip-ranges").toFile();
+        File csvFile = new File(directory, "ranges.csv");
+        Files.write(csvFile.toPath(),
+                Collections.singletonList("18.228.0.0,18.231.255.255,Brazil,Sao Paulo,Sao Paulo,-23.5475,-46.6361,BR"),
+                StandardCharsets.UTF_8);
+        table = IpRangeTable.open(csvFile);
+    }
+
+    @After
+    public void tearDown() {
+        for (File f : directory.listFiles()) {
+            f.delete();
+        }
+        directory.delete();
+    }
+
+
+    @Test
+    public void getByIpAddress__addressInTable__shouldLocateOffline() throws IOException {
+        Server server = new IpRangeServerDao(table, fallback).getByIpAddress("18.229.1.2");
+
+        assertThat(server.getAddress(), equalTo("18.229.1.2"));
+        assertThat(server.getCity(), equalTo("Sao Paulo"));
+        assertThat(server.getCountryCode(), equalTo("BR"));
+        assertThat(server.getLatitude(), equalTo(-23.5475));
+    }
+
+    @Test
+    public void getByIpAddress__addressNotInTable__shouldUseFallback() throws IOException {
+        IpRangeServerDao dao = new IpRangeServerDao(table, fallback);
+
+        assertThat(dao.getByIpAddress("52.1.2.3").getCity(), equalTo("Online"));
+        assertThat(dao.getByIpAddress("2001:db8::1").getCity(), equalTo("Online"));
+    }
+
+    @Test(expected = IOException.class)
+    public void getByIpAddress__addressNotInTableWithoutFallback__shouldFail() throws IOException {
+        new IpRangeServerDao(table, null).getByIpAddress("52.1.2.3");
+    }
+
+}
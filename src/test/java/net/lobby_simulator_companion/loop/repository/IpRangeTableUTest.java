@@ -0,0 +1,114 @@
+package net.lobby_simulator_companion.loop.repository;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author NickyRamone
+ */
+public class IpRangeTableUTest {
+
+    private File directory;
+    private File csvFile;
+
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("ip-ranges").toFile();
+        csvFile = new File(directory, "ranges.csv");
+        writeCsv(
+                "start,end,country,region,city,latitude,longitude,country_code",
+                "1.0.0.0,1.0.0.255,Australia,Queensland,Brisbane,-27.4679,153.0281,AU",
+                "18.228.0.0,18.231.255.255,Brazil,Sao Paulo,Sao Paulo,-23.5475,-46.6361,BR",
+                "# a comment",
+                "2001:db8::,2001:db8::ffff,Nowhere,,,,",
+                // not sorted, and as integers (203.0.113.0 - 203.0.113.255)
+                "3405803776,3405804031,Documentation,,\"Example, City\",,",
+                "255.255.255.0,255.255.255.255,Broadcast,,,0,0",
+                "18.230.0.0,18.230.0.255,Overlapping,,,,");
+    }
+
+    @After
+    public void tearDown() {
+        for (File f : directory.listFiles()) {
+            f.delete();
+        }
+        directory.delete();
+    }
+
+
+    @Test
+    public void find__addressInRange__shouldReturnLocation() throws IOException {
+        IpRangeTable table = IpRangeTable.open(csvFile);
+
+        IpRangeTable.Location location = table.find(ip("18.229.10.20"));
+
+        assertThat(location.getCountry(), equalTo("Brazil"));
+        assertThat(location.getCountryCode(), equalTo("BR"));
+        assertThat(location.getRegion(), equalTo("Sao Paulo"));
+        assertThat(location.getCity(), equalTo("Sao Paulo"));
+        assertThat(location.getLatitude(), equalTo(-23.5475));
+        assertThat(location.getLongitude(), equalTo(-46.6361));
+    }
+
+    @Test
+    public void find__rangeBoundaries__shouldBeIncluded() throws IOException {
+        IpRangeTable table = IpRangeTable.open(csvFile);
+
+        assertThat(table.find(ip("1.0.0.0")).getCity(), equalTo("Brisbane"));
+        assertThat(table.find(ip("1.0.0.255")).getCity(), equalTo("Brisbane"));
+        assertThat(table.find(ip("203.0.113.0")).getCity(), equalTo("Example, City"));
+        assertThat(table.find(ip("255.255.255.255")).getCountry(), equalTo("Broadcast"));
+    }
+
+    @Test
+    public void find__addressOutOfRanges__shouldReturnNull() throws IOException {
+        IpRangeTable table = IpRangeTable.open(csvFile);
+
+        assertThat(table.find(ip("0.255.255.255")), equalTo(null));
+        assertThat(table.find(ip("1.0.1.0")), equalTo(null));
+        assertThat(table.find(ip("128.0.0.0")), equalTo(null));
+        assertThat(table.find(ip("203.0.114.0")), equalTo(null));
+    }
+
+    @Test
+    public void open__shouldSkipInvalidAndOverlappingRanges() throws IOException {
+        IpRangeTable table = IpRangeTable.open(csvFile);
+
+        assertThat(table.size(), equalTo(4));
+        assertThat(table.find(ip("18.230.0.1")).getCountry(), equalTo("Brazil"));
+        assertThat(table.find(ip("203.0.113.7")).getLatitude(), equalTo(null));
+    }
+
+    @Test
+    public void open__csvChanged__shouldCompileAgain() throws IOException {
+        IpRangeTable.open(csvFile);
+        writeCsv("1.0.0.0,1.0.0.255,Australia,Victoria,Melbourne,-37.814,144.9633,AU");
+        csvFile.setLastModified(System.currentTimeMillis() + 10_000);
+
+        IpRangeTable table = IpRangeTable.open(csvFile);
+
+        assertThat(table.size(), equalTo(1));
+        assertThat(table.find(ip("1.0.0.1")).getCity(), equalTo("Melbourne"));
+    }
+
+
+    private void writeCsv(String... lines) throws IOException {
+        Files.write(csvFile.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+    }
+
+    private static int ip(String address) {
+        return (int) IpRangeTable.parseIpv4(address);
+    }
+
+}
@@ -0,0 +1,225 @@
+package net.lobby_simulator_companion.loop.repository;
+
+import net.lobby_simulator_companion.loop.domain.Killer;
+import net.lobby_simulator_companion.loop.domain.LoopData;
+import net.lobby_simulator_companion.loop.domain.Player;
+import net.lobby_simulator_companion.loop.domain.RealmMap;
+import net.lobby_simulator_companion.loop.domain.stats.Match;
+import net.lobby_simulator_companion.loop.domain.stats.MatchHistorySummary;
+import net.lobby_simulator_companion.loop.domain.stats.MatchNetworkStats;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author NickyRamone
+ */
+public class JdbcLoopDataStoreUTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2020, 1, 1, 0, 0);
+    private static final String KILLER_PLAYER = "76561197960287930";
+
+    private final List<JdbcLoopDataStore> openedStores = new ArrayList<>();
+    private JdbcLoopDataStore store;
+
+
+    @Before
+    public void setUp() throws IOException {
+        store = openStore();
+
+        // one match a day, alternating killers and maps
+        for (int i = 1; i <= 10; i++) {
+            store.appendMatch(Match.builder()
+                    .id(i)
+                    .matchStartTime(START.plusDays(i - 1))
+                    .killer(i % 2 == 0 ? Killer.CLOWN : Killer.CANNIBAL)
+                    .realmMap(i % 2 == 0 ? RealmMap.BLOOD_LODGE : RealmMap.AZAROVS_RESTING_PLACE)
+                    .killerPlayerSteamId64(i % 5 == 0 ? KILLER_PLAYER : null)
+                    .escaped(i % 3 == 0)
+                    .lobbiesFound(1)
+                    .secondsQueued(60)
+                    .secondsWaited(30)
+                    .secondsPlayed(600)
+                    .build());
+        }
+        store.flush();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (JdbcLoopDataStore openedStore : openedStores) {
+            openedStore.close();
+        }
+    }
+
+
+    @Test
+    public void loadSnapshot__nothingStored__shouldReturnNewSnapshot() throws IOException {
+        JdbcLoopDataStore emptyStore = openStore();
+
+        assertThat(emptyStore.hasSnapshot(), equalTo(false));
+        assertThat(emptyStore.loadSnapshot().getMatchLog().matchCount(), equalTo(0));
+    }
+
+    @Test
+    public void saveSnapshot__savedTwice__shouldKeepLastOne() throws IOException {
+        LoopData loopData = new LoopData();
+        loopData.addPlayers(singlePlayer());
+        loopData.getMatchLog().add(Match.builder().id(1).build());
+        store.saveSnapshot(loopData);
+        loopData.getMatchLog().add(Match.builder().id(2).build());
+        store.saveSnapshot(loopData);
+        store.flush();
+
+        LoopData storedData = store.loadSnapshot();
+
+        assertThat(store.hasSnapshot(), equalTo(true));
+        assertThat(storedData.getMatchLog().matchCount(), equalTo(2));
+        // players are stored on their own
+        assertThat(storedData.getPlayers().isEmpty(), equalTo(true));
+    }
+
+    @Test
+    public void upsertPlayer__shouldInsertAndThenUpdate() throws IOException {
+        Player player = singlePlayer().get(0);
+        store.upsertPlayer(player);
+        player.setDescription("camper");
+        store.upsertPlayer(player);
+
+        List<Player> players = new ArrayList<>();
+        store.forEachPlayer(players::add);
+
+        assertThat(players.size(), equalTo(1));
+        assertThat(store.findPlayer(KILLER_PLAYER).getDescription(), equalTo("camper"));
+        assertThat(store.findPlayer("unknown"), nullValue());
+    }
+
+    @Test
+    public void appendMatch__shouldStoreEveryColumn() throws IOException {
+        MatchNetworkStats networkStats = MatchNetworkStats.fromValues(new int[]{80, 120, 200, 5, 300});
+        store.appendMatch(Match.builder()
+                .id(11)
+                .matchStartTime(START.plusDays(10))
+                .killer(Killer.CLOWN)
+                .serverRegion("South America")
+                .killCount(3)
+                .networkStats(networkStats)
+                .build());
+
+        Match match = store.findMatches(new int[]{11}).get(0);
+
+        assertThat(match.getMatchStartTime(), equalTo(START.plusDays(10)));
+        assertThat(match.getKiller(), equalTo(Killer.CLOWN));
+        assertThat(match.getRealmMap(), nullValue());
+        assertThat(match.getServerRegion(), equalTo("South America"));
+        assertThat(match.getEscaped(), nullValue());
+        assertThat(match.getKillCount(), equalTo(3));
+        assertThat(match.getNetworkStats().getLatencyP95(), equalTo(120));
+        assertThat(store.getMaxMatchId(), equalTo(11));
+    }
+
+    @Test
+    public void updateMatch__shouldReplaceStoredValues() throws IOException {
+        Match match = store.findMatches(new int[]{4}).get(0);
+        match.setEscaped(true);
+        match.setKillCount(2);
+
+        store.updateMatch(match);
+
+        Match storedMatch = store.findMatches(new int[]{4}).get(0);
+        assertThat(storedMatch.getEscaped(), equalTo(true));
+        assertThat(storedMatch.getKillCount(), equalTo(2));
+        assertThat(storedMatch.getKiller(), equalTo(Killer.CLOWN));
+    }
+
+    @Test
+    public void removeMatch__shouldDeleteOnlyThatMatch() throws IOException {
+        store.removeMatch(Match.builder().id(10).build());
+
+        assertThat(ids(store.findMatches(MatchQuery.all())), equalTo("[1, 2, 3, 4, 5, 6, 7, 8, 9]"));
+        assertThat(store.getMaxMatchId(), equalTo(9));
+    }
+
+    @Test
+    public void findMatches__query__shouldApplyEveryCriteria() throws IOException {
+        assertThat(ids(store.findMatches(MatchQuery.between(START.plusDays(2), START.plusDays(4)))),
+                equalTo("[3, 4, 5]"));
+        assertThat(ids(store.findMatches(MatchQuery.builder().killer(Killer.CLOWN).build())),
+                equalTo("[2, 4, 6, 8, 10]"));
+        assertThat(ids(store.findMatches(MatchQuery.builder().realmMap(RealmMap.AZAROVS_RESTING_PLACE).build())),
+                equalTo("[1, 3, 5, 7, 9]"));
+        assertThat(ids(store.findMatches(MatchQuery.builder()
+                        .from(START.plusDays(5))
+                        .killer(Killer.CLOWN)
+                        .killerPlayerSteamId64(KILLER_PLAYER)
+                        .build())),
+                equalTo("[10]"));
+    }
+
+    @Test
+    public void findMatches__ids__shouldKeepGivenOrderAndSkipMissing() throws IOException {
+        assertThat(ids(store.findMatches(new int[]{7, 99, 2})), equalTo("[7, 2]"));
+    }
+
+    @Test
+    public void summarizeMatches__shouldOnlyCountMatchesWithinRange() throws IOException {
+        MatchHistorySummary summary = store.summarizeMatches(START.plusDays(1), START.plusDays(6));
+
+        // matches 2 to 7, of which 3 and 6 escaped
+        assertThat(summary.getMatchCount(), equalTo(6));
+        assertThat(summary.getMinMatchId(), equalTo(2));
+        assertThat(summary.getMaxMatchId(), equalTo(7));
+        assertThat(summary.getEscapes(), equalTo(2));
+        assertThat(summary.getDeaths(), equalTo(4));
+        assertThat(summary.getSecondsPlayed(), equalTo(3600L));
+        assertThat(store.summarizeMatches(START.minusDays(10), START.minusDays(1)).getMatchCount(), equalTo(0));
+    }
+
+    @Test
+    public void copy__shouldCopyEverything() throws IOException {
+        LoopData loopData = new LoopData();
+        loopData.getMatchLog().add(Match.builder().id(10).build());
+        store.saveSnapshot(loopData);
+        store.upsertPlayer(singlePlayer().get(0));
+        JdbcLoopDataStore target = openStore();
+
+        LoopDataStore.copy(store, target);
+
+        assertThat(target.loadSnapshot().getMatchLog().matchCount(), equalTo(1));
+        assertThat(target.findPlayer(KILLER_PLAYER).getSteamId64(), equalTo(KILLER_PLAYER));
+        assertThat(ids(target.findMatches(MatchQuery.all())), equalTo(ids(store.findMatches(MatchQuery.all()))));
+        assertThat(target.summarizeMatches(START, START.plusDays(9)),
+                equalTo(store.summarizeMatches(START, START.plusDays(9))));
+    }
+
+
+    private JdbcLoopDataStore openStore() throws IOException {
+        JdbcLoopDataStore newStore = new JdbcLoopDataStore("jdbc:h2:mem:" + UUID.randomUUID());
+        openedStores.add(newStore);
+
+        return newStore;
+    }
+
+    private static List<Player> singlePlayer() {
+        List<Player> players = new ArrayList<>();
+        players.add(Player.builder().steamId64(KILLER_PLAYER).build());
+
+        return players;
+    }
+
+    private static String ids(List<Match> matches) {
+        return matches.stream().map(Match::getId).collect(Collectors.toList()).toString();
+    }
+
+}
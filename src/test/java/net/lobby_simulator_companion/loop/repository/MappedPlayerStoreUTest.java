@@ -0,0 +1,135 @@
+package net.lobby_simulator_companion.loop.repository;
+
+import net.lobby_simulator_companion.loop.domain.Player;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author NickyRamone
+ */
+public class MappedPlayerStoreUTest {
+
+    private File directory;
+    private File baseFile;
+    private MappedPlayerStore store;
+
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("player-store").toFile();
+        baseFile = new File(directory, "players");
+        store = new MappedPlayerStore(baseFile);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        store.close();
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+
+    @Test
+    public void put__shouldBeRetrievableAfterReopening() throws IOException {
+        Player player = createPlayer(76561198000000001L);
+        store.put(player);
+        store.close();
+
+        store = new MappedPlayerStore(baseFile);
+
+        assertThat(store.size(), equalTo(1));
+        assertThat(store.get("76561198000000001"), equalTo(player));
+        assertThat(store.get("76561198000000002"), nullValue());
+    }
+
+    @Test
+    public void put__modifiedPlayer__shouldReplaceStoredRecord() throws IOException {
+        Player player = createPlayer(76561198000000001L);
+        store.put(player);
+
+        player.incrementTimesEncountered();
+        player.setDescription("a much longer description that does not fit in the space allocated for the record");
+        player.addName("new name");
+        store.put(player);
+
+        assertThat(store.size(), equalTo(1));
+        assertThat(store.get("76561198000000001"), equalTo(player));
+    }
+
+    @Test
+    public void get__unknownRating__shouldReadPlayerWithoutRating() throws IOException {
+        Player player = createPlayer(76561198000000001L);
+        player.setRating(Player.Rating.THUMBS_UP);
+        store.put(player);
+        store.close();
+
+        // as if it was stored by a version with other ratings
+        File dataFile = MappedPlayerStore.getDataFile(baseFile);
+        String content = new String(Files.readAllBytes(dataFile.toPath()), StandardCharsets.ISO_8859_1);
+        Files.write(dataFile.toPath(), content.replace("THUMBS_UP", "THUMBS_XX").getBytes(StandardCharsets.ISO_8859_1));
+        store = new MappedPlayerStore(baseFile);
+
+        Player storedPlayer = store.get("76561198000000001");
+        assertThat(storedPlayer.getRating(), nullValue());
+        assertThat(storedPlayer.getNames(), equalTo(player.getNames()));
+    }
+
+    @Test
+    public void put__manyPlayers__shouldGrowIndex() throws IOException {
+        List<Player> players = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            Player player = createPlayer(76561198000000000L + i * 7919L);
+            players.add(player);
+            store.put(player);
+        }
+        store.close();
+        store = new MappedPlayerStore(baseFile);
+
+        assertThat(store.size(), equalTo(players.size()));
+        for (Player player : players) {
+            assertThat(store.get(player.getSteamId64()), equalTo(player));
+        }
+        List<Player> visited = new ArrayList<>();
+        store.forEach(visited::add);
+        assertThat(visited.size(), equalTo(players.size()));
+    }
+
+    @Test
+    public void supports__nonNumericId__shouldBeFalse() {
+        assertThat(MappedPlayerStore.supports("76561198000000001"), equalTo(true));
+        assertThat(MappedPlayerStore.supports("9a8e0c1e-6cb5-4c3b-9d1e-3f3c5cf0b5a1"), equalTo(false));
+        assertThat(MappedPlayerStore.supports(null), equalTo(false));
+        assertThat(store.get("abc"), nullValue());
+    }
+
+
+    private Player createPlayer(long steamId64) {
+        Player player = new Player();
+        player.setSteamId64(String.valueOf(steamId64));
+        player.setDbdPlayerId("dbd-" + steamId64);
+        player.setNames(new ArrayList<>(Arrays.asList("name " + steamId64)));
+        player.setFirstSeen(LocalDateTime.of(2020, 1, 1, 10, 0));
+        player.setLastSeen(LocalDateTime.of(2020, 2, 1, 10, 0));
+        player.setTimesEncountered((int) (steamId64 % 10));
+        player.setDeaths(2);
+
+        return player;
+    }
+
+}
@@ -0,0 +1,112 @@
+package net.lobby_simulator_companion.loop.repository;
+
+import net.lobby_simulator_companion.loop.domain.stats.Match;
+import net.lobby_simulator_companion.loop.domain.stats.MatchHistorySummary;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author NickyRamone
+ */
+public class MatchHistoryStoreUTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+    private File directory;
+    private MatchHistoryStore store;
+
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("match-history").toFile();
+        store = new MatchHistoryStore(directory);
+
+        // one match every 2 days, over 3 months
+        for (int i = 1; i <= 45; i++) {
+            store.add(Match.builder()
+                    .id(i)
+                    .matchStartTime(START.plusDays((i - 1) * 2L))
+                    .secondsPlayed(600)
+                    .escaped(i % 3 == 0)
+                    .killerPlayerSteamId64(i % 5 == 0 ? "76561197960287930" : null)
+                    .build());
+        }
+        store.save();
+    }
+
+    @After
+    public void tearDown() {
+        for (File f : directory.listFiles()) {
+            f.delete();
+        }
+        directory.delete();
+    }
+
+
+    @Test
+    public void constructor__shouldReadSegmentsFromDisk() throws IOException {
+        store = new MatchHistoryStore(directory);
+
+        assertThat(directory.list().length, equalTo(3));
+        assertThat(store.getMaxMatchId(), equalTo(45));
+        assertThat(store.getMatches(START, START.plusYears(1)).size(), equalTo(45));
+    }
+
+    @Test
+    public void getMatches__shouldReturnMatchesWithinRange() throws IOException {
+        List<Integer> ids = store.getMatches(LocalDateTime.of(2020, 1, 30, 0, 0), LocalDateTime.of(2020, 2, 4, 0, 0))
+                .stream()
+                .map(Match::getId)
+                .collect(Collectors.toList());
+
+        // started on Jan 30th, Feb 1st and Feb 3rd
+        assertThat(ids.toString(), equalTo("[16, 17, 18]"));
+    }
+
+    @Test
+    public void getMatches__query__shouldApplyEveryCriteria() throws IOException {
+        MatchQuery query = MatchQuery.builder()
+                .from(LocalDateTime.of(2020, 2, 1, 0, 0))
+                .killerPlayerSteamId64("76561197960287930")
+                .build();
+
+        List<Integer> ids = store.getMatches(query).stream()
+                .map(Match::getId)
+                .collect(Collectors.toList());
+
+        // killer player is set on every 5th match
+        assertThat(ids.toString(), equalTo("[20, 25, 30, 35, 40, 45]"));
+    }
+
+    @Test
+    public void summarize__shouldMatchSummaryOfMatchesWithinRange() throws IOException {
+        LocalDateTime from = LocalDateTime.of(2020, 1, 15, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2020, 3, 10, 0, 0);
+        MatchHistorySummary expected = new MatchHistorySummary();
+        store.getMatches(from, to).forEach(expected::add);
+
+        assertThat(store.summarize(from, to), equalTo(expected));
+    }
+
+    @Test
+    public void remove__matchInSealedSegment__shouldRewriteSegment() throws IOException {
+        store.remove(Match.builder().id(3).build());
+        store = new MatchHistoryStore(directory);
+
+        assertThat(store.getMatches(new int[]{2, 3, 4, 40}).stream().map(Match::getId).collect(Collectors.toList())
+                .toString(), equalTo("[2, 4, 40]"));
+        assertThat(store.summarize(START, START.plusYears(1)).getMatchCount(), equalTo(44));
+    }
+
+}
@@ -0,0 +1,138 @@
+package net.lobby_simulator_companion.loop.service;
+
+import net.lobby_simulator_companion.loop.domain.Connection;
+import net.lobby_simulator_companion.loop.service.network.TestFrames;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Feeds frames to the connection detection as if they were read from a capture file.
+ *
+ * @author NickyRamone
+ */
+public class DedicatedServerConnectionManagerUTest {
+
+    private static final String LOCAL = "192.168.0.10";
+    private static final String SERVER = "35.1.2.3";
+    private static final int LOCAL_PORT = 50000;
+    private static final int SERVER_PORT = 7777;
+
+    private final List<Connection> connections = new ArrayList<>();
+    private final List<Integer> pings = new ArrayList<>();
+    private int disconnections;
+    private DedicatedServerConnectionManager manager;
+    private long time;
+
+
+    @Before
+    public void setUp() throws Exception {
+        manager = DedicatedServerConnectionManager.detached(InetAddress.getByName(LOCAL), new SnifferListener() {
+            @Override
+            public void notifyMatchConnect(Connection connection) {
+                connections.add(connection);
+            }
+
+            @Override
+            public void notifyMatchDisconnect() {
+                disconnections++;
+            }
+
+            @Override
+            public void notifyPingUpdate(int ping) {
+                pings.add(ping);
+            }
+
+            @Override
+            public void handleException(Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        time = 1_600_000_000_000_000L;
+    }
+
+
+    @Test
+    public void processFrame__handshakeAndTraffic__shouldDetectConnectionAndLatency() {
+        // unrelated packets of the same size must not disturb the detection
+        send(LOCAL, 40000, "10.0.0.1", 5000, TestFrames.handshakePayload(0x05), 0);
+        performHandshake();
+
+        assertThat(connections.size(), equalTo(1));
+        Connection connection = connections.get(0);
+        assertThat(connection.getRemoteAddr().getHostAddress(), equalTo(SERVER));
+        assertThat(connection.getRemotePort(), equalTo(SERVER_PORT));
+        assertThat(connection.getLocalPort(), equalTo(LOCAL_PORT));
+        assertThat(connection.getLatency(), equalTo(50));
+
+        // five seconds of traffic, answered after 30 ms
+        for (int i = 0; i < 100; i++) {
+            send(LOCAL, LOCAL_PORT, SERVER, SERVER_PORT, new byte[60], 20);
+            send(SERVER, SERVER_PORT, LOCAL, LOCAL_PORT, new byte[80], 30);
+        }
+
+        assertThat(pings.isEmpty(), equalTo(false));
+        assertThat(pings.get(pings.size() - 1), equalTo(30));
+        assertThat(connection.getNetworkStats().getLatencyMedian(), equalTo(30));
+        assertThat(connection.getNetworkStats().getPacketsIn(), equalTo(100));
+        assertThat(connection.getNetworkStats().getPacketsOut(), equalTo(100));
+        assertThat(connection.getNetworkStats().getEstimatedLoss(), equalTo(0));
+        assertThat(disconnections, equalTo(0));
+    }
+
+    @Test
+    public void processFrame__strayInitiationDuringHandshake__shouldStillDetectConnection() {
+        send(LOCAL, LOCAL_PORT, SERVER, SERVER_PORT, TestFrames.handshakePayload(0x01, 0x07), 0);
+        // another application sends something that looks like a handshake initiation, and gets answered
+        send(LOCAL, 40000, "10.0.0.1", 5000, TestFrames.handshakePayload(0x01), 10);
+        send("10.0.0.1", 5000, LOCAL, 40000, TestFrames.handshakePayload(0x02), 10);
+        send(SERVER, SERVER_PORT, LOCAL, LOCAL_PORT, TestFrames.handshakePayload(0x02), 20);
+        send(LOCAL, LOCAL_PORT, SERVER, SERVER_PORT, TestFrames.handshakePayload(0x03), 60);
+        send(SERVER, SERVER_PORT, LOCAL, LOCAL_PORT, TestFrames.handshakePayload(0x04), 60);
+
+        assertThat(connections.size(), equalTo(1));
+        assertThat(connections.get(0).getRemoteAddr().getHostAddress(), equalTo(SERVER));
+        assertThat(connections.get(0).getLatency(), equalTo(50));
+    }
+
+    @Test
+    public void processFrame__serverSilence__shouldDetectDisconnection() {
+        performHandshake();
+        send(SERVER, SERVER_PORT, LOCAL, LOCAL_PORT, new byte[80], 100);
+
+        send(LOCAL, 40000, "10.0.0.1", 5000, new byte[10], 4950);
+        assertThat(disconnections, equalTo(0));
+
+        // detected within a timer tick of the timeout
+        send(LOCAL, 40000, "10.0.0.1", 5000, new byte[10], 150);
+        assertThat(disconnections, equalTo(1));
+
+        // a new handshake is detected after the disconnection
+        performHandshake();
+        assertThat(connections.size(), equalTo(2));
+    }
+
+
+    private void performHandshake() {
+        send(LOCAL, LOCAL_PORT, SERVER, SERVER_PORT, TestFrames.handshakePayload(0x01, 0x07), 0);
+        send(SERVER, SERVER_PORT, LOCAL, LOCAL_PORT, TestFrames.handshakePayload(0x02), 40);
+        send(LOCAL, LOCAL_PORT, SERVER, SERVER_PORT, TestFrames.handshakePayload(0x03), 60);
+        send(SERVER, SERVER_PORT, LOCAL, LOCAL_PORT, TestFrames.handshakePayload(0x04), 60);
+    }
+
+    /**
+     * Sends a frame the given milliseconds after the previous one.
+     */
+    private void send(String srcAddr, int srcPort, String dstAddr, int dstPort, byte[] payload, int delayMillis) {
+        time += delayMillis * 1000L;
+        byte[] frame = TestFrames.udp(srcAddr, srcPort, dstAddr, dstPort, payload);
+        manager.processFrame(frame, frame.length, time);
+    }
+
+}
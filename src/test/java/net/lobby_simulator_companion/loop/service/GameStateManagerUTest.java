@@ -0,0 +1,106 @@
+package net.lobby_simulator_companion.loop.service;
+
+import net.lobby_simulator_companion.loop.config.AppProperties;
+import net.lobby_simulator_companion.loop.domain.Connection;
+import net.lobby_simulator_companion.loop.domain.stats.Match;
+import net.lobby_simulator_companion.loop.domain.stats.MatchNetworkStats;
+import net.lobby_simulator_companion.loop.repository.SteamProfileDao;
+import net.lobby_simulator_companion.loop.service.log_event_orchestrators.ChaseEventManager;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Goes through the events of a match as they come from the sniffer, submitting it as done with Ctrl+Enter.
+ *
+ * @author NickyRamone
+ */
+public class GameStateManagerUTest {
+
+    private final List<Match> addedMatches = new ArrayList<>();
+    private GameStateManager gameStateManager;
+
+
+    @Before
+    public void setUp() {
+        LoopDataService dataService = new LoopDataService(() -> null) {
+            @Override
+            public synchronized void addMatch(Match match) {
+                addedMatches.add(match);
+            }
+        };
+
+        gameStateManager = new GameStateManager(mock(AppProperties.class), dataService, mock(SteamProfileDao.class),
+                mock(ChaseEventManager.class), false);
+    }
+
+
+    @Test
+    public void submitMatch__whileConnected__shouldIncludeNetworkStats() throws Exception {
+        Connection connection = connect(new int[]{80, 120, 200, 5, 300});
+
+        submitMatch();
+
+        assertThat(addedMatches.size(), equalTo(1));
+        assertThat(addedMatches.get(0).getNetworkStats(), equalTo(connection.getNetworkStats()));
+    }
+
+    @Test
+    public void submitMatch__afterDisconnecting__shouldIncludeFinalNetworkStats() throws Exception {
+        Connection connection = connect(new int[]{80, 120, 200, 5, 300});
+        MatchNetworkStats finalStats = MatchNetworkStats.fromValues(new int[]{90, 130, 210, 6, 900});
+        connection.setNetworkStats(finalStats);
+        gameStateManager.fireEvent(GameEvent.DISCONNECTED);
+
+        submitMatch();
+
+        assertThat(addedMatches.get(0).getNetworkStats(), equalTo(finalStats));
+    }
+
+    @Test
+    public void submitMatch__withoutConnection__shouldNotIncludeEarlierNetworkStats() throws Exception {
+        connect(new int[]{80, 120, 200, 5, 300});
+        submitMatch();
+        gameStateManager.fireEvent(GameEvent.DISCONNECTED);
+
+        submitMatch();
+
+        assertThat(addedMatches.size(), equalTo(2));
+        assertThat(addedMatches.get(1).getNetworkStats(), nullValue());
+    }
+
+    @Test
+    public void submitMatch__earlierLobbyNotSubmitted__shouldOnlyIncludeLastConnection() throws Exception {
+        connect(new int[]{80, 120, 200, 5, 300});
+        gameStateManager.fireEvent(GameEvent.DISCONNECTED);
+        Connection connection = connect(new int[]{40, 60, 90, 2, 100});
+
+        submitMatch();
+
+        assertThat(addedMatches.get(0).getNetworkStats(), equalTo(connection.getNetworkStats()));
+    }
+
+
+    private Connection connect(int[] networkStatsValues) throws Exception {
+        Connection connection = new Connection(InetAddress.getByName("192.168.0.10"), 50000,
+                InetAddress.getByName("35.1.2.3"), 7777);
+        connection.setNetworkStats(MatchNetworkStats.fromValues(networkStatsValues));
+        gameStateManager.fireEvent(GameEvent.CONNECTED_TO_LOBBY, connection);
+
+        return connection;
+    }
+
+    private void submitMatch() {
+        gameStateManager.getCurrentMatch().setEscaped(true);
+        gameStateManager.updateAggregateStatsWithMatchResults();
+    }
+
+}
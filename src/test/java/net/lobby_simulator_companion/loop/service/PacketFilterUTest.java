@@ -0,0 +1,75 @@
+package net.lobby_simulator_companion.loop.service;
+
+import net.lobby_simulator_companion.loop.service.network.TestFrames;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.pcap4j.core.BpfProgram;
+import org.pcap4j.core.Pcaps;
+import org.pcap4j.packet.namednumber.DataLinkType;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Runs frames through the compiled packet filters (requires the native pcap library; skipped without it).
+ *
+ * @author NickyRamone
+ */
+public class PacketFilterUTest {
+
+    private static final String LOCAL = "192.168.0.10";
+    private static final String SERVER = "35.1.2.3";
+    private static final int LOCAL_PORT = 50000;
+    private static final int SERVER_PORT = 7777;
+
+    private BpfProgram searchFilter;
+
+
+    @Before
+    public void setUp() throws Exception {
+        String expression = String.format(DedicatedServerConnectionManager.PACKET_FILTER__SEARCH_CONNECTION, LOCAL);
+        try {
+            searchFilter = Pcaps.compileFilter(150, DataLinkType.EN10MB, expression,
+                    BpfProgram.BpfCompileMode.OPTIMIZE, (Inet4Address) InetAddress.getByName("255.255.255.0"));
+        } catch (UnsatisfiedLinkError | NoClassDefFoundError | ExceptionInInitializerError e) {
+            Assume.assumeNoException(e);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        if (searchFilter != null) {
+            searchFilter.free();
+        }
+    }
+
+
+    @Test
+    public void searchFilter__handshake__shouldLetEveryStepPass() {
+        byte[] initiation = TestFrames.udp(LOCAL, LOCAL_PORT, SERVER, SERVER_PORT,
+                TestFrames.handshakePayload(0x01, 0x7f, 0x00, 0x00, 0x00));
+        byte[] response = TestFrames.udp(SERVER, SERVER_PORT, LOCAL, LOCAL_PORT, TestFrames.handshakePayload(0x02));
+        byte[] secondRequest = TestFrames.udp(LOCAL, LOCAL_PORT, SERVER, SERVER_PORT, TestFrames.handshakePayload(0x03));
+
+        assertThat(searchFilter.applyFilter(initiation), equalTo(true));
+        assertThat(searchFilter.applyFilter(response), equalTo(true));
+        assertThat(searchFilter.applyFilter(secondRequest), equalTo(true));
+        assertThat(searchFilter.applyFilter(response), equalTo(true));
+    }
+
+    @Test
+    public void searchFilter__otherPackets__shouldNotPass() {
+        byte[] otherSize = TestFrames.udp(SERVER, SERVER_PORT, LOCAL, LOCAL_PORT, new byte[60]);
+        byte[] otherHosts = TestFrames.udp("192.168.0.20", LOCAL_PORT, SERVER, SERVER_PORT,
+                TestFrames.handshakePayload(0x01));
+
+        assertThat(searchFilter.applyFilter(otherSize), equalTo(false));
+        assertThat(searchFilter.applyFilter(otherHosts), equalTo(false));
+    }
+
+}
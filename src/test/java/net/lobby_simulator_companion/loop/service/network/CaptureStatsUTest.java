@@ -0,0 +1,48 @@
+package net.lobby_simulator_companion.loop.service.network;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author NickyRamone
+ */
+public class CaptureStatsUTest {
+
+    @Test
+    public void snapshot__shouldAttributePcapTotalsToEachFilter() {
+        CaptureStats stats = new CaptureStats();
+
+        stats.switchFilter("search", 0, 0, 0);
+        stats.countDelivered();
+        stats.countUsed();
+        stats.switchFilter("match", 10, 1, 0);
+        stats.countDelivered();
+        stats.countDelivered();
+        stats.countUsed();
+        stats.switchFilter("search", 25, 1, 2);
+        stats.countDelivered();
+
+        List<CaptureStats.FilterStats> snapshot = stats.snapshot(30, 4, 2);
+
+        assertThat(snapshot.size(), equalTo(2));
+        CaptureStats.FilterStats search = snapshot.get(0);
+        assertThat(search.getFilter(), equalTo("search"));
+        assertThat(search.getReceived(), equalTo(15L));
+        assertThat(search.getDropped(), equalTo(4L));
+        assertThat(search.getDelivered(), equalTo(2L));
+        assertThat(search.getUsed(), equalTo(1L));
+        assertThat(search.getWasted(), equalTo(1L));
+
+        CaptureStats.FilterStats match = snapshot.get(1);
+        assertThat(match.getReceived(), equalTo(15L));
+        assertThat(match.getDropped(), equalTo(0L));
+        assertThat(match.getDroppedByInterface(), equalTo(2L));
+        assertThat(match.getDelivered(), equalTo(2L));
+        assertThat(match.getUsed(), equalTo(1L));
+    }
+
+}
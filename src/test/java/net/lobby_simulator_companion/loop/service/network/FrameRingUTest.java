@@ -0,0 +1,84 @@
+package net.lobby_simulator_companion.loop.service.network;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author NickyRamone
+ */
+public class FrameRingUTest {
+
+    @Test
+    public void drain__shouldHandFramesInOrderWithTheirTimestamps() {
+        FrameRing ring = new FrameRing(4, 8);
+        ring.offer(new byte[]{1, 2, 3}, 3, 100L);
+        ring.offer(new byte[]{4, 5}, 2, 200L);
+        List<String> handled = new ArrayList<>();
+
+        int count = ring.drain((frame, length, timestamp) ->
+                handled.add(timestamp + ":" + length + ":" + frame[length - 1]), 0, TimeUnit.MILLISECONDS);
+
+        assertThat(count, equalTo(2));
+        assertThat(handled.toString(), equalTo("[100:3:3, 200:2:5]"));
+        assertThat(ring.size(), equalTo(0));
+        assertThat(ring.getHighWaterMark(), equalTo(2));
+    }
+
+    @Test
+    public void offer__fullRing__shouldDropAndCountFrame() {
+        FrameRing ring = new FrameRing(3, 8);
+
+        for (int i = 0; i < 6; i++) {
+            ring.offer(new byte[]{(byte) i}, 1, i);
+        }
+
+        assertThat(ring.getCapacity(), equalTo(4));
+        assertThat(ring.size(), equalTo(4));
+        assertThat(ring.getDropped(), equalTo(2L));
+    }
+
+    @Test
+    public void offer__longFrame__shouldTruncateToSlotSize() {
+        FrameRing ring = new FrameRing(2, 4);
+        ring.offer(new byte[10], 10, 0L);
+        int[] length = new int[1];
+
+        ring.drain((frame, frameLength, timestamp) -> length[0] = frameLength, 0, TimeUnit.MILLISECONDS);
+
+        assertThat(length[0], equalTo(4));
+    }
+
+    @Test
+    public void put__concurrentConsumer__shouldDeliverEveryFrameInOrder() throws Exception {
+        FrameRing ring = new FrameRing(16, 8);
+        int frameCount = 100_000;
+        long[] expected = new long[1];
+        boolean[] ordered = {true};
+
+        Thread consumer = new Thread(() -> {
+            while (expected[0] < frameCount) {
+                ring.drain((frame, length, timestamp) -> {
+                    ordered[0] &= timestamp == expected[0] && frame[0] == (byte) timestamp;
+                    expected[0]++;
+                }, 10, TimeUnit.MILLISECONDS);
+            }
+        });
+        consumer.start();
+
+        for (int i = 0; i < frameCount; i++) {
+            ring.put(new byte[]{(byte) i}, 1, i);
+        }
+        consumer.join(10_000);
+
+        assertThat(expected[0], equalTo((long) frameCount));
+        assertThat(ordered[0], equalTo(true));
+        assertThat(ring.getDropped(), equalTo(0L));
+    }
+
+}
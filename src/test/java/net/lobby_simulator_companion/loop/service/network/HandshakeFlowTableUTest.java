@@ -0,0 +1,108 @@
+package net.lobby_simulator_companion.loop.service.network;
+
+import org.junit.Test;
+
+import java.net.InetAddress;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author NickyRamone
+ */
+public class HandshakeFlowTableUTest {
+
+    private static final String LOCAL = "192.168.0.10";
+    private static final String SERVER = "35.1.2.3";
+
+    private final UdpDatagram datagram = new UdpDatagram();
+    private final TimerWheel timerWheel = new TimerWheel(64, 100);
+    private final HandshakeFlowTable table = new HandshakeFlowTable(address(LOCAL), 5000, 4, timerWheel);
+
+
+    @Test
+    public void process__interleavedFlows__shouldCompleteEachOneOnItsOwn() {
+        process(LOCAL, 50000, SERVER, 7777, true, 0);
+        process(LOCAL, 40000, "10.0.0.1", 5000, true, 10);
+        process("10.0.0.1", 5000, LOCAL, 40000, false, 20);
+        process(SERVER, 7777, LOCAL, 50000, false, 40);
+        process(LOCAL, 50000, SERVER, 7777, false, 100);
+
+        assertThat(table.size(), equalTo(2));
+
+        HandshakeFlowTable.Flow flow = process(SERVER, 7777, LOCAL, 50000, false, 160);
+
+        assertThat(flow.getState(), equalTo(HandshakeFlowTable.State.HANDSHAKE_COMPLETE));
+        assertThat(flow.getRemoteAddr(), equalTo(address(SERVER)));
+        assertThat(flow.getRemotePort(), equalTo(7777));
+        assertThat(flow.getLocalPort(), equalTo(50000));
+        assertThat(flow.getLatency(), equalTo(50));
+        assertThat(table.size(), equalTo(1));
+    }
+
+    @Test
+    public void process__packetOfUntrackedFlow__shouldBeIgnored() {
+        assertThat(process(SERVER, 7777, LOCAL, 50000, false, 0), nullValue());
+        assertThat(process(LOCAL, 50000, SERVER, 7777, false, 0), nullValue());
+        assertThat(process(SERVER, 7777, "10.0.0.1", 50000, true, 0), nullValue());
+        assertThat(table.isEmpty(), equalTo(true));
+    }
+
+    @Test
+    public void process__flowsWithoutPackets__shouldExpire() {
+        process(LOCAL, 50000, SERVER, 7777, true, 0);
+        process(LOCAL, 50001, SERVER, 7777, true, 3000);
+        process(LOCAL, 50000, SERVER, 7777, true, 4000);
+        process(LOCAL, 50002, SERVER, 7777, true, 4500);
+
+        assertThat(timerWheel.advance(8500), equalTo(1));
+        assertThat(table.size(), equalTo(2));
+        assertThat(timerWheel.advance(9600), equalTo(2));
+        assertThat(table.isEmpty(), equalTo(true));
+    }
+
+    @Test
+    public void process__completedOrEvictedFlows__shouldCancelTheirTimeout() {
+        for (int i = 0; i < 5; i++) {
+            process(LOCAL, 50000 + i, SERVER, 7777, true, 0);
+        }
+        process(SERVER, 7777, LOCAL, 50004, false, 10);
+        process(LOCAL, 50004, SERVER, 7777, false, 20);
+        process(SERVER, 7777, LOCAL, 50004, false, 30);
+
+        assertThat(timerWheel.size(), equalTo(3));
+        table.clear();
+        assertThat(timerWheel.size(), equalTo(0));
+    }
+
+    @Test
+    public void process__tableFull__shouldDropLeastRecentlySeenFlow() {
+        for (int i = 0; i < 5; i++) {
+            process(LOCAL, 50000 + i, SERVER, 7777, true, i);
+        }
+
+        assertThat(table.size(), equalTo(4));
+        assertThat(process(SERVER, 7777, LOCAL, 50000, false, 10), nullValue());
+        assertThat(process(SERVER, 7777, LOCAL, 50004, false, 10).getState(),
+                equalTo(HandshakeFlowTable.State.HANDSHAKE1_RESPONDED));
+    }
+
+
+    private HandshakeFlowTable.Flow process(String srcAddr, int srcPort, String dstAddr, int dstPort,
+                                            boolean handshakeInit, long timeMillis) {
+        byte[] frame = TestFrames.udp(srcAddr, srcPort, dstAddr, dstPort, TestFrames.handshakePayload());
+        datagram.decode(UdpDatagram.LINK_TYPE_ETHERNET, frame, frame.length, timeMillis * 1000);
+
+        return table.process(datagram, handshakeInit, timeMillis);
+    }
+
+    private static int address(String address) {
+        try {
+            return UdpDatagram.toInt(InetAddress.getByName(address));
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+}
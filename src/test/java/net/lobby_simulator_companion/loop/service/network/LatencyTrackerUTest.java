@@ -0,0 +1,75 @@
+package net.lobby_simulator_companion.loop.service.network;
+
+import net.lobby_simulator_companion.loop.domain.stats.MatchNetworkStats;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author NickyRamone
+ */
+public class LatencyTrackerUTest {
+
+    private final LatencyTracker tracker = new LatencyTracker();
+
+
+    @Test
+    public void snapshot__shouldPairRequestsWithNextResponse() {
+        long time = 0;
+        // 100 round trips of 40 ms, then 10 of 200 ms; extra packets on either side are not paired
+        for (int i = 0; i < 110; i++) {
+            tracker.onOutgoing(time);
+            tracker.onOutgoing(time + 5_000);
+            time += i < 100 ? 40_000 : 200_000;
+            tracker.onIncoming(time);
+            tracker.onIncoming(time + 1_000);
+            time += 10_000;
+        }
+
+        LatencyTracker.Snapshot snapshot = tracker.snapshot(time);
+
+        assertThat(snapshot.getSamples(), equalTo(110));
+        assertThat(snapshot.getLatencyMedian(), equalTo(40));
+        assertThat(snapshot.getLatencyP95(), equalTo(200));
+        assertThat(snapshot.getLatencyMax(), equalTo(200));
+    }
+
+    @Test
+    public void snapshot__shouldMeasurePacketRatesSincePreviousSnapshot() {
+        tracker.snapshot(0);
+        for (int i = 0; i < 30; i++) {
+            tracker.onOutgoing(i * 33_000);
+            tracker.onIncoming(i * 33_000 + 20_000);
+            tracker.onIncoming(i * 33_000 + 25_000);
+        }
+
+        LatencyTracker.Snapshot snapshot = tracker.snapshot(1_000_000);
+
+        assertThat(snapshot.getPacketsOutPerSecond(), equalTo(30f));
+        assertThat(snapshot.getPacketsInPerSecond(), equalTo(60f));
+    }
+
+    @Test
+    public void summarize__shouldCoverEverySample() {
+        assertThat(tracker.summarize(), nullValue());
+
+        long time = 0;
+        for (int i = 0; i < 1000; i++) {
+            tracker.onOutgoing(time);
+            // alternating 30 / 50 ms
+            time += i % 2 == 0 ? 30_000 : 50_000;
+            tracker.onIncoming(time);
+        }
+
+        MatchNetworkStats stats = tracker.summarize();
+
+        assertThat(stats.getLatencySamples(), equalTo(1000));
+        assertThat(stats.getLatencyMedian(), equalTo(30));
+        assertThat(stats.getLatencyP95(), equalTo(50));
+        assertThat(stats.getLatencyMax(), equalTo(50));
+        assertThat(stats.getJitter(), equalTo(20));
+    }
+
+}
@@ -0,0 +1,57 @@
+package net.lobby_simulator_companion.loop.service.network;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+
+/**
+ * Builds captured frames for tests and benchmarks.
+ *
+ * @author NickyRamone
+ */
+public final class TestFrames {
+
+    private TestFrames() {
+    }
+
+
+    /**
+     * @return An Ethernet frame holding an IPv4/UDP datagram.
+     */
+    public static byte[] udp(String srcAddr, int srcPort, String dstAddr, int dstPort, byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.allocate(14 + 20 + 8 + payload.length);
+
+        buffer.put(new byte[12]).putShort((short) 0x0800);
+        buffer.put((byte) 0x45).put((byte) 0).putShort((short) (20 + 8 + payload.length))
+                .putInt(0)
+                .put((byte) 64).put((byte) 17).putShort((short) 0)
+                .put(address(srcAddr))
+                .put(address(dstAddr));
+        buffer.putShort((short) srcPort).putShort((short) dstPort).putShort((short) (8 + payload.length))
+                .putShort((short) 0);
+        buffer.put(payload);
+
+        return buffer.array();
+    }
+
+    /**
+     * @return A payload with the size of the handshake packets, starting with the given bytes.
+     */
+    public static byte[] handshakePayload(int... firstBytes) {
+        byte[] payload = new byte[29];
+        for (int i = 0; i < firstBytes.length; i++) {
+            payload[i] = (byte) firstBytes[i];
+        }
+
+        return payload;
+    }
+
+    private static byte[] address(String address) {
+        try {
+            return InetAddress.getByName(address).getAddress();
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+}
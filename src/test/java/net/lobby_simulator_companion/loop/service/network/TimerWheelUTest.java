@@ -0,0 +1,90 @@
+package net.lobby_simulator_companion.loop.service.network;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author NickyRamone
+ */
+public class TimerWheelUTest {
+
+    private final TimerWheel timerWheel = new TimerWheel(8, 100);
+    private final List<String> expired = new ArrayList<>();
+
+
+    @Test
+    public void advance__shouldExpireTimeoutsWithinATickOfTheirDeadline() {
+        timerWheel.schedule(250, () -> expired.add("a"));
+        timerWheel.schedule(520, () -> expired.add("b"));
+
+        timerWheel.advance(200);
+        assertThat(expired.toString(), equalTo("[]"));
+
+        timerWheel.advance(300);
+        assertThat(expired.toString(), equalTo("[a]"));
+
+        timerWheel.advance(599);
+        assertThat(expired.toString(), equalTo("[a]"));
+
+        timerWheel.advance(600);
+        assertThat(expired.toString(), equalTo("[a, b]"));
+        assertThat(timerWheel.size(), equalTo(0));
+    }
+
+    @Test
+    public void advance__deadlineBeyondAFullTurn__shouldWaitForIt() {
+        timerWheel.schedule(2050, () -> expired.add("a"));
+
+        timerWheel.advance(1000);
+        timerWheel.advance(2000);
+        assertThat(expired.toString(), equalTo("[]"));
+
+        timerWheel.advance(2100);
+        assertThat(expired.toString(), equalTo("[a]"));
+    }
+
+    @Test
+    public void reschedule__laterDeadline__shouldPostponeExpiry() {
+        TimerWheel.Timeout timeout = timerWheel.schedule(300, () -> expired.add("a"));
+
+        for (long time = 100; time <= 1000; time += 100) {
+            timerWheel.reschedule(timeout, time + 300);
+            timerWheel.advance(time);
+        }
+        assertThat(expired.toString(), equalTo("[]"));
+
+        timerWheel.advance(1300);
+        assertThat(expired.toString(), equalTo("[a]"));
+        assertThat(timeout.isPending(), equalTo(false));
+    }
+
+    @Test
+    public void reschedule__earlierDeadline__shouldBringExpiryForward() {
+        TimerWheel.Timeout timeout = timerWheel.schedule(700, () -> expired.add("a"));
+        timerWheel.reschedule(timeout, 200);
+
+        timerWheel.advance(200);
+
+        assertThat(expired.toString(), equalTo("[a]"));
+    }
+
+    @Test
+    public void cancel__shouldPreventExpiry() {
+        TimerWheel.Timeout a = timerWheel.schedule(100, () -> expired.add("a"));
+        TimerWheel.Timeout b = timerWheel.schedule(100, () -> expired.add("b"));
+        // expiring timeouts can cancel each other (timeouts of the same slot expire from the last one scheduled)
+        timerWheel.schedule(100, () -> timerWheel.cancel(b));
+        timerWheel.cancel(a);
+
+        timerWheel.advance(100);
+
+        assertThat(expired.toString(), equalTo("[]"));
+        assertThat(timerWheel.size(), equalTo(0));
+    }
+
+}
@@ -0,0 +1,93 @@
+package net.lobby_simulator_companion.loop.service.network;
+
+import net.lobby_simulator_companion.loop.domain.stats.MatchNetworkStats;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author NickyRamone
+ */
+public class TrafficTrackerUTest {
+
+    private final TrafficTracker tracker = new TrafficTracker();
+    private long time = 1_000_000L;
+
+
+    @Test
+    public void summarizeInto__steadyTraffic__shouldCountPacketsWithoutLoss() {
+        for (int i = 0; i < 100; i++) {
+            receive(100, 16);
+            tracker.onOutgoing(time, 60);
+        }
+
+        MatchNetworkStats stats = summarize();
+
+        assertThat(stats.getPacketsIn(), equalTo(100));
+        assertThat(stats.getPacketsOut(), equalTo(100));
+        assertThat(stats.getBytesIn(), equalTo(10_000));
+        assertThat(stats.getBytesOut(), equalTo(6_000));
+        assertThat(stats.getEstimatedLoss(), equalTo(0));
+        assertThat(stats.getLossBursts(), equalTo(0));
+        assertThat(stats.getLongestSilence(), equalTo(16));
+        assertThat(Arrays.toString(stats.getGapHistogram()), equalTo("[0, 99, 0, 0, 0, 0, 0, 0]"));
+    }
+
+    @Test
+    public void summarizeInto__gaps__shouldEstimateLossAndBursts() {
+        for (int i = 0; i < 100; i++) {
+            receive(100, 16);
+        }
+        // one packet missing, then three in a row, then two seconds of silence
+        receive(100, 32);
+        receive(100, 64);
+        receive(100, 2000);
+
+        MatchNetworkStats stats = summarize();
+
+        assertThat(stats.getEstimatedLoss(), equalTo(1 + 3 + 124));
+        assertThat(stats.getLossBursts(), equalTo(2));
+        assertThat(stats.getLongestSilence(), equalTo(2000));
+        assertThat(Arrays.toString(stats.getGapHistogram()), equalTo("[0, 99, 1, 1, 0, 0, 0, 1]"));
+        assertThat(stats.getLossRate() > 50, equalTo(true));
+    }
+
+    @Test
+    public void summarizeInto__sparseTraffic__shouldNotEstimateLoss() {
+        for (int i = 0; i < 10; i++) {
+            receive(100, 500);
+        }
+        receive(100, 3000);
+
+        assertThat(summarize().getEstimatedLoss(), equalTo(0));
+    }
+
+    @Test
+    public void reset__shouldClearCounters() {
+        receive(100, 16);
+        receive(100, 16);
+        tracker.reset();
+
+        MatchNetworkStats stats = summarize();
+
+        assertThat(stats.getPacketsIn(), equalTo(0));
+        assertThat(stats.getLongestSilence(), equalTo(0));
+    }
+
+
+    private void receive(int bytes, int gapMillis) {
+        time += gapMillis * 1000L;
+        tracker.onIncoming(time, bytes);
+    }
+
+    private MatchNetworkStats summarize() {
+        MatchNetworkStats stats = new MatchNetworkStats();
+        tracker.summarizeInto(stats);
+
+        return stats;
+    }
+
+}
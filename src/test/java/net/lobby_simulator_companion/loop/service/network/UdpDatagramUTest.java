@@ -0,0 +1,93 @@
+package net.lobby_simulator_companion.loop.service.network;
+
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author NickyRamone
+ */
+public class UdpDatagramUTest {
+
+    private final UdpDatagram datagram = new UdpDatagram();
+
+
+    @Test
+    public void decode__ethernetFrame__shouldReadUdpFields() throws Exception {
+        byte[] frame = ethernetFrame(false, 17, new byte[]{0x01, 0x00, 0x00, 0x00, 0x00});
+
+        assertThat(datagram.decode(UdpDatagram.LINK_TYPE_ETHERNET, frame, frame.length, 1_234_567L), equalTo(true));
+        assertThat(datagram.getSrcInetAddress(), equalTo(InetAddress.getByName("192.168.0.10")));
+        assertThat(datagram.getDstInetAddress(), equalTo(InetAddress.getByName("35.1.2.3")));
+        assertThat(datagram.getSrcPort(), equalTo(50000));
+        assertThat(datagram.getDstPort(), equalTo(7777));
+        assertThat(datagram.getPayloadLength(), equalTo(5));
+        assertThat(datagram.getIpLength(), equalTo(33));
+        assertThat(datagram.getTimestamp(), equalTo(1234L));
+        assertThat(datagram.getTimestampMicros(), equalTo(1_234_567L));
+        assertThat(datagram.payloadByte(0), equalTo(1));
+        assertThat(datagram.payloadByte(4), equalTo(0));
+        assertThat(datagram.payloadByte(5), equalTo(-1));
+    }
+
+    @Test
+    public void decode__vlanTaggedFrame__shouldReadUdpFields() {
+        byte[] frame = ethernetFrame(true, 17, new byte[]{0x01, 0x02});
+
+        assertThat(datagram.decode(UdpDatagram.LINK_TYPE_ETHERNET, frame, frame.length, 0L), equalTo(true));
+        assertThat(datagram.getDstPort(), equalTo(7777));
+        assertThat(datagram.payloadByte(1), equalTo(2));
+    }
+
+    @Test
+    public void decode__truncatedFrame__shouldKeepStatedPayloadLength() {
+        byte[] frame = ethernetFrame(false, 17, new byte[29]);
+
+        assertThat(datagram.decode(UdpDatagram.LINK_TYPE_ETHERNET, frame, frame.length - 20, 0L), equalTo(true));
+        assertThat(datagram.getPayloadLength(), equalTo(29));
+        assertThat(datagram.payloadByte(0), equalTo(0));
+        assertThat(datagram.payloadByte(28), equalTo(-1));
+    }
+
+    @Test
+    public void decode__tcpPacket__shouldBeRejected() {
+        byte[] frame = ethernetFrame(false, 6, new byte[4]);
+
+        assertThat(datagram.decode(UdpDatagram.LINK_TYPE_ETHERNET, frame, frame.length, 0L), equalTo(false));
+    }
+
+    @Test
+    public void toInt__shouldRoundTrip() throws Exception {
+        InetAddress address = InetAddress.getByName("203.0.113.250");
+
+        assertThat(UdpDatagram.toInetAddress(UdpDatagram.toInt(address)), equalTo(address));
+    }
+
+
+    static byte[] ethernetFrame(boolean vlan, int ipProtocol, byte[] payload) {
+        int linkHeaderLen = vlan ? 18 : 14;
+        ByteBuffer buffer = ByteBuffer.allocate(linkHeaderLen + 20 + 8 + payload.length);
+
+        buffer.put(new byte[12]);
+        if (vlan) {
+            buffer.putShort((short) 0x8100).putShort((short) 1);
+        }
+        buffer.putShort((short) 0x0800);
+
+        buffer.put((byte) 0x45).put((byte) 0).putShort((short) (20 + 8 + payload.length))
+                .putInt(0)
+                .put((byte) 64).put((byte) ipProtocol).putShort((short) 0)
+                .put(new byte[]{(byte) 192, (byte) 168, 0, 10})
+                .put(new byte[]{35, 1, 2, 3});
+
+        buffer.putShort((short) 50000).putShort((short) 7777).putShort((short) (8 + payload.length)).putShort((short) 0);
+        buffer.put(payload);
+
+        return buffer.array();
+    }
+
+}
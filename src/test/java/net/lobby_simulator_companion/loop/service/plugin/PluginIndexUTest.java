@@ -0,0 +1,62 @@
+package net.lobby_simulator_companion.loop.service.plugin;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author NickyRamone
+ */
+public class PluginIndexUTest {
+
+    private Path pluginRoot;
+
+
+    @Before
+    public void setUp() throws IOException {
+        pluginRoot = Files.createTempDirectory("plugin-index");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(pluginRoot)) {
+            files.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+        }
+    }
+
+
+    @Test
+    public void parse__shouldSkipCommentsAndBlankLines() throws IOException {
+        String index = "# generated\n\ncom.example.FirstPlugin\n  com.example.Outer$SecondPlugin  \n";
+
+        assertThat(PluginIndex.parse(new StringReader(index)).toString(),
+                equalTo("[com.example.FirstPlugin, com.example.Outer$SecondPlugin]"));
+    }
+
+    @Test
+    public void read__shouldReadIndexFromPluginRoot() throws IOException {
+        Path index = pluginRoot.resolve(PluginIndex.LOCATION);
+        Files.createDirectories(index.getParent());
+        Files.write(index, "com.example.Plugin\n".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(PluginIndex.read(pluginRoot.toUri().toURL()), equalTo(Collections.singletonList("com.example.Plugin")));
+    }
+
+    @Test
+    public void read__noIndex__shouldReturnEmptyList() throws IOException {
+        assertThat(PluginIndex.read(pluginRoot.toUri().toURL()).isEmpty(), equalTo(true));
+    }
+
+}
@@ -0,0 +1,88 @@
+package net.lobby_simulator_companion.loop.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author NickyRamone
+ */
+public class FileUtilUTest {
+
+    private File directory;
+    private File file;
+
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("file-util").toFile();
+        file = new File(directory, "data.dat");
+    }
+
+    @After
+    public void tearDown() {
+        for (File f : directory.listFiles()) {
+            f.delete();
+        }
+        directory.delete();
+    }
+
+
+    @Test
+    public void writeAtomically__shouldKeepRotatedBackups() throws IOException {
+        for (int i = 1; i <= 4; i++) {
+            String content = "version " + i;
+            FileUtil.writeAtomically(file, 2, out -> out.write(content.getBytes(StandardCharsets.UTF_8)));
+        }
+
+        assertThat(read(file), equalTo("version 4"));
+        assertThat(read(FileUtil.getSaveName(file, 1)), equalTo("version 3"));
+        assertThat(read(FileUtil.getSaveName(file, 2)), equalTo("version 2"));
+        assertThat(FileUtil.getSaveName(file, 3).exists(), equalTo(false));
+        assertThat(directory.list().length, equalTo(3));
+    }
+
+    @Test
+    public void writeAtomically__failedWrite__shouldKeepPreviousFile() throws IOException {
+        FileUtil.writeAtomically(file, 1, out -> out.write("original".getBytes(StandardCharsets.UTF_8)));
+
+        try {
+            FileUtil.writeAtomically(file, 1, out -> {
+                out.write("partial".getBytes(StandardCharsets.UTF_8));
+                throw new IOException("crash");
+            });
+        } catch (IOException e) {
+            // expected
+        }
+
+        assertThat(read(file), equalTo("original"));
+        assertThat(FileUtil.getSaveName(file, 1).exists(), equalTo(false));
+    }
+
+    @Test
+    public void copyToBackup__shouldKeepIndependentCopies() throws IOException {
+        for (int i = 1; i <= 3; i++) {
+            Files.write(file.toPath(), ("version " + i).getBytes(StandardCharsets.UTF_8));
+            FileUtil.copyToBackup(file, 2);
+        }
+        Files.write(file.toPath(), "modified in place".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(read(FileUtil.getSaveName(file, 1)), equalTo("version 3"));
+        assertThat(read(FileUtil.getSaveName(file, 2)), equalTo("version 2"));
+        assertThat(directory.list().length, equalTo(3));
+    }
+
+
+    private String read(File f) throws IOException {
+        return new String(Files.readAllBytes(f.toPath()), StandardCharsets.UTF_8);
+    }
+
+}